@@ -0,0 +1,300 @@
+#!/usr/bin/env python3
+"""
+Cold-start harness: boots the Lambda handler in fresh processes and compares variants offline.
+
+Variants
+  jvm     plain JVM; ColdStartDriver calls MetaPingLambdaHandler.handleRequest in-process
+  appcds  same, with an AppCDS archive recorded by a training run (-XX:ArchiveClassesAtExit)
+  native  target/meta-ping through the bootstrap script against scripts/lambda-runtime-stub.py
+          (build it first with: mvn -Pnative -DskipTests package)
+
+Each run replays the canned S3 events (--event, in rotation) for --invocations invocations and records:
+  contextRefreshMs       Spring context refresh (handler constructor; native: "Started ... in" log line)
+  timeToFirstResponseMs  process start to first response
+  firstInvocationMs      the first handleRequest call alone
+  warmP50Ms/P90/P99      the remaining invocations (native: includes the loopback Runtime API round trip)
+  rssKb / peakRssKb      VmRSS / VmHWM after the last invocation (Linux only)
+
+Notifications are enabled and SNS points at a local stub via aws.sns.endpoint (AWS_SNS_ENDPOINT), so
+nothing leaves the machine. Every run is appended as a JSON line to --out; medians per variant are printed.
+--http-clients repeats every variant per aws.sns.http-client value (columns <variant>/<client>). The JVM classpath
+comes from the benchmarks build, which includes the aws-crt jar; the native image only has it when built with -Pcrt.
+
+Usage: scripts/cold-start-harness.py [--variants jvm,appcds,native] [--runs 5] [--invocations 50]
+                                     [--http-clients default,url-connection,apache]
+"""
+import argparse
+import json
+import os
+import re
+import shutil
+import statistics
+import subprocess
+import sys
+import threading
+import time
+import uuid
+from http.server import BaseHTTPRequestHandler, ThreadingHTTPServer
+from urllib.parse import parse_qs
+
+ROOT = os.path.dirname(os.path.dirname(os.path.abspath(__file__)))
+TARGET = os.path.join(ROOT, "target")
+WORK = os.path.join(TARGET, "cold-start")
+DRIVER = "com.iam.metaping.benchmarks.ColdStartDriver"
+RESULT_PREFIX = "COLDSTART "
+DEFAULT_EVENTS = [
+    os.path.join(ROOT, "src/test/resources/events/s3-object-created.json"),
+    os.path.join(ROOT, "src/test/resources/events/s3-object-created-batch.json"),
+]
+METRICS = ["contextRefreshMs", "timeToFirstResponseMs", "firstInvocationMs",
+           "warmP50Ms", "warmP90Ms", "warmP99Ms", "rssKb", "peakRssKb", "snsRequests"]
+SNS_NS = "http://sns.amazonaws.com/doc/2010-03-31/"
+
+
+class SnsStub:
+    """Answers SNS Publish / PublishBatch (query protocol) with success, counting requests."""
+
+    def __init__(self):
+        self.requests = 0
+        self._lock = threading.Lock()
+        stub = self
+
+        class Handler(BaseHTTPRequestHandler):
+            protocol_version = "HTTP/1.1"
+
+            def log_message(self, fmt, *a):
+                pass
+
+            def do_POST(self):
+                length = int(self.headers.get("Content-Length") or 0)
+                form = parse_qs(self.rfile.read(length).decode("utf-8"))
+                action = form.get("Action", [""])[0]
+                with stub._lock:
+                    stub.requests += 1
+                if action == "Publish":
+                    result = f"<MessageId>{uuid.uuid4()}</MessageId>"
+                elif action == "PublishBatch":
+                    ids = [v[0] for k, v in sorted(form.items()) if re.fullmatch(r"PublishBatchRequestEntries\.member\.\d+\.Id", k)]
+                    members = "".join(f"<member><Id>{i}</Id><MessageId>{uuid.uuid4()}</MessageId></member>" for i in ids)
+                    result = f"<Successful>{members}</Successful><Failed/>"
+                else:
+                    self._reply(400, f"<ErrorResponse xmlns=\"{SNS_NS}\"><Error><Type>Sender</Type>"
+                                     f"<Code>InvalidAction</Code><Message>{action}</Message></Error></ErrorResponse>")
+                    return
+                self._reply(200, f"<{action}Response xmlns=\"{SNS_NS}\"><{action}Result>{result}</{action}Result>"
+                                 f"<ResponseMetadata><RequestId>{uuid.uuid4()}</RequestId></ResponseMetadata>"
+                                 f"</{action}Response>")
+
+            def _reply(self, status, body):
+                data = body.encode("utf-8")
+                self.send_response(status)
+                self.send_header("Content-Type", "text/xml")
+                self.send_header("Content-Length", str(len(data)))
+                self.end_headers()
+                self.wfile.write(data)
+
+        self._server = ThreadingHTTPServer(("127.0.0.1", 0), Handler)
+        self._server.daemon_threads = True
+        self.endpoint = f"http://127.0.0.1:{self._server.server_address[1]}"
+        threading.Thread(target=self._server.serve_forever, daemon=True).start()
+
+    def take_count(self):
+        with self._lock:
+            count, self.requests = self.requests, 0
+        return count
+
+    def close(self):
+        self._server.shutdown()
+
+
+def app_env(sns_endpoint, http_client):
+    env = dict(os.environ)
+    env.update({
+        "NOTIFICATIONS_ENABLED": "true",
+        "AWS_SNS_HTTP_CLIENT": http_client,
+        "AWS_SNS_TOPIC_ARN": "arn:aws:sns:us-east-1:000000000000:meta-ping-cold-start",
+        "AWS_SNS_REGION": "us-east-1",
+        "AWS_SNS_ENDPOINT": sns_endpoint,
+        "AWS_REGION": "us-east-1",
+        "AWS_ACCESS_KEY_ID": "test",
+        "AWS_SECRET_ACCESS_KEY": "test",
+    })
+    return env
+
+
+def prepare_jvm(skip_build):
+    """Compiles main + benchmark sources and packs them as jars (CDS only archives classes loaded from jars)."""
+    classpath_file = os.path.join(WORK, "classpath.txt")
+    os.makedirs(WORK, exist_ok=True)
+    if not skip_build:
+        subprocess.run(["mvn", "-B", "-q", "-Pbenchmarks", "-DskipTests", "test-compile", "dependency:build-classpath",
+                        "-Dmdep.includeScope=test", f"-Dmdep.outputFile={classpath_file}"], cwd=ROOT, check=True)
+    jars = []
+    for name, classes in (("meta-ping-app.jar", "classes"), ("meta-ping-benchmarks.jar", "test-classes")):
+        jar = os.path.join(WORK, name)
+        subprocess.run(["jar", "--create", "--file", jar, "-C", os.path.join(TARGET, classes), "."], check=True)
+        jars.append(jar)
+    with open(classpath_file) as f:
+        return os.pathsep.join(jars + [f.read().strip()])
+
+
+def run_jvm(classpath, jvm_opts, extra_opts, events, invocations, env, timeout):
+    cmd = ["java", *jvm_opts, *extra_opts, "-Dspring.main.web-application-type=none",
+           "-cp", classpath, DRIVER, str(invocations), *events]
+    proc = subprocess.run(cmd, env=env, capture_output=True, text=True, timeout=timeout)
+    for line in proc.stdout.splitlines():
+        if line.startswith(RESULT_PREFIX):
+            return json.loads(line[len(RESULT_PREFIX):])
+    raise RuntimeError(f"driver exited with {proc.returncode} without a result:\n{proc.stdout[-4000:]}\n{proc.stderr[-4000:]}")
+
+
+def run_native(port, events, invocations, env, timeout):
+    binary = os.path.join(TARGET, "meta-ping")
+    if not os.access(binary, os.X_OK):
+        raise RuntimeError(f"{binary} not found; build it with: mvn -Pnative -DskipTests package")
+    task_root = os.path.join(WORK, "native")
+    os.makedirs(task_root, exist_ok=True)
+    shutil.copy2(os.path.join(ROOT, "src/main/native/bootstrap"), task_root)
+    shutil.copy2(binary, task_root)
+    out = os.path.join(task_root, "invocations.jsonl")
+    if os.path.exists(out):
+        os.remove(out)
+
+    stub_cmd = [sys.executable, os.path.join(ROOT, "scripts/lambda-runtime-stub.py"), "--port", str(port),
+                "--count", str(invocations), "--timeout", str(timeout), "--out", out]
+    for event in events:
+        stub_cmd += ["--event", event]
+    stub = subprocess.Popen(stub_cmd)
+    time.sleep(0.2)  # let the stub bind before the runtime starts polling
+    env = dict(env, AWS_LAMBDA_RUNTIME_API=f"127.0.0.1:{port}", LAMBDA_TASK_ROOT=task_root)
+    log_path = os.path.join(task_root, "runtime.log")
+    with open(log_path, "w") as log:
+        started = time.time() * 1000
+        runtime = subprocess.Popen([os.path.join(task_root, "bootstrap")], env=env, stdout=log, stderr=subprocess.STDOUT)
+        try:
+            if stub.wait(timeout + 5) != 0:
+                raise RuntimeError(f"native runtime did not answer {invocations} invocation(s); see {log_path}")
+            rss, peak = proc_status_kb(runtime.pid, "VmRSS"), proc_status_kb(runtime.pid, "VmHWM")
+        finally:
+            runtime.kill()
+            runtime.wait()
+            stub.kill()
+
+    with open(out) as f:
+        lines = sorted((json.loads(line) for line in f if line.strip()), key=lambda r: r["invocation"])
+    if not lines or lines[0]["status"] != "response":
+        raise RuntimeError(f"first invocation failed: {lines[:1]}; see {log_path}")
+    with open(log_path) as f:
+        refresh = re.search(r"Started \S+ in ([\d.]+) seconds", f.read())
+    warm = sorted(r["latencyMs"] for r in lines[1:])
+    return {
+        "contextRefreshMs": float(refresh.group(1)) * 1000 if refresh else None,
+        "firstInvocationMs": lines[0]["latencyMs"],
+        "timeToFirstResponseMs": round(lines[0]["respondedAt"] - started, 3),
+        "warmInvocations": len(warm),
+        "warmP50Ms": percentile(warm, 50),
+        "warmP90Ms": percentile(warm, 90),
+        "warmP99Ms": percentile(warm, 99),
+        "warmMaxMs": percentile(warm, 100),
+        "rssKb": rss,
+        "peakRssKb": peak,
+    }
+
+
+def percentile(sorted_values, pct):
+    """Nearest-rank percentile, matching ColdStartDriver."""
+    if not sorted_values:
+        return 0
+    rank = -(-pct * len(sorted_values) // 100)
+    return sorted_values[min(len(sorted_values), max(rank, 1)) - 1]
+
+
+def proc_status_kb(pid, field):
+    try:
+        with open(f"/proc/{pid}/status") as f:
+            for line in f:
+                if line.startswith(field + ":"):
+                    return int(line.split()[1])
+    except OSError:
+        pass
+    return -1
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__, formatter_class=argparse.RawDescriptionHelpFormatter)
+    parser.add_argument("--variants", default="jvm,appcds", help="comma-separated: jvm, appcds, native")
+    parser.add_argument("--runs", type=int, default=5, help="measured cold starts per variant")
+    parser.add_argument("--discard", type=int, default=1, help="unmeasured runs per variant (page cache, JIT files)")
+    parser.add_argument("--invocations", type=int, default=50, help="invocations per cold start")
+    parser.add_argument("--event", action="append", help="event JSON replayed in rotation (repeatable)")
+    parser.add_argument("--jvm-opts", default="-XX:+TieredCompilation -XX:TieredStopAtLevel=1",
+                        help="options for the JVM variants (default mirrors the Lambda Java runtime's tiered setting)")
+    parser.add_argument("--port", type=int, default=9001, help="Runtime API stub port (native)")
+    parser.add_argument("--timeout", type=float, default=120.0, help="seconds allowed per run")
+    parser.add_argument("--skip-build", action="store_true", help="reuse target/ from a previous run")
+    parser.add_argument("--http-clients", default="default",
+                        help="comma-separated aws.sns.http-client values: default, url-connection, apache, crt")
+    parser.add_argument("--out", default=os.path.join(WORK, "results.jsonl"))
+    args = parser.parse_args()
+
+    variants = [v.strip() for v in args.variants.split(",") if v.strip()]
+    unknown = set(variants) - {"jvm", "appcds", "native"}
+    if unknown:
+        parser.error(f"unknown variant(s): {', '.join(sorted(unknown))}")
+    clients = [c.strip() for c in args.http_clients.split(",") if c.strip()]
+    unknown = set(clients) - {"default", "url-connection", "apache", "crt"}
+    if unknown:
+        parser.error(f"unknown HTTP client(s): {', '.join(sorted(unknown))}")
+    events = [os.path.abspath(e) for e in (args.event or DEFAULT_EVENTS)]
+    jvm_opts = args.jvm_opts.split()
+
+    sns = SnsStub()
+    classpath = prepare_jvm(args.skip_build) if {"jvm", "appcds"} & set(variants) else None
+    os.makedirs(os.path.dirname(os.path.abspath(args.out)), exist_ok=True)
+    results = {}
+    try:
+        with open(args.out, "a") as out:
+            for client in clients:
+                env = app_env(sns.endpoint, client)
+                for variant in variants:
+                    label = variant if len(clients) == 1 else f"{variant}/{client}"
+                    extra = []
+                    if variant == "appcds":
+                        archive = os.path.join(WORK, f"meta-ping-app-{client}.jsa")
+                        if os.path.exists(archive):
+                            os.remove(archive)
+                        print(f"[{label}] training run -> {archive}", file=sys.stderr)
+                        run_jvm(classpath, jvm_opts, [f"-XX:ArchiveClassesAtExit={archive}"], events,
+                                args.invocations, env, args.timeout)
+                        extra = [f"-XX:SharedArchiveFile={archive}"]
+                    for run in range(-args.discard, args.runs):
+                        if variant == "native":
+                            result = run_native(args.port, events, args.invocations, env, args.timeout)
+                        else:
+                            result = run_jvm(classpath, jvm_opts, extra, events, args.invocations, env, args.timeout)
+                        result["snsRequests"] = sns.take_count()
+                        if run < 0:
+                            continue
+                        result.update(variant=variant, httpClient=client, run=run + 1, invocations=args.invocations)
+                        out.write(json.dumps(result) + "\n")
+                        out.flush()
+                        results.setdefault(label, []).append(result)
+                        print(f"[{label}] run {run + 1}/{args.runs}: first response "
+                              f"{result['timeToFirstResponseMs']:.0f} ms, warm p50 {result['warmP50Ms']:.2f} ms",
+                              file=sys.stderr)
+    finally:
+        sns.close()
+
+    print(f"\nMedians over {args.runs} run(s), {args.invocations} invocation(s) each; raw runs in {args.out}")
+    width = max([14] + [len(label) + 2 for label in results])
+    print(f"{'metric':<24}" + "".join(f"{label:>{width}}" for label in results))
+    for metric in METRICS:
+        cells = []
+        for runs in results.values():
+            values = [r[metric] for r in runs if r.get(metric) is not None]
+            cells.append(f"{statistics.median(values):>{width}.1f}" if values else f"{'n/a':>{width}}")
+        print(f"{metric:<24}" + "".join(cells))
+
+
+if __name__ == "__main__":
+    main()
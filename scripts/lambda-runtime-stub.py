@@ -0,0 +1,126 @@
+#!/usr/bin/env python3
+"""
+Minimal stand-in for the AWS Lambda Runtime API, used to drive a custom-runtime build
+(the native `bootstrap`) locally and offline.
+
+Serves --count invocations, cycling through the --event files in order, records each response and exits.
+One JSON line per invocation is written to --out (default stdout):
+  {"invocation": 1, "requestId": "...", "servedAt": <epoch ms>, "respondedAt": <epoch ms>,
+   "latencyMs": <ms>, "status": "response|error", "body": "..."}
+"""
+import argparse
+import json
+import sys
+import threading
+import time
+import uuid
+from http.server import BaseHTTPRequestHandler, ThreadingHTTPServer
+
+API_PREFIX = "/2018-06-01/runtime"
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__, formatter_class=argparse.RawDescriptionHelpFormatter)
+    parser.add_argument("--port", type=int, default=9001)
+    parser.add_argument("--event", required=True, action="append",
+                        help="path to an event JSON; repeat to serve several events in rotation")
+    parser.add_argument("--count", type=int, default=1, help="number of invocations to serve")
+    parser.add_argument("--timeout", type=float, default=60.0, help="seconds to wait before giving up")
+    parser.add_argument("--out", help="file receiving one JSON line per invocation (default stdout)")
+    args = parser.parse_args()
+
+    events = []
+    for path in args.event:
+        with open(path, "rb") as f:
+            events.append(f.read())
+
+    state = {"served": 0, "answered": 0, "pending": {}}
+    lock = threading.Lock()
+    done = threading.Event()
+    out = open(args.out, "a") if args.out else sys.stdout
+
+    class Handler(BaseHTTPRequestHandler):
+        protocol_version = "HTTP/1.1"
+
+        def log_message(self, fmt, *a):  # keep the runtime's own logs readable
+            pass
+
+        def do_GET(self):
+            if self.path != API_PREFIX + "/invocation/next":
+                self.send_error(404)
+                return
+            with lock:
+                if state["served"] >= args.count:
+                    invocation = None
+                else:
+                    state["served"] += 1
+                    invocation = state["served"]
+                    request_id = str(uuid.uuid4())
+                    state["pending"][request_id] = (invocation, time.time() * 1000)
+            if invocation is None:
+                # All invocations served: hold the long poll like the real API until we shut down
+                done.wait()
+                self.send_error(503)
+                return
+            event = events[(invocation - 1) % len(events)]
+            deadline = int(time.time() * 1000) + 900_000
+            self.send_response(200)
+            self.send_header("Content-Type", "application/json")
+            self.send_header("Content-Length", str(len(event)))
+            self.send_header("Lambda-Runtime-Aws-Request-Id", request_id)
+            self.send_header("Lambda-Runtime-Deadline-Ms", str(deadline))
+            self.send_header("Lambda-Runtime-Invoked-Function-Arn",
+                             "arn:aws:lambda:us-east-1:000000000000:function:meta-ping")
+            self.send_header("Lambda-Runtime-Trace-Id", "Root=1-00000000-000000000000000000000000;Sampled=0")
+            self.end_headers()
+            self.wfile.write(event)
+
+        def do_POST(self):
+            length = int(self.headers.get("Content-Length") or 0)
+            body = self.rfile.read(length).decode("utf-8", "replace") if length else ""
+            parts = self.path[len(API_PREFIX):].strip("/").split("/")
+            if parts[:1] == ["init"]:
+                out.write(json.dumps({"status": "init-error", "body": body}) + "\n")
+                out.flush()
+                self._accept()
+                done.set()
+                return
+            if len(parts) != 3 or parts[0] != "invocation" or parts[2] not in ("response", "error"):
+                self.send_error(404)
+                return
+            now = time.time() * 1000
+            with lock:
+                invocation, served_at = state["pending"].pop(parts[1], (None, now))
+                state["answered"] += 1
+                finished = state["answered"] >= args.count
+            out.write(json.dumps({
+                "invocation": invocation,
+                "requestId": parts[1],
+                "servedAt": round(served_at, 3),
+                "respondedAt": round(now, 3),
+                "latencyMs": round(now - served_at, 3),
+                "status": parts[2],
+                "body": body,
+            }) + "\n")
+            out.flush()
+            self._accept()
+            if finished:
+                done.set()
+
+        def _accept(self):
+            self.send_response(202)
+            self.send_header("Content-Length", "0")
+            self.end_headers()
+
+    server = ThreadingHTTPServer(("127.0.0.1", args.port), Handler)
+    server.daemon_threads = True
+    threading.Thread(target=server.serve_forever, daemon=True).start()
+    completed = done.wait(args.timeout)
+    server.shutdown()
+    if not completed:
+        print(f"Timed out after {args.timeout}s waiting for {args.count} invocation(s)", file=sys.stderr)
+        sys.exit(1)
+
+
+if __name__ == "__main__":
+    main()
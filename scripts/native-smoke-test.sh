@@ -0,0 +1,57 @@
+#!/usr/bin/env bash
+# Smoke test for the native Lambda artifact: runs target/meta-ping through the bootstrap script
+# against a local Runtime API stub with a canned S3 event, and checks the function's response.
+# Usage: mvn -Pnative -DskipTests package && scripts/native-smoke-test.sh
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+BINARY="${ROOT}/target/meta-ping"
+EVENT="${EVENT:-${ROOT}/src/test/resources/events/s3-object-created.json}"
+EXPECTED_KEY="${EXPECTED_KEY:-smoke-test/test file.pdf}"
+EXPECTED_TYPE="${EXPECTED_TYPE:-application/pdf}"
+PORT="${PORT:-9001}"
+WORK="$(mktemp -d)"
+trap 'kill "${RUNTIME_PID:-}" 2>/dev/null || true; rm -rf "${WORK}"' EXIT
+
+if [[ ! -x "${BINARY}" ]]; then
+  echo "Native executable not found at ${BINARY}; build it with: mvn -Pnative -DskipTests package" >&2
+  exit 1
+fi
+
+# Same layout as the deployment zip: bootstrap and executable side by side
+cp "${ROOT}/src/main/native/bootstrap" "${BINARY}" "${WORK}/"
+
+python3 "${ROOT}/scripts/lambda-runtime-stub.py" --port "${PORT}" --event "${EVENT}" --count 1 \
+  --timeout 60 --out "${WORK}/invocations.jsonl" &
+STUB_PID=$!
+
+# An empty topic ARN leaves SnsPublisher unconfigured, so nothing is published
+AWS_LAMBDA_RUNTIME_API="127.0.0.1:${PORT}" LAMBDA_TASK_ROOT="${WORK}" AWS_SNS_TOPIC_ARN="" \
+  "${WORK}/bootstrap" > "${WORK}/runtime.log" 2>&1 &
+RUNTIME_PID=$!
+
+if ! wait "${STUB_PID}"; then
+  echo "Native runtime did not answer the invocation; runtime log:" >&2
+  cat "${WORK}/runtime.log" >&2
+  exit 1
+fi
+
+cat "${WORK}/invocations.jsonl"
+# The response is the versioned metadata JSON; check the first record's decoded key and MIME type
+if python3 - "${WORK}/invocations.jsonl" "${EXPECTED_KEY}" "${EXPECTED_TYPE}" <<'PY'
+import json, sys
+invocation = json.loads(open(sys.argv[1]).readline())
+document = json.loads(invocation["body"])
+if isinstance(document, str):  # tolerate a JSON-encoded string response
+    document = json.loads(document)
+record = document["records"][0]
+sys.exit(0 if invocation["status"] == "response" and document["schemaVersion"] == 1
+         and record["key"] == sys.argv[2] and record["type"] == sys.argv[3] else 1)
+PY
+then
+  echo "Native smoke test passed"
+else
+  echo "Unexpected response (expected key '${EXPECTED_KEY}' of type '${EXPECTED_TYPE}'); runtime log:" >&2
+  cat "${WORK}/runtime.log" >&2
+  exit 1
+fi
@@ -0,0 +1,163 @@
+package com.iam.metaping.benchmarks;
+
+import com.amazonaws.services.lambda.runtime.events.S3Event;
+import com.amazonaws.services.lambda.runtime.events.models.s3.S3EventNotification;
+import com.iam.metaping.config.SnsProperties;
+import com.iam.metaping.service.MetaNotifier;
+import com.iam.metaping.service.SnsPublisher;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.sns.SnsClient;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequest;
+import software.amazon.awssdk.services.sns.model.PublishBatchResponse;
+import software.amazon.awssdk.services.sns.model.PublishBatchResultEntry;
+import software.amazon.awssdk.services.sns.model.PublishResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+
+/**
+ * Shared inputs for the benchmarks: realistic S3 keys and events, and SNS plumbing whose
+ * client is a stub, so measurements cover our code and SDK request building but no network.
+ */
+final class BenchmarkFixtures {
+
+    private static final String[] EXTENSIONS = {
+            "jpg", "jpg", "jpg", "png", "pdf", "pdf", "csv", "json", "txt", "parquet",
+            "webp", "heic", "tar.gz", "gz", "docx", "mp4", "bin", "unknownext"
+    };
+    private static final String[] PREFIXES = {
+            "uploads/2025/10/", "images/camera-roll/", "reports/finance/q3/", "lake/events/dt=2025-10-01/", ""
+    };
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Keys as S3 delivers them in events (URL-encoded). Roughly 70% need no decoding, 25% contain
+     * encoded spaces or punctuation, 5% contain multi-byte UTF-8 escapes.
+     */
+    static List<String> realisticKeys(int count, long seed) {
+        Random random = new Random(seed);
+        List<String> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String prefix = PREFIXES[random.nextInt(PREFIXES.length)];
+            String extension = EXTENSIONS[random.nextInt(EXTENSIONS.length)];
+            int kind = random.nextInt(100);
+            String name;
+            if (kind < 70) {
+                name = "IMG_" + (1000 + random.nextInt(9000)) + "-" + Long.toHexString(random.nextLong());
+            } else if (kind < 95) {
+                name = "Quarterly+report+%28final%29+v" + random.nextInt(10) + "%2C+signed";
+            } else {
+                name = "caf%C3%A9+men%C3%BC+%E2%82%AC" + random.nextInt(100);
+            }
+            keys.add(prefix + name + "." + extension);
+        }
+        return keys;
+    }
+
+    static S3Event event(List<String> keys) {
+        List<S3EventNotification.S3EventNotificationRecord> records = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            S3EventNotification.S3BucketEntity bucket = new S3EventNotification.S3BucketEntity("meta-ping-bucket", null, null);
+            S3EventNotification.S3ObjectEntity object = new S3EventNotification.S3ObjectEntity(
+                    key, 123_456L, "d41d8cd98f00b204e9800998ecf8427e", null, "0055AED6DCD90281E5");
+            S3EventNotification.S3Entity s3Entity = new S3EventNotification.S3Entity("meta-ping-upload", bucket, object, "1.0");
+            records.add(new S3EventNotification.S3EventNotificationRecord(
+                    "us-east-1", "ObjectCreated:Put", "aws:s3", null, "2.1", null, null, s3Entity, null));
+        }
+        return new S3Event(records);
+    }
+
+    /**
+     * SNS client stub answering Publish and PublishBatch immediately; every other operation is unsupported.
+     */
+    static SnsClient stubSnsClient() {
+        PublishResponse publishResponse = PublishResponse.builder().messageId("benchmark").build();
+        return (SnsClient) Proxy.newProxyInstance(SnsClient.class.getClassLoader(), new Class<?>[]{SnsClient.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "publish" -> publishResponse;
+                    case "publishBatch" -> acknowledgeAll((PublishBatchRequest) args[0]);
+                    case "serviceName" -> "sns";
+                    case "close" -> null;
+                    case "toString" -> "StubSnsClient";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * A configured publisher whose SNS client is replaced with {@link #stubSnsClient()}.
+     */
+    static SnsPublisher stubbedPublisher() {
+        SnsProperties props = new SnsProperties();
+        props.setTopicArn("arn:aws:sns:us-east-1:000000000000:meta-ping-benchmark");
+        props.setRegion("us-east-1");
+        SnsPublisher publisher = new SnsPublisher(props);
+        ReflectionTestUtils.setField(publisher, "snsClient", stubSnsClient());
+        return publisher;
+    }
+
+    /**
+     * Loopback HTTP server answering every request with a successful SNS Publish response, so the SDK's
+     * HTTP client, connection handling and response parsing run for real. Stop it when done.
+     */
+    static HttpServer snsEndpoint() throws IOException {
+        byte[] response = ("<PublishResponse xmlns=\"http://sns.amazonaws.com/doc/2010-03-31/\"><PublishResult>"
+                + "<MessageId>benchmark</MessageId></PublishResult><ResponseMetadata><RequestId>benchmark</RequestId>"
+                + "</ResponseMetadata></PublishResponse>").getBytes(StandardCharsets.UTF_8);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 128);
+        server.createContext("/", exchange -> {
+            try (InputStream body = exchange.getRequestBody(); OutputStream out = exchange.getResponseBody()) {
+                body.transferTo(OutputStream.nullOutputStream());
+                exchange.getResponseHeaders().set("Content-Type", "text/xml");
+                exchange.sendResponseHeaders(200, response.length);
+                out.write(response);
+            }
+        });
+        server.setExecutor(Executors.newFixedThreadPool(32));
+        server.start();
+        return server;
+    }
+
+    /**
+     * Settings of a publisher sending to {@code endpoint} with static test credentials.
+     */
+    static SnsProperties endpointProperties(String endpoint) {
+        System.setProperty("aws.accessKeyId", "test");
+        System.setProperty("aws.secretAccessKey", "test");
+        SnsProperties props = new SnsProperties();
+        props.setTopicArn("arn:aws:sns:us-east-1:000000000000:meta-ping-benchmark");
+        props.setRegion("us-east-1");
+        props.setEndpoint(endpoint);
+        props.setCircuitFailureThreshold(0);
+        return props;
+    }
+
+    static ObjectProvider<MetaNotifier> notifierProvider(MetaNotifier notifier) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        if (notifier != null) {
+            beanFactory.registerSingleton("metaNotifier", notifier);
+        }
+        return beanFactory.getBeanProvider(MetaNotifier.class);
+    }
+
+    private static PublishBatchResponse acknowledgeAll(PublishBatchRequest request) {
+        List<PublishBatchResultEntry> successful = new ArrayList<>(request.publishBatchRequestEntries().size());
+        request.publishBatchRequestEntries().forEach(entry ->
+                successful.add(PublishBatchResultEntry.builder().id(entry.id()).messageId("benchmark").build()));
+        return PublishBatchResponse.builder().successful(successful).build();
+    }
+}
@@ -0,0 +1,204 @@
+package com.iam.metaping.benchmarks;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.iam.metaping.MetaPingLambdaHandler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Entry point of one cold-start sample, run in a fresh JVM by {@code scripts/cold-start-harness.py}.
+ * <p>
+ * Boots {@link MetaPingLambdaHandler} the way the Lambda Java runtime does (constructor, then
+ * {@code handleRequest} per event), replays the canned events in order and prints one line
+ * {@code COLDSTART {json}} with the timings and resident set size. Everything else on stdout/stderr
+ * is application logging.
+ * <p>
+ * Usage: {@code ColdStartDriver <invocations> <event.json> [<event.json> ...]}
+ */
+public final class ColdStartDriver {
+
+    static final String RESULT_PREFIX = "COLDSTART ";
+
+    private ColdStartDriver() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        long mainEnteredNanos = System.nanoTime();
+        Instant processStart = ProcessHandle.current().info().startInstant().orElse(null);
+        long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+        if (args.length < 2) {
+            System.err.println("Usage: ColdStartDriver <invocations> <event.json> [<event.json> ...]");
+            System.exit(2);
+        }
+        int invocations = Integer.parseInt(args[0]);
+        List<byte[]> events = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            events.add(Files.readAllBytes(Path.of(args[i])));
+        }
+        long mainEnteredMillis = System.currentTimeMillis();
+
+        // The constructor refreshes the Spring context, as in the Lambda init phase
+        long initStart = System.nanoTime();
+        MetaPingLambdaHandler handler = new MetaPingLambdaHandler();
+        double contextRefreshMs = millisSince(initStart);
+
+        double firstInvocationMs = 0;
+        double timeToFirstResponseMs = 0;
+        double[] warm = new double[Math.max(0, invocations - 1)];
+        for (int i = 0; i < invocations; i++) {
+            byte[] event = events.get(i % events.size());
+            ByteArrayOutputStream response = new ByteArrayOutputStream(256);
+            long start = System.nanoTime();
+            handler.handleRequest(new ByteArrayInputStream(event), response, new StubContext());
+            double latencyMs = millisSince(start);
+            if (i == 0) {
+                firstInvocationMs = latencyMs;
+                timeToFirstResponseMs = processStart != null
+                        ? Duration.between(processStart, Instant.now()).toNanos() / 1_000_000.0
+                        : (mainEnteredMillis - jvmStartMillis) + millisSince(mainEnteredNanos);
+                if (response.size() == 0) {
+                    System.err.println("First invocation returned an empty response");
+                    System.exit(1);
+                }
+                System.err.println("First response: " + response.toString(StandardCharsets.UTF_8));
+            } else {
+                warm[i - 1] = latencyMs;
+            }
+        }
+        Arrays.sort(warm);
+
+        String result = String.format(Locale.ROOT,
+                "{\"jvmToMainMs\":%d,\"contextRefreshMs\":%.3f,\"firstInvocationMs\":%.3f,"
+                        + "\"timeToFirstResponseMs\":%.3f,\"warmInvocations\":%d,"
+                        + "\"warmP50Ms\":%.3f,\"warmP90Ms\":%.3f,\"warmP99Ms\":%.3f,\"warmMaxMs\":%.3f,"
+                        + "\"rssKb\":%d,\"peakRssKb\":%d}",
+                mainEnteredMillis - jvmStartMillis, contextRefreshMs, firstInvocationMs,
+                timeToFirstResponseMs, warm.length,
+                percentile(warm, 50), percentile(warm, 90), percentile(warm, 99), percentile(warm, 100),
+                procStatusKb("VmRSS"), procStatusKb("VmHWM"));
+        System.out.println(RESULT_PREFIX + result);
+        System.out.flush();
+        // FunctionInvoker keeps the context open; exit explicitly like a recycled Lambda container
+        System.exit(0);
+    }
+
+    /**
+     * Nearest-rank percentile over a sorted array; 0 for an empty array.
+     */
+    static double percentile(double[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.min(sorted.length, Math.max(rank, 1)) - 1];
+    }
+
+    /**
+     * Reads a kB-valued field of /proc/self/status (Linux); -1 elsewhere.
+     */
+    private static long procStatusKb(String field) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith(field + ":")) {
+                    return Long.parseLong(line.substring(field.length() + 1).replace("kB", "").trim());
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // not on Linux
+        }
+        return -1;
+    }
+
+    private static double millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000.0;
+    }
+
+    /**
+     * Just enough of the Lambda context for the adapter: a fresh request id per invocation.
+     */
+    private static final class StubContext implements Context {
+
+        private final String requestId = UUID.randomUUID().toString();
+
+        @Override
+        public String getAwsRequestId() {
+            return requestId;
+        }
+
+        @Override
+        public String getLogGroupName() {
+            return "/aws/lambda/meta-ping";
+        }
+
+        @Override
+        public String getLogStreamName() {
+            return "cold-start-harness";
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "meta-ping";
+        }
+
+        @Override
+        public String getFunctionVersion() {
+            return "$LATEST";
+        }
+
+        @Override
+        public String getInvokedFunctionArn() {
+            return "arn:aws:lambda:us-east-1:000000000000:function:meta-ping";
+        }
+
+        @Override
+        public CognitoIdentity getIdentity() {
+            return null;
+        }
+
+        @Override
+        public ClientContext getClientContext() {
+            return null;
+        }
+
+        @Override
+        public int getRemainingTimeInMillis() {
+            return 900_000;
+        }
+
+        @Override
+        public int getMemoryLimitInMB() {
+            return 512;
+        }
+
+        @Override
+        public LambdaLogger getLogger() {
+            return new LambdaLogger() {
+                @Override
+                public void log(String message) {
+                    System.err.print(message);
+                }
+
+                @Override
+                public void log(byte[] message) {
+                    System.err.write(message, 0, message.length);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.iam.metaping.benchmarks;
+
+import com.iam.metaping.service.MimeTypeResolver;
+import com.iam.metaping.service.S3KeyDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.URLConnection;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Key decoding and MIME inference over a realistic key distribution, each next to the JDK
+ * baseline it replaced ({@code URLDecoder} and {@code URLConnection.guessContentTypeFromName}).
+ * Scores are per key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(KeyDecodingBenchmark.KEYS)
+public class KeyDecodingBenchmark {
+
+    static final int KEYS = 1024;
+
+    private String[] rawKeys;
+    private String[] decodedKeys;
+    private MimeTypeResolver mimeTypeResolver;
+
+    @Setup
+    public void setUp() {
+        List<String> keys = BenchmarkFixtures.realisticKeys(KEYS, 7L);
+        rawKeys = keys.toArray(new String[0]);
+        decodedKeys = keys.stream().map(S3KeyDecoder::decode).toArray(String[]::new);
+        mimeTypeResolver = MimeTypeResolver.withDefaults();
+    }
+
+    @Benchmark
+    public void decodeS3KeyDecoder(Blackhole blackhole) {
+        for (String key : rawKeys) {
+            blackhole.consume(S3KeyDecoder.decode(key));
+        }
+    }
+
+    @Benchmark
+    public void decodeUrlDecoderBaseline(Blackhole blackhole) {
+        for (String key : rawKeys) {
+            blackhole.consume(URLDecoder.decode(key.replace('+', ' '), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Benchmark
+    public void mimeTypeResolver(Blackhole blackhole) {
+        for (String key : decodedKeys) {
+            blackhole.consume(mimeTypeResolver.resolve(key));
+        }
+    }
+
+    @Benchmark
+    public void mimeUrlConnectionBaseline(Blackhole blackhole) {
+        for (String key : decodedKeys) {
+            String type = URLConnection.guessContentTypeFromName(key);
+            blackhole.consume(type != null ? type : "application/octet-stream");
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.iam.metaping.benchmarks;
+
+import com.iam.metaping.config.SnsProperties;
+import com.iam.metaping.model.FileMetadata;
+import com.iam.metaping.service.MetaNotifier;
+import com.iam.metaping.service.SnsMessage;
+import com.iam.metaping.service.SnsPublisher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Message formatting in {@link MetaNotifier}. The publisher hands each formatted message to a
+ * {@link Blackhole} instead of SNS, so the score is formatting plus call overhead only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetaNotifierBenchmark {
+
+    private CapturingPublisher publisher;
+    private MetaNotifier notifier;
+    private FileMetadata single;
+    private List<FileMetadata> batch;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        publisher = new CapturingPublisher(blackhole);
+        notifier = new MetaNotifier(publisher, null, null, null, null);
+        single = new FileMetadata("uploads/2025/10/IMG_4821.jpg", 3_482_113L, "image/jpeg");
+        batch = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            batch.add(new FileMetadata("reports/finance/q3/report-" + i + ".pdf", 120_000L + i, "application/pdf"));
+        }
+    }
+
+    @Benchmark
+    public boolean formatSingle() {
+        return notifier.notifyNewFile(single);
+    }
+
+    @Benchmark
+    public List<Boolean> formatBatchOfTen() {
+        return notifier.notifyNewFiles(batch);
+    }
+
+    /**
+     * Unconfigured publisher (no SNS client is built) that only consumes what it is given.
+     */
+    static final class CapturingPublisher extends SnsPublisher {
+
+        private final Blackhole blackhole;
+
+        CapturingPublisher(Blackhole blackhole) {
+            super(new SnsProperties());
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public boolean publish(String subject, String message) {
+            blackhole.consume(message);
+            return true;
+        }
+
+        @Override
+        public List<Boolean> publishBatch(List<SnsMessage> messages) {
+            blackhole.consume(messages);
+            return List.of();
+        }
+    }
+}
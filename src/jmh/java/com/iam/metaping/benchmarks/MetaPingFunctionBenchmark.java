@@ -0,0 +1,52 @@
+package com.iam.metaping.benchmarks;
+
+import com.amazonaws.services.lambda.runtime.events.S3Event;
+import com.iam.metaping.function.MetaPingFunction;
+import com.iam.metaping.service.MetaNotifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end cost of {@link MetaPingFunction#apply} for single- and multi-record events,
+ * with and without notification publishing (stubbed SNS client).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetaPingFunctionBenchmark {
+
+    @Param({"1", "10", "100"})
+    int records;
+
+    @Param({"false", "true"})
+    boolean notify;
+
+    private MetaPingFunction function;
+    private S3Event event;
+
+    @Setup
+    public void setUp() {
+        MetaNotifier notifier = notify ? new MetaNotifier(BenchmarkFixtures.stubbedPublisher(), null, null, null, null) : null;
+        function = new MetaPingFunction(BenchmarkFixtures.notifierProvider(notifier), null, null, null, null, null, null);
+        event = BenchmarkFixtures.event(BenchmarkFixtures.realisticKeys(records, 42L));
+    }
+
+    @Benchmark
+    public String apply() {
+        return function.apply(event);
+    }
+}
@@ -0,0 +1,104 @@
+package com.iam.metaping.benchmarks;
+
+import com.iam.metaping.config.SnsProperties;
+import com.iam.metaping.service.SnsPublisher;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SnsPublisher} over each selectable SDK HTTP client, against a loopback SNS stub
+ * ({@link BenchmarkFixtures#snsEndpoint()}):
+ * <ul>
+ *   <li>{@code coldStart}: building the publisher plus its first publish in a fresh JVM (class loading and
+ *       connection setup, over plain HTTP), i.e. what the client adds to a Lambda init and first invocation</li>
+ *   <li>{@code publish}: warm round trip of one publish</li>
+ *   <li>{@code publishConcurrently}: 16 threads sharing one publisher, i.e. connection pool behaviour in the
+ *       HTTP deployment</li>
+ * </ul>
+ * {@code client} is {@code aws.sns.http-client}; the {@code async-} values run the publisher in async mode.
+ * Run the comparison with {@code -Djmh.includes=SnsHttpClient}; the GC profiler's allocation rate gives the
+ * memory side.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnsHttpClientBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Endpoint {
+
+        @Param({"url-connection", "apache", "crt", "async-crt", "async-netty"})
+        String client;
+
+        HttpServer server;
+        SnsProperties props;
+
+        @Setup(Level.Trial)
+        public void start() throws IOException {
+            server = BenchmarkFixtures.snsEndpoint();
+            props = BenchmarkFixtures.endpointProperties("http://127.0.0.1:" + server.getAddress().getPort());
+            props.setAsync(client.startsWith("async-"));
+            props.setHttpClient(SnsProperties.HttpClient.valueOf(
+                    client.replace("async-", "").replace('-', '_').toUpperCase(Locale.ROOT)));
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            server.stop(0);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Warm {
+
+        SnsPublisher publisher;
+
+        @Setup(Level.Trial)
+        public void build(Endpoint endpoint) {
+            publisher = new SnsPublisher(endpoint.props);
+            if (!publisher.publish(null, "warm-up")) {
+                throw new IllegalStateException("publish against the stub failed for " + endpoint.client);
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(10)
+    public boolean coldStart(Endpoint endpoint) {
+        return new SnsPublisher(endpoint.props).publish("Meta-Ping Notification: New File Uploaded", "cold");
+    }
+
+    @Benchmark
+    public boolean publish(Warm warm) {
+        return warm.publisher.publish("Meta-Ping Notification: New File Uploaded", "warm");
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean publishConcurrently(Warm warm) {
+        return warm.publisher.publish("Meta-Ping Notification: New File Uploaded", "concurrent");
+    }
+}
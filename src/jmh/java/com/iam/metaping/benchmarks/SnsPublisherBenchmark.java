@@ -0,0 +1,57 @@
+package com.iam.metaping.benchmarks;
+
+import com.iam.metaping.service.SnsMessage;
+import com.iam.metaping.service.SnsPublisher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SnsPublisher} request building, batching and result mapping against a stubbed SNS client.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnsPublisherBenchmark {
+
+    @Param({"10", "100"})
+    int batchSize;
+
+    private SnsPublisher publisher;
+    private List<SnsMessage> messages;
+
+    @Setup
+    public void setUp() {
+        publisher = BenchmarkFixtures.stubbedPublisher();
+        messages = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            messages.add(new SnsMessage("Meta-Ping Notification: New File Uploaded",
+                    "New File Uploaded:\nName: uploads/file-" + i + ".jpg\nType: image/jpeg\nSize: 1024 bytes\n"));
+        }
+    }
+
+    @Benchmark
+    public boolean publishSingle() {
+        return publisher.publish(messages.get(0).subject(), messages.get(0).message());
+    }
+
+    @Benchmark
+    public List<Boolean> publishBatch() {
+        return publisher.publishBatch(messages);
+    }
+}
@@ -1,12 +1,15 @@
 package com.iam.metaping;
 
+import com.iam.metaping.config.NativeRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 
 @SpringBootApplication
 @ConfigurationPropertiesScan
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class MetaPingApplication {
     public static void main(String[] args) {
         SpringApplication.run(MetaPingApplication.class, args);
@@ -1,11 +1,75 @@
 package com.iam.metaping;
 
+import com.iam.metaping.service.AsyncLogFlusher;
+import com.iam.metaping.service.InvocationDeadline;
+import com.iam.metaping.service.InvocationTrace;
+import com.iam.metaping.service.MetaPingMetrics;
+import com.iam.metaping.service.NotificationDigest;
+import org.crac.Context;
+import org.crac.Core;
+import org.crac.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.cloud.function.adapter.aws.FunctionInvoker;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
 /**
  * AWS Lambda handler backed by Spring Cloud Function's AWS adapter.
  * Summary: lets the framework boot Spring once per container and route invocations
  * to the function defined by the property `spring.cloud.function.definition` (e.g.,
  * "metaPingFunction") — keeping the handler minimal, config-driven, and warm-start friendly.
+ * <p>
+ * With SnapStart enabled the handler is also a CRaC {@link Resource}: before the snapshot it
+ * primes SNS and the function via {@link SnapStartPriming}, and after restore it rebuilds SNS
+ * connections and credentials, so the first real invocation runs on the warm path.
+ * Without SnapStart the hooks are never called.
+ * <p>
+ * Each invocation's remaining time is published as the {@link InvocationDeadline}, so SNS calls
+ * give up before the invocation times out, and its request id as the {@link InvocationTrace} id.
+ * Queued async log lines are drained before returning, since Lambda freezes the container right after.
  */
-public class MetaPingLambdaHandler extends FunctionInvoker { }
+public class MetaPingLambdaHandler extends FunctionInvoker implements Resource {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MetaPingLambdaHandler.class);
+    private static final long LOG_DRAIN_TIMEOUT_MS = 100;
+
+    public MetaPingLambdaHandler() {
+        super();
+        // CRaC keeps registered resources weakly; the Lambda runtime holds the handler for the container's lifetime
+        Core.getGlobalContext().register(this);
+    }
+
+    @Override
+    public void handleRequest(InputStream input, OutputStream output,
+                              com.amazonaws.services.lambda.runtime.Context context) throws IOException {
+        InvocationDeadline.start(context);
+        InvocationTrace.start(context);
+        try {
+            super.handleRequest(input, output, context);
+        } finally {
+            NotificationDigest.current().ifPresent(NotificationDigest::endInvocation); // within the deadline
+            InvocationDeadline.clear();
+            InvocationTrace.clear();
+            MetaPingMetrics.current().ifPresent(MetaPingMetrics::flush);
+            AsyncLogFlusher.drain(LOG_DRAIN_TIMEOUT_MS);
+        }
+    }
+
+    @Override
+    public void beforeCheckpoint(Context<? extends Resource> context) {
+        try {
+            SnapStartPriming.current().ifPresent(SnapStartPriming::beforeCheckpoint);
+        } catch (RuntimeException e) {
+            // Priming is best effort; a failed warm-up must not prevent the snapshot
+            LOG.warn("SnapStart priming failed", e);
+        }
+    }
+
+    @Override
+    public void afterRestore(Context<? extends Resource> context) {
+        SnapStartPriming.current().ifPresent(SnapStartPriming::afterRestore);
+    }
+}
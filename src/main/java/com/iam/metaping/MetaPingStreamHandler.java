@@ -0,0 +1,90 @@
+package com.iam.metaping;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.iam.metaping.function.MetaPingFunction;
+import com.iam.metaping.service.AsyncLogFlusher;
+import com.iam.metaping.service.InvocationDeadline;
+import com.iam.metaping.service.InvocationTrace;
+import com.iam.metaping.service.MetaPingMetrics;
+import com.iam.metaping.service.NotificationDigest;
+import com.iam.metaping.service.S3EventStreamParser;
+import org.crac.Core;
+import org.crac.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Alternative AWS Lambda handler that skips Spring Cloud Function's payload binding.
+ * Summary: reads the raw event with {@link S3EventStreamParser} (only bucket, key, size, eTag,
+ * sequencer and eventName per record) and hands the flat records to
+ * {@link MetaPingFunction#process}, so extraction, notification and the response are the same as
+ * with {@link MetaPingLambdaHandler} without building the {@code S3Event} object graph.
+ * <p>
+ * Configure the Lambda handler as {@code com.iam.metaping.MetaPingStreamHandler::handleRequest}.
+ * Spring is booted once per container (non-web); SnapStart hooks behave as in {@link MetaPingLambdaHandler}.
+ * A payload that is not well-formed JSON fails the invocation with the parser's {@link IOException}.
+ * The remaining invocation time is published as the {@link InvocationDeadline} that bounds SNS calls,
+ * the request id as the {@link InvocationTrace} id; queued async log lines are drained before returning.
+ */
+public class MetaPingStreamHandler implements RequestStreamHandler, Resource {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MetaPingStreamHandler.class);
+    private static final long LOG_DRAIN_TIMEOUT_MS = 100;
+
+    private final MetaPingFunction function;
+
+    public MetaPingStreamHandler() {
+        this(new SpringApplicationBuilder(MetaPingApplication.class)
+                .web(WebApplicationType.NONE)
+                .run()
+                .getBean(MetaPingFunction.class));
+        // CRaC keeps registered resources weakly; the Lambda runtime holds the handler for the container's lifetime
+        Core.getGlobalContext().register(this);
+    }
+
+    /**
+     * Uses the given function instead of booting Spring (tests, embedding).
+     */
+    public MetaPingStreamHandler(MetaPingFunction function) {
+        this.function = function;
+    }
+
+    @Override
+    public void handleRequest(InputStream input, OutputStream output, Context context) throws IOException {
+        InvocationDeadline.start(context);
+        InvocationTrace.start(context);
+        try {
+            String result = function.process(S3EventStreamParser.parse(input));
+            output.write(result.getBytes(StandardCharsets.UTF_8));
+        } finally {
+            NotificationDigest.current().ifPresent(NotificationDigest::endInvocation); // within the deadline
+            InvocationDeadline.clear();
+            InvocationTrace.clear();
+            MetaPingMetrics.current().ifPresent(MetaPingMetrics::flush);
+            AsyncLogFlusher.drain(LOG_DRAIN_TIMEOUT_MS);
+        }
+    }
+
+    @Override
+    public void beforeCheckpoint(org.crac.Context<? extends Resource> context) {
+        try {
+            SnapStartPriming.current().ifPresent(SnapStartPriming::beforeCheckpoint);
+        } catch (RuntimeException e) {
+            // Priming is best effort; a failed warm-up must not prevent the snapshot
+            LOG.warn("SnapStart priming failed", e);
+        }
+    }
+
+    @Override
+    public void afterRestore(org.crac.Context<? extends Resource> context) {
+        SnapStartPriming.current().ifPresent(SnapStartPriming::afterRestore);
+    }
+}
@@ -0,0 +1,94 @@
+package com.iam.metaping;
+
+import com.amazonaws.services.lambda.runtime.events.S3Event;
+import com.amazonaws.services.lambda.runtime.events.models.s3.S3EventNotification;
+import com.iam.metaping.function.MetaPingFunction;
+import com.iam.metaping.service.MetaPingMetrics;
+import com.iam.metaping.service.ObjectMetadataEnricher;
+import com.iam.metaping.service.SnsPublisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Warm-up work run around a SnapStart/CRaC checkpoint, driven by {@link MetaPingLambdaHandler}.
+ * Summary: before the snapshot, prime the SNS client and run the extraction path of the application's
+ * {@link MetaPingFunction} against a synthetic event so classes are loaded and hot methods are
+ * compiled; after restore, rebuild SNS (and S3 enrichment) connections and credentials.
+ * <p>
+ * The priming function is {@link MetaPingFunction#forPriming()}: configured like the live one (MIME table, fan-out,
+ * dedup, metrics, tracing, enrichment) but without a notifier, so no notification is ever published while priming.
+ * Its spans are not exported and the metrics it records are discarded; the synthetic records carry no bucket,
+ * so enrichment runs without calling S3.
+ * The handler is created by the Lambda runtime rather than by Spring, so the Spring-managed
+ * instance is exposed through {@link #current()}.
+ */
+@Component
+public class SnapStartPriming {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SnapStartPriming.class);
+    private static final int PRIMING_ITERATIONS = 200;
+
+    private static volatile SnapStartPriming current;
+
+    private final SnsPublisher snsPublisher;
+    private final MetaPingFunction function;
+    private final MetaPingMetrics metrics;
+    private final ObjectMetadataEnricher enricher;
+
+    @Autowired
+    public SnapStartPriming(SnsPublisher snsPublisher, MetaPingFunction function, MetaPingMetrics metrics,
+                            ObjectMetadataEnricher enricher) {
+        this.snsPublisher = snsPublisher;
+        this.function = function;
+        this.metrics = metrics != null ? metrics : MetaPingMetrics.disabled();
+        this.enricher = enricher != null ? enricher : ObjectMetadataEnricher.disabled();
+        current = this;
+    }
+
+    /**
+     * @return the instance created by the running application context, if any
+     */
+    public static Optional<SnapStartPriming> current() {
+        return Optional.ofNullable(current);
+    }
+
+    public void beforeCheckpoint() {
+        long start = System.nanoTime();
+        snsPublisher.prime();
+
+        MetaPingFunction primingFunction = function.forPriming();
+        S3Event event = syntheticEvent();
+        for (int i = 0; i < PRIMING_ITERATIONS; i++) {
+            primingFunction.apply(event);
+        }
+        metrics.discard();
+        LOG.info("SnapStart priming finished in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public void afterRestore() {
+        snsPublisher.reconnect();
+        enricher.reconnect();
+    }
+
+    /**
+     * Two-record event covering escaped keys and a couple of common extensions.
+     */
+    private static S3Event syntheticEvent() {
+        return new S3Event(List.of(
+                syntheticRecord("priming/sample%20report.pdf", 1024L),
+                syntheticRecord("priming/photo+1.jpg", 2048L)));
+    }
+
+    private static S3EventNotification.S3EventNotificationRecord syntheticRecord(String key, long size) {
+        // No bucket: the enricher skips the record instead of sending HeadObject for an object that does not exist
+        S3EventNotification.S3ObjectEntity object = new S3EventNotification.S3ObjectEntity(key, size, null, null, null);
+        S3EventNotification.S3Entity s3Entity = new S3EventNotification.S3Entity(null, null, object, null);
+        return new S3EventNotification.S3EventNotificationRecord(
+                null, "ObjectCreated:Put", "aws:s3", null, "2.1", null, null, s3Entity, null);
+    }
+}
@@ -0,0 +1,60 @@
+package com.iam.metaping.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "metaping.dedup")
+public class DedupProperties {
+
+    /** Suppress notifications for S3 records already notified within the TTL (default false) */
+    private boolean enabled;
+    /** Upper bound on remembered records; the oldest are evicted first */
+    private int maxEntries = 10_000;
+    /** How long a notified record is remembered */
+    private Duration ttl = Duration.ofMinutes(15);
+    /** Built-in store used when no DedupStore bean is defined: memory (default) or file */
+    private String store = "memory";
+    /** Journal of the file store; survives restarts of the process */
+    private String file = "/tmp/meta-ping-dedup.log";
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public String getStore() {
+        return store;
+    }
+
+    public void setStore(String store) {
+        this.store = store;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+}
@@ -0,0 +1,80 @@
+package com.iam.metaping.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "metaping.digest")
+public class DigestProperties {
+
+    /** Coalesce notifications into one digest message per group and window (default false) */
+    private boolean enabled;
+    /** Grouping of files: prefix (default), bucket or type */
+    private String groupBy = "prefix";
+    /** Leading key segments forming the prefix when grouping by prefix */
+    private int prefixDepth = 1;
+    /** A group's digest is sent this long after its first file */
+    private Duration window = Duration.ofMinutes(1);
+    /** A group's digest is sent as soon as it counts this many files */
+    private int maxFiles = 1000;
+    /** File names listed in a digest at most; the rest are only counted */
+    private int maxNames = 20;
+    /** Lambda handlers send every open digest when an invocation ends (default true) */
+    private boolean flushEachInvocation = true;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getGroupBy() {
+        return groupBy;
+    }
+
+    public void setGroupBy(String groupBy) {
+        this.groupBy = groupBy;
+    }
+
+    public int getPrefixDepth() {
+        return prefixDepth;
+    }
+
+    public void setPrefixDepth(int prefixDepth) {
+        this.prefixDepth = prefixDepth;
+    }
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    public void setWindow(Duration window) {
+        this.window = window;
+    }
+
+    public int getMaxFiles() {
+        return maxFiles;
+    }
+
+    public void setMaxFiles(int maxFiles) {
+        this.maxFiles = maxFiles;
+    }
+
+    public int getMaxNames() {
+        return maxNames;
+    }
+
+    public void setMaxNames(int maxNames) {
+        this.maxNames = maxNames;
+    }
+
+    public boolean isFlushEachInvocation() {
+        return flushEachInvocation;
+    }
+
+    public void setFlushEachInvocation(boolean flushEachInvocation) {
+        this.flushEachInvocation = flushEachInvocation;
+    }
+}
@@ -0,0 +1,90 @@
+package com.iam.metaping.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "metaping.enrichment")
+public class EnrichmentProperties {
+
+    /** Look up each object with S3 HeadObject for its stored Content-Type, user metadata and storage class (default false) */
+    private boolean enabled;
+    /** How long an invocation waits for the lookups of its records; records still waiting keep the extension-based type */
+    private Duration timeout = Duration.ofMillis(300);
+    /** Time limit of one HeadObject call, which may finish after the invocation stopped waiting and still be cached */
+    private Duration callTimeout = Duration.ofSeconds(2);
+    /** Upper bound on cached lookups; the least recently used are evicted first */
+    private int cacheSize = 10_000;
+    /** How long a lookup stays cached */
+    private Duration cacheTtl = Duration.ofMinutes(10);
+    /** Region of the S3 client; blank uses the SDK's region lookup (AWS_REGION) */
+    private String region;
+    /** Optional endpoint override, e.g. 'http://localhost:4566' for LocalStack */
+    private String endpoint;
+    /** Address buckets as path segments instead of host names (needed by most S3 emulators) */
+    private boolean pathStyleAccess;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public Duration getCallTimeout() {
+        return callTimeout;
+    }
+
+    public void setCallTimeout(Duration callTimeout) {
+        this.callTimeout = callTimeout;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    public Duration getCacheTtl() {
+        return cacheTtl;
+    }
+
+    public void setCacheTtl(Duration cacheTtl) {
+        this.cacheTtl = cacheTtl;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public boolean isPathStyleAccess() {
+        return pathStyleAccess;
+    }
+
+    public void setPathStyleAccess(boolean pathStyleAccess) {
+        this.pathStyleAccess = pathStyleAccess;
+    }
+}
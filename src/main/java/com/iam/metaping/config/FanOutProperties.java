@@ -0,0 +1,28 @@
+package com.iam.metaping.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "metaping.fan-out")
+public class FanOutProperties {
+
+    /** Run per-record work (decode, MIME inference, notify) on virtual threads; requires Java 21 at runtime */
+    private boolean enabled;
+    /** Upper bound on records processed at the same time across all invocations of this instance */
+    private int maxConcurrency = 32;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+}
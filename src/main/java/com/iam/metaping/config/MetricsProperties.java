@@ -0,0 +1,28 @@
+package com.iam.metaping.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "metaping.metrics")
+public class MetricsProperties {
+
+    /** auto (EMF in Lambda, Micrometer elsewhere), emf, micrometer or none */
+    private String mode = "auto";
+    /** CloudWatch namespace of the EMF metrics */
+    private String namespace = "MetaPing";
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    public void setNamespace(String namespace) {
+        this.namespace = namespace;
+    }
+}
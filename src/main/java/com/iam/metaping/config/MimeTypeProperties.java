@@ -0,0 +1,24 @@
+package com.iam.metaping.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "metaping.mime")
+public class MimeTypeProperties {
+
+    /**
+     * Extra or overriding extension-to-MIME mappings, matched case-insensitively.
+     * Compound extensions need bracket notation, e.g. {@code metaping.mime.types[tar.gz]=application/x-compressed-tar}
+     */
+    private Map<String, String> types = new LinkedHashMap<>();
+
+    public Map<String, String> getTypes() {
+        return types;
+    }
+
+    public void setTypes(Map<String, String> types) {
+        this.types = types;
+    }
+}
@@ -0,0 +1,83 @@
+package com.iam.metaping.config;
+
+import com.amazonaws.services.lambda.runtime.events.S3Event;
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.amazonaws.services.lambda.runtime.events.models.s3.S3EventNotification;
+import com.iam.metaping.model.FileDigest;
+import com.iam.metaping.model.FileMetadata;
+import com.iam.metaping.service.JsonLogEncoder;
+import com.iam.metaping.service.LogSamplingFilter;
+import com.iam.metaping.service.SnsMessage;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.util.List;
+
+/**
+ * GraalVM native-image hints for types that are only reached reflectively at runtime.
+ * Summary: the Lambda adapter binds the incoming JSON onto the S3 or SQS event model (including the
+ * Joda-Time event timestamp) and writes the SQS batch response. Results and SNS messages are plain records,
+ * and the AWS SDK loads its execution interceptors from classpath resources. Logback instantiates the JSON
+ * encoder and the sampling filter named in logback-spring.xml. Everything else is covered by Spring AOT
+ * and the reachability metadata shipped with the libraries.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final MemberCategory[] BINDING = {
+            MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+            MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+            MemberCategory.INVOKE_PUBLIC_METHODS,
+            MemberCategory.DECLARED_FIELDS
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        List<Class<?>> boundTypes = List.of(
+                S3Event.class,
+                S3EventNotification.class,
+                S3EventNotification.S3EventNotificationRecord.class,
+                S3EventNotification.S3Entity.class,
+                S3EventNotification.S3BucketEntity.class,
+                S3EventNotification.S3ObjectEntity.class,
+                S3EventNotification.UserIdentityEntity.class,
+                S3EventNotification.RequestParametersEntity.class,
+                S3EventNotification.ResponseElementsEntity.class,
+                SQSEvent.class,
+                SQSEvent.SQSMessage.class,
+                SQSEvent.MessageAttribute.class,
+                SQSBatchResponse.class,
+                SQSBatchResponse.BatchItemFailure.class,
+                FileMetadata.class,
+                FileDigest.class,
+                SnsMessage.class,
+                SnsProperties.class,
+                FanOutProperties.class,
+                MimeTypeProperties.class,
+                DedupProperties.class,
+                OutboxProperties.class,
+                MetricsProperties.class,
+                TracingProperties.class,
+                DigestProperties.class,
+                RoutingProperties.class,
+                RoutingProperties.Rule.class,
+                ReactiveProperties.class,
+                TemplateProperties.class,
+                TemplateProperties.Template.class,
+                EnrichmentProperties.class,
+                JsonLogEncoder.class,
+                LogSamplingFilter.class
+        );
+        for (Class<?> type : boundTypes) {
+            hints.reflection().registerType(type, BINDING);
+        }
+        hints.reflection().registerType(TypeReference.of("org.joda.time.DateTime"), BINDING);
+
+        // AWS SDK v2 discovers interceptors through these resources when building the SNS client
+        hints.resources().registerPattern("software/amazon/awssdk/global/handlers/execution.interceptors");
+        hints.resources().registerPattern("software/amazon/awssdk/services/sns/execution.interceptors");
+        hints.resources().registerPattern("software/amazon/awssdk/services/s3/execution.interceptors");
+    }
+}
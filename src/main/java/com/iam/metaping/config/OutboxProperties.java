@@ -0,0 +1,81 @@
+package com.iam.metaping.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "metaping.outbox")
+public class OutboxProperties {
+
+    /** Journal notifications SNS did not accept and deliver them in the background (default false) */
+    private boolean enabled;
+    /** Journal every notification and acknowledge it right away; the drainer publishes it (default false) */
+    private boolean defer;
+    /** Directory holding the journal segments and the checkpoint */
+    private String directory = "/tmp/meta-ping-outbox";
+    /** Size of one memory-mapped journal segment (at least 1MB) */
+    private DataSize segmentSize = DataSize.ofMegabytes(4);
+    /** Segments kept at most; notifications are rejected once all are full */
+    private int maxSegments = 64;
+    /** Pause between drain runs */
+    private Duration drainInterval = Duration.ofSeconds(1);
+    /** Deliveries of an entry SNS rejected individually before it is dropped */
+    private int maxAttempts = 10;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isDefer() {
+        return defer;
+    }
+
+    public void setDefer(boolean defer) {
+        this.defer = defer;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public DataSize getSegmentSize() {
+        return segmentSize;
+    }
+
+    public void setSegmentSize(DataSize segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public int getMaxSegments() {
+        return maxSegments;
+    }
+
+    public void setMaxSegments(int maxSegments) {
+        this.maxSegments = maxSegments;
+    }
+
+    public Duration getDrainInterval() {
+        return drainInterval;
+    }
+
+    public void setDrainInterval(Duration drainInterval) {
+        this.drainInterval = drainInterval;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+}
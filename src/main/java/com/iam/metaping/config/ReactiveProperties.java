@@ -0,0 +1,18 @@
+package com.iam.metaping.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "metaping.reactive")
+public class ReactiveProperties {
+
+    /** Events of one stream processed at the same time; further events are only requested as results are emitted */
+    private int concurrency = 16;
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+}
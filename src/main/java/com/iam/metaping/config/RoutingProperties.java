@@ -0,0 +1,129 @@
+package com.iam.metaping.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "metaping.routing")
+public class RoutingProperties {
+
+    /** Route notifications to topics by rules instead of publishing every file to aws.sns.topic-arn (default false) */
+    private boolean enabled;
+    /** Rules; a file goes to the topics of every rule it matches */
+    private List<Rule> rules = new ArrayList<>();
+    /** Topics for files no rule matches; empty (default) drops them */
+    private List<String> defaultTopics = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    public void setRules(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    public List<String> getDefaultTopics() {
+        return defaultTopics;
+    }
+
+    public void setDefaultTopics(List<String> defaultTopics) {
+        this.defaultTopics = defaultTopics;
+    }
+
+    /**
+     * One routing rule; unset conditions match every file.
+     */
+    public static class Rule {
+
+        /** Name used in log messages */
+        private String name;
+        /** Source bucket, exact match */
+        private String bucket;
+        /** Leading part of the decoded object key */
+        private String prefix;
+        /** Trailing part of the decoded object key, e.g. .csv */
+        private String suffix;
+        /** Smallest matching object size (inclusive); files of unknown size never match a size bound */
+        private DataSize minSize;
+        /** Largest matching object size (inclusive) */
+        private DataSize maxSize;
+        /** MIME types, exact (image/png) or by major type (image/*) */
+        private List<String> types = new ArrayList<>();
+        /** Topic ARNs the matching files are published to; none keeps matching files out of the default topics */
+        private List<String> topics = new ArrayList<>();
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getBucket() {
+            return bucket;
+        }
+
+        public void setBucket(String bucket) {
+            this.bucket = bucket;
+        }
+
+        public String getPrefix() {
+            return prefix;
+        }
+
+        public void setPrefix(String prefix) {
+            this.prefix = prefix;
+        }
+
+        public String getSuffix() {
+            return suffix;
+        }
+
+        public void setSuffix(String suffix) {
+            this.suffix = suffix;
+        }
+
+        public DataSize getMinSize() {
+            return minSize;
+        }
+
+        public void setMinSize(DataSize minSize) {
+            this.minSize = minSize;
+        }
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public List<String> getTypes() {
+            return types;
+        }
+
+        public void setTypes(List<String> types) {
+            this.types = types;
+        }
+
+        public List<String> getTopics() {
+            return topics;
+        }
+
+        public void setTopics(List<String> topics) {
+            this.topics = topics;
+        }
+    }
+}
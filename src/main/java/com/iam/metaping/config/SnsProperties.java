@@ -2,13 +2,65 @@ package com.iam.metaping.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+
 @ConfigurationProperties(prefix = "aws.sns")
 public class SnsProperties {
 
+    /**
+     * HTTP client implementation used by the SDK.
+     */
+    public enum HttpClient {
+        /** The SDK's usual implementations: Apache for sync, Netty for async */
+        DEFAULT,
+        /** JDK HttpURLConnection: fewest classes and no pool threads; sync only */
+        URL_CONNECTION,
+        /** Apache HttpClient with a tunable connection pool; sync only */
+        APACHE,
+        /** AWS Common Runtime (native); sync and async; needs the aws-crt jar (-Pcrt) */
+        CRT,
+        /** Netty non-blocking client; async only */
+        NETTY
+    }
+
     private String topicArn;
     private String region;
     /** Optional endpoint override to be used for integration tests (e.g., 'http://localhost:4566' for LocalStack) */
     private String endpoint;
+    /** Publish through the non-blocking SnsAsyncClient instead of the blocking SnsClient (default false) */
+    private boolean async;
+    /** Attempts per publish call, including the first one (default 3); 1 disables retries */
+    private int maxAttempts = 3;
+    /** Base of the jittered exponential backoff between attempts after transient failures */
+    private Duration backoff = Duration.ofMillis(50);
+    /** Base of the backoff after SNS throttled the request; longer, so throttled callers back off harder */
+    private Duration throttlingBackoff = Duration.ofMillis(500);
+    /** Upper bound of a single backoff */
+    private Duration maxBackoff = Duration.ofSeconds(2);
+    /** Time limit of a single SNS request */
+    private Duration attemptTimeout = Duration.ofSeconds(2);
+    /** Time limit of a publish call across all of its attempts and backoffs */
+    private Duration callTimeout = Duration.ofSeconds(6);
+    /** Time kept back from the remaining Lambda invocation time; calls never run into the last part of it */
+    private Duration deadlineMargin = Duration.ofMillis(500);
+    /** Consecutive failed attempts that open the circuit (default 5); 0 disables the circuit breaker */
+    private int circuitFailureThreshold = 5;
+    /** How long an open circuit fails calls fast before letting a probe through */
+    private Duration circuitOpenDuration = Duration.ofSeconds(30);
+    /** HTTP client implementation (default: Apache/Netty); one not available for the mode falls back to the default */
+    private HttpClient httpClient = HttpClient.DEFAULT;
+    /** Connections kept open to SNS (Apache, CRT, Netty; default 50) */
+    private int maxConnections = 50;
+    /** Time limit for establishing a connection */
+    private Duration connectionTimeout = Duration.ofSeconds(2);
+    /** Time a request waits for a free pooled connection (Apache, Netty) */
+    private Duration connectionAcquisitionTimeout = Duration.ofSeconds(10);
+    /** Maximum lifetime of a pooled connection, e.g. to follow DNS changes; 0 keeps it until it idles out (Apache, Netty) */
+    private Duration connectionTtl = Duration.ZERO;
+    /** Idle time after which a pooled connection is closed (Apache, CRT, Netty) */
+    private Duration connectionMaxIdleTime = Duration.ofSeconds(60);
+    /** Close idle and expired connections from a background thread (Apache, Netty) */
+    private boolean reapIdleConnections = true;
 
     public String getTopicArn() {
         return topicArn;
@@ -33,4 +85,140 @@ public class SnsProperties {
     public void setEndpoint(String endpoint) {
         this.endpoint = endpoint;
     }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public Duration getBackoff() {
+        return backoff;
+    }
+
+    public void setBackoff(Duration backoff) {
+        this.backoff = backoff;
+    }
+
+    public Duration getThrottlingBackoff() {
+        return throttlingBackoff;
+    }
+
+    public void setThrottlingBackoff(Duration throttlingBackoff) {
+        this.throttlingBackoff = throttlingBackoff;
+    }
+
+    public Duration getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public void setMaxBackoff(Duration maxBackoff) {
+        this.maxBackoff = maxBackoff;
+    }
+
+    public Duration getAttemptTimeout() {
+        return attemptTimeout;
+    }
+
+    public void setAttemptTimeout(Duration attemptTimeout) {
+        this.attemptTimeout = attemptTimeout;
+    }
+
+    public Duration getCallTimeout() {
+        return callTimeout;
+    }
+
+    public void setCallTimeout(Duration callTimeout) {
+        this.callTimeout = callTimeout;
+    }
+
+    public Duration getDeadlineMargin() {
+        return deadlineMargin;
+    }
+
+    public void setDeadlineMargin(Duration deadlineMargin) {
+        this.deadlineMargin = deadlineMargin;
+    }
+
+    public int getCircuitFailureThreshold() {
+        return circuitFailureThreshold;
+    }
+
+    public void setCircuitFailureThreshold(int circuitFailureThreshold) {
+        this.circuitFailureThreshold = circuitFailureThreshold;
+    }
+
+    public Duration getCircuitOpenDuration() {
+        return circuitOpenDuration;
+    }
+
+    public void setCircuitOpenDuration(Duration circuitOpenDuration) {
+        this.circuitOpenDuration = circuitOpenDuration;
+    }
+
+    public HttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    public void setHttpClient(HttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public Duration getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    public void setConnectionTimeout(Duration connectionTimeout) {
+        this.connectionTimeout = connectionTimeout;
+    }
+
+    public Duration getConnectionAcquisitionTimeout() {
+        return connectionAcquisitionTimeout;
+    }
+
+    public void setConnectionAcquisitionTimeout(Duration connectionAcquisitionTimeout) {
+        this.connectionAcquisitionTimeout = connectionAcquisitionTimeout;
+    }
+
+    public Duration getConnectionTtl() {
+        return connectionTtl;
+    }
+
+    public void setConnectionTtl(Duration connectionTtl) {
+        this.connectionTtl = connectionTtl;
+    }
+
+    public Duration getConnectionMaxIdleTime() {
+        return connectionMaxIdleTime;
+    }
+
+    public void setConnectionMaxIdleTime(Duration connectionMaxIdleTime) {
+        this.connectionMaxIdleTime = connectionMaxIdleTime;
+    }
+
+    public boolean isReapIdleConnections() {
+        return reapIdleConnections;
+    }
+
+    public void setReapIdleConnections(boolean reapIdleConnections) {
+        this.reapIdleConnections = reapIdleConnections;
+    }
 }
@@ -0,0 +1,66 @@
+package com.iam.metaping.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "metaping.templates")
+public class TemplateProperties {
+
+    /** Subject of per-file notifications; empty sends none. Placeholders as in the body */
+    private String subject = "Meta-Ping Notification: New File Uploaded";
+    /** Body of per-file notifications, e.g. "{bucket}/{key} ({size:human})"; {json} is the schema-versioned document */
+    private String body = "{json}";
+    /** Subject and/or body per topic ARN, e.g. topics[arn:aws:sns:...:imports].body; unset parts use the defaults */
+    private Map<String, Template> topics = new LinkedHashMap<>();
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    public Map<String, Template> getTopics() {
+        return topics;
+    }
+
+    public void setTopics(Map<String, Template> topics) {
+        this.topics = topics;
+    }
+
+    /**
+     * Templates of one topic.
+     */
+    public static class Template {
+
+        private String subject;
+        private String body;
+
+        public String getSubject() {
+            return subject;
+        }
+
+        public void setSubject(String subject) {
+            this.subject = subject;
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+        public void setBody(String body) {
+            this.body = body;
+        }
+    }
+}
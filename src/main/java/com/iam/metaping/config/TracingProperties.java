@@ -0,0 +1,70 @@
+package com.iam.metaping.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "metaping.tracing")
+public class TracingProperties {
+
+    /** none (trace ids in logs and SNS attributes only), file or otlp */
+    private String exporter = "none";
+    /** NDJSON file the file exporter appends one OTLP/JSON document per invocation to */
+    private String file = "/tmp/meta-ping-spans.ndjson";
+    /** OTLP/HTTP traces endpoint, e.g. the ADOT collector Lambda layer */
+    private String endpoint = "http://localhost:4318/v1/traces";
+    /** Upper bound on one OTLP export request */
+    private Duration timeout = Duration.ofMillis(500);
+    /** service.name resource attribute of the exported spans */
+    private String serviceName = "meta-ping";
+    /** Spans kept per invocation; further spans are counted as dropped */
+    private int maxSpans = 512;
+
+    public String getExporter() {
+        return exporter;
+    }
+
+    public void setExporter(String exporter) {
+        this.exporter = exporter;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public void setServiceName(String serviceName) {
+        this.serviceName = serviceName;
+    }
+
+    public int getMaxSpans() {
+        return maxSpans;
+    }
+
+    public void setMaxSpans(int maxSpans) {
+        this.maxSpans = maxSpans;
+    }
+}
@@ -1,141 +1,506 @@
 package com.iam.metaping.function;
 
-import java.net.URLConnection;
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import com.amazonaws.services.lambda.runtime.events.S3Event;
 import com.amazonaws.services.lambda.runtime.events.models.s3.S3EventNotification;
 import com.iam.metaping.model.FileMetadata;
+import com.iam.metaping.model.ObjectDetails;
+import com.iam.metaping.model.S3ObjectRecord;
+import com.iam.metaping.service.FanOutExecutor;
+import com.iam.metaping.service.InvocationTrace;
 import com.iam.metaping.service.MetaNotifier;
+import com.iam.metaping.service.MetaPingMetrics;
+import com.iam.metaping.service.MetaPingMetrics.Metric;
+import com.iam.metaping.service.MetadataJsonWriter;
+import com.iam.metaping.service.MimeTypeResolver;
+import com.iam.metaping.service.NotificationDeduplicator;
+import com.iam.metaping.service.ObjectMetadataEnricher;
+import com.iam.metaping.service.S3KeyDecoder;
+import com.iam.metaping.service.Span;
+import com.iam.metaping.service.Tracer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 
 /**
  * Processes AWS S3 ObjectCreated events and extracts basic file metadata.
  * <p>
- * Input: {@link S3Event} (from AWS Lambda trigger)
- * Output: {@link String} representation of {@link FileMetadata}
+ * Input: {@link S3Event} (from AWS Lambda trigger), possibly carrying several records
+ * Output: JSON document (schema version 1, see {@link MetadataJsonWriter}) with one entry per record,
+ * in event order
+ * <p>
+ * Records are flattened to {@link S3ObjectRecord}s first; {@link #process(List)} is the shared entry
+ * point for callers that parse the event themselves (see {@code MetaPingStreamHandler}), and
+ * {@link #processBatch(List)} the one for callers that need each record's outcome (see {@link MetaPingSqsFunction}).
+ * <p>
+ * Every call is one trace (see {@link Tracer}): a {@code metaping.process} root span with an
+ * {@code metaping.extract} span per record (nested {@code metaping.decode} and {@code metaping.mime}) and
+ * {@code metaping.notify} spans around publishing, under which the SNS attempts are recorded.
+ * <p>
+ * With HeadObject enrichment enabled (see {@link ObjectMetadataEnricher}) the objects of all records are looked up
+ * together in a {@code metaping.enrich} span before extraction; a record's stored Content-Type then replaces the
+ * type guessed from its extension, and its storage class and user metadata are added.
+ * <p>
+ * Per-record lines are logged at DEBUG; each call ends with one INFO line on the {@code com.iam.metaping.summary}
+ * logger counting records, extracted files, duplicates and publish outcomes.
  */
 @Component
 public class MetaPingFunction implements Function<S3Event, String> {
 
     private static final Logger LOG = LoggerFactory.getLogger(MetaPingFunction.class);
+    private static final Logger SUMMARY_LOG = LoggerFactory.getLogger("com.iam.metaping.summary");
     private final ObjectProvider<MetaNotifier> metaNotifierProvider; // Optional provider; MetaNotifier bean exists only when notifications.enabled=true
+    private final FanOutExecutor fanOutExecutor;
+    private final MimeTypeResolver mimeTypeResolver;
+    private final NotificationDeduplicator deduplicator;
+    private final MetaPingMetrics metrics;
+    private final Tracer tracer;
+    private final ObjectMetadataEnricher enricher;
 
-    public MetaPingFunction(ObjectProvider<MetaNotifier> metaNotifierProvider) {
+    /**
+     * Any collaborator may be {@code null}, which selects its default: no notifier, sequential fan-out, the
+     * built-in MIME table, and no dedup, metrics, spans or enrichment.
+     */
+    @Autowired
+    public MetaPingFunction(ObjectProvider<MetaNotifier> metaNotifierProvider, FanOutExecutor fanOutExecutor,
+                            MimeTypeResolver mimeTypeResolver, NotificationDeduplicator deduplicator,
+                            MetaPingMetrics metrics, Tracer tracer, ObjectMetadataEnricher enricher) {
         this.metaNotifierProvider = metaNotifierProvider;
+        this.fanOutExecutor = fanOutExecutor != null ? fanOutExecutor : FanOutExecutor.sequential();
+        this.mimeTypeResolver = mimeTypeResolver != null ? mimeTypeResolver : MimeTypeResolver.withDefaults();
+        this.deduplicator = deduplicator != null ? deduplicator : NotificationDeduplicator.disabled();
+        this.metrics = metrics != null ? metrics : MetaPingMetrics.disabled();
+        this.tracer = tracer != null ? tracer : Tracer.disabled();
+        this.enricher = enricher != null ? enricher : ObjectMetadataEnricher.disabled();
+    }
+
+    /**
+     * Copy of this function for warm-up runs (see {@code SnapStartPriming}): same MIME table, fan-out, dedup,
+     * metrics and enrichment, but without a notifier, and with spans recorded but not exported.
+     */
+    public MetaPingFunction forPriming() {
+        return new MetaPingFunction(null, fanOutExecutor, mimeTypeResolver, deduplicator, metrics, tracer.withoutExport(),
+                enricher);
     }
 
     @Override
     public String apply(S3Event s3Event) {
-        
+
         // Ensure the event contains at least one valid S3 record
-        S3EventNotification.S3EventNotificationRecord s3EventRecord = validateS3Event(s3Event);
+        return process(validateS3Event(s3Event));
+    }
 
-        if (s3EventRecord == null) {
-            LOG.warn("No valid S3 record found in event");
-            return "{\"error\":\"no-s3-records\"}";
+    /**
+     * Extracts metadata from already-flattened records (in event order) and publishes notifications.
+     * Records without an object entity yield an {@code invalid-s3-record} entry; an empty list yields
+     * {@code no-s3-records}.
+     * Runs under the trace id already set on the calling thread, else the S3 request id of the first record.
+     */
+    public String process(List<S3ObjectRecord> s3EventRecords) {
+        try (Span trace = tracer.startTrace("metaping.process", firstRequestId(s3EventRecords))) {
+            trace.attribute("metaping.records", s3EventRecords != null ? s3EventRecords.size() : 0);
+            Summary summary = new Summary();
+            try {
+                if (s3EventRecords == null || s3EventRecords.isEmpty()) {
+                    LOG.warn("No valid S3 record found in event");
+                    return "{\"error\":\"no-s3-records\"}";
+                }
+                return processRecords(s3EventRecords, summary, null, MetadataJsonWriter::writeResult).join();
+            } finally {
+                summary.log(s3EventRecords != null ? s3EventRecords.size() : 0);
+            }
         }
+    }
 
-        S3EventNotification.S3ObjectEntity s3Object = s3EventRecord.getS3().getObject();
-        if (s3Object == null) {
-            LOG.warn("S3 record is missing S3 object entity");
-            return "{\"error\":\"invalid-s3-record\"}";
+    /**
+     * Non-blocking variant of {@link #apply(S3Event)}; see {@link #processAsync(List)}.
+     */
+    public CompletableFuture<String> applyAsync(S3Event s3Event) {
+        return processAsync(validateS3Event(s3Event));
+    }
+
+    /**
+     * Non-blocking variant of {@link #process(List)}: extraction runs on the calling thread, and the future
+     * completes with the same document once SNS has answered. Only non-blocking while SNS publishing is async
+     * and fan-out is disabled; otherwise publishing completes before this returns.
+     */
+    public CompletableFuture<String> processAsync(List<S3ObjectRecord> s3EventRecords) {
+        if (s3EventRecords == null || s3EventRecords.isEmpty()) {
+            return CompletableFuture.completedFuture(process(s3EventRecords));
         }
+        Span trace = tracer.startTrace("metaping.process", firstRequestId(s3EventRecords));
+        trace.attribute("metaping.records", s3EventRecords.size());
+        Summary summary = new Summary();
+        CompletableFuture<String> result;
+        try {
+            result = processRecords(s3EventRecords, summary, null, MetadataJsonWriter::writeResult);
+        } catch (RuntimeException e) {
+            trace.close();
+            summary.log(s3EventRecords.size());
+            throw e;
+        }
+        trace.detach(); // the trace ends when SNS has answered, possibly on another thread
+        return result.whenComplete((ignored, error) -> {
+            trace.end();
+            summary.log(s3EventRecords.size());
+        });
+    }
 
-        // Build metadata from the S3 object (key, size, inferred type)
-        FileMetadata metadata = extractFileMetadata(s3Object);
-        LOG.info("Extracted file metadata: name='{}', size={}, type='{}'",
-                metadata.fileName(), metadata.fileSize(), metadata.fileType());
+    /**
+     * Same pipeline as {@link #process(List)}, reporting each record's outcome instead of the metadata document.
+     * A record fails when it has no object entity or its notification was neither published nor journaled;
+     * duplicates and records processed without a notifier succeed.
+     *
+     * @return one flag per record, in input order: true when the record needs no redelivery
+     */
+    public List<Boolean> processBatch(List<S3ObjectRecord> s3EventRecords) {
+        if (s3EventRecords == null || s3EventRecords.isEmpty()) {
+            return List.of();
+        }
+        try (Span trace = tracer.startTrace("metaping.process", firstRequestId(s3EventRecords))) {
+            trace.attribute("metaping.records", s3EventRecords.size());
+            Summary summary = new Summary();
+            Boolean[] handled = new Boolean[s3EventRecords.size()];
+            Arrays.fill(handled, Boolean.TRUE);
+            try {
+                processRecords(s3EventRecords, summary, handled, results -> null).join();
+            } finally {
+                summary.log(s3EventRecords.size());
+            }
+            return Arrays.asList(handled);
+        }
+    }
+
+    /**
+     * Runs extraction and notification over non-empty {@code s3EventRecords}.
+     * The future completes once outstanding async publishes are done.
+     *
+     * @param handled when not null, set to false at the index of every record that failed
+     * @param result  turns the per-record metadata ({@code null} = invalid record) into the result; runs while
+     *                async publishes are still under way
+     */
+    private <T> CompletableFuture<T> processRecords(List<S3ObjectRecord> s3EventRecords, Summary summary, Boolean[] handled,
+                                 Function<List<FileMetadata>, T> result) {
+        for (S3ObjectRecord s3EventRecord : s3EventRecords) {
+            logS3RecordDetails(s3EventRecord);
+        }
+        metrics.record(Metric.RECORDS, s3EventRecords.size());
+        List<ObjectDetails> details = enrich(s3EventRecords);
 
         // Attempt notification publish if MetaNotifier bean is available via provider
         MetaNotifier notifier = metaNotifierProvider != null ? metaNotifierProvider.getIfAvailable() : null;
-        if (notifier != null) {
-            boolean published = notifier.notifyNewFile(metadata);
-            LOG.info("MetaNotifier publish attempted. success={}", published);
-        } else {
+        if (notifier == null) {
             LOG.debug("MetaNotifier bean not available; skipping notification publish.");
         }
-  
-        // Return string form; can be swapped for JSON serialization later
-        return metadata.toString();
-    }
 
+        // Fan-out mode: each record is extracted and notified on its own virtual thread
+        if (fanOutExecutor.isEnabled() && s3EventRecords.size() > 1) {
+            List<Integer> indices = new ArrayList<>(s3EventRecords.size());
+            for (int i = 0; i < s3EventRecords.size(); i++) {
+                indices.add(i);
+            }
+            return CompletableFuture.completedFuture(result.apply(fanOutExecutor.map(indices,
+                    i -> processRecord(s3EventRecords.get(i), details.get(i), notifier, summary, handled, i))));
+        }
+
+        // Build metadata for every record; results keep the record order of the incoming event (null = invalid record).
+        // Only records not notified before are queued for notification; duplicates still appear in the result.
+        List<FileMetadata> results = new ArrayList<>(s3EventRecords.size());
+        List<FileMetadata> extracted = new ArrayList<>(s3EventRecords.size());
+        List<S3ObjectRecord> claimed = new ArrayList<>(s3EventRecords.size());
+        List<Integer> claimedIndices = new ArrayList<>(s3EventRecords.size());
+        for (int i = 0; i < s3EventRecords.size(); i++) {
+            S3ObjectRecord s3EventRecord = s3EventRecords.get(i);
+            FileMetadata metadata = extractRecord(s3EventRecord, details.get(i), summary);
+            results.add(metadata);
+            if (metadata == null && handled != null) {
+                handled[i] = false;
+            }
+            if (metadata == null || notifier == null) {
+                continue;
+            }
+            if (deduplicator.claim(s3EventRecord)) {
+                extracted.add(metadata);
+                claimed.add(s3EventRecord);
+                claimedIndices.add(i);
+            } else {
+                summary.duplicates.incrementAndGet();
+            }
+        }
 
+        long notifyStart = metrics.start();
+        Span notifySpan = notifier != null && !extracted.isEmpty()
+                ? InvocationTrace.span("metaping.notify").attribute("metaping.files", extracted.size())
+                : Span.NOOP;
+        CompletableFuture<Void> pendingNotification = notifier != null
+                ? notify(notifier, extracted).thenAccept(published -> {
+                    if (!extracted.isEmpty()) {
+                        metrics.stop(Metric.NOTIFY_TIME, notifyStart);
+                    }
+                    notifySpan.end();
+                    summary.published(published, extracted.size());
+                    releaseFailed(claimed, published);
+                    markFailed(handled, claimedIndices, published);
+                })
+                : CompletableFuture.completedFuture(null);
+        notifySpan.detach(); // SNS requests are under way; the span ends when they complete
+
+        T output = result.apply(results);
+
+        // Wait for outstanding publishes only once everything else is done (already complete when publishing is synchronous)
+        return pendingNotification.thenApply(ignored -> output);
+    }
 
     /**
-     * Returns the first S3 record from the event if present and structurally valid.
-     * S3 ObjectCreated events typically contain a single record; we only process one file at a time.
-     * Returns {@code null} when the event or its record is missing/invalid.
+     * Looks up the objects of all records when enrichment is enabled.
+     *
+     * @return one entry per record, {@code null} where no details are available
      */
-    private S3EventNotification.S3EventNotificationRecord validateS3Event(S3Event s3Event) {
-        if (s3Event == null || s3Event.getRecords() == null || s3Event.getRecords().isEmpty()) {
-            return null;
+    private List<ObjectDetails> enrich(List<S3ObjectRecord> s3EventRecords) {
+        if (!enricher.isEnabled()) {
+            return Arrays.asList(new ObjectDetails[s3EventRecords.size()]);
+        }
+        try (Span span = InvocationTrace.span("metaping.enrich")) {
+            List<ObjectDetails> details = enricher.enrich(s3EventRecords);
+            span.attribute("metaping.enriched", details.stream().filter(Objects::nonNull).count());
+            return details;
         }
+    }
 
-        S3EventNotification.S3EventNotificationRecord firstRecord = s3Event.getRecords().get(0);
-        if (firstRecord == null) {
+    /**
+     * Builds metadata from the record's S3 object (key, size, type) and its HeadObject details, if any.
+     * Returns {@code null} when the record has no object entity.
+     */
+    private FileMetadata extractRecord(S3ObjectRecord s3EventRecord, ObjectDetails details, Summary summary) {
+        if (!s3EventRecord.hasObject()) {
+            LOG.warn("S3 record is missing S3 object entity");
+            summary.invalid.incrementAndGet();
             return null;
         }
 
-        S3EventNotification.S3Entity s3Entity = firstRecord.getS3();
-        if (s3Entity == null) {
-            return null;
+        FileMetadata metadata;
+        try (Span span = InvocationTrace.span("metaping.extract")) {
+            span.attribute("s3.bucket", s3EventRecord.bucket())
+                    .attribute("s3.key", s3EventRecord.key())
+                    .attribute("s3.request_id", s3EventRecord.requestId());
+            metadata = extractFileMetadata(s3EventRecord, details);
         }
+        summary.extracted.incrementAndGet();
+        LOG.debug("Extracted file metadata: name='{}', size={}, type='{}'",
+                metadata.fileName(), metadata.fileSize(), metadata.fileType());
+        return metadata;
+    }
 
-        logS3RecordDetails(s3Entity);
-        return firstRecord;
+    /**
+     * Fan-out unit of work: extracts one record and publishes its notification with a blocking call,
+     * which is cheap on a virtual thread.
+     */
+    private FileMetadata processRecord(S3ObjectRecord s3EventRecord, ObjectDetails details, MetaNotifier notifier,
+                                       Summary summary, Boolean[] handled, int index) {
+        FileMetadata metadata = extractRecord(s3EventRecord, details, summary);
+        if (metadata == null && handled != null) {
+            handled[index] = false;
+        }
+        if (metadata == null || notifier == null) {
+            return metadata;
+        }
+        if (!deduplicator.claim(s3EventRecord)) {
+            summary.duplicates.incrementAndGet();
+            return metadata;
+        }
+        long notifyStart = metrics.start();
+        boolean published;
+        try (Span ignored = InvocationTrace.span("metaping.notify")) {
+            published = notifier.notifyNewFile(metadata);
+        }
+        metrics.stop(Metric.NOTIFY_TIME, notifyStart);
+        LOG.debug("MetaNotifier publish attempted. success={}", published);
+        (published ? summary.published : summary.failed).incrementAndGet();
+        if (!published) {
+            deduplicator.release(s3EventRecord);
+            if (handled != null) {
+                handled[index] = false;
+            }
+        }
+        return metadata;
     }
 
+    /**
+     * Starts publishing notifications for the extracted files. A single file uses a plain publish;
+     * several files are sent together through SNS PublishBatch to save round trips.
+     * With an async SNS client the returned future completes once SNS has answered; otherwise it is already complete.
+     * The future yields one success flag per file, in order.
+     */
+    private CompletableFuture<List<Boolean>> notify(MetaNotifier notifier, List<FileMetadata> extracted) {
+        if (extracted.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        if (extracted.size() == 1) {
+            return notifier.notifyNewFileAsync(extracted.get(0))
+                    .thenApply(published -> {
+                        LOG.debug("MetaNotifier publish attempted. success={}", published);
+                        return List.of(Boolean.TRUE.equals(published));
+                    });
+        }
+        return notifier.notifyNewFilesAsync(extracted)
+                .thenApply(published -> {
+                    long successCount = published.stream().filter(Boolean.TRUE::equals).count();
+                    LOG.debug("MetaNotifier batch publish attempted. success={}/{}", successCount, extracted.size());
+                    return published;
+                });
+    }
+
+    /**
+     * Gives up the dedup claims of files whose notification failed, so S3's redelivery is notified.
+     */
+    private void releaseFailed(List<S3ObjectRecord> claimed, List<Boolean> published) {
+        if (!deduplicator.isEnabled()) {
+            return;
+        }
+        for (int i = 0; i < claimed.size(); i++) {
+            if (i >= published.size() || !Boolean.TRUE.equals(published.get(i))) {
+                deduplicator.release(claimed.get(i));
+            }
+        }
+    }
+
+    /**
+     * Flags the records whose notification failed; {@code claimedIndices} maps each notified file to its record.
+     */
+    private static void markFailed(Boolean[] handled, List<Integer> claimedIndices, List<Boolean> published) {
+        if (handled == null) {
+            return;
+        }
+        for (int i = 0; i < claimedIndices.size(); i++) {
+            if (i >= published.size() || !Boolean.TRUE.equals(published.get(i))) {
+                handled[claimedIndices.get(i)] = false;
+            }
+        }
+    }
 
     /**
-     * Extracts {@link FileMetadata} from the provided S3 object entity.
+     * Returns the structurally valid S3 records from the event, flattened and in delivery order.
+     * S3 usually sends a single record per event, but batched or replayed events may carry several.
+     * Returns an empty list when the event is missing or none of its records carry an S3 entity.
+     */
+    private List<S3ObjectRecord> validateS3Event(S3Event s3Event) {
+        if (s3Event == null || s3Event.getRecords() == null || s3Event.getRecords().isEmpty()) {
+            return List.of();
+        }
+
+        List<S3ObjectRecord> validRecords = new ArrayList<>(s3Event.getRecords().size());
+        for (S3EventNotification.S3EventNotificationRecord s3EventRecord : s3Event.getRecords()) {
+            if (s3EventRecord == null || s3EventRecord.getS3() == null) {
+                continue;
+            }
+            validRecords.add(S3ObjectRecord.from(s3EventRecord));
+        }
+        return validRecords;
+    }
+
+
+    /**
+     * Extracts {@link FileMetadata} from the provided S3 object record.
      * - fileName: URL-decoded object key
-     * - fileSize: size in bytes (or -1 when not present)
-     * - fileType: MIME type inferred from name, defaulting to application/octet-stream
+     * - fileSize: size in bytes (or -1 when not present); HeadObject's Content-Length when the event has none
+     * - fileType: the stored Content-Type when HeadObject reported a specific one, else the MIME type inferred
+     *   from the name, defaulting to application/octet-stream
+     * - bucket, eTag, eventTime: copied from the record as delivered
+     * - storageClass, userMetadata: from HeadObject, {@code null} without details
      */
-    private FileMetadata extractFileMetadata(S3EventNotification.S3ObjectEntity s3Object) {
-        String fileName = decodeFileName(s3Object.getKey());
-        long fileSize = s3Object.getSizeAsLong() != null ? s3Object.getSizeAsLong() : -1L;
-        String fileType = inferFileType(fileName);
+    private FileMetadata extractFileMetadata(S3ObjectRecord s3Object, ObjectDetails details) {
+        long start = metrics.start();
+        Span span = InvocationTrace.span("metaping.decode");
+        String fileName = decodeFileName(s3Object.key());
+        span.close();
+        metrics.stop(Metric.DECODE_TIME, start);
+        long fileSize = s3Object.size() >= 0 || details == null ? s3Object.size() : details.contentLength();
+        String fileType = details != null ? details.mediaType() : null;
+        if (fileType == null) {
+            start = metrics.start();
+            span = InvocationTrace.span("metaping.mime");
+            fileType = inferFileType(fileName);
+            span.close();
+            metrics.stop(Metric.MIME_TIME, start);
+        }
 
-        return new FileMetadata(fileName, fileSize, fileType);
+        if (details == null) {
+            return new FileMetadata(fileName, fileSize, fileType, s3Object.bucket(), s3Object.eTag(), s3Object.eventTime());
+        }
+        return new FileMetadata(fileName, fileSize, fileType, s3Object.bucket(), s3Object.eTag(), s3Object.eventTime(),
+                details.storageClass(), details.userMetadata());
     }
 
     /**
      * Decodes the S3 object key to a human-readable file name.
-     * Replaces '+' with space prior to UTF-8 URL decoding to match S3 URL encoding behavior.
+     * Treats '+' as a space and decodes UTF-8 %XX escapes, matching S3's URL encoding of keys in events;
+     * keys without escapes are returned as-is and malformed escapes are kept literally.
      */
     private String decodeFileName(String rawKey) {
-        if (rawKey == null) {
-            return "";
-        }
-        // URL-decode to handle spaces and special characters
-        return URLDecoder.decode(rawKey.replace('+', ' '), StandardCharsets.UTF_8);
+        return S3KeyDecoder.decode(rawKey);
     }
 
     /**
-     * Guesses a MIME type from the file name. Falls back to application/octet-stream when unknown.
+     * Guesses a MIME type from the file name's extension. Falls back to application/octet-stream when unknown.
      */
     private String inferFileType(String fileName) {
-        if (fileName == null || fileName.isEmpty()) {
-            return "application/octet-stream";
+        return mimeTypeResolver.resolve(fileName);
+    }
+
+    /**
+     * The {@code x-amz-request-id} of the first record that has one, or {@code null}.
+     */
+    private static String firstRequestId(List<S3ObjectRecord> s3EventRecords) {
+        if (s3EventRecords != null) {
+            for (S3ObjectRecord s3EventRecord : s3EventRecords) {
+                if (s3EventRecord.requestId() != null) {
+                    return s3EventRecord.requestId();
+                }
+            }
         }
-        // Guess based on file extension
-        String inferredType = URLConnection.guessContentTypeFromName(fileName);
-        return inferredType != null ? inferredType : "application/octet-stream";
+        return null;
+    }
+
+    /**
+     * Logs the object key from the S3 record for tracking purposes.
+     */
+    private void logS3RecordDetails(S3ObjectRecord s3Record) {
+        String rawKey = s3Record.hasObject() ? s3Record.key() : "";
+        LOG.debug("Processing S3 record: key={}", rawKey);
     }
 
     /**
-     * Logs the object key from the S3 entity for tracking purposes.
+     * Outcome counts of one call, logged as a single line when it ends. Counters are atomic because
+     * fan-out workers and async publish callbacks update them concurrently.
      */
-    private void logS3RecordDetails(S3EventNotification.S3Entity s3Entity) {
-        String rawKey = (s3Entity.getObject() != null) ? s3Entity.getObject().getKey() : "";
-        LOG.info("Processing S3 record: key={}", rawKey);
+    private static final class Summary {
+        final long startNanos = System.nanoTime();
+        final AtomicInteger extracted = new AtomicInteger();
+        final AtomicInteger invalid = new AtomicInteger();
+        final AtomicInteger duplicates = new AtomicInteger();
+        final AtomicInteger published = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+
+        void published(List<Boolean> outcomes, int attempted) {
+            int successful = (int) outcomes.stream().filter(Boolean.TRUE::equals).count();
+            published.addAndGet(successful);
+            failed.addAndGet(attempted - successful);
+        }
+
+        void log(int records) {
+            SUMMARY_LOG.info("Invocation processed: records={}, extracted={}, invalid={}, duplicates={}, published={}, failed={}, durationMs={}",
+                    records, extracted.get(), invalid.get(), duplicates.get(), published.get(), failed.get(),
+                    (System.nanoTime() - startNanos) / 1_000_000);
+        }
     }
 
 }
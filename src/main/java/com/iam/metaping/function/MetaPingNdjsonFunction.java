@@ -0,0 +1,27 @@
+package com.iam.metaping.function;
+
+import java.util.function.Function;
+
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+/**
+ * Newline-delimited JSON front of {@link MetaPingReactiveFunction}: accepts a stream of S3 events, one per line,
+ * in a single HTTP request (e.g. {@code POST /metaPingNdjsonFunction} with {@code Content-Type: application/x-ndjson}).
+ * <p>
+ * Output: one JSON document per line, in line order; see {@link MetaPingReactiveFunction#applyLines(Flux)}.
+ */
+@Component
+public class MetaPingNdjsonFunction implements Function<Flux<String>, Flux<String>> {
+
+    private final MetaPingReactiveFunction reactiveFunction;
+
+    public MetaPingNdjsonFunction(MetaPingReactiveFunction reactiveFunction) {
+        this.reactiveFunction = reactiveFunction;
+    }
+
+    @Override
+    public Flux<String> apply(Flux<String> lines) {
+        return reactiveFunction.applyLines(lines);
+    }
+}
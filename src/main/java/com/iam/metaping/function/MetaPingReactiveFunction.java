@@ -0,0 +1,99 @@
+package com.iam.metaping.function;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.amazonaws.services.lambda.runtime.events.S3Event;
+import com.iam.metaping.config.ReactiveProperties;
+import com.iam.metaping.model.S3ObjectRecord;
+import com.iam.metaping.service.FanOutExecutor;
+import com.iam.metaping.service.S3EventStreamParser;
+import com.iam.metaping.service.SnsPublisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Reactive variant of {@link MetaPingFunction} for the HTTP deployment, for streams of S3 events such as replays.
+ * <p>
+ * Input: {@link Flux} of {@link S3Event}s (or NDJSON lines, see {@link #applyLines(Flux)})
+ * Output: one JSON document per event, as {@link MetaPingFunction} returns it, in event order
+ * <p>
+ * Configuration (application.properties):
+ * - metaping.reactive.concurrency=<n> (default 16): events of one stream in flight at a time
+ * Notes:
+ * - Each event goes through {@link MetaPingFunction#processAsync(List)}. At most {@code concurrency} events are
+ *   in flight and only that many are requested from upstream, so a slow SNS backs up the stream instead of
+ *   buffering it.
+ * - With {@code aws.sns.async=true} nothing blocks: publishes run on the SDK's event loop. Otherwise (or with
+ *   fan-out enabled) each event is processed on Reactor's bounded elastic scheduler so the caller's thread is
+ *   never blocked on SNS.
+ */
+@Component
+public class MetaPingReactiveFunction implements Function<Flux<S3Event>, Flux<String>> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MetaPingReactiveFunction.class);
+    private static final String INVALID_EVENT = "{\"error\":\"invalid-event\"}";
+
+    private final MetaPingFunction function;
+    private final int concurrency;
+    private final boolean offload;
+
+    @Autowired
+    public MetaPingReactiveFunction(MetaPingFunction function, ReactiveProperties reactiveProperties,
+                                    SnsPublisher snsPublisher, FanOutExecutor fanOutExecutor) {
+        this(function, reactiveProperties != null ? reactiveProperties.getConcurrency() : 16,
+                snsPublisher == null || !snsPublisher.isAsync() || (fanOutExecutor != null && fanOutExecutor.isEnabled()));
+    }
+
+    /**
+     * @param offload process each event on the bounded elastic scheduler, for blocking publishers
+     */
+    public MetaPingReactiveFunction(MetaPingFunction function, int concurrency, boolean offload) {
+        this.function = function;
+        this.concurrency = Math.max(1, concurrency);
+        this.offload = offload;
+    }
+
+    @Override
+    public Flux<String> apply(Flux<S3Event> events) {
+        return events.flatMapSequential(event -> call(() -> function.applyAsync(event)), concurrency, 1);
+    }
+
+    /**
+     * Processes newline-delimited JSON: every element holds one or more lines, each a complete S3 event.
+     * Blank lines are skipped; a line that is not well-formed JSON yields {@code {"error":"invalid-event"}}
+     * and the stream goes on.
+     */
+    public Flux<String> applyLines(Flux<String> chunks) {
+        return chunks
+                .concatMapIterable(chunk -> chunk.lines().filter(line -> !line.isBlank()).toList())
+                .flatMapSequential(line -> {
+                    List<S3ObjectRecord> records = parse(line);
+                    return records != null ? call(() -> function.processAsync(records)) : Mono.just(INVALID_EVENT);
+                }, concurrency, 1);
+    }
+
+    private Mono<String> call(Supplier<CompletableFuture<String>> processing) {
+        Mono<String> result = Mono.fromFuture(processing);
+        return offload ? result.subscribeOn(Schedulers.boundedElastic()) : result;
+    }
+
+    private static List<S3ObjectRecord> parse(String line) {
+        try {
+            return S3EventStreamParser.parse(new ByteArrayInputStream(line.getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            LOG.warn("Skipping event that is not valid JSON: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.iam.metaping.function;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.iam.metaping.model.S3ObjectRecord;
+import com.iam.metaping.service.S3EventStreamParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Processes S3 event notifications delivered through an SQS queue.
+ * <p>
+ * Input: {@link SQSEvent} whose message bodies are S3 event notifications, as S3 writes them to a queue
+ * Output: {@link SQSBatchResponse} listing only the messages to redeliver
+ * <p>
+ * The records of every message are parsed with {@link S3EventStreamParser} and processed as one batch by
+ * {@link MetaPingFunction#processBatch(List)}, so a large SQS batch is extracted and published with as few
+ * SNS round trips as an S3 event of the same size. A message is reported as failed when its body is not an
+ * S3 notification or any of its records failed; the event source mapping must have
+ * {@code ReportBatchItemFailures} enabled, otherwise Lambda redelivers the whole batch.
+ * S3 test events ({@code s3:TestEvent}, sent when the notification is configured) are acknowledged and skipped.
+ * <p>
+ * Select it with {@code spring.cloud.function.definition=metaPingSqsFunction}.
+ */
+@Component
+public class MetaPingSqsFunction implements Function<SQSEvent, SQSBatchResponse> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MetaPingSqsFunction.class);
+    private static final String TEST_EVENT = "\"s3:TestEvent\"";
+
+    private final MetaPingFunction function;
+
+    public MetaPingSqsFunction(MetaPingFunction function) {
+        this.function = function;
+    }
+
+    @Override
+    public SQSBatchResponse apply(SQSEvent sqsEvent) {
+        if (sqsEvent == null || sqsEvent.getRecords() == null || sqsEvent.getRecords().isEmpty()) {
+            return new SQSBatchResponse(List.of());
+        }
+
+        // Records of all messages in delivery order, each with the id of the message that carried it
+        List<S3ObjectRecord> records = new ArrayList<>(sqsEvent.getRecords().size());
+        List<String> owners = new ArrayList<>(sqsEvent.getRecords().size());
+        Set<String> failed = new LinkedHashSet<>();
+        for (SQSEvent.SQSMessage message : sqsEvent.getRecords()) {
+            if (message == null) {
+                continue;
+            }
+            List<S3ObjectRecord> parsed = parse(message);
+            if (parsed == null) {
+                failed.add(message.getMessageId());
+                continue;
+            }
+            for (S3ObjectRecord s3EventRecord : parsed) {
+                records.add(s3EventRecord);
+                owners.add(message.getMessageId());
+            }
+        }
+
+        List<Boolean> handled = function.processBatch(records);
+        for (int i = 0; i < handled.size(); i++) {
+            if (!Boolean.TRUE.equals(handled.get(i))) {
+                failed.add(owners.get(i));
+            }
+        }
+        if (!failed.isEmpty()) {
+            LOG.warn("SQS messages to redeliver: {} of {}", failed.size(), sqsEvent.getRecords().size());
+        }
+
+        List<SQSBatchResponse.BatchItemFailure> failures = new ArrayList<>(failed.size());
+        for (String messageId : failed) {
+            failures.add(new SQSBatchResponse.BatchItemFailure(messageId));
+        }
+        return new SQSBatchResponse(failures);
+    }
+
+    /**
+     * The S3 records in the message body; empty for S3 test events, {@code null} when the body is not an
+     * S3 notification.
+     */
+    private static List<S3ObjectRecord> parse(SQSEvent.SQSMessage message) {
+        String body = message.getBody();
+        if (body == null || body.isBlank()) {
+            LOG.warn("SQS message {} has no body", message.getMessageId());
+            return null;
+        }
+        List<S3ObjectRecord> parsed;
+        try {
+            parsed = S3EventStreamParser.parse(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            LOG.warn("SQS message {} is not valid JSON: {}", message.getMessageId(), e.getMessage());
+            return null;
+        }
+        if (!parsed.isEmpty()) {
+            return parsed;
+        }
+        if (body.contains(TEST_EVENT)) {
+            LOG.info("S3 test event received in SQS message {}; skipping", message.getMessageId());
+            return parsed;
+        }
+        LOG.warn("SQS message {} carries no S3 records", message.getMessageId());
+        return null;
+    }
+}
@@ -0,0 +1,29 @@
+package com.iam.metaping.model;
+
+import java.util.List;
+
+/**
+ * Summary of the files uploaded to one group (prefix, bucket or type) during one digest window.
+ * <p>
+ * {@code bucket} is set when grouping by prefix or bucket and {@code null} when grouping by type.
+ * {@code totalBytes} sums the known sizes only. {@code names} lists the first files of the window,
+ * bounded by configuration; {@code files} always counts all of them. Window bounds are ISO-8601 instants.
+ */
+public record FileDigest(
+        String groupBy,
+        String key,
+        String bucket,
+        int files,
+        long totalBytes,
+        String windowStart,
+        String windowEnd,
+        List<String> names
+) {
+
+    /**
+     * Files counted but not listed in {@link #names()}.
+     */
+    public int namesOmitted() {
+        return files - names.size();
+    }
+}
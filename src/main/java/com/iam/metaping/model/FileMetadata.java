@@ -1,16 +1,42 @@
 package com.iam.metaping.model;
 
+import java.util.Map;
+
 /**
  * Represents basic metadata about a file received from an S3 event.
  * <p>
  * This model captures the essential attributes that are typically present
  * in object-created notifications: the object key (file name), its size
  * in bytes, and a logical file type (e.g., content type or an inferred
- * type label).
+ * type label). Where the event provides them, the source bucket, the object's
+ * eTag and the event time (ISO-8601, as delivered) are kept as well; they are
+ * {@code null} otherwise.
+ * <p>
+ * {@code storageClass} and {@code userMetadata} (the object's {@code x-amz-meta-*} values) come from
+ * HeadObject enrichment and are {@code null} when the object was not looked up.
  */
 public record FileMetadata(
         String fileName,
         long fileSize,
-        String fileType
+        String fileType,
+        String bucket,
+        String eTag,
+        String eventTime,
+        String storageClass,
+        Map<String, String> userMetadata
 ) {
+
+    /**
+     * Metadata as delivered by the event, without HeadObject details.
+     */
+    public FileMetadata(String fileName, long fileSize, String fileType, String bucket, String eTag, String eventTime) {
+        this(fileName, fileSize, fileType, bucket, eTag, eventTime, null, null);
+    }
+
+    /**
+     * Metadata without source details (bucket, eTag, event time).
+     */
+    public FileMetadata(String fileName, long fileSize, String fileType) {
+        this(fileName, fileSize, fileType, null, null, null);
+    }
 }
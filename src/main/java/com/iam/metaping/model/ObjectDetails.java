@@ -0,0 +1,37 @@
+package com.iam.metaping.model;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * What S3 reports about a stored object through HeadObject.
+ * <p>
+ * {@code contentType} is the {@code Content-Type} as stored (or {@code null}), {@code contentLength} is -1 when
+ * not reported, {@code storageClass} is never {@code null} ({@code STANDARD} when S3 omits it) and
+ * {@code userMetadata} holds the {@code x-amz-meta-*} values without their prefix, sorted by name.
+ */
+public record ObjectDetails(
+        String contentType,
+        long contentLength,
+        String storageClass,
+        Map<String, String> userMetadata
+) {
+
+    /**
+     * The stored media type without parameters, lower-cased, e.g. {@code text/csv} for
+     * {@code text/csv; charset=UTF-8}. {@code null} when there is none or it is only S3's generic default
+     * ({@code binary/octet-stream}, {@code application/octet-stream}), which says nothing about the file.
+     */
+    public String mediaType() {
+        if (contentType == null) {
+            return null;
+        }
+        int semicolon = contentType.indexOf(';');
+        String type = (semicolon < 0 ? contentType : contentType.substring(0, semicolon)).trim().toLowerCase(Locale.ROOT);
+        if (type.isEmpty() || type.indexOf('/') < 0
+                || type.equals("binary/octet-stream") || type.equals("application/octet-stream")) {
+            return null;
+        }
+        return type;
+    }
+}
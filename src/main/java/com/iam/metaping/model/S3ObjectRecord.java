@@ -0,0 +1,64 @@
+package com.iam.metaping.model;
+
+import com.amazonaws.services.lambda.runtime.events.models.s3.S3EventNotification;
+
+/**
+ * Flat view of one S3 event record: only the fields Meta-Ping reads.
+ * <p>
+ * Built either from the {@code S3EventNotification} model or directly from the raw event JSON
+ * by the streaming handler. {@code key} is the URL-encoded object key as delivered by S3 and is
+ * {@code null} when the record has no object entity; {@code size} is -1 when not present.
+ * {@code eventTime} is the ISO-8601 timestamp of the record, or {@code null}.
+ * {@code requestId} is the {@code x-amz-request-id} of the S3 request that caused the event, or {@code null}.
+ */
+public record S3ObjectRecord(
+        String bucket,
+        String key,
+        long size,
+        String eTag,
+        String sequencer,
+        String eventName,
+        String eventTime,
+        String requestId
+) {
+
+    /**
+     * Record without an S3 request id.
+     */
+    public S3ObjectRecord(String bucket, String key, long size, String eTag, String sequencer,
+                          String eventName, String eventTime) {
+        this(bucket, key, size, eTag, sequencer, eventName, eventTime, null);
+    }
+
+    /**
+     * Whether the record carried an S3 object entity at all.
+     */
+    public boolean hasObject() {
+        return key != null;
+    }
+
+    /**
+     * Flattens a record of the {@code S3EventNotification} model. The record must carry an S3 entity.
+     */
+    public static S3ObjectRecord from(S3EventNotification.S3EventNotificationRecord eventRecord) {
+        S3EventNotification.S3Entity s3 = eventRecord.getS3();
+        String bucket = s3.getBucket() != null ? s3.getBucket().getName() : null;
+        String eventTime = eventRecord.getEventTime() != null ? eventRecord.getEventTime().toString() : null;
+        String requestId = eventRecord.getResponseElements() != null
+                ? eventRecord.getResponseElements().getxAmzRequestId() : null;
+        S3EventNotification.S3ObjectEntity object = s3.getObject();
+        if (object == null) {
+            return new S3ObjectRecord(bucket, null, -1L, null, null, eventRecord.getEventName(), eventTime, requestId);
+        }
+        Long size = object.getSizeAsLong();
+        return new S3ObjectRecord(
+                bucket,
+                object.getKey() != null ? object.getKey() : "",
+                size != null ? size : -1L,
+                object.geteTag(),
+                object.getSequencer(),
+                eventRecord.getEventName(),
+                eventTime,
+                requestId);
+    }
+}
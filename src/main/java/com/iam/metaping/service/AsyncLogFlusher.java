@@ -0,0 +1,151 @@
+package com.iam.metaping.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.AppenderBase;
+import ch.qos.logback.core.AsyncAppenderBase;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.ILoggerFactory;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waits for logback's async appenders to write everything queued at the end of an invocation.
+ * <p>
+ * Lambda freezes the container as soon as the handler returns, so lines still queued in an
+ * {@code AsyncAppender} would only reach CloudWatch with the next invocation (or never). The handlers call
+ * {@link #drain(long)} in their {@code finally} block; without async appenders (pattern logging, tests, non-logback
+ * bindings) it returns immediately.
+ * <p>
+ * An empty queue only means the worker has taken the last events, not that it has written them, so drain
+ * enqueues a flush marker behind them instead. The worker hands events to the attached appenders one at a time
+ * in queue order; once the marker reaches the barrier appender added next to them, every earlier line is written.
+ * The attached appenders get a filter that drops the marker.
+ */
+public final class AsyncLogFlusher {
+
+    private static final String BARRIER_NAME = "meta-ping-flush-barrier";
+
+    private static volatile List<AsyncAppenderBase<ILoggingEvent>> appenders; // discovered on first use
+
+    private AsyncLogFlusher() {
+    }
+
+    /**
+     * Blocks until every line queued in an async appender so far is written, for at most {@code timeoutMillis}.
+     *
+     * @return {@code true} when the lines were written in time
+     */
+    public static boolean drain(long timeoutMillis) {
+        List<AsyncAppenderBase<ILoggingEvent>> current = appenders();
+        if (current.isEmpty()) {
+            return true;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        List<FlushMarker> markers = new ArrayList<>(current.size());
+        for (AsyncAppenderBase<ILoggingEvent> appender : current) {
+            FlushMarker marker = new FlushMarker((LoggerContext) appender.getContext());
+            appender.doAppend(marker);
+            markers.add(marker);
+        }
+        try {
+            for (FlushMarker marker : markers) {
+                if (!marker.written.await(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    return false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
+    }
+
+    private static List<AsyncAppenderBase<ILoggingEvent>> appenders() {
+        List<AsyncAppenderBase<ILoggingEvent>> current = appenders;
+        // Empty results are not kept: the handler may drain before Spring applies the prod configuration
+        if (current == null || current.isEmpty() || current.stream().anyMatch(appender -> !appender.isStarted())) {
+            current = discover(); // first use, or logback was reconfigured
+            appenders = current;
+        }
+        return current;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<AsyncAppenderBase<ILoggingEvent>> discover() {
+        ILoggerFactory factory = LoggerFactory.getILoggerFactory();
+        if (!(factory instanceof LoggerContext context)) {
+            return List.of();
+        }
+        List<AsyncAppenderBase<ILoggingEvent>> found = new ArrayList<>(1);
+        for (ch.qos.logback.classic.Logger logger : context.getLoggerList()) {
+            Iterator<Appender<ILoggingEvent>> attached = logger.iteratorForAppenders();
+            while (attached.hasNext()) {
+                Appender<ILoggingEvent> appender = attached.next();
+                if (appender instanceof AsyncAppenderBase<?> async && appender.isStarted() && !found.contains(async)) {
+                    AsyncAppenderBase<ILoggingEvent> typed = (AsyncAppenderBase<ILoggingEvent>) async;
+                    installBarrier(typed);
+                    found.add(typed);
+                }
+            }
+        }
+        return List.copyOf(found);
+    }
+
+    private static synchronized void installBarrier(AsyncAppenderBase<ILoggingEvent> async) {
+        if (async.getAppender(BARRIER_NAME) != null) {
+            return;
+        }
+        Iterator<Appender<ILoggingEvent>> targets = async.iteratorForAppenders();
+        while (targets.hasNext()) {
+            MarkerFilter filter = new MarkerFilter();
+            filter.start();
+            targets.next().addFilter(filter);
+        }
+        Barrier barrier = new Barrier();
+        barrier.setName(BARRIER_NAME);
+        barrier.setContext(async.getContext());
+        barrier.start();
+        async.addAppender(barrier);
+    }
+
+    /**
+     * WARN, so the async appender never discards it when its queue is nearly full.
+     */
+    private static final class FlushMarker extends LoggingEvent {
+
+        final CountDownLatch written = new CountDownLatch(1);
+
+        FlushMarker(LoggerContext context) {
+            super(AsyncLogFlusher.class.getName(), context.getLogger(AsyncLogFlusher.class), Level.WARN,
+                    "flush", null, null);
+        }
+    }
+
+    private static final class Barrier extends AppenderBase<ILoggingEvent> {
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            if (event instanceof FlushMarker marker) {
+                marker.written.countDown();
+            }
+        }
+    }
+
+    private static final class MarkerFilter extends Filter<ILoggingEvent> {
+
+        @Override
+        public FilterReply decide(ILoggingEvent event) {
+            return event instanceof FlushMarker ? FilterReply.DENY : FilterReply.NEUTRAL;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.iam.metaping.service;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Consecutive-failure circuit breaker guarding calls to a remote service.
+ * <ul>
+ *   <li>{@code CLOSED}: calls pass; {@code failureThreshold} failed calls in a row open the circuit.</li>
+ *   <li>{@code OPEN}: calls are refused until {@code openDuration} has passed.</li>
+ *   <li>{@code HALF_OPEN}: a single probe call passes, others are refused; its success closes the circuit,
+ *       its failure opens it again.</li>
+ * </ul>
+ * Every permitted call must report {@link #onSuccess()} or {@link #onFailure()}. The closed state is
+ * checked without locking; state changes are synchronized. A threshold of 0 or less disables the breaker.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier clock;
+    private volatile State state = State.CLOSED;
+    private int failures; // guarded by this
+    private long openedAt; // guarded by this
+    private boolean probing; // guarded by this
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this(failureThreshold, openDuration, System::nanoTime);
+    }
+
+    /**
+     * @param clock monotonic nanoseconds; replaceable for tests
+     */
+    public CircuitBreaker(int failureThreshold, Duration openDuration, LongSupplier clock) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = Math.max(0L, openDuration.toNanos());
+        this.clock = clock;
+    }
+
+    /**
+     * @return true when the call may proceed, false when it must fail fast
+     */
+    public boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            switch (state) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (clock.getAsLong() - openedAt < openNanos) {
+                        return false;
+                    }
+                    state = State.HALF_OPEN;
+                    probing = true;
+                    return true;
+                default:
+                    if (probing) {
+                        return false;
+                    }
+                    probing = true;
+                    return true;
+            }
+        }
+    }
+
+    public void onSuccess() {
+        if (state == State.CLOSED && failures == 0) {
+            return; // racy read is fine: a missed reset only delays closing by one call
+        }
+        synchronized (this) {
+            failures = 0;
+            probing = false;
+            state = State.CLOSED;
+        }
+    }
+
+    /**
+     * @return true when this failure opened the circuit
+     */
+    public synchronized boolean onFailure() {
+        if (failureThreshold <= 0) {
+            return false;
+        }
+        probing = false;
+        if (state == State.OPEN) {
+            return false; // a call permitted before the circuit opened
+        }
+        if (state == State.HALF_OPEN || ++failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+            failures = 0;
+            return true;
+        }
+        return false;
+    }
+
+    public State state() {
+        return state;
+    }
+}
@@ -0,0 +1,40 @@
+package com.iam.metaping.service;
+
+/**
+ * Remembers which S3 records have already been notified.
+ * <p>
+ * {@link InMemoryDedupStore} (per instance) and {@link FileDedupStore} (local journal) are built in;
+ * an external store (e.g. a DynamoDB conditional put or Redis {@code SET NX EX}) plugs in by
+ * defining a {@code DedupStore} bean. Implementations must be thread-safe.
+ */
+public interface DedupStore {
+
+    /**
+     * Atomically records {@code key} unless it is already present and unexpired.
+     *
+     * @return true when the caller is the first to claim the key (notify), false for a duplicate
+     */
+    boolean claim(String key);
+
+    /**
+     * Forgets {@code key}, e.g. after the notification it was claimed for failed, so a redelivery is notified.
+     */
+    void release(String key);
+
+    /**
+     * Counters since the store was created; stores that do not track them return {@link Stats#EMPTY}.
+     */
+    default Stats stats() {
+        return Stats.EMPTY;
+    }
+
+    /**
+     * @param hits      claims rejected as duplicates
+     * @param misses    successful claims
+     * @param evictions entries dropped because they expired or the store was full
+     * @param size      entries currently held
+     */
+    record Stats(long hits, long misses, long evictions, long size) {
+        public static final Stats EMPTY = new Stats(0, 0, 0, 0);
+    }
+}
@@ -0,0 +1,130 @@
+package com.iam.metaping.service;
+
+import com.iam.metaping.config.FanOutProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Runs independent per-record tasks either inline or fanned out onto virtual threads.
+ * Configuration (application.properties):
+ * - metaping.fan-out.enabled=<true|false> (default false)
+ * - metaping.fan-out.max-concurrency=<n> (default 32)
+ * Notes:
+ * - Virtual threads need a Java 21 runtime (see the {@code java21} Maven profile). The executor is
+ *   looked up reflectively so the Java 17 build still compiles; when it is unavailable the fan-out
+ *   mode is disabled with a warning and tasks run inline.
+ * - The concurrency cap is a single semaphore shared by every caller, so concurrent HTTP requests
+ *   cannot together exceed it. Virtual threads park cheaply while waiting for a permit.
+ */
+@Component
+public class FanOutExecutor implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FanOutExecutor.class);
+
+    private final ExecutorService executor; // null means tasks run inline on the caller thread
+    private final Semaphore permits;
+
+    public FanOutExecutor(FanOutProperties fanOutProperties) {
+        boolean requested = fanOutProperties != null && fanOutProperties.isEnabled();
+        int maxConcurrency = fanOutProperties != null ? Math.max(1, fanOutProperties.getMaxConcurrency()) : 1;
+
+        this.executor = requested ? newVirtualThreadExecutor() : null;
+        this.permits = new Semaphore(maxConcurrency);
+        if (this.executor != null) {
+            LOG.info("Fan-out executor active: virtual threads, maxConcurrency={}", maxConcurrency);
+        } else if (requested) {
+            LOG.warn("metaping.fan-out.enabled=true but virtual threads are unavailable (Java {}); running records inline.",
+                    Runtime.version().feature());
+        }
+    }
+
+    /**
+     * Executor that always runs tasks inline; used when no fan-out configuration is present.
+     */
+    public static FanOutExecutor sequential() {
+        return new FanOutExecutor(null);
+    }
+
+    /**
+     * @return true when tasks are dispatched to virtual threads
+     */
+    public boolean isEnabled() {
+        return executor != null;
+    }
+
+    /**
+     * Applies {@code task} to every item and returns the results in item order.
+     * Runs inline when fan-out is disabled or there is at most one item.
+     * A task failure is rethrown to the caller once all tasks have been submitted.
+     */
+    public <T, R> List<R> map(List<T> items, Function<? super T, ? extends R> task) {
+        List<R> results = new ArrayList<>(items.size());
+        if (executor == null || items.size() < 2) {
+            for (T item : items) {
+                results.add(task.apply(item));
+            }
+            return results;
+        }
+
+        List<Future<R>> futures = new ArrayList<>(items.size());
+        // tasks run within the caller's invocation: same deadline, trace id and parent span
+        long deadline = InvocationDeadline.get();
+        String traceId = InvocationTrace.id();
+        Span span = InvocationTrace.currentSpan();
+        for (T item : items) {
+            futures.add(executor.submit(() -> {
+                permits.acquire();
+                InvocationDeadline.set(deadline);
+                InvocationTrace.set(traceId, span);
+                try {
+                    return task.apply(item);
+                } finally {
+                    InvocationDeadline.clear();
+                    InvocationTrace.clear();
+                    permits.release();
+                }
+            }));
+        }
+
+        for (Future<R> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof RuntimeException runtimeException
+                        ? runtimeException
+                        : new IllegalStateException("Fan-out task failed", cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for fan-out tasks", e);
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
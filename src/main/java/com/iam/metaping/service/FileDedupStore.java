@@ -0,0 +1,155 @@
+package com.iam.metaping.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * {@link DedupStore} that keeps an {@link InMemoryDedupStore} and journals every claim and release to a
+ * local file, so claims survive a restart of the process. Meant as a stand-in for an external store in
+ * tests and single-host deployments; it is not shared between hosts.
+ * <p>
+ * Journal format: one line per change, {@code <expiresAtEpochMillis>\t<key>}; a release is written with
+ * expiry 0. On open the journal is replayed (last line per key wins), expired entries are dropped and the
+ * file is rewritten with the live entries only.
+ */
+public class FileDedupStore implements DedupStore, Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileDedupStore.class);
+
+    private final InMemoryDedupStore delegate;
+    private final Path journal;
+    private final LongSupplier clock;
+    private final long ttlMillis;
+    private BufferedWriter writer; // guarded by this
+
+    public FileDedupStore(Path journal, int maxEntries, Duration ttl) {
+        this(journal, maxEntries, ttl, System::currentTimeMillis);
+    }
+
+    public FileDedupStore(Path journal, int maxEntries, Duration ttl, LongSupplier clock) {
+        this.delegate = new InMemoryDedupStore(maxEntries, ttl, clock);
+        this.journal = journal;
+        this.clock = clock;
+        this.ttlMillis = Math.max(1L, ttl.toMillis());
+        try {
+            replay();
+            compact();
+            this.writer = Files.newBufferedWriter(journal, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open dedup journal " + journal, e);
+        }
+    }
+
+    @Override
+    public boolean claim(String key) {
+        long expiresAt = clock.getAsLong() + ttlMillis;
+        if (!delegate.claim(key, expiresAt)) {
+            return false;
+        }
+        append(expiresAt, key);
+        return true;
+    }
+
+    @Override
+    public void release(String key) {
+        delegate.release(key);
+        append(0L, key);
+    }
+
+    @Override
+    public Stats stats() {
+        return delegate.stats();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    private synchronized void append(long expiresAt, String key) {
+        if (writer == null || key.indexOf('\n') >= 0 || key.indexOf('\r') >= 0) {
+            return; // closed, or a key the line format cannot hold: kept in memory only
+        }
+        try {
+            writer.write(Long.toString(expiresAt));
+            writer.write('\t');
+            writer.write(key);
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            // Dedup is best effort: a lost journal line only means a possible duplicate after restart
+            LOG.warn("Failed to append to dedup journal {}: {}", journal, e.getMessage());
+        }
+    }
+
+    private void replay() throws IOException {
+        if (!Files.exists(journal)) {
+            return;
+        }
+        Map<String, Long> latest = new LinkedHashMap<>();
+        List<String> lines = Files.readAllLines(journal, StandardCharsets.UTF_8);
+        for (String line : lines) {
+            int tab = line.indexOf('\t');
+            if (tab <= 0) {
+                continue;
+            }
+            try {
+                long expiresAt = Long.parseLong(line.substring(0, tab));
+                String key = line.substring(tab + 1);
+                latest.remove(key); // keep replay order = order of the last change
+                latest.put(key, expiresAt);
+            } catch (NumberFormatException e) {
+                // torn or foreign line; skip
+            }
+        }
+        long now = clock.getAsLong();
+        // Expiry order, which the in-memory eviction relies on; journal order differs after a TTL change
+        latest.entrySet().stream()
+                .filter(entry -> entry.getValue() > now)
+                .sorted(Map.Entry.comparingByValue())
+                .forEach(entry -> delegate.restore(entry.getKey(), entry.getValue()));
+        LOG.info("Dedup journal {} replayed: {} live entries", journal, delegate.stats().size());
+    }
+
+    private void compact() throws IOException {
+        Path parent = journal.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = journal.resolveSibling(journal.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            IOException[] failure = new IOException[1];
+            delegate.forEachLive((key, expiresAt) -> {
+                try {
+                    out.write(expiresAt + "\t" + key);
+                    out.newLine();
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+        }
+        Files.move(temp, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,58 @@
+package com.iam.metaping.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * {@link SpanExporter} that appends one OTLP/JSON document per trace to a local file (NDJSON), the format of
+ * the OpenTelemetry collector's file exporter; the collector's {@code otlpjsonfile} receiver can ship it later.
+ * Each trace is flushed when written, so nothing is lost when the Lambda environment is frozen.
+ */
+public class FileSpanExporter implements SpanExporter, Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileSpanExporter.class);
+
+    private final String serviceName;
+    private final Path file;
+    private BufferedWriter writer; // guarded by this
+
+    public FileSpanExporter(Path file, String serviceName) {
+        this.serviceName = serviceName;
+        this.file = file;
+        try {
+            this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open span file " + file, e);
+        }
+    }
+
+    @Override
+    public void export(List<Span> spans) {
+        String document = OtlpJsonWriter.write(serviceName, spans);
+        synchronized (this) {
+            try {
+                writer.write(document);
+                writer.newLine();
+                writer.flush();
+            } catch (IOException e) {
+                LOG.warn("Cannot write spans to {}: {}", file, e.toString());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
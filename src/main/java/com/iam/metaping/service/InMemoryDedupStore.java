@@ -0,0 +1,150 @@
+package com.iam.metaping.service;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Bounded, TTL-evicting {@link DedupStore} kept in memory, so it lives across warm invocations of one instance.
+ * <p>
+ * Claims are lock-free ({@link ConcurrentHashMap#putIfAbsent}). Entries are also queued in claim order;
+ * because every entry gets the same TTL this is expiry order too, so eviction only ever looks at the
+ * head of the queue: expired entries first, then the oldest ones while the store is over capacity.
+ * Released and replaced entries stay queued until they reach the head, so the queue itself is capped at twice
+ * the capacity; repeated claim/release cycles cannot grow it for a whole TTL.
+ * Eviction runs under a lock that claimers only try, never wait for.
+ */
+public class InMemoryDedupStore implements DedupStore {
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> claimOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger(); // claimOrder.size() is O(n)
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    public InMemoryDedupStore(int maxEntries, Duration ttl) {
+        this(maxEntries, ttl, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock wall-clock milliseconds; replaceable for tests
+     */
+    public InMemoryDedupStore(int maxEntries, Duration ttl, LongSupplier clock) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMillis = Math.max(1L, ttl.toMillis());
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean claim(String key) {
+        return claim(key, clock.getAsLong() + ttlMillis);
+    }
+
+    /**
+     * Claims {@code key} until the given absolute expiry.
+     */
+    boolean claim(String key, long expiresAt) {
+        return claim(key, expiresAt, true);
+    }
+
+    /**
+     * Re-inserts a persisted entry without counting it as a claim; callers restore in expiry order.
+     */
+    void restore(String key, long expiresAt) {
+        claim(key, expiresAt, false);
+    }
+
+    private boolean claim(String key, long expiresAt, boolean counted) {
+        long now = clock.getAsLong();
+        Entry fresh = new Entry(key, expiresAt);
+        while (true) {
+            Entry existing = entries.putIfAbsent(key, fresh);
+            if (existing == null) {
+                break;
+            }
+            if (existing.expiresAt > now) {
+                if (counted) {
+                    hits.increment();
+                }
+                return false;
+            }
+            // Expired but not evicted yet: take it over
+            if (entries.replace(key, existing, fresh)) {
+                evictions.increment();
+                break;
+            }
+        }
+        if (counted) {
+            misses.increment();
+        }
+        queued.incrementAndGet();
+        claimOrder.add(fresh);
+        evict(now);
+        return true;
+    }
+
+    @Override
+    public void release(String key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    /**
+     * Unexpired entries as {@code key -> expiresAt}, oldest first (used by {@link FileDedupStore} compaction).
+     */
+    void forEachLive(ObjLongConsumer<String> action) {
+        long now = clock.getAsLong();
+        for (Entry entry : claimOrder) {
+            if (entry.expiresAt > now && entries.get(entry.key) == entry) {
+                action.accept(entry.key, entry.expiresAt);
+            }
+        }
+    }
+
+    private void evict(long now) {
+        if (!evictionLock.tryLock()) {
+            return; // another claimer is evicting
+        }
+        try {
+            Entry head;
+            while ((head = claimOrder.peek()) != null
+                    && (head.expiresAt <= now || entries.size() > maxEntries || queued.get() > 2 * maxEntries)) {
+                claimOrder.poll();
+                queued.decrementAndGet();
+                // Released or replaced entries are no longer mapped to this instance and are just dropped
+                if (entries.remove(head.key, head)) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Compared by identity, so a re-claimed key never matches the queue entry of its previous claim.
+     */
+    private static final class Entry {
+        final String key;
+        final long expiresAt;
+
+        Entry(String key, long expiresAt) {
+            this.key = key;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
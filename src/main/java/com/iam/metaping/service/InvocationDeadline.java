@@ -0,0 +1,56 @@
+package com.iam.metaping.service;
+
+import com.amazonaws.services.lambda.runtime.Context;
+
+/**
+ * The point in time at which the current Lambda invocation times out, held per thread.
+ * <p>
+ * The Lambda handlers set it from {@link Context#getRemainingTimeInMillis()} before running the function
+ * and clear it afterwards; {@link FanOutExecutor} hands it to its worker threads. Outside a Lambda
+ * invocation (HTTP mode, tests) no deadline is set and {@link #get()} returns {@link #NONE}.
+ * Deadlines are {@link System#nanoTime()} values, so they are only compared by difference.
+ */
+public final class InvocationDeadline {
+
+    /** No invocation deadline is known. */
+    public static final long NONE = Long.MAX_VALUE;
+
+    private static final ThreadLocal<Long> CURRENT = new ThreadLocal<>();
+
+    private InvocationDeadline() {
+    }
+
+    /**
+     * Starts the deadline of an invocation from the Lambda context; a {@code null} context clears it.
+     */
+    public static void start(Context context) {
+        if (context == null) {
+            clear();
+            return;
+        }
+        set(System.nanoTime() + Math.max(0, context.getRemainingTimeInMillis()) * 1_000_000L);
+    }
+
+    /**
+     * Sets the deadline of the current thread, e.g. one taken with {@link #get()} on another thread.
+     */
+    public static void set(long deadlineNanos) {
+        if (deadlineNanos == NONE) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(deadlineNanos);
+        }
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} at which the invocation times out, or {@link #NONE}
+     */
+    public static long get() {
+        Long deadline = CURRENT.get();
+        return deadline != null ? deadline : NONE;
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,86 @@
+package com.iam.metaping.service;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import org.slf4j.MDC;
+
+/**
+ * The trace (correlation) id of the current invocation and its innermost open {@link Span}, held per thread.
+ * <p>
+ * The id is mirrored into the logging MDC under {@link #MDC_KEY}, which {@code logback-spring.xml} prints on every
+ * line: in the text pattern, and as a top-level field of the prod profile's {@link JsonLogEncoder} output.
+ * The Lambda handlers set it from {@link Context#getAwsRequestId()}; without one (HTTP mode, tests)
+ * {@link Tracer#startTrace(String, String)} falls back to the S3 {@code x-amz-request-id} of the event.
+ * {@link FanOutExecutor} hands id and span to its worker threads, and {@link SnsPublisher} sends the id
+ * as the {@value #MESSAGE_ATTRIBUTE} message attribute.
+ */
+public final class InvocationTrace {
+
+    /** MDC key read by the log pattern and the JSON encoder. */
+    public static final String MDC_KEY = "traceId";
+    /** SNS message attribute carrying the id to subscribers. */
+    public static final String MESSAGE_ATTRIBUTE = "traceId";
+
+    private static final ThreadLocal<String> ID = new ThreadLocal<>();
+    private static final ThreadLocal<Span> SPAN = new ThreadLocal<>();
+
+    private InvocationTrace() {
+    }
+
+    /**
+     * Starts the trace of a Lambda invocation with its request id; a {@code null} context clears it.
+     */
+    public static void start(Context context) {
+        set(context != null ? context.getAwsRequestId() : null, null);
+    }
+
+    /**
+     * Sets id and current span of this thread, e.g. ones taken with {@link #id()} and {@link #currentSpan()}
+     * on another thread. A {@code null} id clears the MDC entry.
+     */
+    public static void set(String id, Span span) {
+        if (id == null || id.isBlank()) {
+            ID.remove();
+            MDC.remove(MDC_KEY);
+        } else {
+            ID.set(id);
+            MDC.put(MDC_KEY, id);
+        }
+        setCurrentSpan(span);
+    }
+
+    /**
+     * @return the trace id of this thread's invocation, or {@code null} outside of one
+     */
+    public static String id() {
+        return ID.get();
+    }
+
+    /**
+     * @return the innermost open span of this thread; {@link Span#NOOP} when nothing is traced
+     */
+    public static Span currentSpan() {
+        Span span = SPAN.get();
+        return span != null ? span : Span.NOOP;
+    }
+
+    /**
+     * Opens a child of the current span and makes it current until it is closed.
+     */
+    public static Span span(String name) {
+        return currentSpan().startChild(name, true);
+    }
+
+    public static void clear() {
+        ID.remove();
+        SPAN.remove();
+        MDC.remove(MDC_KEY);
+    }
+
+    static void setCurrentSpan(Span span) {
+        if (span == null || span == Span.NOOP) {
+            SPAN.remove();
+        } else {
+            SPAN.set(span);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.iam.metaping.service;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.encoder.EncoderBase;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Logback encoder writing each event as one compact JSON line, used by the production logging mode
+ * ({@code logback-spring.xml}, profile {@code prod}):
+ * <pre>
+ * {"ts":1736936130000,"level":"INFO","logger":"com.iam.metaping.summary","traceId":"...","msg":"..."}
+ * </pre>
+ * MDC entries (the {@link InvocationTrace} id) become top-level fields; a throwable is added as {@code error}
+ * with its full stack trace. The JSON is appended into a per-thread buffer without reflection, like
+ * {@link MetadataJsonWriter}, so CloudWatch Logs Insights can query the fields directly.
+ */
+public class JsonLogEncoder extends EncoderBase<ILoggingEvent> {
+
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    @Override
+    public byte[] headerBytes() {
+        return null;
+    }
+
+    @Override
+    public byte[] encode(ILoggingEvent event) {
+        StringBuilder json = BUFFER.get();
+        json.setLength(0);
+        json.append("{\"ts\":").append(event.getTimeStamp())
+                .append(",\"level\":\"").append(event.getLevel()).append('"')
+                .append(",\"logger\":");
+        MetadataJsonWriter.writeString(json, event.getLoggerName());
+        Map<String, String> mdc = event.getMDCPropertyMap();
+        if (mdc != null) {
+            for (Map.Entry<String, String> entry : mdc.entrySet()) {
+                json.append(',');
+                MetadataJsonWriter.writeString(json, entry.getKey());
+                json.append(':');
+                MetadataJsonWriter.writeString(json, entry.getValue());
+            }
+        }
+        json.append(",\"msg\":");
+        MetadataJsonWriter.writeString(json, event.getFormattedMessage());
+        IThrowableProxy throwable = event.getThrowableProxy();
+        if (throwable != null) {
+            json.append(",\"error\":");
+            MetadataJsonWriter.writeString(json, ThrowableProxyUtil.asString(throwable));
+        }
+        json.append("}\n");
+        byte[] line = json.toString().getBytes(StandardCharsets.UTF_8);
+        if (json.capacity() > MAX_RETAINED_CAPACITY) {
+            BUFFER.set(new StringBuilder(256));
+        }
+        return line;
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return null;
+    }
+}
@@ -0,0 +1,110 @@
+package com.iam.metaping.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logback turbo filter that keeps only a fraction of the success-path lines of selected loggers.
+ * <p>
+ * {@code rates} is a comma-separated list of {@code <logger or package>=<rate>} (e.g.
+ * {@code com.iam.metaping.summary=0.1,com.iam.metaping.service=0.5}); the longest matching prefix applies and
+ * loggers without a match are not sampled. WARN and ERROR events and events with a throwable always pass.
+ * <p>
+ * The decision hashes the {@link InvocationTrace} id, so a sampled invocation keeps all of its lines and a dropped
+ * one loses all of them; lines outside an invocation are sampled at random. Being a turbo filter, it runs before
+ * the event is created, so a dropped line costs neither formatting nor queueing.
+ */
+public class LogSamplingFilter extends TurboFilter {
+
+    private static final int SCALE = 1 << 24;
+
+    private String rates = "";
+    private Map<String, Integer> prefixThresholds = Map.of(); // parsed from rates on start()
+    private final Map<String, Integer> loggerThresholds = new ConcurrentHashMap<>();
+
+    public void setRates(String rates) {
+        this.rates = rates;
+    }
+
+    public String getRates() {
+        return rates;
+    }
+
+    @Override
+    public void start() {
+        Map<String, Integer> parsed = new LinkedHashMap<>();
+        if (rates != null) {
+            for (String entry : rates.split(",")) {
+                if (entry.isBlank()) {
+                    continue;
+                }
+                int separator = entry.lastIndexOf('=');
+                try {
+                    double rate = Double.parseDouble(entry.substring(separator + 1).trim());
+                    parsed.put(entry.substring(0, Math.max(0, separator)).trim(), threshold(rate));
+                } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+                    addWarn("Ignoring log sampling entry '" + entry.trim() + "'; expected <logger>=<rate>");
+                }
+            }
+        }
+        prefixThresholds = Map.copyOf(parsed);
+        loggerThresholds.clear();
+        super.start();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (!isStarted() || prefixThresholds.isEmpty() || format == null || t != null
+                || level.isGreaterOrEqual(Level.WARN) || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL; // isXxxEnabled() checks, failures and lines the level drops anyway
+        }
+        int threshold = loggerThresholds.computeIfAbsent(logger.getName(), this::thresholdFor);
+        if (threshold >= SCALE) {
+            return FilterReply.NEUTRAL;
+        }
+        return sample() < threshold ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private int thresholdFor(String loggerName) {
+        int threshold = SCALE;
+        int matched = -1;
+        for (Map.Entry<String, Integer> prefix : prefixThresholds.entrySet()) {
+            String name = prefix.getKey();
+            boolean matches = name.isEmpty() || loggerName.equals(name)
+                    || (loggerName.startsWith(name) && loggerName.charAt(name.length()) == '.');
+            if (matches && name.length() > matched) {
+                matched = name.length();
+                threshold = prefix.getValue();
+            }
+        }
+        return threshold;
+    }
+
+    /**
+     * Uniform value in [0, SCALE): a hash of the trace id, or random outside of an invocation.
+     */
+    private static int sample() {
+        String traceId = MDC.get(InvocationTrace.MDC_KEY);
+        if (traceId == null) {
+            return ThreadLocalRandom.current().nextInt(SCALE);
+        }
+        int hash = traceId.hashCode() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (SCALE - 1);
+    }
+
+    private static int threshold(double rate) {
+        if (rate >= 1.0) {
+            return SCALE;
+        }
+        return rate <= 0.0 ? 0 : (int) (rate * SCALE);
+    }
+}
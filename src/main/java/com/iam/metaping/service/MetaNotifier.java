@@ -1,35 +1,248 @@
 package com.iam.metaping.service;
 
 import com.iam.metaping.model.FileMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Announces uploaded files on SNS.
+ * With the {@link NotificationOutbox} enabled, a notification SNS does not accept is journaled for background
+ * delivery and reported as sent; in deferred mode every notification is journaled without publishing inline.
+ * With the {@link NotificationDigest} enabled, files are counted into digest windows instead and reported as sent;
+ * one digest message per group and window replaces the per-file messages.
+ * With the {@link NotificationRouter} enabled, a file is published once to each topic its rules select; a file no
+ * rule routes anywhere is dropped and reported as sent. A file counts as sent once every topic took it.
+ * Subject and body come from the {@link NotificationTemplates}, per topic where configured.
+ */
 @Component
 @ConditionalOnProperty(prefix = "notifications", name = "enabled", havingValue = "true")
 public class MetaNotifier {
 
+    private static final Logger LOG = LoggerFactory.getLogger(MetaNotifier.class);
+
     private final SnsPublisher snsPublisher;
+    private final NotificationOutbox outbox;
+    private final NotificationDigest digest;
+    private final NotificationRouter router;
+    private final NotificationTemplates templates;
 
-    public MetaNotifier(SnsPublisher snsPublisher) {
+    /**
+     * Outbox, digest, router and templates may be {@code null}, which disables the first three and selects the
+     * built-in templates.
+     */
+    @Autowired
+    public MetaNotifier(SnsPublisher snsPublisher, NotificationOutbox outbox, NotificationDigest digest,
+                        NotificationRouter router, NotificationTemplates templates) {
         this.snsPublisher = snsPublisher;
+        this.outbox = outbox != null ? outbox : NotificationOutbox.disabled();
+        this.digest = digest != null ? digest : NotificationDigest.disabled();
+        this.router = router != null ? router : NotificationRouter.disabled();
+        this.templates = templates != null ? templates : NotificationTemplates.withDefaults();
     }
 
+    /**
+     * @return true when SNS accepted the notification, the outbox took it for later delivery or a digest counted it
+     */
     public boolean notifyNewFile(FileMetadata metadata) {
         if (metadata == null) {
             return false;
         }
-        String message = ("""
-                New File Uploaded:
-                Name: %s
-                Type: %s
-                Size: %d bytes
-                """
-        ).formatted(
-                metadata.fileName(),
-                metadata.fileType(),
-                metadata.fileSize()
-        );
-
-        return snsPublisher.publish("Meta-Ping Notification: New File Uploaded", message);
+        if (digest.isEnabled()) {
+            return add(metadata);
+        }
+        if (router.isEnabled()) {
+            return notifyNewFiles(List.of(metadata)).get(0);
+        }
+        SnsMessage message = templates.message(metadata, null);
+        if (outbox.isDeferred()) {
+            return outbox.offer(message);
+        }
+        return snsPublisher.publish(message.subject(), message.message()) || outbox.offer(message);
+    }
+
+    /**
+     * Non-blocking variant of {@link #notifyNewFile(FileMetadata)}; see {@link SnsPublisher#publishAsync(String, String)}.
+     */
+    public CompletableFuture<Boolean> notifyNewFileAsync(FileMetadata metadata) {
+        if (metadata == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        if (digest.isEnabled()) {
+            return CompletableFuture.completedFuture(add(metadata));
+        }
+        if (router.isEnabled()) {
+            return notifyNewFilesAsync(List.of(metadata)).thenApply(results -> results.get(0));
+        }
+        SnsMessage message = templates.message(metadata, null);
+        if (outbox.isDeferred()) {
+            return CompletableFuture.completedFuture(outbox.offer(message));
+        }
+        return snsPublisher.publishAsync(message.subject(), message.message())
+                .thenApply(published -> published || outbox.offer(message));
+    }
+
+    /**
+     * Notifies about several uploaded files with as few SNS round trips as possible (PublishBatch).
+     *
+     * @return one flag per input entry, in input order; {@code null} entries are reported as false
+     */
+    public List<Boolean> notifyNewFiles(List<FileMetadata> metadataList) {
+        if (metadataList == null || metadataList.isEmpty()) {
+            return List.of();
+        }
+        if (digest.isEnabled()) {
+            return addAll(metadataList);
+        }
+        if (router.isEnabled()) {
+            Routed routed = route(metadataList);
+            return routed.messages.isEmpty() ? routed.fold(List.of()) : routed.fold(send(routed.messages));
+        }
+        return send(toMessages(metadataList));
+    }
+
+    /**
+     * Non-blocking variant of {@link #notifyNewFiles(List)}; see {@link SnsPublisher#publishBatchAsync(List)}.
+     */
+    public CompletableFuture<List<Boolean>> notifyNewFilesAsync(List<FileMetadata> metadataList) {
+        if (metadataList == null || metadataList.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        if (digest.isEnabled()) {
+            return CompletableFuture.completedFuture(addAll(metadataList));
+        }
+        if (router.isEnabled()) {
+            Routed routed = route(metadataList);
+            return routed.messages.isEmpty() ? CompletableFuture.completedFuture(routed.fold(List.of()))
+                    : sendAsync(routed.messages).thenApply(routed::fold);
+        }
+        return sendAsync(toMessages(metadataList));
+    }
+
+    private List<Boolean> send(List<SnsMessage> messages) {
+        if (outbox.isDeferred()) {
+            return offerAll(messages, null);
+        }
+        return offerAll(messages, snsPublisher.publishBatch(messages));
+    }
+
+    private CompletableFuture<List<Boolean>> sendAsync(List<SnsMessage> messages) {
+        if (outbox.isDeferred()) {
+            return CompletableFuture.completedFuture(offerAll(messages, null));
+        }
+        return snsPublisher.publishBatchAsync(messages).thenApply(published -> offerAll(messages, published));
+    }
+
+    /**
+     * Hands the messages SNS did not accept ({@code published} false, or all when {@code null}) to the outbox.
+     *
+     * @return one flag per message: published or journaled
+     */
+    private List<Boolean> offerAll(List<SnsMessage> messages, List<Boolean> published) {
+        if (!outbox.isEnabled()) {
+            return published; // never null here: deferring requires an enabled outbox
+        }
+        List<Boolean> results = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            boolean sent = published != null && Boolean.TRUE.equals(published.get(i));
+            results.add(sent || outbox.offer(messages.get(i)));
+        }
+        return results;
+    }
+
+    private List<Boolean> addAll(List<FileMetadata> metadataList) {
+        List<Boolean> results = new ArrayList<>(metadataList.size());
+        for (FileMetadata metadata : metadataList) {
+            results.add(add(metadata));
+        }
+        return results;
+    }
+
+    /**
+     * Counts the file into the digest, once per routed topic when routing is enabled.
+     */
+    private boolean add(FileMetadata metadata) {
+        if (!router.isEnabled() || metadata == null) {
+            return digest.add(metadata);
+        }
+        List<String> topics = router.route(metadata);
+        if (topics.isEmpty()) {
+            LOG.debug("No notification topic for {}; not published", metadata.fileName());
+        }
+        boolean added = true;
+        for (String topic : topics) {
+            added &= digest.add(metadata, topic);
+        }
+        return added;
+    }
+
+    /**
+     * One message per file and routed topic; null entries get no message and are reported as false.
+     */
+    private Routed route(List<FileMetadata> metadataList) {
+        Routed routed = new Routed(metadataList.size());
+        for (int i = 0; i < metadataList.size(); i++) {
+            FileMetadata metadata = metadataList.get(i);
+            if (metadata == null) {
+                routed.results[i] = false;
+                continue;
+            }
+            List<String> topics = router.route(metadata);
+            if (topics.isEmpty()) {
+                LOG.debug("No notification topic for {}; not published", metadata.fileName());
+                continue;
+            }
+            SnsMessage shared = null; // rendered once for all topics without templates of their own
+            for (String topic : topics) {
+                SnsMessage message;
+                if (templates.overrides(topic)) {
+                    message = templates.message(metadata, topic);
+                } else {
+                    shared = shared != null ? shared : templates.message(metadata, null);
+                    message = new SnsMessage(shared.subject(), shared.message(), topic);
+                }
+                routed.messages.add(message);
+                routed.owners.add(i);
+            }
+        }
+        return routed;
+    }
+
+    private List<SnsMessage> toMessages(List<FileMetadata> metadataList) {
+        List<SnsMessage> messages = new ArrayList<>(metadataList.size());
+        for (FileMetadata metadata : metadataList) {
+            // Null entries keep their slot as a blank message, which the publisher reports as failed
+            messages.add(metadata != null ? templates.message(metadata, null) : new SnsMessage(null, ""));
+        }
+        return messages;
+    }
+
+    /**
+     * Routed messages and the input entry each belongs to; a file is sent once all of its messages are.
+     */
+    private static final class Routed {
+        final List<SnsMessage> messages = new ArrayList<>();
+        final List<Integer> owners = new ArrayList<>();
+        final Boolean[] results;
+
+        Routed(int files) {
+            results = new Boolean[files];
+            Arrays.fill(results, Boolean.TRUE);
+        }
+
+        List<Boolean> fold(List<Boolean> sent) {
+            for (int i = 0; i < sent.size(); i++) {
+                int owner = owners.get(i);
+                results[owner] = results[owner] && Boolean.TRUE.equals(sent.get(i));
+            }
+            return Arrays.asList(results);
+        }
     }
 }
@@ -0,0 +1,302 @@
+package com.iam.metaping.service;
+
+import com.iam.metaping.config.MetricsProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Timings and counters of the extraction and notification path.
+ * Configuration (application.properties):
+ * - metaping.metrics.mode=<auto|emf|micrometer|none> (default auto: emf inside Lambda, micrometer elsewhere)
+ * - metaping.metrics.namespace=<CloudWatch namespace> (default MetaPing)
+ * Notes:
+ * - emf: values are accumulated during an invocation and written by {@link #flush()} (called by the Lambda
+ *   handlers) as one CloudWatch Embedded Metric Format line on stdout, which CloudWatch turns into metrics
+ *   asynchronously; timers and distributions keep up to {@link #MAX_SAMPLES} samples per invocation (EMF's
+ *   limit per metric), counters are exact.
+ * - micrometer: values go straight to meters registered once on the {@link MeterRegistry} (exposed by
+ *   Actuator under {@code /actuator/metrics}), with percentile histograms for timers.
+ * - Recording does not allocate: samples go into preallocated arrays and adders, or to the pre-registered meters.
+ *   Hold timings with {@link #start()} / {@link #stop(Metric, long)}.
+ */
+@Component
+public class MetaPingMetrics {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MetaPingMetrics.class);
+    private static final MetaPingMetrics DISABLED = new MetaPingMetrics(null, null, null, null);
+
+    /** EMF accepts at most 100 values per metric in one document. */
+    public static final int MAX_SAMPLES = 100;
+
+    public enum Kind { TIMER, COUNTER, DISTRIBUTION }
+
+    public enum Metric {
+        DECODE_TIME("DecodeTime", "metaping.decode", Kind.TIMER),
+        MIME_TIME("MimeTime", "metaping.mime", Kind.TIMER),
+        NOTIFY_TIME("NotifyTime", "metaping.notify", Kind.TIMER),
+        SNS_TIME("SnsRoundTripTime", "metaping.sns.request", Kind.TIMER),
+        RECORDS("Records", "metaping.records", Kind.COUNTER),
+        PUBLISHES("Publishes", "metaping.publishes", Kind.COUNTER),
+        PUBLISH_FAILURES("PublishFailures", "metaping.publish.failures", Kind.COUNTER),
+        BATCH_SIZE("BatchSize", "metaping.sns.batch.size", Kind.DISTRIBUTION);
+
+        private final String emfName;
+        private final String meterName;
+        private final Kind kind;
+
+        Metric(String emfName, String meterName, Kind kind) {
+            this.emfName = emfName;
+            this.meterName = meterName;
+            this.kind = kind;
+        }
+
+        public String emfName() {
+            return emfName;
+        }
+
+        public String meterName() {
+            return meterName;
+        }
+
+        public Kind kind() {
+            return kind;
+        }
+
+        String emfUnit() {
+            return kind == Kind.TIMER ? "Milliseconds" : "Count";
+        }
+    }
+
+    private static final Metric[] METRICS = Metric.values();
+    private static volatile MetaPingMetrics current;
+
+    // EMF mode: per-invocation accumulation, indexed by Metric.ordinal()
+    private final String namespace;
+    private final String functionName;
+    private final Consumer<String> emfSink; // null unless in EMF mode
+    private final AtomicLongArray samples;
+    private final AtomicInteger[] sampleCounts;
+    private final LongAdder[] totals;
+    // Micrometer mode: meters registered up front, indexed by Metric.ordinal()
+    private final Object[] meters; // null unless in Micrometer mode
+
+    @Autowired
+    public MetaPingMetrics(MetricsProperties metricsProperties, ObjectProvider<MeterRegistry> meterRegistry) {
+        this(resolveMode(metricsProperties, meterRegistry), metricsProperties, meterRegistry);
+        current = this;
+    }
+
+    private MetaPingMetrics(String mode, MetricsProperties props, ObjectProvider<MeterRegistry> meterRegistry) {
+        this(props != null ? props.getNamespace() : "MetaPing",
+                functionName(),
+                "emf".equals(mode) ? System.out::println : null,
+                "micrometer".equals(mode) ? meterRegistry.getIfAvailable() : null);
+        LOG.info("Metrics mode: {}", mode);
+    }
+
+    private MetaPingMetrics(String namespace, String functionName, Consumer<String> emfSink, MeterRegistry registry) {
+        this.namespace = namespace;
+        this.functionName = functionName;
+        this.emfSink = emfSink;
+        if (emfSink != null) {
+            this.samples = new AtomicLongArray(METRICS.length * MAX_SAMPLES);
+            this.sampleCounts = new AtomicInteger[METRICS.length];
+            this.totals = new LongAdder[METRICS.length];
+            for (int i = 0; i < METRICS.length; i++) {
+                sampleCounts[i] = new AtomicInteger();
+                totals[i] = new LongAdder();
+            }
+        } else {
+            this.samples = null;
+            this.sampleCounts = null;
+            this.totals = null;
+        }
+        this.meters = registry != null ? register(registry) : null;
+    }
+
+    /**
+     * Metrics written as EMF documents to {@code sink} on {@link #flush()} (tests, embedding).
+     */
+    public static MetaPingMetrics emf(String namespace, String functionName, Consumer<String> sink) {
+        return new MetaPingMetrics(namespace, functionName, sink, null);
+    }
+
+    /**
+     * Metrics recorded on meters of the given registry (tests, embedding).
+     */
+    public static MetaPingMetrics micrometer(MeterRegistry registry) {
+        return new MetaPingMetrics(null, null, null, registry);
+    }
+
+    /**
+     * Metrics that record nothing; used when no metrics configuration is present.
+     */
+    public static MetaPingMetrics disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * @return the instance created by the running application context, if any (for the Lambda handlers,
+     *         which are created by the runtime rather than by Spring)
+     */
+    public static Optional<MetaPingMetrics> current() {
+        return Optional.ofNullable(current);
+    }
+
+    public boolean isEnabled() {
+        return emfSink != null || meters != null;
+    }
+
+    /**
+     * @return a start timestamp for {@link #stop(Metric, long)}; 0 when metrics are disabled
+     */
+    public long start() {
+        return isEnabled() ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Records the time elapsed since {@code start} on a timer.
+     */
+    public void stop(Metric metric, long start) {
+        if (start != 0L) {
+            record(metric, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records a value: nanoseconds for timers, an increment for counters, a sample for distributions.
+     */
+    public void record(Metric metric, long value) {
+        int index = metric.ordinal();
+        if (emfSink != null) {
+            if (metric.kind == Kind.COUNTER) {
+                totals[index].add(value);
+            } else {
+                int slot = sampleCounts[index].getAndIncrement();
+                if (slot < MAX_SAMPLES) {
+                    samples.set(index * MAX_SAMPLES + slot, value);
+                }
+            }
+        } else if (meters != null) {
+            switch (metric.kind) {
+                case TIMER -> ((Timer) meters[index]).record(value, TimeUnit.NANOSECONDS);
+                case COUNTER -> ((Counter) meters[index]).increment(value);
+                case DISTRIBUTION -> ((DistributionSummary) meters[index]).record(value);
+            }
+        }
+    }
+
+    /**
+     * Writes what was recorded since the last flush as one EMF document and resets it.
+     * Does nothing outside EMF mode or when nothing was recorded.
+     */
+    public void flush() {
+        if (emfSink == null) {
+            return;
+        }
+        StringBuilder values = new StringBuilder(256);
+        StringBuilder definitions = new StringBuilder(256);
+        for (Metric metric : METRICS) {
+            int index = metric.ordinal();
+            if (metric.kind == Kind.COUNTER) {
+                long total = totals[index].sumThenReset();
+                if (total == 0) {
+                    continue;
+                }
+                values.append(",\"").append(metric.emfName).append("\":").append(total);
+            } else {
+                int count = Math.min(MAX_SAMPLES, sampleCounts[index].getAndSet(0));
+                if (count == 0) {
+                    continue;
+                }
+                values.append(",\"").append(metric.emfName).append("\":[");
+                for (int i = 0; i < count; i++) {
+                    if (i > 0) {
+                        values.append(',');
+                    }
+                    long sample = samples.get(index * MAX_SAMPLES + i);
+                    if (metric.kind == Kind.TIMER) {
+                        values.append(sample / 1_000_000L).append('.');
+                        String micros = Long.toString(sample % 1_000_000L / 1_000L);
+                        values.append("000", 0, 3 - micros.length()).append(micros);
+                    } else {
+                        values.append(sample);
+                    }
+                }
+                values.append(']');
+            }
+            if (definitions.length() > 0) {
+                definitions.append(',');
+            }
+            definitions.append("{\"Name\":\"").append(metric.emfName)
+                    .append("\",\"Unit\":\"").append(metric.emfUnit()).append("\"}");
+        }
+        if (definitions.length() == 0) {
+            return;
+        }
+        emfSink.accept("{\"_aws\":{\"Timestamp\":" + System.currentTimeMillis()
+                + ",\"CloudWatchMetrics\":[{\"Namespace\":\"" + namespace
+                + "\",\"Dimensions\":[[\"FunctionName\"]],\"Metrics\":[" + definitions + "]}]}"
+                + ",\"FunctionName\":\"" + functionName + "\"" + values + "}");
+    }
+
+    /**
+     * Drops what was recorded since the last flush without writing it, e.g. the values of SnapStart priming runs.
+     * Only EMF mode buffers values; Micrometer meters keep what they recorded.
+     */
+    public void discard() {
+        if (emfSink == null) {
+            return;
+        }
+        for (int i = 0; i < METRICS.length; i++) {
+            totals[i].reset();
+            sampleCounts[i].set(0);
+        }
+    }
+
+    private static Object[] register(MeterRegistry registry) {
+        Object[] meters = new Object[METRICS.length];
+        for (Metric metric : METRICS) {
+            meters[metric.ordinal()] = switch (metric.kind) {
+                case TIMER -> Timer.builder(metric.meterName).publishPercentileHistogram().register(registry);
+                case COUNTER -> Counter.builder(metric.meterName).register(registry);
+                case DISTRIBUTION -> DistributionSummary.builder(metric.meterName).publishPercentileHistogram().register(registry);
+            };
+        }
+        return meters;
+    }
+
+    private static String resolveMode(MetricsProperties props, ObjectProvider<MeterRegistry> meterRegistry) {
+        String mode = props != null && props.getMode() != null ? props.getMode().trim().toLowerCase() : "auto";
+        if ("auto".equals(mode)) {
+            mode = System.getenv("AWS_LAMBDA_FUNCTION_NAME") != null ? "emf" : "micrometer";
+        }
+        if ("micrometer".equals(mode) && (meterRegistry == null || meterRegistry.getIfAvailable() == null)) {
+            return "none";
+        }
+        if (!"emf".equals(mode) && !"micrometer".equals(mode) && !"none".equals(mode)) {
+            LOG.warn("Unknown metaping.metrics.mode '{}'; metrics disabled", mode);
+            return "none";
+        }
+        return mode;
+    }
+
+    private static String functionName() {
+        String name = System.getenv("AWS_LAMBDA_FUNCTION_NAME");
+        return name != null ? name : "meta-ping";
+    }
+}
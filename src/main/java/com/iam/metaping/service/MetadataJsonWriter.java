@@ -0,0 +1,221 @@
+package com.iam.metaping.service;
+
+import com.iam.metaping.model.FileDigest;
+import com.iam.metaping.model.FileMetadata;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-written JSON writer for the function result and the SNS notification body (schema version 1).
+ * <p>
+ * Both documents share one envelope, so consumers need a single parser:
+ * <pre>
+ * {"schemaVersion":1,"records":[
+ *   {"bucket":"b","key":"dir/file name.pdf","size":1024,"type":"application/pdf","eTag":"...","eventTime":"2025-01-15T10:15:30.000Z"},
+ *   {"error":"invalid-s3-record"}
+ * ]}
+ * </pre>
+ * The function result lists every record of the event in order, with an error entry for records that
+ * could not be extracted; a notification carries exactly one record. {@code key} is the decoded object key,
+ * {@code size} is -1 when unknown and absent values are written as {@code null}. Records looked up with HeadObject
+ * (see {@link ObjectMetadataEnricher}) also carry {@code "storageClass"} and a {@code "metadata"} object with the
+ * object's user metadata; the two fields are left out of records that were not looked up.
+ * A digest notification (see {@link NotificationDigest}) carries a {@code digest} object instead of {@code records}:
+ * <pre>
+ * {"schemaVersion":1,"digest":{"groupBy":"prefix","key":"photos/","bucket":"b","files":1200,"totalBytes":3145728,
+ *   "windowStart":"...","windowEnd":"...","names":["photos/a.jpg",...],"namesOmitted":1180}}
+ * </pre> Fields are only ever added
+ * within a schema version; a removal or change of meaning bumps {@link #SCHEMA_VERSION}.
+ * <p>
+ * No reflection or data binding is involved: fields are appended directly into a per-thread
+ * {@link StringBuilder} that is reused across calls and pre-sized from the input.
+ */
+public final class MetadataJsonWriter {
+
+    public static final int SCHEMA_VERSION = 1;
+    public static final String INVALID_RECORD_ERROR = "invalid-s3-record";
+
+    private static final String ENVELOPE_START = "{\"schemaVersion\":" + SCHEMA_VERSION + ",\"records\":[";
+    private static final String ENVELOPE_END = "]}";
+    private static final String INVALID_RECORD = "{\"error\":\"" + INVALID_RECORD_ERROR + "\"}";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    // Fixed part of one record: field names, quotes and separators
+    private static final int RECORD_OVERHEAD = 96;
+    private static final int INITIAL_CAPACITY = 512;
+    // Buffers grown by unusually large batches are dropped rather than pinned per thread
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_CAPACITY));
+
+    private MetadataJsonWriter() {
+    }
+
+    /**
+     * Writes the function result for the given records, in order; {@code null} entries become
+     * {@code {"error":"invalid-s3-record"}}.
+     */
+    public static String writeResult(List<FileMetadata> records) {
+        StringBuilder json = acquire(estimate(records));
+        json.append(ENVELOPE_START);
+        for (int i = 0; i < records.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            FileMetadata metadata = records.get(i);
+            if (metadata == null) {
+                json.append(INVALID_RECORD);
+            } else {
+                writeRecord(json, metadata);
+            }
+        }
+        json.append(ENVELOPE_END);
+        return release(json);
+    }
+
+    /**
+     * Writes the SNS message body announcing one uploaded file.
+     */
+    public static String writeNotification(FileMetadata metadata) {
+        StringBuilder json = acquire(ENVELOPE_START.length() + estimate(metadata));
+        json.append(ENVELOPE_START);
+        writeRecord(json, metadata);
+        json.append(ENVELOPE_END);
+        return release(json);
+    }
+
+    /**
+     * Appends the notification document of {@link #writeNotification(FileMetadata)} to {@code json}.
+     */
+    static void writeNotification(StringBuilder json, FileMetadata metadata) {
+        json.append(ENVELOPE_START);
+        writeRecord(json, metadata);
+        json.append(ENVELOPE_END);
+    }
+
+    /**
+     * Writes the SNS message body summarizing one digest window.
+     */
+    public static String writeDigest(FileDigest digest) {
+        StringBuilder json = acquire(RECORD_OVERHEAD * 2 + length(digest.key()) + length(digest.bucket())
+                + digest.names().stream().mapToInt(name -> length(name) + 3).sum());
+        json.append("{\"schemaVersion\":").append(SCHEMA_VERSION).append(",\"digest\":{\"groupBy\":");
+        writeString(json, digest.groupBy());
+        json.append(",\"key\":");
+        writeString(json, digest.key());
+        json.append(",\"bucket\":");
+        writeString(json, digest.bucket());
+        json.append(",\"files\":").append(digest.files());
+        json.append(",\"totalBytes\":").append(digest.totalBytes());
+        json.append(",\"windowStart\":");
+        writeString(json, digest.windowStart());
+        json.append(",\"windowEnd\":");
+        writeString(json, digest.windowEnd());
+        json.append(",\"names\":[");
+        for (int i = 0; i < digest.names().size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            writeString(json, digest.names().get(i));
+        }
+        json.append("],\"namesOmitted\":").append(digest.namesOmitted()).append("}}");
+        return release(json);
+    }
+
+    private static void writeRecord(StringBuilder json, FileMetadata metadata) {
+        json.append("{\"bucket\":");
+        writeString(json, metadata.bucket());
+        json.append(",\"key\":");
+        writeString(json, metadata.fileName());
+        json.append(",\"size\":").append(metadata.fileSize());
+        json.append(",\"type\":");
+        writeString(json, metadata.fileType());
+        json.append(",\"eTag\":");
+        writeString(json, metadata.eTag());
+        json.append(",\"eventTime\":");
+        writeString(json, metadata.eventTime());
+        if (metadata.storageClass() != null) {
+            json.append(",\"storageClass\":");
+            writeString(json, metadata.storageClass());
+        }
+        if (metadata.userMetadata() != null) {
+            json.append(",\"metadata\":{");
+            boolean first = true;
+            for (Map.Entry<String, String> entry : metadata.userMetadata().entrySet()) {
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                writeString(json, entry.getKey());
+                json.append(':');
+                writeString(json, entry.getValue());
+            }
+            json.append('}');
+        }
+        json.append('}');
+    }
+
+    /**
+     * Appends a JSON string literal (or {@code null}), escaping quotes, backslashes and control characters.
+     * Other characters, including non-ASCII, are written as-is.
+     */
+    static void writeString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        int runStart = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            json.append(value, runStart, i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                case '\b' -> json.append("\\b");
+                case '\f' -> json.append("\\f");
+                default -> json.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+            }
+            runStart = i + 1;
+        }
+        json.append(value, runStart, length).append('"');
+    }
+
+    private static int estimate(List<FileMetadata> records) {
+        int size = ENVELOPE_START.length() + ENVELOPE_END.length();
+        for (FileMetadata metadata : records) {
+            size += metadata != null ? estimate(metadata) + 1 : INVALID_RECORD.length() + 1;
+        }
+        return size;
+    }
+
+    private static int estimate(FileMetadata metadata) {
+        return RECORD_OVERHEAD + length(metadata.bucket()) + length(metadata.fileName()) + length(metadata.fileType())
+                + length(metadata.eTag()) + length(metadata.eventTime());
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 4;
+    }
+
+    private static StringBuilder acquire(int expectedLength) {
+        StringBuilder json = BUFFER.get();
+        json.setLength(0);
+        json.ensureCapacity(expectedLength);
+        return json;
+    }
+
+    private static String release(StringBuilder json) {
+        String result = json.toString();
+        if (json.capacity() > MAX_RETAINED_CAPACITY) {
+            BUFFER.set(new StringBuilder(INITIAL_CAPACITY));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,268 @@
+package com.iam.metaping.service;
+
+import com.iam.metaping.config.MimeTypeProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Resolves a MIME type from a file name's extension using a table built once at startup.
+ * Configuration (application.properties):
+ * - metaping.mime.types.<ext>=<type> adds or overrides a mapping
+ * - metaping.mime.types[tar.gz]=<type> for compound extensions
+ * Notes:
+ * - Lookups are case-insensitive and allocation-free: the extension is hashed and compared in
+ *   place inside the file name, against an immutable open-addressing table.
+ * - Compound extensions (e.g. {@code .tar.gz}) win over their last segment ({@code .gz}).
+ * - Only the last path segment is considered, and a leading dot (".env") is not an extension.
+ * - Unknown or missing extensions resolve to {@link #DEFAULT_TYPE}.
+ */
+@Component
+public class MimeTypeResolver {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MimeTypeResolver.class);
+
+    public static final String DEFAULT_TYPE = "application/octet-stream";
+
+    private final ExtensionTable table;
+
+    public MimeTypeResolver(MimeTypeProperties mimeTypeProperties) {
+        Map<String, String> mappings = builtInTypes();
+        if (mimeTypeProperties != null && mimeTypeProperties.getTypes() != null) {
+            mimeTypeProperties.getTypes().forEach((extension, type) -> {
+                if (extension != null && !extension.isBlank() && type != null && !type.isBlank()) {
+                    mappings.put(normalize(extension), type.trim());
+                } else {
+                    LOG.warn("Ignoring blank MIME mapping '{}' -> '{}'", extension, type);
+                }
+            });
+        }
+        this.table = new ExtensionTable(mappings);
+        LOG.debug("MIME type table built with {} extensions", mappings.size());
+    }
+
+    /**
+     * Resolver backed by the built-in table only.
+     */
+    public static MimeTypeResolver withDefaults() {
+        return new MimeTypeResolver(null);
+    }
+
+    /**
+     * Guesses a MIME type from the file name. Falls back to application/octet-stream when unknown.
+     */
+    public String resolve(String fileName) {
+        if (fileName == null || fileName.isEmpty()) {
+            return DEFAULT_TYPE;
+        }
+
+        int extensionStart = S3KeyDecoder.extensionStart(fileName);
+        if (extensionStart < 0) {
+            return DEFAULT_TYPE;
+        }
+        return resolve(fileName, S3KeyDecoder.nameStart(fileName), extensionStart);
+    }
+
+    /**
+     * Variant for callers that already know the name and extension offsets of the key
+     * (see {@link S3KeyDecoder#nameStart(String)} and {@link S3KeyDecoder#extensionStart(String)}).
+     */
+    public String resolve(String fileName, int nameStart, int extensionStart) {
+        int end = fileName.length();
+        if (extensionStart <= nameStart || extensionStart >= end) {
+            return DEFAULT_TYPE;
+        }
+
+        // Try the compound extension first ("tar.gz"), then the last segment ("gz")
+        int previousDot = fileName.lastIndexOf('.', extensionStart - 2);
+        if (previousDot > nameStart) {
+            String compound = table.get(fileName, previousDot + 1, end);
+            if (compound != null) {
+                return compound;
+            }
+        }
+        String type = table.get(fileName, extensionStart, end);
+        return type != null ? type : DEFAULT_TYPE;
+    }
+
+    private static String normalize(String extension) {
+        String trimmed = extension.trim();
+        if (trimmed.startsWith(".")) {
+            trimmed = trimmed.substring(1);
+        }
+        return trimmed.toLowerCase(Locale.ROOT);
+    }
+
+    private static Map<String, String> builtInTypes() {
+        Map<String, String> m = new LinkedHashMap<>();
+        // Text and structured data
+        m.put("txt", "text/plain");
+        m.put("log", "text/plain");
+        m.put("csv", "text/csv");
+        m.put("tsv", "text/tab-separated-values");
+        m.put("htm", "text/html");
+        m.put("html", "text/html");
+        m.put("css", "text/css");
+        m.put("js", "text/javascript");
+        m.put("mjs", "text/javascript");
+        m.put("md", "text/markdown");
+        m.put("ics", "text/calendar");
+        m.put("xml", "application/xml");
+        m.put("json", "application/json");
+        m.put("jsonl", "application/x-ndjson");
+        m.put("ndjson", "application/x-ndjson");
+        m.put("yaml", "application/yaml");
+        m.put("yml", "application/yaml");
+        m.put("sql", "application/sql");
+        m.put("rtf", "application/rtf");
+        // Analytics formats
+        m.put("parquet", "application/vnd.apache.parquet");
+        m.put("avro", "application/avro");
+        m.put("orc", "application/vnd.apache.orc");
+        // Images
+        m.put("jpg", "image/jpeg");
+        m.put("jpeg", "image/jpeg");
+        m.put("jpe", "image/jpeg");
+        m.put("png", "image/png");
+        m.put("gif", "image/gif");
+        m.put("bmp", "image/bmp");
+        m.put("webp", "image/webp");
+        m.put("avif", "image/avif");
+        m.put("heic", "image/heic");
+        m.put("heif", "image/heif");
+        m.put("tif", "image/tiff");
+        m.put("tiff", "image/tiff");
+        m.put("svg", "image/svg+xml");
+        m.put("ico", "image/vnd.microsoft.icon");
+        // Audio
+        m.put("mp3", "audio/mpeg");
+        m.put("wav", "audio/wav");
+        m.put("ogg", "audio/ogg");
+        m.put("opus", "audio/opus");
+        m.put("flac", "audio/flac");
+        m.put("aac", "audio/aac");
+        m.put("m4a", "audio/mp4");
+        m.put("mid", "audio/midi");
+        m.put("midi", "audio/midi");
+        // Video
+        m.put("mp4", "video/mp4");
+        m.put("m4v", "video/mp4");
+        m.put("mov", "video/quicktime");
+        m.put("avi", "video/x-msvideo");
+        m.put("mkv", "video/x-matroska");
+        m.put("webm", "video/webm");
+        m.put("mpg", "video/mpeg");
+        m.put("mpeg", "video/mpeg");
+        // Documents
+        m.put("pdf", "application/pdf");
+        m.put("doc", "application/msword");
+        m.put("docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document");
+        m.put("xls", "application/vnd.ms-excel");
+        m.put("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        m.put("ppt", "application/vnd.ms-powerpoint");
+        m.put("pptx", "application/vnd.openxmlformats-officedocument.presentationml.presentation");
+        m.put("odt", "application/vnd.oasis.opendocument.text");
+        m.put("ods", "application/vnd.oasis.opendocument.spreadsheet");
+        m.put("odp", "application/vnd.oasis.opendocument.presentation");
+        m.put("epub", "application/epub+zip");
+        // Archives, including compound extensions
+        m.put("zip", "application/zip");
+        m.put("gz", "application/gzip");
+        m.put("bz2", "application/x-bzip2");
+        m.put("xz", "application/x-xz");
+        m.put("zst", "application/zstd");
+        m.put("7z", "application/x-7z-compressed");
+        m.put("rar", "application/vnd.rar");
+        m.put("tar", "application/x-tar");
+        m.put("tgz", "application/x-compressed-tar");
+        m.put("tar.gz", "application/x-compressed-tar");
+        m.put("tar.bz2", "application/x-bzip-compressed-tar");
+        m.put("tar.xz", "application/x-xz-compressed-tar");
+        m.put("tar.zst", "application/x-zstd-compressed-tar");
+        // Binaries and fonts
+        m.put("jar", "application/java-archive");
+        m.put("wasm", "application/wasm");
+        m.put("exe", "application/vnd.microsoft.portable-executable");
+        m.put("bin", "application/octet-stream");
+        m.put("woff", "font/woff");
+        m.put("woff2", "font/woff2");
+        m.put("ttf", "font/ttf");
+        m.put("otf", "font/otf");
+        return m;
+    }
+
+    /**
+     * Immutable open-addressing hash table keyed by lower-case extension. Lookups hash and compare a
+     * region of the caller's string with case folding, so no substring or lower-case copy is created.
+     */
+    private static final class ExtensionTable {
+
+        private final String[] keys;
+        private final String[] values;
+        private final int mask;
+        private final int maxKeyLength;
+
+        ExtensionTable(Map<String, String> mappings) {
+            int capacity = Integer.highestOneBit(Math.max(16, mappings.size() * 2) - 1) << 1; // load factor <= 0.5
+            this.keys = new String[capacity];
+            this.values = new String[capacity];
+            this.mask = capacity - 1;
+
+            int longest = 0;
+            for (Map.Entry<String, String> mapping : mappings.entrySet()) {
+                String key = mapping.getKey();
+                int slot = spread(hash(key, 0, key.length())) & mask;
+                while (keys[slot] != null && !keys[slot].equals(key)) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = mapping.getValue();
+                longest = Math.max(longest, key.length());
+            }
+            this.maxKeyLength = longest;
+        }
+
+        String get(String source, int start, int end) {
+            if (end - start > maxKeyLength) {
+                return null;
+            }
+            int slot = spread(hash(source, start, end)) & mask;
+            String key;
+            while ((key = keys[slot]) != null) {
+                if (matches(key, source, start, end)) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        private static int hash(String source, int start, int end) {
+            int h = 0;
+            for (int i = start; i < end; i++) {
+                h = 31 * h + Character.toLowerCase(source.charAt(i));
+            }
+            return h;
+        }
+
+        private static int spread(int h) {
+            return h ^ (h >>> 16);
+        }
+
+        private static boolean matches(String key, String source, int start, int end) {
+            if (key.length() != end - start) {
+                return false;
+            }
+            for (int i = 0; i < key.length(); i++) {
+                if (key.charAt(i) != Character.toLowerCase(source.charAt(start + i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.iam.metaping.service;
+
+import com.iam.metaping.config.DedupProperties;
+import com.iam.metaping.model.S3ObjectRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Suppresses notifications for S3 records that were already notified (S3 delivers events at least once).
+ * Configuration (application.properties):
+ * - metaping.dedup.enabled=<true|false> (default false)
+ * - metaping.dedup.max-entries=<n> (default 10000), metaping.dedup.ttl=<duration> (default 15m)
+ * - metaping.dedup.store=<memory|file> (default memory), metaping.dedup.file=<path> for the file store
+ * Notes:
+ * - A record is identified by bucket, raw key and sequencer (eTag when the sequencer is missing); records
+ *   with neither are always notified.
+ * - A {@link DedupStore} bean, if defined, replaces the built-in stores (e.g. a shared external store).
+ * - Callers release a claim when its publish fails, so the redelivery S3 makes afterwards is notified.
+ */
+@Component
+public class NotificationDeduplicator implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NotificationDeduplicator.class);
+    private static final NotificationDeduplicator DISABLED = new NotificationDeduplicator((DedupStore) null);
+
+    private final DedupStore store; // null when dedup is disabled
+    private final boolean ownsStore;
+
+    @Autowired
+    public NotificationDeduplicator(DedupProperties dedupProperties, ObjectProvider<DedupStore> customStore) {
+        DedupStore custom = customStore != null ? customStore.getIfAvailable() : null;
+        boolean enabled = dedupProperties != null && dedupProperties.isEnabled();
+        this.store = enabled ? (custom != null ? custom : builtInStore(dedupProperties)) : null;
+        this.ownsStore = enabled && custom == null;
+        if (enabled) {
+            LOG.info("Notification dedup active: store={}", store.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Deduplicates against the given store (tests, embedding); {@code null} disables deduplication.
+     */
+    public NotificationDeduplicator(DedupStore store) {
+        this.store = store;
+        this.ownsStore = false;
+    }
+
+    /**
+     * Deduplicator that lets every record through; used when no dedup configuration is present.
+     */
+    public static NotificationDeduplicator disabled() {
+        return DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return store != null;
+    }
+
+    /**
+     * Claims the record for notification.
+     *
+     * @return true when the record should be notified, false when it is a duplicate of a notified record
+     */
+    public boolean claim(S3ObjectRecord s3Record) {
+        String key = dedupKey(s3Record);
+        if (key == null) {
+            return true;
+        }
+        if (store.claim(key)) {
+            return true;
+        }
+        LOG.debug("Duplicate S3 record suppressed: key={}", s3Record.key());
+        return false;
+    }
+
+    /**
+     * Gives up a claim after its notification failed.
+     */
+    public void release(S3ObjectRecord s3Record) {
+        String key = dedupKey(s3Record);
+        if (key != null) {
+            store.release(key);
+        }
+    }
+
+    public DedupStore.Stats stats() {
+        return store != null ? store.stats() : DedupStore.Stats.EMPTY;
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (ownsStore && store instanceof Closeable closeable) {
+            closeable.close();
+        }
+        if (store != null) {
+            DedupStore.Stats stats = store.stats();
+            LOG.info("Notification dedup stats: hits={}, misses={}, evictions={}, size={}",
+                    stats.hits(), stats.misses(), stats.evictions(), stats.size());
+        }
+    }
+
+    /**
+     * {@code bucket/key#version}, where the version is the sequencer or, failing that, the eTag;
+     * {@code null} when the record carries neither (nothing identifies the upload).
+     */
+    private String dedupKey(S3ObjectRecord s3Record) {
+        if (store == null || s3Record == null || !s3Record.hasObject()) {
+            return null;
+        }
+        String version = s3Record.sequencer() != null ? s3Record.sequencer() : s3Record.eTag();
+        if (version == null) {
+            return null;
+        }
+        return (s3Record.bucket() != null ? s3Record.bucket() : "") + '/' + s3Record.key() + '#' + version;
+    }
+
+    private static DedupStore builtInStore(DedupProperties props) {
+        if ("file".equalsIgnoreCase(props.getStore())) {
+            return new FileDedupStore(Path.of(props.getFile()), props.getMaxEntries(), props.getTtl());
+        }
+        if (!"memory".equalsIgnoreCase(props.getStore())) {
+            LOG.warn("Unknown metaping.dedup.store '{}'; using the in-memory store", props.getStore());
+        }
+        return new InMemoryDedupStore(props.getMaxEntries(), props.getTtl());
+    }
+}
@@ -0,0 +1,353 @@
+package com.iam.metaping.service;
+
+import com.iam.metaping.config.DigestProperties;
+import com.iam.metaping.model.FileDigest;
+import com.iam.metaping.model.FileMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Coalesces file notifications into one digest message per group and window.
+ * Configuration (application.properties):
+ * - metaping.digest.enabled=<true|false> (default false)
+ * - metaping.digest.group-by=<prefix|bucket|type> (default prefix), prefix-depth (default 1)
+ * - metaping.digest.window, max-files, max-names, flush-each-invocation (see {@link DigestProperties})
+ * Notes:
+ * - A group's window opens with its first file and closes after {@code window} or at {@code max-files} files,
+ *   whichever comes first; the digest (count, total bytes, first {@code max-names} names) is then published
+ *   through {@link SnsPublisher#publishBatch(List)}. Digests SNS does not accept go to the {@link NotificationOutbox}
+ *   when it is enabled and are logged as lost otherwise.
+ * - In HTTP mode a background thread closes expired windows, so windows span requests.
+ * - The Lambda handlers call {@link #endInvocation()}: every open window is sent before the container is frozen,
+ *   so a digest covers one (batched) invocation. With {@code flush-each-invocation=false} windows span warm
+ *   invocations and expired ones are sent at the end of the next invocation.
+ * - With notification routing, files are added per topic and windows are kept per topic, so each topic gets
+ *   digests of its own files only.
+ * - Open windows are sent on shutdown. The instance in use is exposed through {@link #current()}.
+ */
+@Component
+public class NotificationDigest implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NotificationDigest.class);
+    private static final NotificationDigest DISABLED = new NotificationDigest(null, null, null, System::currentTimeMillis);
+    private static final String SUBJECT_PREFIX = "Meta-Ping Digest: ";
+    private static final long MAX_TICK_MILLIS = 1000L;
+
+    private static volatile NotificationDigest current;
+
+    private final boolean enabled;
+    private final SnsPublisher snsPublisher;
+    private final NotificationOutbox outbox;
+    private final String groupBy;
+    private final int prefixDepth;
+    private final long windowMillis;
+    private final int maxFiles;
+    private final int maxNames;
+    private final boolean flushEachInvocation;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher; // null when windows are closed by the caller
+
+    @Autowired
+    public NotificationDigest(DigestProperties digestProperties, SnsPublisher snsPublisher, NotificationOutbox outbox) {
+        this(digestProperties, snsPublisher, outbox, System::currentTimeMillis, true);
+    }
+
+    /**
+     * Digest without a background flusher; callers invoke {@link #flushExpired()} (tests, embedding).
+     *
+     * @param clock wall-clock milliseconds; replaceable for tests
+     */
+    public NotificationDigest(DigestProperties digestProperties, SnsPublisher snsPublisher, NotificationOutbox outbox,
+                              LongSupplier clock) {
+        this(digestProperties, snsPublisher, outbox, clock, false);
+    }
+
+    private NotificationDigest(DigestProperties digestProperties, SnsPublisher snsPublisher, NotificationOutbox outbox,
+                               LongSupplier clock, boolean scheduled) {
+        DigestProperties props = digestProperties != null ? digestProperties : new DigestProperties();
+        this.enabled = props.isEnabled() && snsPublisher != null;
+        this.snsPublisher = snsPublisher;
+        this.outbox = outbox != null ? outbox : NotificationOutbox.disabled();
+        this.groupBy = normalizeGroupBy(props.getGroupBy());
+        this.prefixDepth = Math.max(1, props.getPrefixDepth());
+        this.windowMillis = Math.max(1L, props.getWindow().toMillis());
+        this.maxFiles = Math.max(1, props.getMaxFiles());
+        this.maxNames = Math.max(0, props.getMaxNames());
+        this.flushEachInvocation = props.isFlushEachInvocation();
+        this.clock = clock;
+        if (!enabled || !scheduled) {
+            this.flusher = null;
+            return;
+        }
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "meta-ping-digest");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long tickMillis = Math.min(windowMillis, MAX_TICK_MILLIS);
+        flusher.scheduleWithFixedDelay(this::flushExpiredQuietly, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        current = this;
+        LOG.info("Notification digest active: groupBy={}, window={}ms, maxFiles={}", groupBy, windowMillis, maxFiles);
+    }
+
+    /**
+     * Digest that takes nothing; used when no digest configuration is present.
+     */
+    public static NotificationDigest disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * The active digest, once the Spring context has created one with digests enabled.
+     */
+    public static Optional<NotificationDigest> current() {
+        return Optional.ofNullable(current);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Counts the file into its group's open window, sending the digest right away when the window is full.
+     *
+     * @return true when the file was taken; false when digests are disabled
+     */
+    public boolean add(FileMetadata metadata) {
+        return add(metadata, null);
+    }
+
+    /**
+     * Counts the file into its group's open window for the given topic.
+     *
+     * @param topicArn topic the digest is published to; null for the configured topic
+     * @return true when the file was taken; false when digests are disabled
+     */
+    public boolean add(FileMetadata metadata, String topicArn) {
+        if (!enabled || metadata == null) {
+            return false;
+        }
+        String key = topicArn != null ? topicArn + "|" + groupKey(metadata) : groupKey(metadata);
+        while (true) {
+            Window window = windows.computeIfAbsent(key, k -> new Window(k, groupLabel(metadata), metadata.bucket(),
+                    topicArn, clock.getAsLong()));
+            synchronized (window) {
+                if (window.closed) {
+                    continue; // sent concurrently; open a new one
+                }
+                window.add(metadata, maxNames);
+                if (window.files < maxFiles) {
+                    return true;
+                }
+                window.closed = true;
+                windows.remove(key, window);
+            }
+            send(List.of(window));
+            return true;
+        }
+    }
+
+    /**
+     * Sends the digests of every window that is open for longer than {@code window}.
+     *
+     * @return number of digests SNS accepted
+     */
+    public int flushExpired() {
+        long now = clock.getAsLong();
+        return send(close(window -> now - window.openedAt >= windowMillis));
+    }
+
+    /**
+     * Sends the digests of every open window.
+     *
+     * @return number of digests SNS accepted
+     */
+    public int flushAll() {
+        return send(close(window -> true));
+    }
+
+    /**
+     * Called by the Lambda handlers when an invocation ends, before the container may be frozen.
+     */
+    public void endInvocation() {
+        try {
+            if (flushEachInvocation) {
+                flushAll();
+            } else {
+                flushExpired();
+            }
+        } catch (RuntimeException e) {
+            LOG.error("Digest flush failed", e);
+        }
+    }
+
+    public int openWindows() {
+        return windows.size();
+    }
+
+    @Override
+    public void destroy() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (enabled) {
+            flushAll();
+        }
+        if (current == this) {
+            current = null;
+        }
+    }
+
+    private List<Window> close(Predicate<Window> due) {
+        List<Window> closed = new ArrayList<>();
+        for (Window window : windows.values()) {
+            synchronized (window) {
+                if (window.closed || !due.test(window)) {
+                    continue;
+                }
+                window.closed = true;
+                windows.remove(window.key, window);
+            }
+            closed.add(window);
+        }
+        return closed;
+    }
+
+    private int send(List<Window> closed) {
+        if (closed.isEmpty()) {
+            return 0;
+        }
+        long now = clock.getAsLong();
+        List<SnsMessage> messages = new ArrayList<>(closed.size());
+        for (Window window : closed) {
+            FileDigest digest = new FileDigest(groupBy, window.label, "type".equals(groupBy) ? null : window.bucket,
+                    window.files, window.totalBytes, Instant.ofEpochMilli(window.openedAt).toString(),
+                    Instant.ofEpochMilli(now).toString(), List.copyOf(window.names));
+            messages.add(new SnsMessage(subject(digest), MetadataJsonWriter.writeDigest(digest), window.topicArn));
+        }
+        List<Boolean> published = snsPublisher.publishBatch(messages);
+        int accepted = 0;
+        for (int i = 0; i < messages.size(); i++) {
+            if (Boolean.TRUE.equals(published.get(i))) {
+                accepted++;
+            } else if (!outbox.offer(messages.get(i))) {
+                LOG.error("Digest notification lost: {}", messages.get(i).message());
+            }
+        }
+        LOG.debug("Sent {} digest notifications, {} accepted", messages.size(), accepted);
+        return accepted;
+    }
+
+    // Scheduled runs stop for good once a task throws, so failures are only logged
+    private void flushExpiredQuietly() {
+        try {
+            flushExpired();
+        } catch (RuntimeException e) {
+            LOG.error("Digest flush failed", e);
+        }
+    }
+
+    private String groupKey(FileMetadata metadata) {
+        return "type".equals(groupBy) ? String.valueOf(metadata.fileType())
+                : metadata.bucket() + "/" + groupLabel(metadata); // a prefix is only meaningful within its bucket
+    }
+
+    /**
+     * The value files are grouped by, as shown in the digest: prefix, bucket or type.
+     */
+    private String groupLabel(FileMetadata metadata) {
+        return switch (groupBy) {
+            case "bucket" -> metadata.bucket();
+            case "type" -> metadata.fileType();
+            default -> prefix(metadata.fileName());
+        };
+    }
+
+    /**
+     * The first {@code prefix-depth} segments of the key, with their trailing slash; "" for top-level keys.
+     */
+    private String prefix(String fileName) {
+        if (fileName == null) {
+            return "";
+        }
+        int end = -1;
+        for (int depth = 0; depth < prefixDepth; depth++) {
+            int slash = fileName.indexOf('/', end + 1);
+            if (slash < 0) {
+                break;
+            }
+            end = slash;
+        }
+        return fileName.substring(0, end + 1);
+    }
+
+    private static String subject(FileDigest digest) {
+        return NotificationTemplate.asciiSubject(SUBJECT_PREFIX + digest.files() + (digest.files() == 1 ? " file" : " files")
+                + " in " + (digest.key() == null || digest.key().isEmpty() ? "/" : digest.key()));
+    }
+
+    private static String normalizeGroupBy(String groupBy) {
+        String mode = groupBy != null ? groupBy.trim().toLowerCase() : "prefix";
+        return switch (mode) {
+            case "prefix", "bucket", "type" -> mode;
+            default -> {
+                LOG.warn("Unknown metaping.digest.group-by '{}'; grouping by prefix", groupBy);
+                yield "prefix";
+            }
+        };
+    }
+
+    /**
+     * Files of one group since its first file; guarded by its own monitor.
+     */
+    private static final class Window {
+        final String key;
+        final String label;
+        final String bucket;
+        final String topicArn;
+        final long openedAt;
+        final List<String> names = new ArrayList<>();
+        int files;
+        long totalBytes;
+        boolean closed;
+
+        Window(String key, String label, String bucket, String topicArn, long openedAt) {
+            this.key = key;
+            this.label = label;
+            this.bucket = bucket;
+            this.topicArn = topicArn;
+            this.openedAt = openedAt;
+        }
+
+        void add(FileMetadata metadata, int maxNames) {
+            files++;
+            if (metadata.fileSize() > 0) {
+                totalBytes += metadata.fileSize();
+            }
+            if (names.size() < maxNames && metadata.fileName() != null) {
+                names.add(metadata.fileName());
+            }
+        }
+    }
+}
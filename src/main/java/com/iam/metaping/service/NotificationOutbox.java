@@ -0,0 +1,233 @@
+package com.iam.metaping.service;
+
+import com.iam.metaping.config.OutboxProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Durable outbox for SNS notifications, meant for the long-running HTTP deployment.
+ * Configuration (application.properties):
+ * - metaping.outbox.enabled=<true|false> (default false)
+ * - metaping.outbox.defer=<true|false> (default false): journal every notification instead of publishing inline
+ * - metaping.outbox.directory, segment-size, max-segments, drain-interval, max-attempts
+ * Notes:
+ * - Notifications are stored in an {@link OutboxJournal}; a background thread drains it with
+ *   {@link SnsPublisher#publishBatch(List)} every {@code drain-interval}, and right away after a deferred offer.
+ * - A batch SNS could not take at all (outage, throttling, open circuit) stays in place and is retried on the
+ *   next run without counting an attempt. Every other entry SNS did not accept (rejected individually, unknown or
+ *   forbidden topic, oversized) is re-appended with its attempt count and dropped with an error log after
+ *   {@code max-attempts}, so it never holds up the entries behind it.
+ * - Once SNS has answered for a batch, the batch is checkpointed, so its accepted entries are never published again.
+ *   A failed entry that does not fit back into a full journal is dropped with an error log.
+ * - The outbox stays off while the {@link SnsPublisher} has no topic or region, since nothing could drain it.
+ * - Delivery is at least once: a crash between publishing a batch and checkpointing it publishes it again.
+ * - In Lambda the drainer only runs while an invocation is active; the outbox is off unless enabled.
+ */
+@Component
+public class NotificationOutbox implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NotificationOutbox.class);
+    private static final NotificationOutbox DISABLED = new NotificationOutbox(null, null, false, 1);
+
+    private final OutboxJournal journal; // null when the outbox is disabled
+    private final SnsPublisher snsPublisher;
+    private final boolean defer;
+    private final int maxAttempts;
+    private final ScheduledExecutorService drainer; // null when draining is driven by the caller
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+
+    @Autowired
+    public NotificationOutbox(OutboxProperties outboxProperties, SnsPublisher snsPublisher) {
+        boolean enabled = outboxProperties != null && outboxProperties.isEnabled();
+        if (enabled && (snsPublisher == null || !snsPublisher.isConfigured())) {
+            LOG.error("metaping.outbox.enabled=true but SNS has no topic or region; outbox disabled");
+            enabled = false;
+        }
+        this.snsPublisher = snsPublisher;
+        this.defer = enabled && outboxProperties.isDefer();
+        this.maxAttempts = enabled ? Math.max(1, outboxProperties.getMaxAttempts()) : 1;
+        if (!enabled) {
+            this.journal = null;
+            this.drainer = null;
+            return;
+        }
+
+        this.journal = new OutboxJournal(Path.of(outboxProperties.getDirectory()),
+                (int) Math.min(Integer.MAX_VALUE, outboxProperties.getSegmentSize().toBytes()),
+                outboxProperties.getMaxSegments());
+        this.drainer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "meta-ping-outbox");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = Math.max(1L, outboxProperties.getDrainInterval().toMillis());
+        drainer.scheduleWithFixedDelay(this::drainQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        LOG.info("Notification outbox active: directory={}, defer={}, pending={}",
+                outboxProperties.getDirectory(), defer, journal.pending());
+    }
+
+    /**
+     * Outbox over the given journal without a background drainer; callers invoke {@link #drain()} (tests, embedding).
+     */
+    public NotificationOutbox(OutboxJournal journal, SnsPublisher snsPublisher, boolean defer, int maxAttempts) {
+        this.journal = journal;
+        this.snsPublisher = snsPublisher;
+        this.defer = journal != null && defer;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.drainer = null;
+    }
+
+    /**
+     * Outbox that stores nothing; used when no outbox configuration is present.
+     */
+    public static NotificationOutbox disabled() {
+        return DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return journal != null;
+    }
+
+    /**
+     * @return true when every notification goes through the outbox instead of being published inline
+     */
+    public boolean isDeferred() {
+        return defer;
+    }
+
+    /**
+     * Stores a notification for background delivery.
+     *
+     * @return true when it was journaled; false when the outbox is disabled or cannot take it
+     */
+    public boolean offer(SnsMessage message) {
+        if (journal == null || message == null || message.message() == null || message.message().isBlank()) {
+            return false;
+        }
+        if (!journal.append(message)) {
+            return false;
+        }
+        if (defer) {
+            wakeUp();
+        }
+        return true;
+    }
+
+    public long pending() {
+        return journal != null ? journal.pending() : 0L;
+    }
+
+    /**
+     * Publishes pending notifications in batches until the journal is empty or SNS is unavailable.
+     *
+     * @return number of notifications SNS accepted
+     */
+    public synchronized int drain() {
+        if (journal == null) {
+            return 0;
+        }
+        journal.flush(); // group commit of everything appended since the last run
+        int delivered = 0;
+        while (true) {
+            OutboxJournal.Batch batch = journal.read(SnsPublisher.MAX_BATCH_ENTRIES);
+            if (batch.entries().isEmpty()) {
+                break;
+            }
+            List<SnsMessage> messages = new ArrayList<>(batch.entries().size());
+            for (OutboxJournal.Entry entry : batch.entries()) {
+                messages.add(entry.message());
+            }
+            List<SnsPublisher.Delivery> results = snsPublisher.deliverBatch(messages);
+            if (results.stream().allMatch(SnsPublisher.Delivery.UNAVAILABLE::equals)) {
+                LOG.debug("SNS unavailable for an outbox batch of {} entries; retrying later", messages.size());
+                break;
+            }
+            int accepted = (int) results.stream().filter(SnsPublisher.Delivery.ACCEPTED::equals).count();
+            List<OutboxJournal.Entry> overflow = requeueFailed(batch, results);
+            journal.commit(batch); // SNS answered: accepted entries must not be published again
+            for (OutboxJournal.Entry entry : overflow) {
+                // the commit may have freed a segment
+                if (!journal.append(entry.message(), entry.attempts())) {
+                    LOG.error("Outbox journal full; dropping notification after {} attempts: {}",
+                            entry.attempts(), entry.message().message());
+                }
+            }
+            delivered += accepted;
+        }
+        if (delivered > 0) {
+            LOG.info("Outbox delivered {} notifications, {} pending", delivered, journal.pending());
+        }
+        return delivered;
+    }
+
+    @Override
+    public void destroy() {
+        if (drainer != null) {
+            drainer.shutdown();
+            try {
+                drainer.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Re-appends the entries SNS did not accept, dropping those out of attempts.
+     *
+     * @return the entries, with their new attempt count, that did not fit into the journal
+     */
+    private List<OutboxJournal.Entry> requeueFailed(OutboxJournal.Batch batch, List<SnsPublisher.Delivery> results) {
+        List<OutboxJournal.Entry> overflow = new ArrayList<>();
+        for (int i = 0; i < batch.entries().size(); i++) {
+            if (i < results.size() && results.get(i) == SnsPublisher.Delivery.ACCEPTED) {
+                continue;
+            }
+            OutboxJournal.Entry entry = batch.entries().get(i);
+            int attempts = entry.attempts() + 1;
+            if (attempts >= maxAttempts) {
+                LOG.error("Dropping outbox notification after {} attempts: {}", attempts, entry.message().message());
+            } else if (!journal.append(entry.message(), attempts)) {
+                overflow.add(new OutboxJournal.Entry(entry.message(), attempts));
+            }
+        }
+        return overflow;
+    }
+
+    private void wakeUp() {
+        if (drainer != null && !wakeUpPending.getAndSet(true)) {
+            try {
+                drainer.execute(() -> {
+                    wakeUpPending.set(false);
+                    drainQuietly();
+                });
+            } catch (RejectedExecutionException e) {
+                // shutting down: the entry stays journaled for the next start
+            }
+        }
+    }
+
+    // Scheduled runs stop for good once a task throws, so failures are only logged
+    private void drainQuietly() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            LOG.error("Outbox drain failed", e);
+        }
+    }
+}
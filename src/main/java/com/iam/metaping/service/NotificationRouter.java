@@ -0,0 +1,250 @@
+package com.iam.metaping.service;
+
+import com.iam.metaping.config.RoutingProperties;
+import com.iam.metaping.model.FileMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Picks the SNS topics a file is announced on.
+ * Configuration (application.properties or YAML):
+ * - metaping.routing.enabled=<true|false> (default false)
+ * - metaping.routing.rules[n].bucket, prefix, suffix, min-size, max-size, types, topics, name
+ * - metaping.routing.default-topics: topics for files no rule matches; empty drops them
+ * Notes:
+ * - A file goes to the topics of every rule it matches, each topic once, in order of first appearance in the
+ *   configuration. Files routed to no topic are not published at all.
+ * - Rules are compiled once at startup into a prefix trie per bucket (plus one for rules without a bucket).
+ *   Matching walks the key through the tries and only checks suffix, size interval and type of the rules whose
+ *   prefix lies on that path, so its cost follows the key length rather than the number of rules.
+ */
+@Component
+public class NotificationRouter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NotificationRouter.class);
+    private static final NotificationRouter DISABLED = new NotificationRouter(null);
+
+    private final boolean enabled;
+    private final String[] topics; // distinct topic ARNs; rules refer to them by index
+    private final Node anyBucket;
+    private final Map<String, Node> byBucket;
+    private final List<String> defaultTopics;
+
+    @Autowired
+    public NotificationRouter(RoutingProperties routingProperties) {
+        this.enabled = routingProperties != null && routingProperties.isEnabled();
+        if (!enabled) {
+            this.topics = new String[0];
+            this.anyBucket = Node.EMPTY;
+            this.byBucket = Map.of();
+            this.defaultTopics = List.of();
+            return;
+        }
+
+        Map<String, Integer> topicIndex = new LinkedHashMap<>();
+        TrieBuilder any = new TrieBuilder();
+        Map<String, TrieBuilder> buckets = new HashMap<>();
+        List<RoutingProperties.Rule> rules = routingProperties.getRules();
+        for (int i = 0; i < rules.size(); i++) {
+            RoutingProperties.Rule rule = rules.get(i);
+            CompiledRule compiled = CompiledRule.compile(rule, "rule " + i, topicIndex);
+            TrieBuilder trie = isSet(rule.getBucket())
+                    ? buckets.computeIfAbsent(rule.getBucket().trim(), bucket -> new TrieBuilder())
+                    : any;
+            trie.add(rule.getPrefix() != null ? rule.getPrefix() : "", compiled);
+        }
+        this.topics = topicIndex.keySet().toArray(new String[0]);
+        this.anyBucket = any.build();
+        Map<String, Node> compiledBuckets = new HashMap<>();
+        buckets.forEach((bucket, trie) -> compiledBuckets.put(bucket, trie.build()));
+        this.byBucket = Map.copyOf(compiledBuckets);
+        this.defaultTopics = routingProperties.getDefaultTopics().stream()
+                .filter(NotificationRouter::isSet).map(String::trim).distinct().toList();
+        LOG.info("Notification routing active: {} rules, {} topics, default topics={}",
+                rules.size(), topics.length, defaultTopics.size());
+    }
+
+    /**
+     * Router that is not in use; used when no routing configuration is present.
+     */
+    public static NotificationRouter disabled() {
+        return DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the topics to announce the file on; empty when it must not be published
+     */
+    public List<String> route(FileMetadata metadata) {
+        if (!enabled || metadata == null) {
+            return List.of();
+        }
+        boolean[] hits = new boolean[topics.length];
+        boolean matched = match(anyBucket, metadata, hits);
+        Node bucketRules = metadata.bucket() != null ? byBucket.get(metadata.bucket()) : null;
+        if (bucketRules != null) {
+            matched |= match(bucketRules, metadata, hits);
+        }
+        if (!matched) {
+            return defaultTopics;
+        }
+        List<String> routed = new ArrayList<>(2);
+        for (int i = 0; i < hits.length; i++) {
+            if (hits[i]) {
+                routed.add(topics[i]);
+            }
+        }
+        return routed;
+    }
+
+    /**
+     * Walks the key down the trie, checking the rules of every node on the way (their prefix is a prefix of the key).
+     */
+    private static boolean match(Node root, FileMetadata metadata, boolean[] hits) {
+        String key = metadata.fileName() != null ? metadata.fileName() : "";
+        boolean matched = false;
+        Node node = root;
+        for (int depth = 0; node != null; depth++) {
+            for (CompiledRule rule : node.rules) {
+                if (rule.matches(key, metadata.fileSize(), metadata.fileType())) {
+                    matched = true;
+                    for (int topic : rule.topics) {
+                        hits[topic] = true;
+                    }
+                }
+            }
+            node = depth < key.length() ? node.child(key.charAt(depth)) : null;
+        }
+        return matched;
+    }
+
+    private static boolean isSet(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    /**
+     * Conditions of one rule other than bucket and prefix, which are encoded in the trie.
+     */
+    private record CompiledRule(String name, String suffix, long minSize, long maxSize, Set<String> types,
+                                Set<String> majorTypes, int[] topics) {
+
+        private static final CompiledRule[] NONE = new CompiledRule[0];
+
+        static CompiledRule compile(RoutingProperties.Rule rule, String fallbackName, Map<String, Integer> topicIndex) {
+            String name = isSet(rule.getName()) ? rule.getName() : fallbackName;
+            long minSize = rule.getMinSize() != null ? rule.getMinSize().toBytes() : -1L;
+            long maxSize = rule.getMaxSize() != null ? rule.getMaxSize().toBytes() : -1L;
+            if (minSize >= 0 && maxSize >= 0 && minSize > maxSize) {
+                LOG.warn("Routing {} has min-size above max-size and never matches", name);
+            }
+            Set<String> types = new java.util.HashSet<>();
+            Set<String> majorTypes = new java.util.HashSet<>();
+            for (String type : rule.getTypes()) {
+                if (!isSet(type)) {
+                    continue;
+                }
+                String normalized = type.trim().toLowerCase(Locale.ROOT);
+                if (normalized.endsWith("/*")) {
+                    majorTypes.add(normalized.substring(0, normalized.length() - 1)); // keeps the slash
+                } else {
+                    types.add(normalized);
+                }
+            }
+            int[] topics = rule.getTopics().stream()
+                    .filter(NotificationRouter::isSet)
+                    .mapToInt(topic -> topicIndex.computeIfAbsent(topic.trim(), t -> topicIndex.size()))
+                    .distinct()
+                    .toArray();
+            if (topics.length == 0) {
+                LOG.info("Routing {} has no topics; matching files are not published", name);
+            }
+            return new CompiledRule(name, isSet(rule.getSuffix()) ? rule.getSuffix() : null, minSize, maxSize,
+                    Set.copyOf(types), Set.copyOf(majorTypes), topics);
+        }
+
+        boolean matches(String key, long size, String type) {
+            if (suffix != null && !key.endsWith(suffix)) {
+                return false;
+            }
+            if ((minSize >= 0 || maxSize >= 0) && size < 0) {
+                return false; // unknown size never satisfies a bound
+            }
+            if ((minSize >= 0 && size < minSize) || (maxSize >= 0 && size > maxSize)) {
+                return false;
+            }
+            if (types.isEmpty() && majorTypes.isEmpty()) {
+                return true;
+            }
+            if (type == null) {
+                return false;
+            }
+            String normalized = type.toLowerCase(Locale.ROOT);
+            if (types.contains(normalized)) {
+                return true;
+            }
+            int slash = normalized.indexOf('/');
+            return slash > 0 && majorTypes.contains(normalized.substring(0, slash + 1));
+        }
+    }
+
+    /**
+     * Immutable trie node: children sorted by label for binary search, plus the rules whose prefix ends here.
+     */
+    private static final class Node {
+        static final Node EMPTY = new Node(new char[0], new Node[0], CompiledRule.NONE);
+
+        final char[] labels;
+        final Node[] children;
+        final CompiledRule[] rules;
+
+        Node(char[] labels, Node[] children, CompiledRule[] rules) {
+            this.labels = labels;
+            this.children = children;
+            this.rules = rules;
+        }
+
+        Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+    }
+
+    private static final class TrieBuilder {
+        final TreeMap<Character, TrieBuilder> children = new TreeMap<>();
+        final List<CompiledRule> rules = new ArrayList<>(1);
+
+        void add(String prefix, CompiledRule rule) {
+            TrieBuilder node = this;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.children.computeIfAbsent(prefix.charAt(i), label -> new TrieBuilder());
+            }
+            node.rules.add(rule);
+        }
+
+        Node build() {
+            char[] labels = new char[children.size()];
+            Node[] nodes = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, TrieBuilder> child : children.entrySet()) {
+                labels[i] = child.getKey();
+                nodes[i++] = child.getValue().build();
+            }
+            return new Node(labels, nodes, rules.toArray(CompiledRule.NONE));
+        }
+    }
+}
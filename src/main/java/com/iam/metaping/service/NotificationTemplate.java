@@ -0,0 +1,234 @@
+package com.iam.metaping.service;
+
+import com.iam.metaping.model.FileMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A subject or body template, parsed once into literal and placeholder segments.
+ * <p>
+ * Placeholders: {@code {bucket}}, {@code {key}} (decoded), {@code {size}} (bytes, -1 when unknown), {@code {type}},
+ * {@code {eTag}}, {@code {eventTime}} and {@code {json}} (the schema-versioned document of
+ * {@link MetadataJsonWriter}). A placeholder may carry a format: {@code {size:human}} writes e.g. {@code 1.5 MB},
+ * {@code {key:json}} writes the value as a JSON string literal (or {@code null}). Missing values are written as
+ * empty text. A doubled opening brace writes a literal one, so a compact JSON body reads
+ * <code>{{"k":{key:json}}</code>;
+ * unknown placeholders are kept as text and logged when the template is compiled.
+ * <p>
+ * Rendering appends the segments into a per-thread {@link StringBuilder}; a template without placeholders
+ * returns its text without copying.
+ */
+public final class NotificationTemplate {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NotificationTemplate.class);
+    private static final int MAX_SUBJECT_LENGTH = 100; // SNS limit; printable ASCII only
+    private static final String[] SIZE_UNITS = {"B", "KB", "MB", "GB", "TB"};
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_CAPACITY));
+
+    /** Body of the default notification: the JSON document alone. */
+    public static final NotificationTemplate JSON = compile("{json}");
+
+    private enum Field { LITERAL, BUCKET, KEY, SIZE, TYPE, ETAG, EVENT_TIME, JSON }
+
+    private enum Format { TEXT, JSON, HUMAN }
+
+    /**
+     * One piece of the template: literal text, or a field written in a format.
+     */
+    private record Segment(Field field, Format format, String text) {
+    }
+
+    private final String source;
+    private final Segment[] segments;
+    private final String constant; // the whole output when there are no placeholders
+
+    private NotificationTemplate(String source, Segment[] segments) {
+        this.source = source;
+        this.segments = segments;
+        this.constant = segments.length == 0 ? ""
+                : segments.length == 1 && segments[0].field == Field.LITERAL ? segments[0].text : null;
+    }
+
+    /**
+     * Parses the template; {@code null} yields an empty one.
+     */
+    public static NotificationTemplate compile(String template) {
+        String source = template != null ? template : "";
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (c == '{' && source.startsWith("{", i + 1)) {
+                literal.append('{');
+                i += 2;
+                continue;
+            }
+            int close = c == '{' ? source.indexOf('}', i + 1) : -1;
+            if (close < 0) {
+                literal.append(c);
+                i++;
+                continue;
+            }
+            Segment segment = placeholder(source.substring(i + 1, close));
+            if (segment == null) {
+                literal.append(source, i, close + 1);
+            } else {
+                if (!literal.isEmpty()) {
+                    segments.add(new Segment(Field.LITERAL, Format.TEXT, literal.toString()));
+                    literal.setLength(0);
+                }
+                segments.add(segment);
+            }
+            i = close + 1;
+        }
+        if (!literal.isEmpty()) {
+            segments.add(new Segment(Field.LITERAL, Format.TEXT, literal.toString()));
+        }
+        return new NotificationTemplate(source, segments.toArray(new Segment[0]));
+    }
+
+    private static Segment placeholder(String placeholder) {
+        int colon = placeholder.indexOf(':');
+        String name = colon < 0 ? placeholder : placeholder.substring(0, colon);
+        String format = colon < 0 ? "" : placeholder.substring(colon + 1);
+        Field field = switch (name) {
+            case "bucket" -> Field.BUCKET;
+            case "key" -> Field.KEY;
+            case "size" -> Field.SIZE;
+            case "type" -> Field.TYPE;
+            case "eTag" -> Field.ETAG;
+            case "eventTime" -> Field.EVENT_TIME;
+            case "json" -> Field.JSON;
+            default -> null;
+        };
+        Format parsed = switch (format) {
+            case "" -> Format.TEXT;
+            case "json" -> field != Field.JSON ? Format.JSON : null;
+            case "human" -> field == Field.SIZE ? Format.HUMAN : null;
+            default -> null;
+        };
+        if (field == null || parsed == null) {
+            LOG.warn("Unknown notification template placeholder {{}}; written as is", placeholder);
+            return null;
+        }
+        return new Segment(field, parsed, null);
+    }
+
+    public String source() {
+        return source;
+    }
+
+    /**
+     * @return true when the output does not depend on the file
+     */
+    public boolean isConstant() {
+        return constant != null;
+    }
+
+    public String render(FileMetadata metadata) {
+        if (constant != null) {
+            return constant;
+        }
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        appendTo(out, metadata);
+        String result = out.toString();
+        if (out.capacity() > MAX_RETAINED_CAPACITY) {
+            BUFFER.set(new StringBuilder(INITIAL_CAPACITY));
+        }
+        return result;
+    }
+
+    /**
+     * Renders for use as an SNS subject: non-printable and non-ASCII characters become {@code ?},
+     * and text beyond 100 characters is cut to end in {@code ...}.
+     */
+    public String renderSubject(FileMetadata metadata) {
+        return asciiSubject(render(metadata));
+    }
+
+    void appendTo(StringBuilder out, FileMetadata metadata) {
+        for (Segment segment : segments) {
+            switch (segment.field) {
+                case LITERAL -> out.append(segment.text);
+                case BUCKET -> append(out, metadata.bucket(), segment.format);
+                case KEY -> append(out, metadata.fileName(), segment.format);
+                case TYPE -> append(out, metadata.fileType(), segment.format);
+                case ETAG -> append(out, metadata.eTag(), segment.format);
+                case EVENT_TIME -> append(out, metadata.eventTime(), segment.format);
+                case JSON -> MetadataJsonWriter.writeNotification(out, metadata);
+                case SIZE -> {
+                    if (segment.format == Format.HUMAN) {
+                        appendHumanSize(out, metadata.fileSize());
+                    } else {
+                        out.append(metadata.fileSize());
+                    }
+                }
+            }
+        }
+    }
+
+    private static void append(StringBuilder out, String value, Format format) {
+        if (format == Format.JSON) {
+            MetadataJsonWriter.writeString(out, value);
+        } else if (value != null) {
+            out.append(value);
+        }
+    }
+
+    /**
+     * Appends the size in binary units with at most one decimal: {@code 512 B}, {@code 1.5 KB}, {@code 2 MB};
+     * {@code unknown} for negative sizes.
+     */
+    static void appendHumanSize(StringBuilder out, long size) {
+        if (size < 0) {
+            out.append("unknown");
+            return;
+        }
+        int unit = 0;
+        long divisor = 1;
+        while (unit < SIZE_UNITS.length - 1 && size >= divisor * 1024) {
+            divisor *= 1024;
+            unit++;
+        }
+        long tenths = (size * 10 + divisor / 2) / divisor; // rounded; S3 objects are far too small to overflow
+        if (tenths >= 10240 && unit < SIZE_UNITS.length - 1) { // rounded up into the next unit
+            tenths /= 1024;
+            unit++;
+        }
+        out.append(tenths / 10);
+        if (tenths % 10 != 0) {
+            out.append('.').append(tenths % 10);
+        }
+        out.append(' ').append(SIZE_UNITS[unit]);
+    }
+
+    /**
+     * Makes {@code subject} acceptable to SNS: printable ASCII, at most 100 characters.
+     */
+    static String asciiSubject(String subject) {
+        boolean clean = subject.length() <= MAX_SUBJECT_LENGTH;
+        for (int i = 0; clean && i < subject.length(); i++) {
+            char c = subject.charAt(i);
+            clean = c >= 0x20 && c < 0x7F;
+        }
+        if (clean) {
+            return subject;
+        }
+        StringBuilder ascii = new StringBuilder(Math.min(subject.length(), MAX_SUBJECT_LENGTH));
+        for (int i = 0; i < subject.length() && ascii.length() < MAX_SUBJECT_LENGTH; i++) {
+            char c = subject.charAt(i);
+            ascii.append(c >= 0x20 && c < 0x7F ? c : '?');
+        }
+        if (subject.length() > MAX_SUBJECT_LENGTH) {
+            ascii.replace(MAX_SUBJECT_LENGTH - 3, MAX_SUBJECT_LENGTH, "...");
+        }
+        return ascii.toString();
+    }
+}
@@ -0,0 +1,85 @@
+package com.iam.metaping.service;
+
+import com.iam.metaping.config.TemplateProperties;
+import com.iam.metaping.model.FileMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Subject and body of per-file notifications, compiled once at startup into {@link NotificationTemplate}s.
+ * Configuration (application.properties):
+ * - metaping.templates.subject (default "Meta-Ping Notification: New File Uploaded"; empty sends no subject)
+ * - metaping.templates.body (default {json}: the schema-versioned JSON document)
+ * - metaping.templates.topics[<topic-arn>].subject / .body: overrides for one topic
+ * Notes:
+ * - Topic templates apply to the topics selected by {@link NotificationRouter}; they let high-volume topics
+ *   receive shorter messages, e.g. {@code {bucket}/{key}}.
+ * - Subjects are made SNS-safe (printable ASCII, at most 100 characters). A blank body falls back to {json}.
+ * - Digest messages keep their own format.
+ */
+@Component
+public class NotificationTemplates {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NotificationTemplates.class);
+    private static final NotificationTemplates DEFAULTS = new NotificationTemplates(null);
+
+    private final Templates defaults;
+    private final Map<String, Templates> byTopic;
+
+    @Autowired
+    public NotificationTemplates(TemplateProperties templateProperties) {
+        TemplateProperties props = templateProperties != null ? templateProperties : new TemplateProperties();
+        this.defaults = new Templates(subject(props.getSubject()), body(props.getBody(), null));
+        Map<String, Templates> topics = new HashMap<>();
+        props.getTopics().forEach((topic, template) -> topics.put(topic.trim(), new Templates(
+                template.getSubject() != null ? subject(template.getSubject()) : defaults.subject,
+                template.getBody() != null ? body(template.getBody(), defaults.body) : defaults.body)));
+        this.byTopic = Map.copyOf(topics);
+        if (templateProperties != null && (!byTopic.isEmpty() || !NotificationTemplate.JSON.source().equals(defaults.body.source()))) {
+            LOG.info("Notification templates active: body='{}', topic overrides={}", defaults.body.source(), byTopic.size());
+        }
+    }
+
+    /**
+     * Templates producing the default subject and JSON body.
+     */
+    public static NotificationTemplates withDefaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * @return true when {@code topicArn} has templates of its own
+     */
+    public boolean overrides(String topicArn) {
+        return topicArn != null && byTopic.containsKey(topicArn);
+    }
+
+    /**
+     * Renders the notification of one file for {@code topicArn} ({@code null}: the configured topic).
+     */
+    public SnsMessage message(FileMetadata metadata, String topicArn) {
+        Templates templates = topicArn != null ? byTopic.getOrDefault(topicArn, defaults) : defaults;
+        String subject = templates.subject != null ? templates.subject.renderSubject(metadata) : null;
+        return new SnsMessage(subject, templates.body.render(metadata), topicArn);
+    }
+
+    private static NotificationTemplate subject(String template) {
+        return template != null && !template.isBlank() ? NotificationTemplate.compile(template) : null;
+    }
+
+    private static NotificationTemplate body(String template, NotificationTemplate fallback) {
+        if (template == null || template.isBlank()) {
+            LOG.warn("Blank notification body template; using {}", fallback != null ? fallback.source() : "{json}");
+            return fallback != null ? fallback : NotificationTemplate.JSON;
+        }
+        return NotificationTemplate.compile(template);
+    }
+
+    private record Templates(NotificationTemplate subject, NotificationTemplate body) {
+    }
+}
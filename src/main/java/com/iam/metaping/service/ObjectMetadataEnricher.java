@@ -0,0 +1,286 @@
+package com.iam.metaping.service;
+
+import com.iam.metaping.config.EnrichmentProperties;
+import com.iam.metaping.model.ObjectDetails;
+import com.iam.metaping.model.S3ObjectRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Looks up the object behind each S3 record with HeadObject, so notifications carry the stored Content-Type,
+ * user metadata and storage class instead of a type guessed from the file extension.
+ * Configuration (application.properties):
+ * - metaping.enrichment.enabled=<true|false> (default false)
+ * - metaping.enrichment.timeout=<duration> (default 300ms), call-timeout=<duration> (default 2s)
+ * - metaping.enrichment.cache-size=<n> (default 10000), cache-ttl=<duration> (default 10m)
+ * - metaping.enrichment.region, endpoint, path-style-access: S3 client settings (e.g. for LocalStack)
+ * Notes:
+ * - The lookups of a batch all start before any is waited for, on the non-blocking {@link S3AsyncClient}; the
+ *   batch then waits once, for at most the timeout. Records whose lookup failed or is still running get
+ *   {@code null} and keep the extension-based type.
+ * - Lookups are cached in an LRU map keyed on bucket, key and eTag, so redelivered records cost no S3 call.
+ *   A lookup still running is shared by every record of the same object, and a late result is cached as well.
+ *   Failed lookups are not cached; records without an eTag are looked up but never cached.
+ * - HeadObject is authorized by {@code s3:GetObject} on the buckets.
+ */
+@Component
+public class ObjectMetadataEnricher implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ObjectMetadataEnricher.class);
+    private static final ObjectMetadataEnricher DISABLED =
+            new ObjectMetadataEnricher(null, null, 1, Duration.ofMillis(1), Duration.ZERO, System::nanoTime);
+    private static final String STANDARD_STORAGE_CLASS = "STANDARD";
+
+    private final EnrichmentProperties clientSettings; // null when the client was not built from settings
+    private volatile S3AsyncClient s3; // null when enrichment is disabled
+    private final long timeoutNanos;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final Map<String, Entry> cache; // access-ordered, guarded by itself
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    public ObjectMetadataEnricher(EnrichmentProperties enrichmentProperties) {
+        this(enrichmentProperties != null && enrichmentProperties.isEnabled() ? enrichmentProperties : null,
+                enrichmentProperties != null && enrichmentProperties.isEnabled() ? buildClient(enrichmentProperties) : null,
+                enrichmentProperties != null ? enrichmentProperties.getCacheSize() : 1,
+                enrichmentProperties != null ? enrichmentProperties.getCacheTtl() : Duration.ofMillis(1),
+                enrichmentProperties != null ? enrichmentProperties.getTimeout() : Duration.ZERO,
+                System::nanoTime);
+        if (s3 != null) {
+            LOG.info("HeadObject enrichment active: timeout={}, cache-size={}, cache-ttl={}",
+                    enrichmentProperties.getTimeout(), enrichmentProperties.getCacheSize(), enrichmentProperties.getCacheTtl());
+        }
+    }
+
+    /**
+     * Enriches through the given client (tests, embedding); {@code null} disables enrichment.
+     *
+     * @param clock nanosecond ticks for cache expiry; replaceable for tests
+     */
+    public ObjectMetadataEnricher(S3AsyncClient s3, int cacheSize, Duration cacheTtl, Duration timeout, LongSupplier clock) {
+        this(null, s3, cacheSize, cacheTtl, timeout, clock);
+    }
+
+    private ObjectMetadataEnricher(EnrichmentProperties clientSettings, S3AsyncClient s3, int cacheSize, Duration cacheTtl,
+                                   Duration timeout, LongSupplier clock) {
+        this.clientSettings = clientSettings;
+        this.s3 = s3;
+        this.timeoutNanos = Math.max(0L, timeout.toNanos());
+        this.ttlNanos = Math.max(1L, cacheTtl.toNanos());
+        this.clock = clock;
+        int maxEntries = Math.max(1, cacheSize);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Enricher that looks nothing up; used when no enrichment configuration is present.
+     */
+    public static ObjectMetadataEnricher disabled() {
+        return DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return s3 != null;
+    }
+
+    /**
+     * Looks up the objects of all records at once and waits for at most the timeout.
+     *
+     * @return one entry per record, in order: the object's details, or {@code null} when the record has no
+     * object, or its lookup failed or did not finish in time
+     */
+    public List<ObjectDetails> enrich(List<S3ObjectRecord> s3Records) {
+        ObjectDetails[] details = new ObjectDetails[s3Records.size()];
+        if (s3 == null) {
+            return Arrays.asList(details);
+        }
+        List<CompletableFuture<ObjectDetails>> lookups = new ArrayList<>(s3Records.size());
+        for (S3ObjectRecord s3Record : s3Records) {
+            lookups.add(s3Record.hasObject() && s3Record.bucket() != null ? lookup(s3Record) : null);
+        }
+        long deadline = System.nanoTime() + timeoutNanos;
+        int late = 0;
+        for (int i = 0; i < details.length; i++) {
+            CompletableFuture<ObjectDetails> lookup = lookups.get(i);
+            if (lookup == null) {
+                continue;
+            }
+            try {
+                details[i] = lookup.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                late++;
+            } catch (ExecutionException e) {
+                // logged by headObject; the record keeps its extension-based type
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (late > 0) {
+            LOG.debug("HeadObject lookups not finished within {} ms: {}", timeoutNanos / 1_000_000, late);
+        }
+        return Arrays.asList(details);
+    }
+
+    /**
+     * @return cache hits, misses (S3 calls made) and cached entries so far
+     */
+    public CacheStats cacheStats() {
+        int size;
+        synchronized (cache) {
+            size = cache.size();
+        }
+        return new CacheStats(hits.sum(), misses.sum(), size);
+    }
+
+    /**
+     * Replaces the S3 client, closing the previous one (SnapStart restore: stale connections and credentials).
+     */
+    public synchronized void reconnect() {
+        S3AsyncClient previous = s3;
+        if (previous == null || clientSettings == null) {
+            return;
+        }
+        this.s3 = buildClient(clientSettings);
+        previous.close();
+    }
+
+    @Override
+    public void destroy() {
+        S3AsyncClient client = s3;
+        if (client != null && clientSettings != null) {
+            client.close();
+        }
+    }
+
+    private CompletableFuture<ObjectDetails> lookup(S3ObjectRecord s3Record) {
+        String bucket = s3Record.bucket();
+        String key = S3KeyDecoder.decode(s3Record.key());
+        if (s3Record.eTag() == null) {
+            misses.increment();
+            return headObject(bucket, key);
+        }
+        String cacheKey = bucket + '\u0000' + key + '\u0000' + s3Record.eTag();
+        long now = clock.getAsLong();
+        Entry entry;
+        synchronized (cache) {
+            Entry cached = cache.get(cacheKey);
+            if (cached != null && cached.expiresAt - now > 0) {
+                hits.increment();
+                return cached.details;
+            }
+            entry = new Entry(new CompletableFuture<>(), now + ttlNanos);
+            cache.put(cacheKey, entry);
+        }
+        misses.increment();
+        headObject(bucket, key).whenComplete((details, error) -> {
+            if (error != null) {
+                synchronized (cache) {
+                    cache.remove(cacheKey, entry);
+                }
+                entry.details.completeExceptionally(error);
+            } else {
+                entry.details.complete(details);
+            }
+        });
+        return entry.details;
+    }
+
+    private CompletableFuture<ObjectDetails> headObject(String bucket, String key) {
+        CompletableFuture<HeadObjectResponse> response;
+        try {
+            response = s3.headObject(HeadObjectRequest.builder().bucket(bucket).key(key).build());
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        return response.whenComplete((head, error) -> {
+            if (error != null) {
+                LOG.warn("HeadObject failed for s3://{}/{}: {}", bucket, key, error.getMessage());
+            }
+        }).thenApply(ObjectMetadataEnricher::details);
+    }
+
+    private static ObjectDetails details(HeadObjectResponse head) {
+        Map<String, String> userMetadata = head.hasMetadata() && !head.metadata().isEmpty()
+                ? Collections.unmodifiableMap(new TreeMap<>(head.metadata()))
+                : Map.of();
+        return new ObjectDetails(
+                head.contentType(),
+                head.contentLength() != null ? head.contentLength() : -1L,
+                head.storageClassAsString() != null ? head.storageClassAsString() : STANDARD_STORAGE_CLASS,
+                userMetadata);
+    }
+
+    private static S3AsyncClient buildClient(EnrichmentProperties props) {
+        S3AsyncClientBuilder builder = S3AsyncClient.builder()
+                // explicit: with several async clients on the classpath the SDK would not pick one
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder())
+                .credentialsProvider(DefaultCredentialsProvider.builder().build())
+                .forcePathStyle(props.isPathStyleAccess())
+                .overrideConfiguration(ClientOverrideConfiguration.builder()
+                        .apiCallTimeout(props.getCallTimeout())
+                        .build());
+        if (props.getRegion() != null && !props.getRegion().isBlank()) {
+            builder.region(Region.of(props.getRegion().trim()));
+        }
+        if (props.getEndpoint() != null && !props.getEndpoint().isBlank()) {
+            try {
+                builder.endpointOverride(URI.create(props.getEndpoint().trim()));
+                LOG.info("S3 endpoint override active: {}", props.getEndpoint().trim());
+            } catch (IllegalArgumentException e) {
+                LOG.warn("Invalid metaping.enrichment.endpoint '{}', ignoring.", props.getEndpoint());
+            }
+        }
+        return builder.build();
+    }
+
+    public record CacheStats(long hits, long misses, int size) {
+    }
+
+    /**
+     * Compared by identity, so a failed lookup only removes its own cache entry.
+     */
+    private static final class Entry {
+        final CompletableFuture<ObjectDetails> details;
+        final long expiresAt;
+
+        Entry(CompletableFuture<ObjectDetails> details, long expiresAt) {
+            this.details = details;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
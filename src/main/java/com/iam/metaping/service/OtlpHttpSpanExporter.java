@@ -0,0 +1,55 @@
+package com.iam.metaping.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * {@link SpanExporter} that POSTs each trace as OTLP/JSON to an OTLP/HTTP traces endpoint, typically the
+ * ADOT collector Lambda layer on {@code localhost:4318}, which forwards to AWS X-Ray or any OTLP backend.
+ * <p>
+ * The request is synchronous so it completes before the Lambda environment is frozen, and bounded by
+ * {@code timeout}; a failed export is logged and the spans are dropped.
+ */
+public class OtlpHttpSpanExporter implements SpanExporter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OtlpHttpSpanExporter.class);
+
+    private final String serviceName;
+    private final URI endpoint;
+    private final Duration timeout;
+    private final HttpClient client;
+
+    public OtlpHttpSpanExporter(URI endpoint, String serviceName, Duration timeout) {
+        this.serviceName = serviceName;
+        this.endpoint = endpoint;
+        this.timeout = timeout;
+        this.client = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    @Override
+    public void export(List<Span> spans) {
+        HttpRequest request = HttpRequest.newBuilder(endpoint)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(OtlpJsonWriter.write(serviceName, spans)))
+                .build();
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() >= 300) {
+                LOG.warn("OTLP endpoint {} rejected {} spans: HTTP {}", endpoint, spans.size(), response.statusCode());
+            }
+        } catch (IOException e) {
+            LOG.warn("Cannot export {} spans to {}: {}", spans.size(), endpoint, e.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.iam.metaping.service;
+
+import java.util.List;
+
+/**
+ * Writes spans as an OTLP/JSON {@code ExportTraceServiceRequest}, the body of an OTLP/HTTP traces request and
+ * the line format of the OpenTelemetry file exporter.
+ * <p>
+ * Ids are lowercase hex, times are epoch nanoseconds as strings and attributes are string values; spans marked
+ * with {@link Span#error(String)} get status code 2 (error) and an {@code error.type} attribute.
+ */
+public final class OtlpJsonWriter {
+
+    private static final int SPAN_KIND_INTERNAL = 1;
+    private static final int STATUS_CODE_ERROR = 2;
+
+    private OtlpJsonWriter() {
+    }
+
+    public static String write(String serviceName, List<Span> spans) {
+        StringBuilder json = new StringBuilder(256 + spans.size() * 256);
+        json.append("{\"resourceSpans\":[{\"resource\":{\"attributes\":[");
+        writeAttribute(json, "service.name", serviceName);
+        json.append("]},\"scopeSpans\":[{\"scope\":{\"name\":\"com.iam.metaping\"},\"spans\":[");
+        for (int i = 0; i < spans.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            writeSpan(json, spans.get(i));
+        }
+        json.append("]}]}]}");
+        return json.toString();
+    }
+
+    private static void writeSpan(StringBuilder json, Span span) {
+        json.append("{\"traceId\":\"").append(span.traceId())
+                .append("\",\"spanId\":\"").append(span.spanId()).append('"');
+        if (span.parentSpanId() != null) {
+            json.append(",\"parentSpanId\":\"").append(span.parentSpanId()).append('"');
+        }
+        json.append(",\"name\":");
+        MetadataJsonWriter.writeString(json, span.name());
+        json.append(",\"kind\":").append(SPAN_KIND_INTERNAL)
+                .append(",\"startTimeUnixNano\":\"").append(span.startEpochNanos())
+                .append("\",\"endTimeUnixNano\":\"").append(span.endEpochNanos())
+                .append("\",\"attributes\":[");
+        boolean[] first = {true};
+        span.forEachAttribute((key, value) -> {
+            if (!first[0]) {
+                json.append(',');
+            }
+            first[0] = false;
+            writeAttribute(json, key, value);
+        });
+        if (span.errorType() != null) {
+            if (!first[0]) {
+                json.append(',');
+            }
+            writeAttribute(json, "error.type", span.errorType());
+        }
+        json.append(']');
+        if (span.errorType() != null) {
+            json.append(",\"status\":{\"code\":").append(STATUS_CODE_ERROR).append('}');
+        }
+        json.append('}');
+    }
+
+    private static void writeAttribute(StringBuilder json, String key, String value) {
+        json.append("{\"key\":");
+        MetadataJsonWriter.writeString(json, key);
+        json.append(",\"value\":{\"stringValue\":");
+        MetadataJsonWriter.writeString(json, value);
+        json.append("}}");
+    }
+}
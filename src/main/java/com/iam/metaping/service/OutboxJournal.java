@@ -0,0 +1,440 @@
+package com.iam.metaping.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of pending SNS messages, stored in fixed-size memory-mapped segment files.
+ * <p>
+ * Layout of a segment ({@code <sequence>.seg}, zero-filled when created):
+ * <pre>
+ * header  : int magic, int version
+ * record  : int length, int crc32(body), body = byte attempts, [int topicLength, topic,] int subjectLength (-1 = null),
+ *           subject, message (UTF-8); the high bit of attempts marks the topic, which is absent for the default topic
+ * end     : int 0 (no record written here yet) or int -1 (continued in the next segment)
+ * </pre>
+ * A record's length is written last, so a record torn by a crash reads as the end of the journal; the CRC
+ * catches anything else. Consumers read from the checkpoint ({@code checkpoint}: segment and offset, replaced
+ * atomically on {@link #commit}), so everything before it is delivered and segments entirely before it are
+ * deleted. On open, the segments from the checkpoint on are scanned to rebuild the pending count and the write
+ * position; unreadable data after the last valid record is zeroed.
+ * <p>
+ * Writes reach the page cache immediately and survive a crash of the process; {@link #flush()} forces them to
+ * disk. All methods are synchronized; records are copied in and out, never handed out as views.
+ */
+public class OutboxJournal implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OutboxJournal.class);
+
+    static final int MAGIC = 0x4d504f42; // "MPOB"
+    static final int VERSION = 1;
+    static final int SEGMENT_HEADER_BYTES = 8;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int END_MARKER_BYTES = 4;
+    private static final int ROLLOVER = -1;
+    private static final int TOPIC_FLAG = 0x80;
+    // A segment must hold at least one message of the maximum size SNS accepts
+    static final int MIN_SEGMENT_BYTES = 1024 * 1024;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final TreeMap<Long, MappedByteBuffer> segments = new TreeMap<>();
+    // Identity set: ByteBuffer.equals compares contents
+    private final Set<MappedByteBuffer> dirty = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final CRC32 crc = new CRC32();
+    private Position checkpoint;
+    private long writeSegment;
+    private int writeOffset;
+    private long pending;
+    private boolean closed;
+
+    /**
+     * Opens the journal in {@code directory}, creating it when missing and recovering its state otherwise.
+     *
+     * @param segmentBytes size of each segment file, at least {@link #MIN_SEGMENT_BYTES}
+     * @param maxSegments number of segments kept at most; appends fail once all of them are full
+     */
+    public OutboxJournal(Path directory, int segmentBytes, int maxSegments) {
+        this.directory = directory;
+        this.segmentBytes = Math.max(MIN_SEGMENT_BYTES, segmentBytes);
+        this.maxSegments = Math.max(2, maxSegments);
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open outbox journal in " + directory, e);
+        }
+    }
+
+    /**
+     * Appends a message that has not been attempted yet.
+     */
+    public boolean append(SnsMessage message) {
+        return append(message, 0);
+    }
+
+    /**
+     * Appends a message with the number of delivery attempts it already had.
+     *
+     * @return false when the message cannot be stored (journal full or closed, message too large)
+     */
+    public synchronized boolean append(SnsMessage message, int attempts) {
+        if (closed) {
+            return false;
+        }
+        byte[] body = encode(message, attempts);
+        int recordBytes = RECORD_HEADER_BYTES + body.length;
+        if (SEGMENT_HEADER_BYTES + recordBytes + END_MARKER_BYTES > segmentBytes) {
+            LOG.warn("Outbox entry of {} bytes exceeds the segment size; not stored", body.length);
+            return false;
+        }
+        try {
+            if (writeOffset + recordBytes + END_MARKER_BYTES > segmentBytes) {
+                if (segments.size() >= maxSegments) {
+                    LOG.warn("Outbox journal full ({} segments); entry not stored", segments.size());
+                    return false;
+                }
+                MappedByteBuffer next = createSegment(writeSegment + 1);
+                segments.get(writeSegment).putInt(writeOffset, ROLLOVER);
+                markDirty(segments.get(writeSegment));
+                writeSegment++;
+                writeOffset = SEGMENT_HEADER_BYTES;
+                segments.put(writeSegment, next);
+            }
+        } catch (IOException e) {
+            LOG.warn("Cannot create outbox segment in {}: {}", directory, e.getMessage());
+            return false;
+        }
+
+        MappedByteBuffer segment = segments.get(writeSegment);
+        segment.put(writeOffset + RECORD_HEADER_BYTES, body);
+        segment.putInt(writeOffset + 4, checksum(body));
+        segment.putInt(writeOffset, body.length); // last: marks the record complete
+        markDirty(segment);
+        writeOffset += recordBytes;
+        pending++;
+        return true;
+    }
+
+    /**
+     * Reads up to {@code max} entries from the checkpoint on without consuming them.
+     */
+    public synchronized Batch read(int max) {
+        if (closed) {
+            return new Batch(List.of(), checkpoint);
+        }
+        List<Entry> entries = new ArrayList<>(Math.min(max, 16));
+        long segmentId = checkpoint.segment();
+        int offset = checkpoint.offset();
+        while (entries.size() < max && !(segmentId == writeSegment && offset >= writeOffset)) {
+            MappedByteBuffer segment = segments.get(segmentId);
+            int length = segment.getInt(offset);
+            if (length == ROLLOVER) {
+                segmentId++;
+                offset = SEGMENT_HEADER_BYTES;
+                continue;
+            }
+            byte[] body = new byte[length];
+            segment.get(offset + RECORD_HEADER_BYTES, body);
+            entries.add(decode(body));
+            offset += RECORD_HEADER_BYTES + length;
+        }
+        return new Batch(entries, new Position(segmentId, offset));
+    }
+
+    /**
+     * Marks the entries of {@code batch} as delivered: moves the checkpoint past them and deletes segments
+     * that no longer hold pending entries.
+     */
+    public synchronized void commit(Batch batch) {
+        if (closed || batch.entries().isEmpty()) {
+            return;
+        }
+        try {
+            writeCheckpoint(batch.end());
+        } catch (IOException e) {
+            // The entries stay pending and are delivered again after a restart
+            LOG.warn("Failed to write outbox checkpoint: {}", e.getMessage());
+        }
+        checkpoint = batch.end();
+        pending -= batch.entries().size();
+        while (segments.firstKey() < checkpoint.segment()) {
+            Map.Entry<Long, MappedByteBuffer> consumed = segments.pollFirstEntry();
+            dirty.remove(consumed.getValue());
+            deleteQuietly(segmentPath(consumed.getKey()));
+        }
+    }
+
+    /**
+     * Forces written records to disk.
+     */
+    public synchronized void flush() {
+        for (MappedByteBuffer segment : dirty) {
+            segment.force();
+        }
+        dirty.clear();
+    }
+
+    public synchronized long pending() {
+        return pending;
+    }
+
+    /**
+     * @return number of segment files currently kept
+     */
+    public synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        segments.clear(); // mappings are released once unreachable
+    }
+
+    private void recover() throws IOException {
+        Position stored = readCheckpoint();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Long id = segmentId(file);
+                if (id == null) {
+                    continue;
+                }
+                if (stored != null && id < stored.segment()) {
+                    deleteQuietly(file); // consumed before the last checkpoint was written
+                    continue;
+                }
+                try {
+                    segments.put(id, map(file, false));
+                } catch (IOException e) {
+                    // E.g. a segment whose header was never written; kept aside rather than deleted
+                    LOG.warn("Skipping unreadable outbox segment {}: {}", file, e.getMessage());
+                    Files.move(file, file.resolveSibling(file.getFileName() + ".corrupt"), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+
+        if (segments.isEmpty()) {
+            long first = stored != null ? stored.segment() : 0L;
+            segments.put(first, createSegment(first));
+            stored = null;
+        }
+        if (stored == null || !segments.containsKey(stored.segment())) {
+            stored = new Position(segments.firstKey(), SEGMENT_HEADER_BYTES);
+        }
+        checkpoint = stored;
+
+        // Walk from the checkpoint to the last valid record to find the write position
+        long segmentId = checkpoint.segment();
+        int offset = checkpoint.offset();
+        while (true) {
+            MappedByteBuffer segment = segments.get(segmentId);
+            int length = offset + END_MARKER_BYTES <= segmentBytes ? segment.getInt(offset) : 0;
+            if (length == ROLLOVER && segments.containsKey(segmentId + 1)) {
+                segmentId++;
+                offset = SEGMENT_HEADER_BYTES;
+                continue;
+            }
+            if (length <= 0 || !isValid(segment, offset, length)) {
+                break;
+            }
+            pending++;
+            offset += RECORD_HEADER_BYTES + length;
+        }
+        writeSegment = segmentId;
+        writeOffset = offset;
+
+        // Anything after the write position (torn records, orphaned segments) is discarded
+        MappedByteBuffer last = segments.get(writeSegment);
+        for (int i = writeOffset; i < segmentBytes; i++) {
+            last.put(i, (byte) 0);
+        }
+        markDirty(last);
+        while (segments.lastKey() > writeSegment) {
+            deleteQuietly(segmentPath(segments.pollLastEntry().getKey()));
+        }
+        LOG.info("Outbox journal {} recovered: {} pending entries in {} segment(s)", directory, pending, segments.size());
+    }
+
+    private boolean isValid(MappedByteBuffer segment, int offset, int length) {
+        if (offset + RECORD_HEADER_BYTES + length + END_MARKER_BYTES > segmentBytes) {
+            return false;
+        }
+        byte[] body = new byte[length];
+        segment.get(offset + RECORD_HEADER_BYTES, body);
+        return segment.getInt(offset + 4) == checksum(body);
+    }
+
+    private MappedByteBuffer createSegment(long id) throws IOException {
+        MappedByteBuffer segment = map(segmentPath(id), true);
+        segment.putInt(0, MAGIC);
+        segment.putInt(4, VERSION);
+        markDirty(segment);
+        return segment;
+    }
+
+    private MappedByteBuffer map(Path file, boolean create) throws IOException {
+        try (FileChannel channel = create
+                ? FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            if (!create && (segment.getInt(0) != MAGIC || segment.getInt(4) != VERSION)) {
+                throw new IOException("Not an outbox segment: " + file);
+            }
+            return segment;
+        }
+    }
+
+    private void markDirty(MappedByteBuffer segment) {
+        dirty.add(segment);
+    }
+
+    private Position readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        String[] parts = Files.readString(file, StandardCharsets.UTF_8).trim().split(" ");
+        try {
+            return new Position(Long.parseLong(parts[0]), Integer.parseInt(parts[1]));
+        } catch (RuntimeException e) {
+            LOG.warn("Ignoring unreadable outbox checkpoint {}", file);
+            return null;
+        }
+    }
+
+    private void writeCheckpoint(Position position) throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        Files.writeString(temp, position.segment() + " " + position.offset() + "\n", StandardCharsets.UTF_8);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%020d%s", id, SEGMENT_SUFFIX));
+    }
+
+    private static Long segmentId(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.endsWith(SEGMENT_SUFFIX)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private int checksum(byte[] body) {
+        crc.reset();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] encode(SnsMessage message, int attempts) {
+        byte[] topic = message.topicArn() != null ? message.topicArn().getBytes(StandardCharsets.UTF_8) : null;
+        byte[] subject = message.subject() != null ? message.subject().getBytes(StandardCharsets.UTF_8) : null;
+        byte[] text = message.message().getBytes(StandardCharsets.UTF_8);
+        int topicBytes = topic != null ? 4 + topic.length : 0;
+        int subjectLength = subject != null ? subject.length : 0;
+        byte[] body = new byte[1 + topicBytes + 4 + subjectLength + text.length];
+        body[0] = (byte) (Math.min(Byte.MAX_VALUE, Math.max(0, attempts)) | (topic != null ? TOPIC_FLAG : 0));
+        int offset = 1;
+        if (topic != null) {
+            putInt(body, offset, topic.length);
+            System.arraycopy(topic, 0, body, offset + 4, topic.length);
+            offset += topicBytes;
+        }
+        putInt(body, offset, subject != null ? subject.length : -1);
+        offset += 4;
+        if (subject != null) {
+            System.arraycopy(subject, 0, body, offset, subject.length);
+        }
+        System.arraycopy(text, 0, body, offset + subjectLength, text.length);
+        return body;
+    }
+
+    private static Entry decode(byte[] body) {
+        int attempts = body[0] & (TOPIC_FLAG - 1);
+        int offset = 1;
+        String topic = null;
+        if ((body[0] & TOPIC_FLAG) != 0) {
+            int topicLength = getInt(body, offset);
+            topic = new String(body, offset + 4, topicLength, StandardCharsets.UTF_8);
+            offset += 4 + topicLength;
+        }
+        int subjectLength = getInt(body, offset);
+        offset += 4;
+        String subject = subjectLength >= 0 ? new String(body, offset, subjectLength, StandardCharsets.UTF_8) : null;
+        int messageStart = offset + Math.max(0, subjectLength);
+        String message = new String(body, messageStart, body.length - messageStart, StandardCharsets.UTF_8);
+        return new Entry(new SnsMessage(subject, message, topic), attempts);
+    }
+
+    private static void putInt(byte[] body, int offset, int value) {
+        body[offset] = (byte) (value >>> 24);
+        body[offset + 1] = (byte) (value >>> 16);
+        body[offset + 2] = (byte) (value >>> 8);
+        body[offset + 3] = (byte) value;
+    }
+
+    private static int getInt(byte[] body, int offset) {
+        return ((body[offset] & 0xFF) << 24) | ((body[offset + 1] & 0xFF) << 16)
+                | ((body[offset + 2] & 0xFF) << 8) | (body[offset + 3] & 0xFF);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOG.debug("Could not delete outbox file {}", file, e);
+        }
+    }
+
+    /**
+     * A location in the journal: segment sequence number and byte offset within it.
+     */
+    public record Position(long segment, int offset) {
+    }
+
+    /**
+     * A pending message and the number of delivery attempts it already had.
+     */
+    public record Entry(SnsMessage message, int attempts) {
+    }
+
+    /**
+     * Entries read from the checkpoint on, and the position right after the last of them.
+     */
+    public record Batch(List<Entry> entries, Position end) {
+    }
+}
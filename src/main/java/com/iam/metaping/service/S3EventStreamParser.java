@@ -0,0 +1,200 @@
+package com.iam.metaping.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.iam.metaping.model.S3ObjectRecord;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads S3 event notification JSON token by token into {@link S3ObjectRecord}s.
+ * <p>
+ * Only {@code Records[].eventName, eventTime, responseElements.x-amz-request-id} and
+ * {@code Records[].s3.bucket.name / object.key, size, eTag, sequencer} are read; every other field is skipped without being materialized, and no data-binding or
+ * reflection is involved. Records without an {@code s3} entity are dropped, matching
+ * {@code MetaPingFunction}'s handling of the bound model.
+ */
+public final class S3EventStreamParser {
+
+    // Thread-safe and costly to create; parsers created from it are cheap. The caller owns the input stream.
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+            .build();
+
+    private S3EventStreamParser() {
+    }
+
+    /**
+     * Parses the event in {@code input}. The stream is not closed.
+     *
+     * @return the records in event order; empty when the payload has no {@code Records} array
+     * @throws IOException when the payload is not well-formed JSON
+     */
+    public static List<S3ObjectRecord> parse(InputStream input) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return List.of();
+            }
+            List<S3ObjectRecord> records = List.of();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("Records".equals(field) && value == JsonToken.START_ARRAY) {
+                    records = readRecords(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return records;
+        }
+    }
+
+    private static List<S3ObjectRecord> readRecords(JsonParser parser) throws IOException {
+        List<S3ObjectRecord> records = new ArrayList<>(1); // S3 sends a single record per event in practice
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token == JsonToken.START_OBJECT) {
+                S3ObjectRecord parsed = readRecord(parser);
+                if (parsed != null) {
+                    records.add(parsed);
+                }
+            } else {
+                parser.skipChildren(); // null or unexpected entries, like null records in the bound model
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Reads one element of {@code Records}; returns {@code null} when it has no {@code s3} object.
+     */
+    private static S3ObjectRecord readRecord(JsonParser parser) throws IOException {
+        String eventName = null;
+        String eventTime = null;
+        String requestId = null;
+        RecordFields s3 = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("eventName".equals(field)) {
+                eventName = text(parser, value);
+            } else if ("eventTime".equals(field)) {
+                eventTime = text(parser, value);
+            } else if ("responseElements".equals(field) && value == JsonToken.START_OBJECT) {
+                requestId = readRequestId(parser);
+            } else if ("s3".equals(field) && value == JsonToken.START_OBJECT) {
+                s3 = readS3Entity(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (s3 == null) {
+            return null;
+        }
+        return new S3ObjectRecord(s3.bucket, s3.hasObject ? (s3.key != null ? s3.key : "") : null,
+                s3.size, s3.eTag, s3.sequencer, eventName, eventTime, requestId);
+    }
+
+    private static String readRequestId(JsonParser parser) throws IOException {
+        String requestId = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("x-amz-request-id".equals(field)) {
+                requestId = text(parser, value);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return requestId;
+    }
+
+    private static RecordFields readS3Entity(JsonParser parser) throws IOException {
+        RecordFields fields = new RecordFields();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("bucket".equals(field) && value == JsonToken.START_OBJECT) {
+                readBucket(parser, fields);
+            } else if ("object".equals(field) && value == JsonToken.START_OBJECT) {
+                fields.hasObject = true;
+                readObject(parser, fields);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return fields;
+    }
+
+    private static void readBucket(JsonParser parser, RecordFields fields) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("name".equals(field)) {
+                fields.bucket = text(parser, value);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readObject(JsonParser parser, RecordFields fields) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "key" -> fields.key = text(parser, value);
+                case "size" -> fields.size = size(parser, value);
+                case "eTag" -> fields.eTag = text(parser, value);
+                case "sequencer" -> fields.sequencer = text(parser, value);
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Scalar value as text; {@code null} for JSON null and for objects/arrays (which are skipped).
+     */
+    private static String text(JsonParser parser, JsonToken value) throws IOException {
+        if (value.isScalarValue() && value != JsonToken.VALUE_NULL) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    /**
+     * Object size in bytes; accepts numbers and numeric strings, -1 for anything else.
+     */
+    private static long size(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getLongValue();
+        }
+        String text = text(parser, value);
+        if (text != null) {
+            try {
+                return Long.parseLong(text.trim());
+            } catch (NumberFormatException e) {
+                // fall through: treated like a missing size
+            }
+        }
+        return -1L;
+    }
+
+    /**
+     * Mutable accumulator for the fields of one record's {@code s3} entity.
+     */
+    private static final class RecordFields {
+        String bucket;
+        boolean hasObject;
+        String key;
+        long size = -1L;
+        String eTag;
+        String sequencer;
+    }
+}
@@ -0,0 +1,140 @@
+package com.iam.metaping.service;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes URL-encoded S3 object keys as delivered in S3 event notifications.
+ * Summary: a single pass that turns {@code +} into a space and {@code %XX} escapes into UTF-8
+ * bytes, equivalent to {@code URLDecoder.decode(key.replace('+', ' '), UTF_8)} but:
+ * - keys without {@code %} or {@code +} are returned as the same String instance (no allocation);
+ * - escaped keys are decoded into a reusable per-thread buffer, so the result String is the only allocation;
+ * - malformed escapes (e.g. {@code %zz} or a trailing {@code %}) are kept literally instead of throwing.
+ * <p>
+ * {@link #nameStart(String)} and {@link #extensionStart(String)} expose the prefix/extension
+ * boundaries of a decoded key as offsets, so callers can use regions instead of splitting.
+ */
+public final class S3KeyDecoder {
+
+    /** S3 keys are at most 1024 UTF-8 bytes; their escaped form decodes into at most 3 bytes per char. */
+    private static final int MAX_RETAINED_BUFFER = 16 * 1024;
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[1024]);
+
+    private S3KeyDecoder() {
+    }
+
+    /**
+     * @return the decoded key; {@code ""} for {@code null}; the same instance when nothing needs decoding
+     */
+    public static String decode(String rawKey) {
+        if (rawKey == null) {
+            return "";
+        }
+        int length = rawKey.length();
+        int first = 0;
+        while (first < length) {
+            char c = rawKey.charAt(first);
+            if (c == '%' || c == '+') {
+                break;
+            }
+            first++;
+        }
+        if (first == length) {
+            return rawKey;
+        }
+
+        byte[] buffer = buffer(length * 3);
+        int size = 0;
+        for (int i = 0; i < length; i++) {
+            char c = rawKey.charAt(i);
+            if (c == '+') {
+                buffer[size++] = ' ';
+            } else if (c == '%') {
+                int high = i + 2 < length ? hexValue(rawKey.charAt(i + 1)) : -1;
+                int low = high >= 0 ? hexValue(rawKey.charAt(i + 2)) : -1;
+                if (low >= 0) {
+                    buffer[size++] = (byte) ((high << 4) | low);
+                    i += 2;
+                } else {
+                    buffer[size++] = '%'; // malformed escape: keep it literally
+                }
+            } else if (c < 0x80) {
+                buffer[size++] = (byte) c;
+            } else {
+                size = encodeUtf8(rawKey, i, buffer, size);
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(rawKey.charAt(i + 1))) {
+                    i++;
+                }
+            }
+        }
+        return new String(buffer, 0, size, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return index of the first character after the last {@code '/'} (0 when the key has no prefix)
+     */
+    public static int nameStart(String key) {
+        return key.lastIndexOf('/') + 1;
+    }
+
+    /**
+     * @return index of the first character of the last extension (just after its dot), or -1 when the
+     *         file name has none; a leading dot (".env") or a trailing dot does not start an extension
+     */
+    public static int extensionStart(String key) {
+        int lastDot = key.lastIndexOf('.');
+        if (lastDot <= nameStart(key) || lastDot == key.length() - 1) {
+            return -1;
+        }
+        return lastDot + 1;
+    }
+
+    private static byte[] buffer(int required) {
+        byte[] buffer = BUFFER.get();
+        if (buffer.length < required) {
+            buffer = new byte[Math.max(required, buffer.length * 2)];
+            if (buffer.length <= MAX_RETAINED_BUFFER) {
+                BUFFER.set(buffer);
+            }
+        }
+        return buffer;
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    /**
+     * Writes the UTF-8 form of the (non-ASCII) code point at {@code index}; unpaired surrogates become '?'.
+     */
+    private static int encodeUtf8(String source, int index, byte[] buffer, int size) {
+        char c = source.charAt(index);
+        if (c < 0x800) {
+            buffer[size++] = (byte) (0xC0 | (c >> 6));
+            buffer[size++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isSurrogate(c)) {
+            if (Character.isHighSurrogate(c) && index + 1 < source.length() && Character.isLowSurrogate(source.charAt(index + 1))) {
+                int codePoint = Character.toCodePoint(c, source.charAt(index + 1));
+                buffer[size++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[size++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                buffer[size++] = '?';
+            }
+        } else {
+            buffer[size++] = (byte) (0xE0 | (c >> 12));
+            buffer[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[size++] = (byte) (0x80 | (c & 0x3F));
+        }
+        return size;
+    }
+}
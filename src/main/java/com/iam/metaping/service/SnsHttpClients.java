@@ -0,0 +1,168 @@
+package com.iam.metaping.service;
+
+import com.iam.metaping.config.SnsProperties;
+import com.iam.metaping.config.SnsProperties.HttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.crt.AwsCrtAsyncHttpClient;
+import software.amazon.awssdk.http.crt.AwsCrtHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+
+import java.time.Duration;
+
+/**
+ * Builders of the HTTP client selected by {@code aws.sns.http-client}, configured with the pool and timeout
+ * settings of {@link SnsProperties}.
+ * Notes:
+ * - {@link HttpClient#DEFAULT} is Apache for sync and Netty for async clients, the SDK's own defaults. A client
+ *   that does not exist for the mode (URLConnection and Apache are sync only, Netty is async only) or is missing
+ *   from the classpath falls back to them with a warning.
+ * - A builder is always returned, so the SDK never scans the classpath, where several implementations are found.
+ * - Each implementation is only referenced from its own nested class, so the optional URLConnection and CRT
+ *   jars are never loaded unless selected.
+ * - Settings an implementation does not support are ignored; the per-attempt and per-call timeouts are
+ *   applied per request by {@link SnsPublisher}.
+ */
+final class SnsHttpClients {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SnsHttpClients.class);
+
+    private static final String URL_CONNECTION_CLASS = "software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient";
+    private static final String CRT_CLASS = "software.amazon.awssdk.http.crt.AwsCrtHttpClient";
+    private static final String CRT_NATIVE_CLASS = "software.amazon.awssdk.crt.CRT";
+
+    private SnsHttpClients() {
+    }
+
+    /**
+     * @return the builder of the selected sync client; Apache for {@link HttpClient#DEFAULT} and as the fallback
+     */
+    static SdkHttpClient.Builder<?> sync(SnsProperties props) {
+        HttpClient type = props.getHttpClient() != null ? props.getHttpClient() : HttpClient.DEFAULT;
+        return switch (type) {
+            case DEFAULT, APACHE -> Apache.builder(props);
+            case URL_CONNECTION -> available(type, URL_CONNECTION_CLASS) ? UrlConnection.builder(props) : Apache.builder(props);
+            case CRT -> available(type, CRT_CLASS, CRT_NATIVE_CLASS) ? Crt.syncBuilder(props) : Apache.builder(props);
+            case NETTY -> unsupported(type, "sync", Apache.builder(props));
+        };
+    }
+
+    /**
+     * @return the builder of the selected async client; Netty for {@link HttpClient#DEFAULT} and as the fallback
+     */
+    static SdkAsyncHttpClient.Builder<?> async(SnsProperties props) {
+        HttpClient type = props.getHttpClient() != null ? props.getHttpClient() : HttpClient.DEFAULT;
+        return switch (type) {
+            case DEFAULT, NETTY -> Netty.builder(props);
+            case URL_CONNECTION, APACHE -> unsupported(type, "async", Netty.builder(props));
+            case CRT -> available(type, CRT_CLASS, CRT_NATIVE_CLASS) ? Crt.asyncBuilder(props) : Netty.builder(props);
+        };
+    }
+
+    private static boolean available(HttpClient type, String... classNames) {
+        for (String className : classNames) {
+            if (!ClassUtils.isPresent(className, SnsHttpClients.class.getClassLoader())) {
+                LOG.warn("aws.sns.http-client={} selected but {} is not on the classpath; using the default client",
+                        type, className);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static <T> T unsupported(HttpClient type, String mode, T fallback) {
+        LOG.warn("aws.sns.http-client={} has no {} implementation; using the default client", type, mode);
+        return fallback;
+    }
+
+    private static boolean positive(Duration duration) {
+        return duration != null && !duration.isNegative() && !duration.isZero();
+    }
+
+    private static final class UrlConnection {
+
+        static SdkHttpClient.Builder<?> builder(SnsProperties props) {
+            UrlConnectionHttpClient.Builder builder = UrlConnectionHttpClient.builder();
+            if (positive(props.getConnectionTimeout())) {
+                builder.connectionTimeout(props.getConnectionTimeout());
+            }
+            return builder;
+        }
+    }
+
+    private static final class Apache {
+
+        static SdkHttpClient.Builder<?> builder(SnsProperties props) {
+            ApacheHttpClient.Builder builder = ApacheHttpClient.builder()
+                    .maxConnections(Math.max(1, props.getMaxConnections()))
+                    .useIdleConnectionReaper(props.isReapIdleConnections());
+            if (positive(props.getConnectionTimeout())) {
+                builder.connectionTimeout(props.getConnectionTimeout());
+            }
+            if (positive(props.getConnectionAcquisitionTimeout())) {
+                builder.connectionAcquisitionTimeout(props.getConnectionAcquisitionTimeout());
+            }
+            if (positive(props.getConnectionTtl())) {
+                builder.connectionTimeToLive(props.getConnectionTtl());
+            }
+            if (positive(props.getConnectionMaxIdleTime())) {
+                builder.connectionMaxIdleTime(props.getConnectionMaxIdleTime());
+            }
+            return builder;
+        }
+    }
+
+    private static final class Crt {
+
+        static SdkHttpClient.Builder<?> syncBuilder(SnsProperties props) {
+            AwsCrtHttpClient.Builder builder = AwsCrtHttpClient.builder()
+                    .maxConcurrency(Math.max(1, props.getMaxConnections()));
+            if (positive(props.getConnectionTimeout())) {
+                builder.connectionTimeout(props.getConnectionTimeout());
+            }
+            if (positive(props.getConnectionMaxIdleTime())) {
+                builder.connectionMaxIdleTime(props.getConnectionMaxIdleTime());
+            }
+            return builder;
+        }
+
+        static SdkAsyncHttpClient.Builder<?> asyncBuilder(SnsProperties props) {
+            AwsCrtAsyncHttpClient.Builder builder = AwsCrtAsyncHttpClient.builder()
+                    .maxConcurrency(Math.max(1, props.getMaxConnections()));
+            if (positive(props.getConnectionTimeout())) {
+                builder.connectionTimeout(props.getConnectionTimeout());
+            }
+            if (positive(props.getConnectionMaxIdleTime())) {
+                builder.connectionMaxIdleTime(props.getConnectionMaxIdleTime());
+            }
+            return builder;
+        }
+    }
+
+    private static final class Netty {
+
+        static SdkAsyncHttpClient.Builder<?> builder(SnsProperties props) {
+            NettyNioAsyncHttpClient.Builder builder = NettyNioAsyncHttpClient.builder()
+                    .maxConcurrency(Math.max(1, props.getMaxConnections()))
+                    .useIdleConnectionReaper(props.isReapIdleConnections());
+            if (positive(props.getConnectionTimeout())) {
+                builder.connectionTimeout(props.getConnectionTimeout());
+            }
+            if (positive(props.getConnectionAcquisitionTimeout())) {
+                builder.connectionAcquisitionTimeout(props.getConnectionAcquisitionTimeout());
+            }
+            if (positive(props.getConnectionTtl())) {
+                builder.connectionTimeToLive(props.getConnectionTtl());
+            }
+            if (positive(props.getConnectionMaxIdleTime())) {
+                builder.connectionMaxIdleTime(props.getConnectionMaxIdleTime());
+            }
+            return builder;
+        }
+    }
+}
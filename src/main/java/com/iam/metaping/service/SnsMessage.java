@@ -0,0 +1,22 @@
+package com.iam.metaping.service;
+
+/**
+ * A single SNS message waiting to be published, used by the batch publishing path.
+ *
+ * @param subject optional subject (displayed for some protocols like email)
+ * @param message the message body
+ * @param topicArn topic to publish to; {@code null} for the configured {@code aws.sns.topic-arn}
+ */
+public record SnsMessage(
+        String subject,
+        String message,
+        String topicArn
+) {
+
+    /**
+     * Message for the configured topic.
+     */
+    public SnsMessage(String subject, String message) {
+        this(subject, message, null);
+    }
+}
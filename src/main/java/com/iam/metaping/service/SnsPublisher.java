@@ -1,39 +1,111 @@
 package com.iam.metaping.service;
 
 import com.iam.metaping.config.SnsProperties;
+import com.iam.metaping.service.MetaPingMetrics.Metric;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
+import software.amazon.awssdk.awscore.client.builder.AwsClientBuilder;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.retry.RetryPolicy;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
 import software.amazon.awssdk.services.sns.SnsClient;
-import software.amazon.awssdk.services.sns.SnsClientBuilder;
+import software.amazon.awssdk.services.sns.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sns.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequest;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequestEntry;
+import software.amazon.awssdk.services.sns.model.PublishBatchResponse;
+import software.amazon.awssdk.services.sns.model.PublishBatchResultEntry;
 import software.amazon.awssdk.services.sns.model.PublishRequest;
 import software.amazon.awssdk.services.sns.model.PublishResponse;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * Simple SNS publisher backed by AWS SDK v2.
  * Configuration (application.properties):
  * - aws.sns.topic-arn=<your-topic-arn>
  * - aws.sns.region=<aws-region>
+ * - aws.sns.async=<true|false> (optional, defaults to false)
+ * - aws.sns.max-attempts, backoff, throttling-backoff, max-backoff, attempt-timeout, call-timeout, deadline-margin,
+ *   circuit-failure-threshold, circuit-open-duration (optional; see {@link SnsProperties} for the defaults)
+ * - aws.sns.http-client=<default|url-connection|apache|crt|netty>, max-connections, connection-timeout,
+ *   connection-acquisition-timeout, connection-ttl, connection-max-idle-time, reap-idle-connections (optional)
  * Notes:
  * - Values default from environment placeholders: {@code AWS_SNS_TOPIC_ARN} and
  *   {@code AWS_SNS_REGION} (falling back to {@code AWS_REGION}).
  * - Publishing is disabled when configuration is not set to real values; in that
- *   case {@code snsClient} remains {@code null} and calls safely no-op.
+ *   case both clients remain {@code null} and calls safely no-op.
+ * - {@link #publishBatch(List)} groups messages into SNS PublishBatch requests per topic, bounded by
+ *   {@link #MAX_BATCH_ENTRIES} entries and {@link #MAX_BATCH_PAYLOAD_BYTES} of payload per request.
+ *   Messages without a topic ({@link SnsMessage#topicArn()}) go to the configured one.
+ * - In async mode an {@link SnsAsyncClient} is built instead of the blocking {@link SnsClient};
+ *   the {@code *Async} methods then return without waiting on SNS and batch requests run concurrently.
+ *   In sync mode the {@code *Async} methods return already-completed futures.
+ * - The HTTP client of the SDK is built by {@link SnsHttpClients}: URLConnection keeps Lambda init small,
+ *   Apache or CRT (sync) and CRT or Netty (async) pool connections for the concurrent HTTP deployment.
+ * - {@link #prime()} and {@link #reconnect()} support SnapStart/CRaC: warm the client before the
+ *   snapshot is taken and replace connections and cached credentials after it is restored.
+ * - Every SNS request runs under {@link SnsRetryPolicy} (jittered, throttling-aware retries within a per-call
+ *   deadline bounded by the remaining invocation time) and a {@link CircuitBreaker}; the SDK's own retries
+ *   are disabled. While the circuit is open calls fail fast with {@code false} instead of waiting on SNS.
+ * - The trace id of the invocation ({@link InvocationTrace}) is sent as the {@code traceId} message attribute,
+ *   and every attempt is recorded as a span under the caller's current span.
  */
 @Component
 public class SnsPublisher {
 
     private static final Logger LOG = LoggerFactory.getLogger(SnsPublisher.class);
 
+    /** SNS PublishBatch accepts at most 10 entries per request. */
+    public static final int MAX_BATCH_ENTRIES = 10;
+    /** SNS caps the aggregate payload of a PublishBatch request (and of a single message) at 256 KB. */
+    public static final int MAX_BATCH_PAYLOAD_BYTES = 256 * 1024;
+
+    /**
+     * Outcome of one entry of {@link #deliverBatch(List)}.
+     */
+    public enum Delivery {
+        /** SNS accepted the entry. */
+        ACCEPTED,
+        /** SNS turned the entry down, or it was never sent (blank, oversized); retrying it as-is will not help. */
+        REJECTED,
+        /** SNS was unreachable, throttled or failing, or the circuit was open; the entry may succeed later. */
+        UNAVAILABLE
+    }
+
     private final String topicArn;
     private final String region;
-    private final SnsClient snsClient; // built once when configured; null means publishing is disabled
+    private final boolean async;
+    private volatile SnsClient snsClient; // built when configured in sync mode; null otherwise
+    private volatile SnsAsyncClient snsAsyncClient; // built when configured in async mode; null otherwise
+    private volatile AwsCredentialsProvider credentialsProvider; // shared by whichever client is built
     private final String endpoint; // optional endpoint override
+    private final SnsProperties clientSettings; // HTTP client selection, pool and timeouts
+    private final SnsRetryPolicy retryPolicy;
+    private final CircuitBreaker circuitBreaker;
+    private final MetaPingMetrics metrics;
 
     public SnsPublisher(SnsProperties snsProperties) {
+        this(snsProperties, MetaPingMetrics.disabled());
+    }
+
+    @Autowired
+    public SnsPublisher(SnsProperties snsProperties, MetaPingMetrics metrics) {
         String pTopicArn = snsProperties != null ? snsProperties.getTopicArn() : null;
         String pRegion = snsProperties != null ? snsProperties.getRegion() : null;
         String pEndpoint = snsProperties != null ? snsProperties.getEndpoint() : null;
@@ -41,32 +113,24 @@ public class SnsPublisher {
         this.topicArn = pTopicArn == null ? "" : pTopicArn.trim();
         this.region = pRegion == null ? "" : pRegion.trim();
         this.endpoint = pEndpoint == null ? "" : pEndpoint.trim();
+        this.async = snsProperties != null && snsProperties.isAsync();
+        SnsProperties resilience = snsProperties != null ? snsProperties : new SnsProperties();
+        this.clientSettings = resilience;
+        this.retryPolicy = new SnsRetryPolicy(resilience);
+        this.circuitBreaker = new CircuitBreaker(resilience.getCircuitFailureThreshold(), resilience.getCircuitOpenDuration());
+        this.metrics = metrics != null ? metrics : MetaPingMetrics.disabled();
 
-        // Build once if values look valid; otherwise leave snsClient null (disabled sentinel).
+        // Build once if values look valid; otherwise leave both clients null (disabled sentinel).
         if (isConfigured()) {
-            SnsClientBuilder builder = SnsClient.builder()
-                    .credentialsProvider(DefaultCredentialsProvider.create())
-                    .region(Region.of(this.region));
-
-            // Support LocalStack and integration testing by overriding the default AWS service endpoint.
-            // Malformed URIs are caught to prevent application startup failure.
-            if (!this.endpoint.isBlank()) {
-                try {
-                    builder = builder.endpointOverride(URI.create(this.endpoint));
-                    LOG.info("SNS endpoint override active: {}", this.endpoint);
-                } catch (Exception e) {
-                    LOG.warn("Invalid aws.sns.endpoint '{}', ignoring.", this.endpoint);
-                }
-            }
-
-            this.snsClient = builder.build();
-        } else {
-            this.snsClient = null;
+            buildClient();
+            LOG.info("SNS publisher running in {} mode with HTTP client {}", async ? "async" : "sync",
+                    clientSettings.getHttpClient());
         }
     }
 
     /**
      * Publish a message to the configured SNS topic.
+     * In async mode this waits for {@link #publishAsync(String, String)} to complete.
      *
      * @param subject optional subject (displayed for some protocols like email)
      * @param message the message body
@@ -74,6 +138,10 @@ public class SnsPublisher {
      *         or the message is blank, or if an error occurs
      */
     public boolean publish(String subject, String message) {
+        if (snsAsyncClient != null) {
+            return publishAsync(subject, message).join();
+        }
+
         if (snsClient == null) {
             LOG.warn("SNS publisher not configured. Provide aws.sns.topic-arn and aws.sns.region to enable publishing.");
             return false;
@@ -84,22 +152,196 @@ public class SnsPublisher {
             return false;
         }
 
-        try {
-            PublishRequest.Builder request = PublishRequest.builder()
-                    .topicArn(topicArn)
-                    .message(message);
+        String traceId = InvocationTrace.id();
+        PublishResponse response = call("SNS.Publish", "publish SNS message",
+                override -> snsClient.publish(buildRequest(subject, message, traceId, override)));
+        if (response == null) {
+            metrics.record(Metric.PUBLISH_FAILURES, 1);
+            return false;
+        }
+        metrics.record(Metric.PUBLISHES, 1);
+        LOG.debug("Published SNS message. messageId={}", response.messageId());
+        return true;
+    }
 
-            if (subject != null && !subject.isBlank()) {
-                request.subject(subject);
-            }
+    /**
+     * Publish a message without blocking the caller when running in async mode.
+     * The returned future never completes exceptionally; failures complete it with {@code false}.
+     * In sync mode the message is published immediately and an already-completed future is returned.
+     */
+    public CompletableFuture<Boolean> publishAsync(String subject, String message) {
+        if (snsAsyncClient == null) {
+            return CompletableFuture.completedFuture(publish(subject, message));
+        }
+
+        if (message == null || message.isBlank()) {
+            LOG.warn("SNS publish skipped: message is blank");
+            return CompletableFuture.completedFuture(false);
+        }
+
+        String traceId = InvocationTrace.id();
+        return callAsync("SNS.Publish", "publish SNS message",
+                override -> snsAsyncClient.publish(buildRequest(subject, message, traceId, override)))
+                .thenApply(response -> {
+                    if (response == null) {
+                        metrics.record(Metric.PUBLISH_FAILURES, 1);
+                        return false;
+                    }
+                    metrics.record(Metric.PUBLISHES, 1);
+                    LOG.debug("Published SNS message. messageId={}", response.messageId());
+                    return true;
+                });
+    }
+
+    /**
+     * Publish several messages using PublishBatch, each to its own topic or the configured one.
+     * Messages are grouped per topic into requests of up to {@link #MAX_BATCH_ENTRIES} entries whose combined
+     * payload stays within {@link #MAX_BATCH_PAYLOAD_BYTES}; each request is one round trip.
+     * In async mode this waits for {@link #publishBatchAsync(List)} to complete.
+     *
+     * @param messages messages to publish; blank or oversized messages are reported as failed without being sent
+     * @return one flag per input message, in input order: true when SNS accepted the entry, false otherwise
+     *         (including when publishing is disabled or a whole request fails)
+     */
+    public List<Boolean> publishBatch(List<SnsMessage> messages) {
+        return accepted(deliverBatch(messages));
+    }
+
+    /**
+     * Batch counterpart of {@link #publishAsync(String, String)}: every PublishBatch request is
+     * dispatched at once and the returned future completes when all of them have finished.
+     * The future never completes exceptionally; per-entry flags follow {@link #publishBatch(List)}.
+     */
+    public CompletableFuture<List<Boolean>> publishBatchAsync(List<SnsMessage> messages) {
+        return deliverBatchAsync(messages).thenApply(SnsPublisher::accepted);
+    }
+
+    /**
+     * Same as {@link #publishBatch(List)}, but tells entries SNS turned down apart from entries that could not
+     * be delivered because SNS was unavailable, for callers that retry (see {@link NotificationOutbox}).
+     *
+     * @return one outcome per input message, in input order
+     */
+    public List<Delivery> deliverBatch(List<SnsMessage> messages) {
+        if (snsAsyncClient != null) {
+            return deliverBatchAsync(messages).join();
+        }
+        if (messages == null || messages.isEmpty()) {
+            return List.of();
+        }
+
+        Delivery[] results = new Delivery[messages.size()];
+        if (snsClient == null) {
+            LOG.warn("SNS publisher not configured. Provide aws.sns.topic-arn and aws.sns.region to enable publishing.");
+            Arrays.fill(results, Delivery.UNAVAILABLE);
+            return Arrays.asList(results);
+        }
+        Arrays.fill(results, Delivery.REJECTED);
 
-            PublishResponse response = snsClient.publish(request.build());
-            LOG.info("Published SNS message. messageId={}", response.messageId());
-            return true;
+        for (Batch batch : planBatches(messages, InvocationTrace.id())) {
+            metrics.record(Metric.BATCH_SIZE, batch.entries.size());
+            PublishBatchResponse response = call("SNS.PublishBatch", "publish SNS batch of " + batch.entries.size() + " entries",
+                    override -> {
+                        try {
+                            return snsClient.publishBatch(buildBatchRequest(batch, override));
+                        } catch (RuntimeException e) {
+                            batch.failure = e;
+                            throw e;
+                        }
+                    });
+            recordBatch(batch, response, results);
+        }
+        return Arrays.asList(results);
+    }
+
+    private CompletableFuture<List<Delivery>> deliverBatchAsync(List<SnsMessage> messages) {
+        if (snsAsyncClient == null) {
+            return CompletableFuture.completedFuture(deliverBatch(messages));
+        }
+        if (messages == null || messages.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+
+        Delivery[] results = new Delivery[messages.size()];
+        Arrays.fill(results, Delivery.REJECTED);
+
+        // Each request writes a disjoint set of slots; allOf() publishes the writes to the caller
+        List<CompletableFuture<Void>> requests = new ArrayList<>();
+        for (Batch batch : planBatches(messages, InvocationTrace.id())) {
+            metrics.record(Metric.BATCH_SIZE, batch.entries.size());
+            requests.add(callAsync("SNS.PublishBatch", "publish SNS batch of " + batch.entries.size() + " entries",
+                    override -> snsAsyncClient.publishBatch(buildBatchRequest(batch, override))
+                            .whenComplete((response, error) -> {
+                                if (error != null) {
+                                    batch.failure = error;
+                                }
+                            }))
+                    .thenAccept(response -> recordBatch(batch, response, results)));
+        }
+        return CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> Arrays.asList(results));
+    }
+
+    private static List<Boolean> accepted(List<Delivery> deliveries) {
+        List<Boolean> accepted = new ArrayList<>(deliveries.size());
+        for (Delivery delivery : deliveries) {
+            accepted.add(delivery == Delivery.ACCEPTED);
+        }
+        return accepted;
+    }
+
+    /**
+     * @return true when publishing goes through the non-blocking {@link SnsAsyncClient}
+     */
+    public boolean isAsync() {
+        return snsAsyncClient != null;
+    }
+
+    /**
+     * Warms the publishing path without sending anything: resolves credentials once and builds
+     * single and batch requests so the SDK's model and marshalling classes are loaded.
+     * Failures are logged and ignored; priming must never block a snapshot.
+     */
+    public void prime() {
+        if (snsClient == null && snsAsyncClient == null) {
+            return;
+        }
+        try {
+            credentialsProvider.resolveCredentials();
         } catch (Exception e) {
-            LOG.error("Failed to publish SNS message", e);
-            return false;
+            LOG.warn("SNS priming could not resolve credentials: {}", e.getMessage());
         }
+        AwsRequestOverrideConfiguration override = attemptConfiguration(retryPolicy.attemptTimeout(retryPolicy.deadline()));
+        buildRequest("priming", "priming", "priming", override);
+        planBatches(List.of(new SnsMessage("priming", "priming")), "priming").forEach(batch -> buildBatchRequest(batch, override));
+        LOG.info("SNS publisher primed");
+    }
+
+    /**
+     * Replaces the SNS client and its credentials provider, closing the previous ones.
+     * Used after a SnapStart/CRaC restore, when pooled connections are stale and cached
+     * credentials belong to the environment the snapshot was taken in.
+     */
+    public synchronized void reconnect() {
+        if (!isConfigured()) {
+            return;
+        }
+        SnsClient previousClient = snsClient;
+        SnsAsyncClient previousAsyncClient = snsAsyncClient;
+        AwsCredentialsProvider previousCredentials = credentialsProvider;
+
+        buildClient();
+        closeQuietly(previousClient);
+        closeQuietly(previousAsyncClient);
+        closeQuietly(previousCredentials);
+        LOG.info("SNS publisher reconnected");
+    }
+
+    /**
+     * @return the state of the circuit breaker guarding SNS calls
+     */
+    public CircuitBreaker.State circuitState() {
+        return circuitBreaker.state();
     }
 
     /**
@@ -110,7 +352,363 @@ public class SnsPublisher {
         return publish(subject, jsonPayload);
     }
 
-    private boolean isConfigured() {
+    /**
+     * Builds the client for the configured mode with a fresh credentials provider.
+     */
+    private void buildClient() {
+        // A dedicated provider (not the SDK-wide singleton) so reconnect() can drop its cached credentials
+        this.credentialsProvider = DefaultCredentialsProvider.builder().build();
+        if (async) {
+            this.snsAsyncClient = configure(SnsAsyncClient.builder())
+                    .httpClientBuilder(SnsHttpClients.async(clientSettings))
+                    .build();
+        } else {
+            this.snsClient = configure(SnsClient.builder())
+                    .httpClientBuilder(SnsHttpClients.sync(clientSettings))
+                    .build();
+        }
+    }
+
+    /**
+     * Applies the shared client settings (credentials, region, optional endpoint) to a sync or async builder.
+     */
+    private <B extends AwsClientBuilder<B, ?>> B configure(B builder) {
+        builder.credentialsProvider(credentialsProvider)
+                .region(Region.of(this.region))
+                // Retries and timeouts are applied per request by call()/callAsync()
+                .overrideConfiguration(ClientOverrideConfiguration.builder()
+                        .retryPolicy(RetryPolicy.none())
+                        .build());
+
+        // Support LocalStack and integration testing by overriding the default AWS service endpoint.
+        // Malformed URIs are caught to prevent application startup failure.
+        if (!this.endpoint.isBlank()) {
+            try {
+                builder.endpointOverride(URI.create(this.endpoint));
+                LOG.info("SNS endpoint override active: {}", this.endpoint);
+            } catch (Exception e) {
+                LOG.warn("Invalid aws.sns.endpoint '{}', ignoring.", this.endpoint);
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * Runs a blocking SNS request with retries, time budget and circuit breaker.
+     *
+     * @param spanName name of the span recorded per attempt ("SNS.Publish")
+     * @param operation what the request does, for log messages ("publish SNS message")
+     * @param request sends one attempt with the given per-attempt override configuration
+     * @return the response, or {@code null} when the call failed, failed fast or ran out of time
+     */
+    private <R> R call(String spanName, String operation, Function<AwsRequestOverrideConfiguration, R> request) {
+        long deadline = retryPolicy.deadline();
+        for (int attempt = 1; ; attempt++) {
+            AwsRequestOverrideConfiguration override = startAttempt(operation, deadline);
+            if (override == null) {
+                return null;
+            }
+            Span span = InvocationTrace.currentSpan().startChild(spanName).attribute("metaping.attempt", attempt);
+            long sent = metrics.start();
+            try {
+                R response = request.apply(override);
+                metrics.stop(Metric.SNS_TIME, sent);
+                span.end();
+                recordSuccess();
+                return response;
+            } catch (Exception e) {
+                metrics.stop(Metric.SNS_TIME, sent);
+                endFailed(span, e);
+                long backoff = recordFailure(operation, e, attempt, deadline);
+                if (backoff < 0) {
+                    return null;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    LOG.warn("Interrupted while waiting to retry: {}", operation);
+                    return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Non-blocking counterpart of {@link #call}: retries are scheduled after their backoff instead of
+     * sleeping. The returned future never completes exceptionally; it completes with {@code null} on failure.
+     */
+    private <R> CompletableFuture<R> callAsync(String spanName, String operation,
+                                               Function<AwsRequestOverrideConfiguration, CompletableFuture<R>> request) {
+        // Retries run on other threads; their spans nest under the caller's current span
+        Span parent = InvocationTrace.currentSpan();
+        return attemptAsync(parent, spanName, operation, request, retryPolicy.deadline(), 1);
+    }
+
+    private <R> CompletableFuture<R> attemptAsync(Span parent, String spanName, String operation,
+                                                  Function<AwsRequestOverrideConfiguration, CompletableFuture<R>> request,
+                                                  long deadline, int attempt) {
+        AwsRequestOverrideConfiguration override = startAttempt(operation, deadline);
+        if (override == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Span span = parent.startChild(spanName).attribute("metaping.attempt", attempt);
+        long sent = metrics.start();
+        CompletableFuture<R> response;
+        try {
+            response = request.apply(override);
+        } catch (Exception e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        return response.handle((result, error) -> {
+            metrics.stop(Metric.SNS_TIME, sent);
+            if (error == null) {
+                span.end();
+                recordSuccess();
+                return CompletableFuture.completedFuture(result);
+            }
+            endFailed(span, error);
+            long backoff = recordFailure(operation, error, attempt, deadline);
+            if (backoff < 0) {
+                return CompletableFuture.<R>completedFuture(null);
+            }
+            return CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(backoff, TimeUnit.NANOSECONDS))
+                    .thenCompose(ignored -> attemptAsync(parent, spanName, operation, request, deadline, attempt + 1));
+        }).thenCompose(Function.identity());
+    }
+
+    /**
+     * Checks the time budget and the circuit before an attempt.
+     *
+     * @return the override configuration carrying the attempt's timeout, or {@code null} when the attempt must not be made
+     */
+    private AwsRequestOverrideConfiguration startAttempt(String operation, long deadline) {
+        Duration timeout = retryPolicy.attemptTimeout(deadline);
+        if (timeout == null) {
+            LOG.warn("Not enough time left to {}; giving up", operation);
+            return null;
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            LOG.warn("SNS circuit open; failing fast instead of trying to {}", operation);
+            return null;
+        }
+        return attemptConfiguration(timeout);
+    }
+
+    private void recordSuccess() {
+        circuitBreaker.onSuccess();
+        retryPolicy.onSuccess();
+    }
+
+    /**
+     * Classifies a failed attempt, updates the circuit and decides on a retry.
+     *
+     * @return the backoff in nanoseconds before the next attempt, or -1 when the call gives up
+     */
+    private long recordFailure(String operation, Throwable error, int attempt, long deadline) {
+        Throwable cause = SnsRetryPolicy.unwrap(error);
+        SnsRetryPolicy.Failure failure = SnsRetryPolicy.classify(cause);
+        if (failure == SnsRetryPolicy.Failure.PERMANENT) {
+            circuitBreaker.onSuccess(); // SNS answered (or the request never left); not a sign of an outage
+            LOG.error("Failed to {}", operation, cause);
+            return -1L;
+        }
+        if (circuitBreaker.onFailure()) {
+            LOG.warn("SNS circuit opened after repeated failures; calls fail fast until a probe succeeds");
+        }
+        long backoff = circuitBreaker.state() == CircuitBreaker.State.OPEN
+                ? -1L
+                : retryPolicy.backoffNanos(failure, attempt, deadline);
+        if (backoff < 0) {
+            LOG.error("Failed to {} after {} attempt(s) ({})", operation, attempt, failure, cause);
+            return -1L;
+        }
+        LOG.warn("Attempt {} to {} failed ({}: {}); retrying in {} ms",
+                attempt, operation, failure, cause.getMessage(), TimeUnit.NANOSECONDS.toMillis(backoff));
+        return backoff;
+    }
+
+    private static void endFailed(Span span, Throwable error) {
+        if (span.isRecording()) {
+            span.error(SnsRetryPolicy.unwrap(error).getClass().getSimpleName());
+        }
+        span.end();
+    }
+
+    private static AwsRequestOverrideConfiguration attemptConfiguration(Duration timeout) {
+        AwsRequestOverrideConfiguration.Builder override = AwsRequestOverrideConfiguration.builder();
+        if (timeout != null) {
+            override.apiCallTimeout(timeout);
+        }
+        return override.build();
+    }
+
+    private PublishRequest buildRequest(String subject, String message, String traceId,
+                                        AwsRequestOverrideConfiguration override) {
+        PublishRequest.Builder request = PublishRequest.builder()
+                .topicArn(topicArn)
+                .message(message)
+                .overrideConfiguration(override);
+
+        if (subject != null && !subject.isBlank()) {
+            request.subject(subject);
+        }
+        if (traceId != null) {
+            request.messageAttributes(traceAttributes(traceId));
+        }
+        return request.build();
+    }
+
+    /**
+     * Message attributes carrying the invocation's trace id to subscribers (see {@link InvocationTrace}).
+     */
+    private static Map<String, MessageAttributeValue> traceAttributes(String traceId) {
+        return Map.of(InvocationTrace.MESSAGE_ATTRIBUTE,
+                MessageAttributeValue.builder().dataType("String").stringValue(traceId).build());
+    }
+
+    private static PublishBatchRequest buildBatchRequest(Batch batch, AwsRequestOverrideConfiguration override) {
+        return PublishBatchRequest.builder()
+                .topicArn(batch.topicArn)
+                .publishBatchRequestEntries(batch.entries)
+                .overrideConfiguration(override)
+                .build();
+    }
+
+    /**
+     * Groups messages into PublishBatch request entries per topic, closing a request once it is full by
+     * count or would overflow the payload limit. Blank and oversized messages are left out,
+     * so their result slots stay rejected. Entry ids are the message's index in the input list.
+     * A non-null {@code traceId} is attached to every entry and counted towards its payload.
+     */
+    private List<Batch> planBatches(List<SnsMessage> messages, String traceId) {
+        Map<String, MessageAttributeValue> attributes = traceId != null ? traceAttributes(traceId) : null;
+        int attributeBytes = traceId != null ? attributeBytes(traceId) : 0;
+        List<Batch> batches = new ArrayList<>();
+        Map<String, Batch> open = new LinkedHashMap<>(); // request being filled per topic
+        for (int i = 0; i < messages.size(); i++) {
+            SnsMessage snsMessage = messages.get(i);
+            if (snsMessage == null || snsMessage.message() == null || snsMessage.message().isBlank()) {
+                LOG.warn("SNS batch entry {} skipped: message is blank", i);
+                continue;
+            }
+
+            int entryBytes = payloadBytes(snsMessage) + attributeBytes;
+            if (entryBytes > MAX_BATCH_PAYLOAD_BYTES) {
+                LOG.warn("SNS batch entry {} skipped: payload of {} bytes exceeds the SNS limit", i, entryBytes);
+                continue;
+            }
+
+            String topic = snsMessage.topicArn() != null && !snsMessage.topicArn().isBlank() ? snsMessage.topicArn() : topicArn;
+            Batch batch = open.get(topic);
+            if (batch != null && (batch.entries.size() == MAX_BATCH_ENTRIES
+                    || batch.payloadBytes + entryBytes > MAX_BATCH_PAYLOAD_BYTES)) {
+                batches.add(batch);
+                batch = null;
+            }
+            if (batch == null) {
+                batch = new Batch(topic);
+                open.put(topic, batch);
+            }
+
+            PublishBatchRequestEntry.Builder entry = PublishBatchRequestEntry.builder()
+                    .id(Integer.toString(i)) // entry id doubles as the index into the results array
+                    .message(snsMessage.message());
+            if (snsMessage.subject() != null && !snsMessage.subject().isBlank()) {
+                entry.subject(snsMessage.subject());
+            }
+            if (attributes != null) {
+                entry.messageAttributes(attributes);
+            }
+            batch.entries.add(entry.build());
+            batch.payloadBytes += entryBytes;
+        }
+
+        batches.addAll(open.values());
+        return batches;
+    }
+
+    /**
+     * Records the per-entry outcome of one PublishBatch request into {@code results}. A request that failed
+     * for good (e.g. unknown topic, access denied) rejects its entries; one that timed out, kept failing
+     * transiently or was not sent because the circuit is open leaves them unavailable.
+     */
+    private void recordBatch(Batch batch, PublishBatchResponse response, Delivery[] results) {
+        List<PublishBatchRequestEntry> entries = batch.entries;
+        if (response == null) {
+            metrics.record(Metric.PUBLISH_FAILURES, entries.size());
+            Delivery outcome = batch.failure != null && SnsRetryPolicy.classify(batch.failure) == SnsRetryPolicy.Failure.PERMANENT
+                    ? Delivery.REJECTED
+                    : Delivery.UNAVAILABLE;
+            for (PublishBatchRequestEntry entry : entries) {
+                results[Integer.parseInt(entry.id())] = outcome;
+            }
+            return;
+        }
+        metrics.record(Metric.PUBLISHES, response.successful().size());
+        metrics.record(Metric.PUBLISH_FAILURES, response.failed().size());
+        for (PublishBatchResultEntry ok : response.successful()) {
+            results[Integer.parseInt(ok.id())] = Delivery.ACCEPTED;
+        }
+        for (BatchResultErrorEntry failed : response.failed()) {
+            LOG.warn("SNS batch entry {} failed. code={}, senderFault={}, message={}",
+                    failed.id(), failed.code(), failed.senderFault(), failed.message());
+            // Server-side entry failures (throttling, internal errors) are not the entry's fault
+            results[Integer.parseInt(failed.id())] = Boolean.FALSE.equals(failed.senderFault())
+                    ? Delivery.UNAVAILABLE
+                    : Delivery.REJECTED;
+        }
+        LOG.debug("Published SNS batch. entries={}, successful={}, failed={}",
+                entries.size(), response.successful().size(), response.failed().size());
+    }
+
+    /**
+     * UTF-8 size of the parts of an entry that count towards the SNS payload limit.
+     */
+    private static int payloadBytes(SnsMessage snsMessage) {
+        int bytes = snsMessage.message().getBytes(StandardCharsets.UTF_8).length;
+        if (snsMessage.subject() != null) {
+            bytes += snsMessage.subject().getBytes(StandardCharsets.UTF_8).length;
+        }
+        return bytes;
+    }
+
+    /**
+     * Bytes the trace id attribute adds to a message: name, data type and value count towards the SNS limit.
+     */
+    private static int attributeBytes(String traceId) {
+        return InvocationTrace.MESSAGE_ATTRIBUTE.length() + "String".length()
+                + traceId.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * Entries of one PublishBatch request and the topic they go to.
+     */
+    private static final class Batch {
+        final String topicArn;
+        final List<PublishBatchRequestEntry> entries = new ArrayList<>(MAX_BATCH_ENTRIES);
+        int payloadBytes;
+        volatile Throwable failure; // last failed attempt of the request, if any
+
+        Batch(String topicArn) {
+            this.topicArn = topicArn;
+        }
+    }
+
+    private static void closeQuietly(Object resource) {
+        if (resource instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                LOG.debug("Ignoring failure while closing {}", resource.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    /**
+     * @return true when a topic and region are set, so there is a client to publish with
+     */
+    public boolean isConfigured() {
         if (topicArn.isBlank() || region.isBlank()) {
             return false;
         }
@@ -0,0 +1,183 @@
+package com.iam.metaping.service;
+
+import com.iam.metaping.config.SnsProperties;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Retry decisions and time budget for SNS calls (the SDK's own retries are disabled).
+ * <p>
+ * Each call gets a deadline: {@code aws.sns.call-timeout} from its start, but never later than the
+ * invocation deadline ({@link InvocationDeadline}) minus {@code aws.sns.deadline-margin}. Attempts are
+ * limited to {@code aws.sns.attempt-timeout} and to the time left until that deadline; a retry is only
+ * made when its backoff still leaves room for an attempt.
+ * <p>
+ * Failures are classified as:
+ * <ul>
+ *   <li>{@link Failure#THROTTLED}: SNS throttled the request; retried after an equal-jitter backoff
+ *       based on {@code aws.sns.throttling-backoff}.</li>
+ *   <li>{@link Failure#TRANSIENT}: 5xx answers and client-side errors (I/O, timeouts); retried after a
+ *       full-jitter backoff based on {@code aws.sns.backoff}.</li>
+ *   <li>{@link Failure#PERMANENT}: other answers (validation, authorization) and unexpected exceptions;
+ *       never retried.</li>
+ * </ul>
+ * Retries also draw from a token bucket shared by all calls, refilled by successful calls, so a
+ * sustained outage stops multiplying the request rate instead of retrying every call to the limit.
+ */
+public class SnsRetryPolicy {
+
+    public enum Failure { THROTTLED, TRANSIENT, PERMANENT }
+
+    // Retry budget: a retry costs tokens, a successful call returns one
+    static final int RETRY_TOKENS = 100;
+    static final int RETRY_COST = 5;
+    static final int THROTTLED_RETRY_COST = 10;
+    // Below this an attempt cannot realistically complete; the call gives up instead
+    private static final long MIN_ATTEMPT_NANOS = 10_000_000L;
+
+    private final int maxAttempts;
+    private final long backoffNanos;
+    private final long throttlingBackoffNanos;
+    private final long maxBackoffNanos;
+    private final long attemptTimeoutNanos;
+    private final long callTimeoutNanos;
+    private final long deadlineMarginNanos;
+    private final LongSupplier clock;
+    private final AtomicInteger tokens = new AtomicInteger(RETRY_TOKENS);
+
+    public SnsRetryPolicy(SnsProperties snsProperties) {
+        this(snsProperties, System::nanoTime);
+    }
+
+    /**
+     * @param clock monotonic nanoseconds, on the same time base as {@link InvocationDeadline}; replaceable for tests
+     */
+    public SnsRetryPolicy(SnsProperties snsProperties, LongSupplier clock) {
+        SnsProperties props = snsProperties != null ? snsProperties : new SnsProperties();
+        this.maxAttempts = Math.max(1, props.getMaxAttempts());
+        this.backoffNanos = nanos(props.getBackoff());
+        this.throttlingBackoffNanos = nanos(props.getThrottlingBackoff());
+        this.maxBackoffNanos = nanos(props.getMaxBackoff());
+        this.attemptTimeoutNanos = Math.max(MIN_ATTEMPT_NANOS, nanos(props.getAttemptTimeout()));
+        this.callTimeoutNanos = Math.max(MIN_ATTEMPT_NANOS, nanos(props.getCallTimeout()));
+        this.deadlineMarginNanos = nanos(props.getDeadlineMargin());
+        this.clock = clock;
+    }
+
+    /**
+     * Deadline of a call starting now, as a clock value.
+     */
+    public long deadline() {
+        long deadline = clock.getAsLong() + callTimeoutNanos;
+        long invocationDeadline = InvocationDeadline.get();
+        if (invocationDeadline != InvocationDeadline.NONE && invocationDeadline - deadlineMarginNanos - deadline < 0) {
+            deadline = invocationDeadline - deadlineMarginNanos;
+        }
+        return deadline;
+    }
+
+    /**
+     * Timeout for the next attempt of a call with the given deadline.
+     *
+     * @return the timeout, or {@code null} when too little time is left for another attempt
+     */
+    public Duration attemptTimeout(long deadline) {
+        long remaining = deadline - clock.getAsLong();
+        if (remaining < MIN_ATTEMPT_NANOS) {
+            return null;
+        }
+        return Duration.ofNanos(Math.min(attemptTimeoutNanos, remaining));
+    }
+
+    /**
+     * Decides whether a failed attempt is retried.
+     *
+     * @param attempt the attempt that failed, starting at 1
+     * @return the backoff in nanoseconds before the next attempt, or -1 when the call gives up
+     */
+    public long backoffNanos(Failure failure, int attempt, long deadline) {
+        if (failure == Failure.PERMANENT || attempt >= maxAttempts) {
+            return -1L;
+        }
+        boolean throttled = failure == Failure.THROTTLED;
+        long base = throttled ? throttlingBackoffNanos : backoffNanos;
+        long cap = Math.min(maxBackoffNanos, base << Math.min(attempt - 1, 20));
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // Throttled: wait at least half the cap, so the request rate really drops; otherwise full jitter
+        long backoff = throttled ? cap / 2 + random.nextLong(cap / 2 + 1) : random.nextLong(cap + 1);
+        if (deadline - clock.getAsLong() - backoff < MIN_ATTEMPT_NANOS) {
+            return -1L;
+        }
+        if (!takeTokens(throttled ? THROTTLED_RETRY_COST : RETRY_COST)) {
+            return -1L;
+        }
+        return backoff;
+    }
+
+    /**
+     * Records a successful call, returning a token to the retry budget.
+     */
+    public void onSuccess() {
+        if (tokens.get() < RETRY_TOKENS) {
+            tokens.updateAndGet(available -> Math.min(RETRY_TOKENS, available + 1));
+        }
+    }
+
+    /**
+     * @return tokens currently left in the retry budget
+     */
+    public int retryTokens() {
+        return tokens.get();
+    }
+
+    /**
+     * Classifies the failure of an attempt; wrapped async failures are unwrapped first.
+     */
+    public static Failure classify(Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof AwsServiceException serviceException) {
+            if (serviceException.isThrottlingException()) {
+                return Failure.THROTTLED;
+            }
+            return serviceException.statusCode() >= 500 ? Failure.TRANSIENT : Failure.PERMANENT;
+        }
+        if (cause instanceof SdkClientException) {
+            return Failure.TRANSIENT;
+        }
+        return Failure.PERMANENT;
+    }
+
+    /**
+     * Strips the {@link CompletionException}/{@link ExecutionException} wrappers of async failures.
+     */
+    public static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private boolean takeTokens(int cost) {
+        while (true) {
+            int available = tokens.get();
+            if (available < cost) {
+                return false;
+            }
+            if (tokens.compareAndSet(available, available - cost)) {
+                return true;
+            }
+        }
+    }
+
+    private static long nanos(Duration duration) {
+        return duration != null ? Math.max(0L, duration.toNanos()) : 0L;
+    }
+}
@@ -0,0 +1,251 @@
+package com.iam.metaping.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * One timed phase of an invocation, nested under the span that was current when it started.
+ * <p>
+ * Spans are opened with {@link InvocationTrace#span(String)} (current until closed, for try-with-resources on
+ * one thread) or {@link #startChild(String)} (never current, may end on another thread, e.g. an async SNS call).
+ * The root span is opened by {@link Tracer#startTrace(String, String)}; closing it hands every finished span of
+ * the invocation to the {@link SpanExporter} at once, so tracing adds no log lines and no per-span I/O.
+ * <p>
+ * Without an exporter the root records nothing and every child is {@link #NOOP}, so instrumented code
+ * allocates nothing. Times are taken from {@link System#nanoTime()} and anchored to the wall clock once per trace.
+ * Trace ids follow the AWS X-Ray layout (start time in seconds in the first 4 bytes), which OTLP accepts as is and
+ * the X-Ray exporter of the OpenTelemetry collector requires.
+ */
+public final class Span implements AutoCloseable {
+
+    /** Span that records nothing; returned whenever no trace is being recorded. */
+    public static final Span NOOP = new Span(null, "noop", null, false, null);
+
+    private final Trace trace; // null when nothing is recorded
+    private final String name;
+    private final Span parent; // null for the root
+    private final long spanId;
+    private final long startNanos;
+    private final boolean scoped;
+    private final Span previous; // current span of the opening thread before this one; scoped spans only
+    private final String previousId; // trace id of the opening thread before the root; root only
+    private final AtomicBoolean ended = new AtomicBoolean();
+    private final List<String> attributes = new ArrayList<>(0); // key, value, key, value...
+    private volatile String error;
+    private volatile long endNanos;
+
+    private Span(Trace trace, String name, Span parent, boolean scoped, String previousId) {
+        this.trace = trace;
+        this.name = name;
+        this.parent = parent;
+        this.spanId = trace != null ? ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE) : 0L;
+        this.startNanos = trace != null ? System.nanoTime() : 0L;
+        this.scoped = scoped;
+        this.previous = scoped ? InvocationTrace.currentSpan() : null;
+        this.previousId = previousId;
+    }
+
+    /**
+     * Opens the root span of an invocation with the given trace id and makes both current on this thread.
+     *
+     * @param exporter receives the finished spans when the root ends; {@code null} records nothing
+     */
+    static Span root(String name, String id, SpanExporter exporter, int maxSpans) {
+        Trace trace = exporter != null ? new Trace(id, exporter, maxSpans) : null;
+        Span root = new Span(trace, name, null, true, InvocationTrace.id());
+        InvocationTrace.set(id, root);
+        return root;
+    }
+
+    /**
+     * Opens a child that never becomes current; end it with {@link #end()} from any thread.
+     */
+    public Span startChild(String name) {
+        return startChild(name, false);
+    }
+
+    Span startChild(String name, boolean makeCurrent) {
+        if (trace == null || !trace.admit()) {
+            return NOOP;
+        }
+        Span child = new Span(trace, name, this, makeCurrent, null);
+        if (makeCurrent) {
+            InvocationTrace.setCurrentSpan(child);
+        }
+        return child;
+    }
+
+    public boolean isRecording() {
+        return trace != null;
+    }
+
+    /**
+     * Adds an attribute; ignored when not recording. Call before {@link #end()}.
+     */
+    public Span attribute(String key, Object value) {
+        if (trace != null && value != null) {
+            synchronized (attributes) {
+                attributes.add(key);
+                attributes.add(value.toString());
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Marks the span as failed with the given error type.
+     */
+    public Span error(String errorType) {
+        if (trace != null) {
+            this.error = errorType;
+        }
+        return this;
+    }
+
+    /**
+     * Stops the clock of this span; later calls do nothing. Ending the root exports the trace.
+     */
+    public void end() {
+        if (trace == null || !ended.compareAndSet(false, true)) {
+            return;
+        }
+        endNanos = System.nanoTime();
+        trace.finish(this);
+    }
+
+    /**
+     * Restores the span that was current before this one on the opening thread, without ending it.
+     * Lets a scoped span stay open across an asynchronous hand-off.
+     */
+    public void detach() {
+        if (!scoped) {
+            return;
+        }
+        if (parent == null) {
+            InvocationTrace.set(previousId, previous); // root: also restores the trace id
+        } else if (InvocationTrace.currentSpan() == this) {
+            InvocationTrace.setCurrentSpan(previous);
+        }
+    }
+
+    /**
+     * Detaches and ends the span; must run on the opening thread for scoped spans.
+     */
+    @Override
+    public void close() {
+        detach();
+        end();
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /** 32 hex digits; {@code null} when not recording. */
+    public String traceId() {
+        return trace != null ? trace.traceId : null;
+    }
+
+    /** The id the trace was started with (Lambda or S3 request id); {@code null} when not recording. */
+    public String correlationId() {
+        return trace != null ? trace.id : null;
+    }
+
+    /** 16 hex digits. */
+    public String spanId() {
+        return hex(spanId, 16);
+    }
+
+    /** 16 hex digits; {@code null} for the root. */
+    public String parentSpanId() {
+        return parent != null ? parent.spanId() : null;
+    }
+
+    public long startEpochNanos() {
+        return trace != null ? trace.epochNanos(startNanos) : 0L;
+    }
+
+    /** 0 while the span is open. */
+    public long endEpochNanos() {
+        return trace != null && ended.get() ? trace.epochNanos(endNanos) : 0L;
+    }
+
+    public long durationNanos() {
+        return ended.get() ? endNanos - startNanos : 0L;
+    }
+
+    /** Error type set with {@link #error(String)}, or {@code null}. */
+    public String errorType() {
+        return error;
+    }
+
+    public void forEachAttribute(BiConsumer<String, String> action) {
+        synchronized (attributes) {
+            for (int i = 0; i < attributes.size(); i += 2) {
+                action.accept(attributes.get(i), attributes.get(i + 1));
+            }
+        }
+    }
+
+    static String hex(long value, int digits) {
+        String hex = Long.toHexString(value);
+        return hex.length() >= digits ? hex : "0".repeat(digits - hex.length()) + hex;
+    }
+
+    /**
+     * Spans of one invocation. The first 8 hex digits of the trace id are the start time in epoch seconds, the rest
+     * is derived from the correlation id.
+     */
+    private static final class Trace {
+        final String id;
+        final String traceId;
+        final SpanExporter exporter;
+        final int maxSpans;
+        final long epochNanosAtStart = System.currentTimeMillis() * 1_000_000L;
+        final long nanosAtStart = System.nanoTime();
+        final ConcurrentLinkedQueue<Span> finished = new ConcurrentLinkedQueue<>();
+        final AtomicInteger started = new AtomicInteger(1); // the root
+        final AtomicInteger dropped = new AtomicInteger();
+
+        Trace(String id, SpanExporter exporter, int maxSpans) {
+            this.id = id;
+            UUID digest = UUID.nameUUIDFromBytes(id.getBytes(StandardCharsets.UTF_8));
+            this.traceId = hex(epochNanosAtStart / 1_000_000_000L, 8)
+                    + hex(digest.getMostSignificantBits() >>> 32, 8)
+                    + hex(digest.getLeastSignificantBits(), 16);
+            this.exporter = exporter;
+            this.maxSpans = Math.max(1, maxSpans);
+        }
+
+        boolean admit() {
+            if (started.incrementAndGet() > maxSpans) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            return true;
+        }
+
+        long epochNanos(long nanoTime) {
+            return epochNanosAtStart + (nanoTime - nanosAtStart);
+        }
+
+        void finish(Span span) {
+            if (span.parent != null) {
+                finished.add(span);
+                return;
+            }
+            if (dropped.get() > 0) {
+                span.attribute("metaping.dropped_spans", dropped.get());
+            }
+            finished.add(span);
+            exporter.export(List.copyOf(finished));
+        }
+    }
+}
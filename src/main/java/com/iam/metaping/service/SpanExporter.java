@@ -0,0 +1,19 @@
+package com.iam.metaping.service;
+
+import java.util.List;
+
+/**
+ * Receives the spans of one finished invocation.
+ * <p>
+ * {@link FileSpanExporter} (local NDJSON file) and {@link OtlpHttpSpanExporter} (OTLP/HTTP, e.g. the ADOT
+ * collector, which can forward to AWS X-Ray) are built in; another backend plugs in by defining a
+ * {@code SpanExporter} bean. Exports run on the invocation thread when its root span ends, so implementations
+ * must be thread-safe, bounded in time, and must not throw.
+ */
+public interface SpanExporter {
+
+    /**
+     * @param spans every recorded span of one trace, the root last
+     */
+    void export(List<Span> spans);
+}
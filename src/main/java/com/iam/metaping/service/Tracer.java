@@ -0,0 +1,120 @@
+package com.iam.metaping.service;
+
+import com.iam.metaping.config.TracingProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * Starts the trace of each invocation and exports its spans.
+ * Configuration (application.properties):
+ * - metaping.tracing.exporter=<none|file|otlp> (default none)
+ * - metaping.tracing.file, endpoint, timeout, service-name, max-spans (see {@link TracingProperties})
+ * Notes:
+ * - A trace id is always assigned (Lambda request id, else the S3 {@code x-amz-request-id}, else a random UUID)
+ *   and shows up in the log lines and the SNS message attributes, see {@link InvocationTrace}.
+ * - Spans are only recorded with an exporter. A {@link SpanExporter} bean, if defined, replaces the built-in ones.
+ * - Spans are buffered per invocation and exported in one piece when the root span ends.
+ */
+@Component
+public class Tracer implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Tracer.class);
+    private static final Tracer DISABLED = new Tracer((SpanExporter) null, 1);
+
+    private final SpanExporter exporter; // null when spans are not recorded
+    private final int maxSpans;
+    private final boolean ownsExporter;
+
+    @Autowired
+    public Tracer(TracingProperties tracingProperties, ObjectProvider<SpanExporter> customExporter) {
+        SpanExporter custom = customExporter != null ? customExporter.getIfAvailable() : null;
+        TracingProperties props = tracingProperties != null ? tracingProperties : new TracingProperties();
+        this.exporter = custom != null ? custom : builtInExporter(props);
+        this.maxSpans = Math.max(1, props.getMaxSpans());
+        this.ownsExporter = custom == null;
+        if (exporter != null) {
+            LOG.info("Tracing active: exporter={}", exporter.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Tracer exporting to the given exporter (tests, embedding); {@code null} records no spans.
+     */
+    public Tracer(SpanExporter exporter, int maxSpans) {
+        this.exporter = exporter;
+        this.maxSpans = Math.max(1, maxSpans);
+        this.ownsExporter = false;
+    }
+
+    /**
+     * Tracer that assigns trace ids but records no spans; used when no tracing configuration is present.
+     */
+    public static Tracer disabled() {
+        return DISABLED;
+    }
+
+    public boolean isRecording() {
+        return exporter != null;
+    }
+
+    /**
+     * @return a tracer recording spans like this one but dropping finished traces (SnapStart priming)
+     */
+    public Tracer withoutExport() {
+        return exporter != null ? new Tracer(spans -> { }, maxSpans) : this;
+    }
+
+    /**
+     * Opens the root span of an invocation on this thread. The trace id is the one already set on the thread
+     * (see {@link InvocationTrace#start}), else {@code fallbackId}, else a random UUID. Closing the root restores
+     * the thread's previous trace id and exports the trace.
+     */
+    public Span startTrace(String name, String fallbackId) {
+        String id = InvocationTrace.id();
+        if (id == null) {
+            id = fallbackId != null && !fallbackId.isBlank() ? fallbackId : UUID.randomUUID().toString();
+        }
+        return Span.root(name, id, exporter, maxSpans);
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (ownsExporter && exporter instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    private static SpanExporter builtInExporter(TracingProperties props) {
+        String mode = props.getExporter() != null ? props.getExporter().trim().toLowerCase() : "none";
+        switch (mode) {
+            case "none" -> {
+                return null;
+            }
+            case "file" -> {
+                return new FileSpanExporter(Path.of(props.getFile()), props.getServiceName());
+            }
+            case "otlp" -> {
+                try {
+                    return new OtlpHttpSpanExporter(URI.create(props.getEndpoint()), props.getServiceName(), props.getTimeout());
+                } catch (IllegalArgumentException e) {
+                    LOG.warn("Invalid metaping.tracing.endpoint '{}'; spans are not exported", props.getEndpoint());
+                    return null;
+                }
+            }
+            default -> {
+                LOG.warn("Unknown metaping.tracing.exporter '{}'; spans are not exported", props.getExporter());
+                return null;
+            }
+        }
+    }
+}
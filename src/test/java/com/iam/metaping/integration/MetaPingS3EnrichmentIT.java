@@ -0,0 +1,245 @@
+package com.iam.metaping.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iam.metaping.function.MetaPingFunction;
+import com.iam.metaping.integration.helpers.AbstractLocalStackIT;
+import com.iam.metaping.integration.helpers.TestS3EventFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.localstack.LocalStackContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CreateBucketRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.StorageClass;
+import software.amazon.awssdk.services.sns.SnsClient;
+import software.amazon.awssdk.services.sns.model.CreateTopicRequest;
+import software.amazon.awssdk.services.sns.model.SubscribeRequest;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.CreateQueueRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesRequest;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.SetQueueAttributesRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.testcontainers.containers.localstack.LocalStackContainer.Service.S3;
+import static org.testcontainers.containers.localstack.LocalStackContainer.Service.SNS;
+import static org.testcontainers.containers.localstack.LocalStackContainer.Service.SQS;
+
+// Integration test using LocalStack to validate HeadObject enrichment:
+// object in S3 -> S3 event -> function looks the object up -> stored details reach the SNS message (via SQS)
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class MetaPingS3EnrichmentIT extends AbstractLocalStackIT {
+
+    // Test constants
+    private static final String BUCKET = "meta-ping-enrichment";
+    private static final String TOPIC_NAME = "meta-ping-enrichment-test";
+    private static final String QUEUE_NAME = "meta-ping-enrichment-queue";
+    private static final String STORED_KEY = "exports/q3-report.dat"; // extension alone says application/octet-stream
+    private static final String MISSING_KEY = "photos/missing.png";
+    private static final byte[] CONTENT = "region,total\nemea,42\n".getBytes(StandardCharsets.UTF_8);
+    private static final int POLL_TIMEOUT_SECONDS = 30;
+    private static final int LONG_POLL_SECONDS = 5;
+
+    static String topicArn;
+    static String queueUrl;
+
+    @Autowired
+    MetaPingFunction function;
+
+    @Container
+    static LocalStackContainer localstack;
+
+    @DynamicPropertySource
+    static void overrideProps(DynamicPropertyRegistry registry) {
+        if (DOCKER_AVAILABLE) {
+            registry.add("notifications.enabled", () -> "true");
+            registry.add("aws.sns.topic-arn", () -> topicArn);
+            registry.add("aws.sns.region", localstack::getRegion);
+            registry.add("aws.sns.endpoint", () -> localstack.getEndpointOverride(SNS).toString());
+            registry.add("metaping.enrichment.enabled", () -> "true");
+            registry.add("metaping.enrichment.timeout", () -> "5s");
+            registry.add("metaping.enrichment.region", localstack::getRegion);
+            registry.add("metaping.enrichment.endpoint", () -> localstack.getEndpointOverride(S3).toString());
+            registry.add("metaping.enrichment.path-style-access", () -> "true");
+        } else {
+            registry.add("notifications.enabled", () -> "false");
+            registry.add("aws.sns.topic-arn", () -> "");
+            registry.add("aws.sns.region", () -> "us-east-1");
+        }
+    }
+
+    // Start LocalStack once for the test class (only if Docker is available)
+    static {
+        if (DOCKER_AVAILABLE) {
+            localstack = new LocalStackContainer(DockerImageName.parse("localstack/localstack:3.8"))
+                    .withServices(S3, SNS, SQS);
+            localstack.start();
+            setupStaticInfra();
+        } else {
+            localstack = null;
+        }
+    }
+
+    // Provision the bucket and its object, the SNS topic and an SQS queue subscribed to it
+    private static void setupStaticInfra() {
+        try (S3Client s3 = buildS3Client(localstack);
+             SnsClient sns = buildSnsClient(localstack);
+             SqsClient sqs = buildSqsClient(localstack)) {
+
+            s3.createBucket(CreateBucketRequest.builder().bucket(BUCKET).build());
+            s3.putObject(PutObjectRequest.builder()
+                            .bucket(BUCKET)
+                            .key(STORED_KEY)
+                            .contentType("text/csv")
+                            .storageClass(StorageClass.STANDARD_IA)
+                            .metadata(Map.of("source", "erp", "batch", "7"))
+                            .build(),
+                    RequestBody.fromBytes(CONTENT));
+
+            topicArn = sns.createTopic(CreateTopicRequest.builder().name(TOPIC_NAME).build()).topicArn();
+            queueUrl = sqs.createQueue(CreateQueueRequest.builder().queueName(QUEUE_NAME).build()).queueUrl();
+            String queueArn = sqs.getQueueAttributes(GetQueueAttributesRequest.builder()
+                            .queueUrl(queueUrl)
+                            .attributeNames(QueueAttributeName.QUEUE_ARN)
+                            .build())
+                    .attributes()
+                    .get(QueueAttributeName.QUEUE_ARN);
+            if (queueArn == null || queueArn.isBlank()) {
+                queueArn = String.format("arn:aws:sqs:%s:%s:%s", localstack.getRegion(), LOCALSTACK_ACCOUNT_ID, QUEUE_NAME);
+            }
+            applyQueuePolicyAllowSns(sqs, queueUrl, queueArn, topicArn);
+            sns.subscribe(SubscribeRequest.builder()
+                    .topicArn(topicArn)
+                    .protocol("sqs")
+                    .endpoint(queueArn)
+                    .build());
+        }
+    }
+
+    @BeforeAll
+    void setupCredentials() {
+        // Provide credentials for DefaultCredentialsProvider so the S3 and SNS clients can reach LocalStack
+        System.setProperty("aws.accessKeyId", localstack.getAccessKey());
+        System.setProperty("aws.secretAccessKey", localstack.getSecretKey());
+    }
+
+    @Test
+    @DisplayName("Stored Content-Type, storage class and user metadata reach the SNS message")
+    void shouldPublishStoredObjectDetails() {
+        // Given: an S3 event for an object stored with its own Content-Type and metadata
+        // When
+        function.apply(TestS3EventFactory.create(BUCKET, STORED_KEY, CONTENT.length));
+
+        // Then
+        JsonNode file = awaitRecord(STORED_KEY);
+        assertNotNull(file, "Expected SNS notification for " + STORED_KEY + " to be delivered to SQS subscription");
+        assertEquals("text/csv", file.path("type").asText());
+        assertEquals(CONTENT.length, file.path("size").asLong());
+        assertEquals("STANDARD_IA", file.path("storageClass").asText());
+        assertEquals("erp", file.path("metadata").path("source").asText());
+        assertEquals("7", file.path("metadata").path("batch").asText());
+    }
+
+    @Test
+    @DisplayName("Missing object: lookup fails and the record keeps its extension-based type")
+    void shouldFallBackWhenObjectIsMissing() {
+        // Given: an S3 event for an object that is not in the bucket
+        // When
+        function.apply(TestS3EventFactory.create(BUCKET, MISSING_KEY, 2048L));
+
+        // Then
+        JsonNode file = awaitRecord(MISSING_KEY);
+        assertNotNull(file, "Expected SNS notification for " + MISSING_KEY + " to be delivered to SQS subscription");
+        assertEquals("image/png", file.path("type").asText());
+        assertEquals(2048L, file.path("size").asLong());
+        assertFalse(file.has("storageClass"), "not enriched");
+        assertFalse(file.has("metadata"), "not enriched");
+    }
+
+    // Attach a minimal SQS policy that allows the SNS topic to send messages to the queue
+    private static void applyQueuePolicyAllowSns(SqsClient sqs, String queueUrl, String queueArn, String topicArn) {
+        String policy = ("""
+                {
+                  "Version":"2012-10-17",
+                  "Statement":[
+                    {
+                      "Sid":"Allow-SNS-SendMessage",
+                      "Effect":"Allow",
+                      "Principal":"*",
+                      "Action":"sqs:SendMessage",
+                      "Resource":"%s",
+                      "Condition":{ "ArnEquals": { "aws:SourceArn":"%s" } }
+                    }
+                  ]
+                }
+                """).formatted(queueArn, topicArn);
+
+        sqs.setQueueAttributes(SetQueueAttributesRequest.builder()
+                .queueUrl(queueUrl)
+                .attributes(Map.of(QueueAttributeName.POLICY, policy))
+                .build());
+    }
+
+    // Poll SQS for the notification of the given key; every received message is consumed
+    private static JsonNode awaitRecord(String key) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Instant until = Instant.now().plus(Duration.ofSeconds(POLL_TIMEOUT_SECONDS));
+        try (SqsClient sqs = buildSqsClient(localstack)) {
+            while (Instant.now().isBefore(until)) {
+                for (Message m : sqs.receiveMessage(ReceiveMessageRequest.builder()
+                                .queueUrl(queueUrl)
+                                .maxNumberOfMessages(10)
+                                .waitTimeSeconds(LONG_POLL_SECONDS)
+                                .build())
+                        .messages()) {
+                    sqs.deleteMessage(DeleteMessageRequest.builder().queueUrl(queueUrl).receiptHandle(m.receiptHandle()).build());
+                    JsonNode file = parseRecord(objectMapper, m.body());
+                    if (file != null && key.equals(file.path("key").asText())) {
+                        return file;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    // Unwrap the SNS-over-SQS envelope; the message is the versioned metadata JSON with a single record
+    private static JsonNode parseRecord(ObjectMapper objectMapper, String body) {
+        if (body == null || body.isBlank()) return null;
+        try {
+            JsonNode root = objectMapper.readTree(body);
+            if (!"Notification".equals(root.path("Type").asText("")) || !topicArn.equals(root.path("TopicArn").asText(""))) {
+                return null;
+            }
+            JsonNode content = objectMapper.readTree(root.path("Message").asText(""));
+            return content.path("schemaVersion").asInt() == 1 && content.path("records").size() == 1
+                    ? content.path("records").path(0)
+                    : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -210,7 +210,7 @@ class MetaPingS3ToSnsIT extends AbstractLocalStackIT {
                     return true;
                 }
                 // Fallback: substring check for flakiness across LocalStack variants
-                if (body != null && body.contains("New File Uploaded") && body.contains(EXPECTED_FILE_NAME)) {
+                if (body != null && body.contains("schemaVersion") && body.contains(EXPECTED_FILE_NAME)) {
                     return true;
                 }
             }
@@ -232,10 +232,14 @@ class MetaPingS3ToSnsIT extends AbstractLocalStackIT {
                     && topicArn != null && topicArn.equals(topicFromMsg)
                     && EXPECTED_SUBJECT.equals(subject);
 
-            boolean contentOk = message.contains("New File Uploaded:")
-                    && message.contains("Name: " + EXPECTED_FILE_NAME)
-                    && message.contains("Type: " + EXPECTED_FILE_TYPE)
-                    && message.contains("Size: " + EXPECTED_FILE_SIZE + " bytes");
+            // Message body is the versioned metadata JSON with a single record
+            JsonNode content = objectMapper.readTree(message);
+            JsonNode file = content.path("records").path(0);
+            boolean contentOk = content.path("schemaVersion").asInt() == 1
+                    && content.path("records").size() == 1
+                    && EXPECTED_FILE_NAME.equals(file.path("key").asText())
+                    && EXPECTED_FILE_TYPE.equals(file.path("type").asText())
+                    && file.path("size").asLong() == EXPECTED_FILE_SIZE;
 
             return envelopeOk && contentOk;
         } catch (Exception e) {
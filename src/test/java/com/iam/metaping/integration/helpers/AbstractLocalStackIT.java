@@ -7,9 +7,11 @@ import org.testcontainers.containers.localstack.LocalStackContainer;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.sns.SnsClient;
 import software.amazon.awssdk.services.sqs.SqsClient;
 
+import static org.testcontainers.containers.localstack.LocalStackContainer.Service.S3;
 import static org.testcontainers.containers.localstack.LocalStackContainer.Service.SNS;
 import static org.testcontainers.containers.localstack.LocalStackContainer.Service.SQS;
 
@@ -52,6 +54,16 @@ public class AbstractLocalStackIT {
                 .build();
     }
 
+    protected static S3Client buildS3Client(LocalStackContainer localstack) {
+        return S3Client.builder()
+                .endpointOverride(localstack.getEndpointOverride(S3))
+                .region(Region.of(localstack.getRegion()))
+                .forcePathStyle(true)
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create(localstack.getAccessKey(), localstack.getSecretKey())))
+                .build();
+    }
+
     @BeforeAll
     static void checkDockerAvailability() {
         Assumptions.assumeTrue(DOCKER_AVAILABLE, "Docker is not available; skipping integration test");
@@ -0,0 +1,214 @@
+package com.iam.metaping.unit;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import ch.qos.logback.core.read.ListAppender;
+import ch.qos.logback.core.spi.FilterReply;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iam.metaping.function.MetaPingFunction;
+import com.iam.metaping.model.S3ObjectRecord;
+import com.iam.metaping.service.AsyncLogFlusher;
+import com.iam.metaping.service.InvocationTrace;
+import com.iam.metaping.service.JsonLogEncoder;
+import com.iam.metaping.service.LogSamplingFilter;
+import com.iam.metaping.service.MetaNotifier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.iam.metaping.unit.helpers.MetaPingFunctionBuilder.function;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Running unit tests for JSON logging, sampling and the invocation summary")
+class LoggingTests {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final LoggerContext context = new LoggerContext();
+
+    @AfterEach
+    void clearMdc() {
+        MDC.clear();
+        InvocationTrace.clear();
+    }
+
+    @Test
+    @DisplayName("encoder: one JSON line with time, level, logger, MDC fields, message and stack trace")
+    void encoderWritesJsonLine() throws Exception {
+        // Given
+        Logger logger = context.getLogger("com.iam.metaping.test");
+        LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, Level.ERROR,
+                "Publish failed for \"{}\"", new IllegalStateException("boom"), new Object[]{"a\nb.txt"});
+        event.setTimeStamp(1_736_936_130_000L);
+        event.setMDCPropertyMap(Map.of(InvocationTrace.MDC_KEY, "trace-1"));
+        JsonLogEncoder encoder = new JsonLogEncoder();
+
+        // When
+        String line = new String(encoder.encode(event), StandardCharsets.UTF_8);
+
+        // Then
+        assertTrue(line.endsWith("}\n"));
+        assertEquals(1, line.lines().count(), "escaped into a single line");
+        JsonNode json = MAPPER.readTree(line);
+        assertEquals(1_736_936_130_000L, json.path("ts").asLong());
+        assertEquals("ERROR", json.path("level").asText());
+        assertEquals("com.iam.metaping.test", json.path("logger").asText());
+        assertEquals("trace-1", json.path("traceId").asText());
+        assertEquals("Publish failed for \"a\nb.txt\"", json.path("msg").asText());
+        assertTrue(json.path("error").asText().startsWith("java.lang.IllegalStateException: boom"));
+    }
+
+    @Test
+    @DisplayName("sampling: the longest prefix applies; WARN, exceptions and unmatched loggers always pass")
+    void samplingRules() {
+        // Given
+        LogSamplingFilter filter = filter("com.iam.metaping=1, com.iam.metaping.summary=0");
+        Logger summary = context.getLogger("com.iam.metaping.summary");
+        Logger function = context.getLogger("com.iam.metaping.function.MetaPingFunction");
+        Logger other = context.getLogger("org.springframework.Other");
+
+        // When / Then
+        assertEquals(FilterReply.DENY, filter.decide(null, summary, Level.INFO, "line", null, null));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, summary, Level.WARN, "line", null, null));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, summary, Level.INFO, "line", null, new RuntimeException()));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, summary, Level.INFO, null, null, null), "isInfoEnabled()");
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, function, Level.INFO, "line", null, null));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, other, Level.INFO, "line", null, null));
+    }
+
+    @Test
+    @DisplayName("sampling: decided once per trace id, keeping about the configured fraction")
+    void samplingIsConsistentPerTrace() {
+        // Given
+        LogSamplingFilter filter = filter("com.iam.metaping=0.25");
+        Logger logger = context.getLogger("com.iam.metaping.summary");
+        int kept = 0;
+
+        // When
+        for (int i = 0; i < 2000; i++) {
+            MDC.put(InvocationTrace.MDC_KEY, "request-" + i);
+            FilterReply first = filter.decide(null, logger, Level.INFO, "first", null, null);
+            FilterReply second = filter.decide(null, logger, Level.DEBUG, "second", null, null);
+
+            // Then
+            assertEquals(first, second, "all lines of an invocation share the decision");
+            if (first == FilterReply.NEUTRAL) {
+                kept++;
+            }
+        }
+        assertTrue(kept > 400 && kept < 600, "kept " + kept + " of 2000");
+    }
+
+    @Test
+    @DisplayName("function: one summary line per call with outcome counts, under the invocation trace id")
+    void functionLogsSummary() {
+        // Given
+        @SuppressWarnings("unchecked")
+        ObjectProvider<MetaNotifier> provider = mock(ObjectProvider.class);
+        MetaNotifier notifier = mock(MetaNotifier.class);
+        when(provider.getIfAvailable()).thenReturn(notifier);
+        when(notifier.notifyNewFilesAsync(anyList()))
+                .thenReturn(CompletableFuture.completedFuture(List.of(true, false, true)));
+        MetaPingFunction function = function().notifier(provider).build();
+        List<S3ObjectRecord> records = List.of(
+                new S3ObjectRecord("bucket", "a.txt", 1L, null, null, null, null, "REQ-1"),
+                new S3ObjectRecord("bucket", null, -1L, null, null, null, null, null),
+                new S3ObjectRecord("bucket", "b.txt", 2L, null, null, null, null, null),
+                new S3ObjectRecord("bucket", "c.txt", 3L, null, null, null, null, null));
+        ListAppender<ILoggingEvent> captured = capture("com.iam.metaping.summary");
+
+        // When
+        function.process(records);
+
+        // Then
+        assertEquals(1, captured.list.size());
+        ILoggingEvent summary = captured.list.get(0);
+        assertEquals(Level.INFO, summary.getLevel());
+        assertTrue(summary.getFormattedMessage().startsWith("Invocation processed: records=4, extracted=3, invalid=1, "
+                + "duplicates=0, published=2, failed=1, durationMs="), summary.getFormattedMessage());
+        assertEquals("REQ-1", summary.getMDCPropertyMap().get(InvocationTrace.MDC_KEY));
+        ((Logger) LoggerFactory.getLogger("com.iam.metaping.summary")).detachAppender(captured);
+    }
+
+    @Test
+    @DisplayName("flusher: drain returns once every queued line is written, not just taken off the queue")
+    void asyncDrainWaitsForWrites() {
+        // Given: an async appender in front of a slow one
+        LoggerContext global = (LoggerContext) LoggerFactory.getILoggerFactory();
+        List<String> written = new CopyOnWriteArrayList<>();
+        AppenderBase<ILoggingEvent> slow = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                LockSupport.parkNanos(20_000_000L); // 20 ms per line
+                written.add(event.getFormattedMessage());
+            }
+        };
+        slow.setContext(global);
+        slow.start();
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(global);
+        async.addAppender(slow);
+        async.start();
+        Logger logger = global.getLogger("com.iam.metaping.flush-test");
+        logger.setAdditive(false);
+        logger.addAppender(async);
+        try {
+            for (int i = 0; i < 5; i++) {
+                logger.warn("line {}", i);
+            }
+
+            // When
+            boolean drained = AsyncLogFlusher.drain(5_000);
+
+            // Then: all lines written, the flush marker itself is not
+            assertTrue(drained);
+            assertEquals(List.of("line 0", "line 1", "line 2", "line 3", "line 4"), written);
+        } finally {
+            logger.detachAppender(async);
+            async.stop();
+        }
+    }
+
+    private LogSamplingFilter filter(String rates) {
+        LogSamplingFilter filter = new LogSamplingFilter();
+        filter.setContext(context);
+        filter.setRates(rates);
+        filter.start();
+        return filter;
+    }
+
+    private static ListAppender<ILoggingEvent> capture(String loggerName) {
+        ListAppender<ILoggingEvent> appender = new ListAppender<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                event.prepareForDeferredProcessing(); // snapshot the MDC while the trace id is set
+                super.append(event);
+            }
+        };
+        appender.start();
+        Logger logger = (Logger) LoggerFactory.getLogger(loggerName);
+        logger.setLevel(Level.INFO);
+        logger.addAppender(appender);
+        return appender;
+    }
+}
@@ -2,20 +2,34 @@ package com.iam.metaping.unit;
 
 import com.amazonaws.services.lambda.runtime.events.S3Event;
 import com.amazonaws.services.lambda.runtime.events.models.s3.S3EventNotification;
+import com.iam.metaping.config.FanOutProperties;
 import com.iam.metaping.function.MetaPingFunction;
 import com.iam.metaping.model.FileMetadata;
+import com.iam.metaping.model.S3ObjectRecord;
+import com.iam.metaping.service.FanOutExecutor;
 import com.iam.metaping.service.MetaNotifier;
+import com.iam.metaping.service.MetadataJsonWriter;
+import com.iam.metaping.service.ObjectMetadataEnricher;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.ObjectProvider;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
+import static com.iam.metaping.unit.helpers.MetaPingFunctionBuilder.function;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.mockito.Mockito.*;
 
 /**
@@ -40,11 +54,12 @@ class MetaPingFunctionTests {
         // records[0].s3.object.size = 12345
         S3Event event = buildEvent("folder%2Ftest%20file.txt", 12345L, true);
 
-        MetaPingFunction function = new MetaPingFunction(null);
+        MetaPingFunction function = function().build();
         String result = function.apply(event);
 
-        // Expect MIME to be text/plain for .txt
-        String expected = "FileMetadata[fileName=folder/test file.txt, fileSize=12345, fileType=text/plain]";
+        // Expect MIME to be text/plain for .txt; bucket, eTag and eventTime are not set on the mock
+        String expected = "{\"schemaVersion\":1,\"records\":[{\"bucket\":null,\"key\":\"folder/test file.txt\","
+                + "\"size\":12345,\"type\":\"text/plain\",\"eTag\":null,\"eventTime\":null}]}";
         assertEquals(expected, result);
     }
 
@@ -54,7 +69,7 @@ class MetaPingFunctionTests {
         // Arrange
         when(provider.getIfAvailable()).thenReturn(notifier);
 
-        MetaPingFunction fnWithNotifier = new MetaPingFunction(provider);
+        MetaPingFunction fnWithNotifier = function().notifier(provider).build();
 
         // Build a valid event
         String key = "folder%2Ffile.pdf";
@@ -65,15 +80,15 @@ class MetaPingFunctionTests {
         FileMetadata expected = new FileMetadata("folder/file.pdf", size, "application/pdf");
 
         // Stub notifier to return true
-        when(notifier.notifyNewFile(expected)).thenReturn(true);
+        when(notifier.notifyNewFileAsync(expected)).thenReturn(CompletableFuture.completedFuture(true));
 
         // Act
         String result = fnWithNotifier.apply(event);
 
         // Assert: output and interaction
-        assertEquals(expected.toString(), result);
+        assertEquals(json(expected), result);
         verify(provider, times(1)).getIfAvailable();
-        verify(notifier, times(1)).notifyNewFile(expected);
+        verify(notifier, times(1)).notifyNewFileAsync(expected);
         verifyNoMoreInteractions(notifier);
     }
 
@@ -83,10 +98,10 @@ class MetaPingFunctionTests {
         // Arrange: provider returns null (no bean created when notifications.enabled=false)
         when(provider.getIfAvailable()).thenReturn(null);
 
-        MetaPingFunction fnNoNotifier = new MetaPingFunction(provider);
+        MetaPingFunction fnNoNotifier = function().notifier(provider).build();
 
         S3Event event = buildEvent("image%2Fphoto.jpg", 10_000L, true);
-        String expected = "FileMetadata[fileName=image/photo.jpg, fileSize=10000, fileType=image/jpeg]";
+        String expected = json(new FileMetadata("image/photo.jpg", 10_000L, "image/jpeg"));
 
         // Act
         String result = fnNoNotifier.apply(event);
@@ -100,7 +115,7 @@ class MetaPingFunctionTests {
     @Test
     @DisplayName("Null event -> no-s3-records error")
     void nullEvent() {
-        MetaPingFunction function = new MetaPingFunction(null);
+        MetaPingFunction function = function().build();
         String result = function.apply(null);
         assertEquals("{\"error\":\"no-s3-records\"}", result);
     }
@@ -110,7 +125,7 @@ class MetaPingFunctionTests {
     void emptyRecords() {
         S3Event event = mock(S3Event.class);
         when(event.getRecords()).thenReturn(Collections.emptyList());
-        MetaPingFunction function = new MetaPingFunction(null);
+        MetaPingFunction function = function().build();
         String result = function.apply(event);
         assertEquals("{\"error\":\"no-s3-records\"}", result);
     }
@@ -126,9 +141,9 @@ class MetaPingFunctionTests {
         S3Event event = mock(S3Event.class);
         when(event.getRecords()).thenReturn(List.of(record));
 
-        MetaPingFunction function = new MetaPingFunction(null);
+        MetaPingFunction function = function().build();
         String result = function.apply(event);
-        assertEquals("{\"error\":\"invalid-s3-record\"}", result);
+        assertEquals("{\"schemaVersion\":1,\"records\":[{\"error\":\"invalid-s3-record\"}]}", result);
     }
 
     @Test
@@ -136,25 +151,134 @@ class MetaPingFunctionTests {
     void missingSizeDefaultsToMinusOne() {
         // Build event with key only (no size)
         S3Event event = buildEvent("image%2Fphoto.png", null, true);
-        MetaPingFunction function = new MetaPingFunction(null);
+        MetaPingFunction function = function().build();
         String result = function.apply(event);
 
         // For .png, MIME is typically image/png
-        String expected = "FileMetadata[fileName=image/photo.png, fileSize=-1, fileType=image/png]";
+        String expected = json(new FileMetadata("image/photo.png", -1L, "image/png"));
         assertEquals(expected, result);
     }
 
+    @Test
+    @DisplayName("Multi-record event: every record is extracted and notified together, in order")
+    void multiRecordEventProcessesAllRecords() {
+        when(provider.getIfAvailable()).thenReturn(notifier);
+
+        S3EventNotification.S3EventNotificationRecord first = buildRecord("docs%2Fa.txt", 10L);
+        S3EventNotification.S3EventNotificationRecord second = buildRecord("docs%2Fb.pdf", 20L);
+        S3Event event = mock(S3Event.class);
+        when(event.getRecords()).thenReturn(List.of(first, second));
+
+        FileMetadata a = new FileMetadata("docs/a.txt", 10L, "text/plain");
+        FileMetadata b = new FileMetadata("docs/b.pdf", 20L, "application/pdf");
+        when(notifier.notifyNewFilesAsync(List.of(a, b)))
+                .thenReturn(CompletableFuture.completedFuture(List.of(true, false)));
+
+        String result = function().notifier(provider).build().apply(event);
+
+        assertEquals(json(a, b), result);
+        verify(provider, times(1)).getIfAvailable();
+        verify(notifier, times(1)).notifyNewFilesAsync(List.of(a, b));
+        verifyNoMoreInteractions(notifier);
+    }
+
+    @Test
+    @DisplayName("Multi-record event: invalid records keep their slot, null records are skipped")
+    void multiRecordEventWithInvalidRecord() {
+        S3EventNotification.S3EventNotificationRecord valid = buildRecord("image%2Fphoto.png", 5L);
+        S3EventNotification.S3EventNotificationRecord missingObject = mock(S3EventNotification.S3EventNotificationRecord.class);
+        when(missingObject.getS3()).thenReturn(mock(S3EventNotification.S3Entity.class));
+
+        S3Event event = mock(S3Event.class);
+        when(event.getRecords()).thenReturn(Arrays.asList(missingObject, null, valid));
+
+        String result = function().build().apply(event);
+
+        assertEquals(json(null, new FileMetadata("image/photo.png", 5L, "image/png")), result);
+    }
+
+    @Test
+    @DisplayName("Fan-out mode (Java 21): each record is extracted and notified on its own task, results stay in order")
+    void fanOutModeNotifiesPerRecord() {
+        assumeTrue(Runtime.version().feature() >= 21, "Virtual threads require Java 21");
+        when(provider.getIfAvailable()).thenReturn(notifier);
+
+        FanOutProperties props = new FanOutProperties();
+        props.setEnabled(true);
+        props.setMaxConcurrency(2);
+        FanOutExecutor fanOut = new FanOutExecutor(props);
+
+        S3Event event = mock(S3Event.class);
+        when(event.getRecords()).thenReturn(List.of(
+                buildRecord("a.txt", 1L), buildRecord("b.pdf", 2L), buildRecord("c.png", 3L)));
+
+        FileMetadata a = new FileMetadata("a.txt", 1L, "text/plain");
+        FileMetadata b = new FileMetadata("b.pdf", 2L, "application/pdf");
+        FileMetadata c = new FileMetadata("c.png", 3L, "image/png");
+        when(notifier.notifyNewFile(any(FileMetadata.class))).thenReturn(true);
+
+        String result = function().notifier(provider).fanOut(fanOut).build().apply(event);
+        fanOut.destroy();
+
+        assertEquals(json(a, b, c), result);
+        verify(notifier).notifyNewFile(a);
+        verify(notifier).notifyNewFile(b);
+        verify(notifier).notifyNewFile(c);
+        verifyNoMoreInteractions(notifier);
+    }
+
+    @Test
+    @DisplayName("Record details (bucket, eTag, event time) are carried into metadata and the result")
+    void recordDetailsAreCarried() {
+        when(provider.getIfAvailable()).thenReturn(notifier);
+        FileMetadata expected = new FileMetadata("docs/a.txt", 10L, "text/plain",
+                "meta-ping-bucket", "d41d8cd98f00b204e9800998ecf8427e", "2025-01-15T10:15:30.000Z");
+        when(notifier.notifyNewFileAsync(expected)).thenReturn(CompletableFuture.completedFuture(true));
+
+        String result = function().notifier(provider).build().process(List.of(new S3ObjectRecord("meta-ping-bucket",
+                "docs%2Fa.txt", 10L, "d41d8cd98f00b204e9800998ecf8427e", "0055AED6DCD90281E5",
+                "ObjectCreated:Put", "2025-01-15T10:15:30.000Z")));
+
+        assertEquals("{\"schemaVersion\":1,\"records\":[{\"bucket\":\"meta-ping-bucket\",\"key\":\"docs/a.txt\","
+                + "\"size\":10,\"type\":\"text/plain\",\"eTag\":\"d41d8cd98f00b204e9800998ecf8427e\","
+                + "\"eventTime\":\"2025-01-15T10:15:30.000Z\"}]}", result);
+        verify(notifier).notifyNewFileAsync(expected);
+    }
+
+    @Test
+    @DisplayName("Enrichment: stored Content-Type replaces the extension guess, storage class and metadata are added")
+    void enrichmentOverridesGuessedType() {
+        // Given
+        S3AsyncClient s3 = mock(S3AsyncClient.class);
+        when(s3.headObject(any(HeadObjectRequest.class))).thenReturn(CompletableFuture.completedFuture(
+                HeadObjectResponse.builder().contentType("text/csv").contentLength(10L).storageClass("STANDARD_IA")
+                        .metadata(Map.of("source", "erp")).build()));
+        ObjectMetadataEnricher enricher = new ObjectMetadataEnricher(s3, 10, Duration.ofMinutes(1), Duration.ofSeconds(1),
+                System::nanoTime);
+        MetaPingFunction function = function().enricher(enricher).build();
+
+        // When
+        String result = function.process(List.of(new S3ObjectRecord("meta-ping-bucket", "exports%2Fq3.dat", -1L,
+                "etag", null, "ObjectCreated:Put", null)));
+
+        // Then
+        assertEquals("{\"schemaVersion\":1,\"records\":[{\"bucket\":\"meta-ping-bucket\",\"key\":\"exports/q3.dat\","
+                + "\"size\":10,\"type\":\"text/csv\",\"eTag\":\"etag\",\"eventTime\":null,"
+                + "\"storageClass\":\"STANDARD_IA\",\"metadata\":{\"source\":\"erp\"}}]}", result);
+    }
+
+    // Expected function output for the given records (null = invalid record)
+    private static String json(FileMetadata... records) {
+        return MetadataJsonWriter.writeResult(Arrays.asList(records));
+    }
+
     // Helper to build an S3Event via mocks
     private S3Event buildEvent(String rawKey, Long size, boolean includeS3Entity) {
-        S3EventNotification.S3EventNotificationRecord record = mock(S3EventNotification.S3EventNotificationRecord.class);
+        S3EventNotification.S3EventNotificationRecord record;
         if (includeS3Entity) {
-            S3EventNotification.S3Entity s3 = mock(S3EventNotification.S3Entity.class);
-            S3EventNotification.S3ObjectEntity obj = mock(S3EventNotification.S3ObjectEntity.class);
-            when(obj.getKey()).thenReturn(rawKey);
-            when(obj.getSizeAsLong()).thenReturn(size);
-            when(s3.getObject()).thenReturn(obj);
-            when(record.getS3()).thenReturn(s3);
+            record = buildRecord(rawKey, size);
         } else {
+            record = mock(S3EventNotification.S3EventNotificationRecord.class);
             when(record.getS3()).thenReturn(null);
         }
 
@@ -162,4 +286,16 @@ class MetaPingFunctionTests {
         when(event.getRecords()).thenReturn(List.of(record));
         return event;
     }
+
+    // Helper to build a single S3 record with an object entity via mocks
+    private S3EventNotification.S3EventNotificationRecord buildRecord(String rawKey, Long size) {
+        S3EventNotification.S3EventNotificationRecord record = mock(S3EventNotification.S3EventNotificationRecord.class);
+        S3EventNotification.S3Entity s3 = mock(S3EventNotification.S3Entity.class);
+        S3EventNotification.S3ObjectEntity obj = mock(S3EventNotification.S3ObjectEntity.class);
+        when(obj.getKey()).thenReturn(rawKey);
+        when(obj.getSizeAsLong()).thenReturn(size);
+        when(s3.getObject()).thenReturn(obj);
+        when(record.getS3()).thenReturn(s3);
+        return record;
+    }
 }
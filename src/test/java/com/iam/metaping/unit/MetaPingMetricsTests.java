@@ -0,0 +1,173 @@
+package com.iam.metaping.unit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iam.metaping.config.SnsProperties;
+import com.iam.metaping.function.MetaPingFunction;
+import com.iam.metaping.model.S3ObjectRecord;
+import com.iam.metaping.service.MetaPingMetrics;
+import com.iam.metaping.service.MetaPingMetrics.Metric;
+import com.iam.metaping.service.SnsMessage;
+import com.iam.metaping.service.SnsPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.sns.SnsClient;
+import software.amazon.awssdk.services.sns.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequest;
+import software.amazon.awssdk.services.sns.model.PublishBatchResponse;
+import software.amazon.awssdk.services.sns.model.PublishBatchResultEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.iam.metaping.unit.helpers.MetaPingFunctionBuilder.function;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Running unit tests for the EMF and Micrometer metrics")
+class MetaPingMetricsTests {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final List<String> lines = new ArrayList<>();
+    private final MetaPingMetrics emf = MetaPingMetrics.emf("MetaPing", "meta-ping-test", lines::add);
+
+    @Test
+    @DisplayName("emf: one document per flush with definitions, dimension and values; reset afterwards")
+    void emfDocument() throws Exception {
+        // Given
+        emf.record(Metric.DECODE_TIME, 1_500_000L);
+        emf.record(Metric.DECODE_TIME, 25_000L);
+        emf.record(Metric.RECORDS, 2);
+        emf.record(Metric.RECORDS, 1);
+        emf.record(Metric.BATCH_SIZE, 10);
+
+        // When
+        emf.flush();
+        emf.flush();
+
+        // Then
+        assertEquals(1, lines.size(), "second flush has nothing to write");
+        JsonNode doc = MAPPER.readTree(lines.get(0));
+        JsonNode directive = doc.path("_aws").path("CloudWatchMetrics").get(0);
+        assertEquals("MetaPing", directive.path("Namespace").asText());
+        assertEquals("FunctionName", directive.path("Dimensions").get(0).get(0).asText());
+        assertEquals(3, directive.path("Metrics").size());
+        assertEquals("Milliseconds", directive.path("Metrics").get(0).path("Unit").asText());
+        assertEquals("meta-ping-test", doc.path("FunctionName").asText());
+        assertEquals(1.5, doc.path("DecodeTime").get(0).asDouble());
+        assertEquals(0.025, doc.path("DecodeTime").get(1).asDouble());
+        assertEquals(3, doc.path("Records").asLong());
+        assertEquals(10, doc.path("BatchSize").get(0).asLong());
+        assertTrue(doc.path("_aws").path("Timestamp").isNumber());
+    }
+
+    @Test
+    @DisplayName("emf: samples beyond the per-document limit are dropped, counters stay exact")
+    void emfSampleLimit() throws Exception {
+        // Given
+        for (int i = 0; i < MetaPingMetrics.MAX_SAMPLES + 20; i++) {
+            emf.record(Metric.SNS_TIME, 1_000_000L);
+            emf.record(Metric.PUBLISHES, 1);
+        }
+
+        // When
+        emf.flush();
+
+        // Then
+        JsonNode doc = MAPPER.readTree(lines.get(0));
+        assertEquals(MetaPingMetrics.MAX_SAMPLES, doc.path("SnsRoundTripTime").size());
+        assertEquals(MetaPingMetrics.MAX_SAMPLES + 20, doc.path("Publishes").asLong());
+    }
+
+    @Test
+    @DisplayName("emf: discard drops what was recorded since the last flush")
+    void emfDiscard() throws Exception {
+        // Given
+        emf.record(Metric.RECORDS, 200);
+        emf.record(Metric.MIME_TIME, 1_000L);
+
+        // When
+        emf.discard();
+        emf.record(Metric.RECORDS, 1);
+        emf.flush();
+
+        // Then
+        JsonNode doc = MAPPER.readTree(lines.get(0));
+        assertEquals(1, doc.path("Records").asLong());
+        assertTrue(doc.path("MimeTime").isMissingNode());
+    }
+
+    @Test
+    @DisplayName("micrometer: values go to the registered meters; disabled metrics record nothing")
+    void micrometerMeters() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MetaPingMetrics metrics = MetaPingMetrics.micrometer(registry);
+
+        // When
+        metrics.stop(Metric.NOTIFY_TIME, metrics.start());
+        metrics.record(Metric.PUBLISH_FAILURES, 2);
+        metrics.record(Metric.BATCH_SIZE, 7);
+
+        // Then
+        assertEquals(1, registry.get("metaping.notify").timer().count());
+        assertEquals(2.0, registry.get("metaping.publish.failures").counter().count());
+        assertEquals(7.0, registry.get("metaping.sns.batch.size").summary().totalAmount());
+        assertFalse(MetaPingMetrics.disabled().isEnabled());
+        assertEquals(0L, MetaPingMetrics.disabled().start());
+    }
+
+    @Test
+    @DisplayName("function: records processed and decode/MIME timings per record")
+    void functionRecordsTimings() throws Exception {
+        // Given
+        MetaPingFunction function = function().metrics(emf).build();
+        List<S3ObjectRecord> records = List.of(
+                new S3ObjectRecord("bucket", "a%20b.txt", 10L, null, null, null, null),
+                new S3ObjectRecord("bucket", "c.png", 20L, null, null, null, null));
+
+        // When
+        function.process(records);
+        emf.flush();
+
+        // Then
+        JsonNode doc = MAPPER.readTree(lines.get(0));
+        assertEquals(2, doc.path("Records").asLong());
+        assertEquals(2, doc.path("DecodeTime").size());
+        assertEquals(2, doc.path("MimeTime").size());
+    }
+
+    @Test
+    @DisplayName("publisher: batch size, accepted and rejected entries and SNS round trips are recorded")
+    void publisherRecordsBatch() throws Exception {
+        // Given
+        SnsProperties props = new SnsProperties();
+        props.setTopicArn("arn:aws:sns:us-east-1:123456789012:test-topic");
+        props.setRegion("us-east-1");
+        SnsPublisher publisher = new SnsPublisher(props, emf);
+        SnsClient sns = mock(SnsClient.class);
+        ReflectionTestUtils.setField(publisher, "snsClient", sns);
+        when(sns.publishBatch(any(PublishBatchRequest.class))).thenReturn(PublishBatchResponse.builder()
+                .successful(PublishBatchResultEntry.builder().id("0").messageId("m-0").build())
+                .failed(BatchResultErrorEntry.builder().id("1").code("InternalError").senderFault(false).build())
+                .build());
+
+        // When
+        publisher.publishBatch(List.of(new SnsMessage("S", "one"), new SnsMessage("S", "two")));
+        emf.flush();
+
+        // Then
+        JsonNode doc = MAPPER.readTree(lines.get(0));
+        assertEquals(2, doc.path("BatchSize").get(0).asLong());
+        assertEquals(1, doc.path("Publishes").asLong());
+        assertEquals(1, doc.path("PublishFailures").asLong());
+        assertEquals(1, doc.path("SnsRoundTripTime").size());
+    }
+}
@@ -0,0 +1,98 @@
+package com.iam.metaping.unit;
+
+import com.amazonaws.services.lambda.runtime.events.S3Event;
+import com.iam.metaping.function.MetaPingReactiveFunction;
+import com.iam.metaping.model.FileMetadata;
+import com.iam.metaping.service.MetaNotifier;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.iam.metaping.unit.helpers.MetaPingFunctionBuilder.function;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Running unit tests for the reactive functions")
+class MetaPingReactiveFunctionTests {
+
+    @Mock
+    private ObjectProvider<MetaNotifier> provider;
+
+    @Mock
+    private MetaNotifier notifier;
+
+    @Test
+    @DisplayName("ndjson: one result per line in line order; blank lines skipped, malformed lines reported")
+    void processesLines() {
+        // Given
+        MetaPingReactiveFunction function = new MetaPingReactiveFunction(function().notifier(provider).build(), 4, false);
+        String chunk = event("a.txt") + "\n\n" + "{not json\n" + event("b.pdf") + "\n";
+
+        // When
+        List<String> results = function.applyLines(Flux.just(chunk, event("c.png"))).collectList().block();
+
+        // Then
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).contains("\"key\":\"a.txt\""));
+        assertEquals("{\"error\":\"invalid-event\"}", results.get(1));
+        assertTrue(results.get(2).contains("\"type\":\"application/pdf\""));
+        assertTrue(results.get(3).contains("\"key\":\"c.png\""));
+    }
+
+    @Test
+    @DisplayName("backpressure: at most 'concurrency' events are in flight; more are requested as results are emitted")
+    void boundsEventsInFlight() {
+        // Given
+        when(provider.getIfAvailable()).thenReturn(notifier);
+        List<CompletableFuture<Boolean>> publishes = new ArrayList<>();
+        when(notifier.notifyNewFileAsync(any(FileMetadata.class))).thenAnswer(invocation -> {
+            CompletableFuture<Boolean> publish = new CompletableFuture<>();
+            publishes.add(publish);
+            return publish;
+        });
+        MetaPingReactiveFunction function = new MetaPingReactiveFunction(function().notifier(provider).build(), 2, false);
+        List<String> results = new ArrayList<>();
+
+        // When
+        function.applyLines(Flux.just(event("1.txt"), event("2.txt"), event("3.txt"), event("4.txt")))
+                .subscribe(results::add);
+
+        // Then
+        assertEquals(2, publishes.size());
+        publishes.get(1).complete(true);
+        assertTrue(results.isEmpty(), "results keep event order");
+        publishes.get(0).complete(true);
+        assertEquals(2, results.size());
+        assertEquals(4, publishes.size(), "both slots were freed");
+        publishes.get(2).complete(true);
+        publishes.get(3).complete(false);
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).contains("\"key\":\"1.txt\""));
+    }
+
+    @Test
+    @DisplayName("events: an S3Event without records yields the no-s3-records document")
+    void processesEvents() {
+        MetaPingReactiveFunction function = new MetaPingReactiveFunction(function().notifier(provider).build(), 4, false);
+
+        List<String> results = function.apply(Flux.just(new S3Event(List.of()))).collectList().block();
+
+        assertEquals(List.of("{\"error\":\"no-s3-records\"}"), results);
+    }
+
+    private static String event(String key) {
+        return "{\"Records\":[{\"eventName\":\"ObjectCreated:Put\",\"s3\":{\"bucket\":{\"name\":\"b\"},"
+                + "\"object\":{\"key\":\"" + key + "\",\"size\":1}}}]}";
+    }
+}
@@ -0,0 +1,119 @@
+package com.iam.metaping.unit;
+
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.iam.metaping.function.MetaPingSqsFunction;
+import com.iam.metaping.model.FileMetadata;
+import com.iam.metaping.service.MetaNotifier;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.iam.metaping.unit.helpers.MetaPingFunctionBuilder.function;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Running unit tests for the SQS event source")
+class MetaPingSqsFunctionTests {
+
+    private static final String TEST_EVENT = "{\"Service\":\"Amazon S3\",\"Event\":\"s3:TestEvent\","
+            + "\"Time\":\"2025-01-15T10:15:30.000Z\",\"Bucket\":\"b\",\"RequestId\":\"r\",\"HostId\":\"h\"}";
+
+    @Mock
+    private ObjectProvider<MetaNotifier> provider;
+
+    @Mock
+    private MetaNotifier notifier;
+
+    @Test
+    @DisplayName("batch: records of all messages are published together; only failed messages are reported")
+    void reportsOnlyFailedMessages() {
+        // Given
+        when(provider.getIfAvailable()).thenReturn(notifier);
+        when(notifier.notifyNewFilesAsync(anyList()))
+                .thenReturn(CompletableFuture.completedFuture(List.of(true, true, false)));
+        MetaPingSqsFunction function = new MetaPingSqsFunction(function().notifier(provider).build());
+        SQSEvent event = event(
+                message("m1", s3Event("a.txt", "b.pdf")),
+                message("m2", "not json"),
+                message("m3", TEST_EVENT),
+                message("m4", s3Event("c.txt")));
+
+        // When
+        SQSBatchResponse response = function.apply(event);
+
+        // Then
+        assertEquals(List.of("m2", "m4"), failedIds(response));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<FileMetadata>> captor = ArgumentCaptor.forClass(List.class);
+        verify(notifier).notifyNewFilesAsync(captor.capture());
+        assertEquals(List.of("a.txt", "b.pdf", "c.txt"), captor.getValue().stream().map(FileMetadata::fileName).toList());
+    }
+
+    @Test
+    @DisplayName("batch: a message fails with any of its records; messages without S3 records fail")
+    void failsInvalidRecords() {
+        // Given
+        MetaPingSqsFunction function = new MetaPingSqsFunction(function().notifier(provider).build());
+        String withoutObject = "{\"Records\":[{\"s3\":{\"bucket\":{\"name\":\"b\"},\"object\":{\"key\":\"ok.txt\"}}},"
+                + "{\"s3\":{\"bucket\":{\"name\":\"b\"}}}]}";
+        SQSEvent event = event(
+                message("m1", withoutObject),
+                message("m2", "{\"Records\":[]}"),
+                message("m3", ""),
+                message("m4", s3Event("fine.txt")));
+
+        // When
+        SQSBatchResponse response = function.apply(event);
+
+        // Then
+        assertEquals(List.of("m2", "m3", "m1"), failedIds(response));
+    }
+
+    @Test
+    @DisplayName("empty: no messages, or only test events -> nothing to redeliver")
+    void emptyBatch() {
+        MetaPingSqsFunction function = new MetaPingSqsFunction(function().notifier(provider).build());
+
+        assertTrue(function.apply(new SQSEvent()).getBatchItemFailures().isEmpty());
+        assertTrue(function.apply(event(message("m1", TEST_EVENT))).getBatchItemFailures().isEmpty());
+    }
+
+    private static SQSEvent event(SQSEvent.SQSMessage... messages) {
+        SQSEvent event = new SQSEvent();
+        event.setRecords(List.of(messages));
+        return event;
+    }
+
+    private static SQSEvent.SQSMessage message(String id, String body) {
+        SQSEvent.SQSMessage message = new SQSEvent.SQSMessage();
+        message.setMessageId(id);
+        message.setBody(body);
+        return message;
+    }
+
+    private static String s3Event(String... keys) {
+        List<String> records = new ArrayList<>();
+        for (String key : keys) {
+            records.add("{\"eventName\":\"ObjectCreated:Put\",\"s3\":{\"bucket\":{\"name\":\"b\"},"
+                    + "\"object\":{\"key\":\"" + key + "\",\"size\":1}}}");
+        }
+        return "{\"Records\":[" + String.join(",", records) + "]}";
+    }
+
+    private static List<String> failedIds(SQSBatchResponse response) {
+        return response.getBatchItemFailures().stream().map(SQSBatchResponse.BatchItemFailure::getItemIdentifier).toList();
+    }
+}
@@ -0,0 +1,81 @@
+package com.iam.metaping.unit;
+
+import com.iam.metaping.model.FileMetadata;
+import com.iam.metaping.service.MetadataJsonWriter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Running unit tests for MetadataJsonWriter")
+class MetadataJsonWriterTests {
+
+    private static final FileMetadata PDF = new FileMetadata("docs/report.pdf", 1024L, "application/pdf",
+            "meta-ping-bucket", "d41d8cd98f00b204e9800998ecf8427e", "2025-01-15T10:15:30.000Z");
+
+    @Test
+    @DisplayName("writeNotification: one record in the versioned envelope")
+    void notificationEnvelope() {
+        assertEquals("{\"schemaVersion\":1,\"records\":[{\"bucket\":\"meta-ping-bucket\",\"key\":\"docs/report.pdf\","
+                        + "\"size\":1024,\"type\":\"application/pdf\",\"eTag\":\"d41d8cd98f00b204e9800998ecf8427e\","
+                        + "\"eventTime\":\"2025-01-15T10:15:30.000Z\"}]}",
+                MetadataJsonWriter.writeNotification(PDF));
+    }
+
+    @Test
+    @DisplayName("writeResult: records keep their order, null entries become invalid-record errors, absent values are null")
+    void resultWithInvalidEntries() {
+        FileMetadata bare = new FileMetadata("a.bin", -1L, "application/octet-stream");
+
+        String json = MetadataJsonWriter.writeResult(Arrays.asList(bare, null));
+
+        assertEquals("{\"schemaVersion\":1,\"records\":[{\"bucket\":null,\"key\":\"a.bin\",\"size\":-1,"
+                + "\"type\":\"application/octet-stream\",\"eTag\":null,\"eventTime\":null},"
+                + "{\"error\":\"invalid-s3-record\"}]}", json);
+    }
+
+    @Test
+    @DisplayName("Enriched records: storage class and user metadata follow the event fields; empty metadata is an empty object")
+    void enrichedRecord() {
+        FileMetadata enriched = new FileMetadata("a.csv", 5L, "text/csv", "b", null, null, "GLACIER_IR",
+                Map.of("owner", "o\"k"));
+        FileMetadata noMetadata = new FileMetadata("b.csv", 5L, "text/csv", "b", null, null, "STANDARD", Map.of());
+
+        assertEquals("{\"schemaVersion\":1,\"records\":[{\"bucket\":\"b\",\"key\":\"a.csv\",\"size\":5,\"type\":\"text/csv\","
+                        + "\"eTag\":null,\"eventTime\":null,\"storageClass\":\"GLACIER_IR\",\"metadata\":{\"owner\":\"o\\\"k\"}}]}",
+                MetadataJsonWriter.writeNotification(enriched));
+        assertTrue(MetadataJsonWriter.writeNotification(noMetadata)
+                .endsWith("\"storageClass\":\"STANDARD\",\"metadata\":{}}]}"));
+    }
+
+    @Test
+    @DisplayName("Strings: quotes, backslashes and control characters are escaped; non-ASCII is kept")
+    void escaping() {
+        FileMetadata tricky = new FileMetadata("a\"b\\c\nd\te\u0001f/café €.txt", 1L, "text/plain");
+
+        String json = MetadataJsonWriter.writeNotification(tricky);
+
+        assertTrue(json.contains("\"key\":\"a\\\"b\\\\c\\nd\\te\\u0001f/café €.txt\""), json);
+    }
+
+    @Test
+    @DisplayName("Reused buffer: large and small documents written in sequence do not leak into each other")
+    void bufferReuse() {
+        List<FileMetadata> many = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            many.add(PDF);
+        }
+        String large = MetadataJsonWriter.writeResult(many);
+        String small = MetadataJsonWriter.writeResult(List.of());
+
+        assertTrue(large.length() > 16 * 1024);
+        assertEquals("{\"schemaVersion\":1,\"records\":[]}", small);
+        assertEquals(MetadataJsonWriter.writeNotification(PDF), MetadataJsonWriter.writeNotification(PDF));
+    }
+}
@@ -0,0 +1,64 @@
+package com.iam.metaping.unit;
+
+import com.iam.metaping.config.MimeTypeProperties;
+import com.iam.metaping.service.MimeTypeResolver;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("Running unit tests for MimeTypeResolver")
+class MimeTypeResolverTests {
+
+    private final MimeTypeResolver resolver = MimeTypeResolver.withDefaults();
+
+    @Test
+    @DisplayName("resolve: common and modern extensions, case-insensitive")
+    void resolvesKnownExtensions() {
+        assertEquals("text/plain", resolver.resolve("folder/test file.txt"));
+        assertEquals("application/pdf", resolver.resolve("REPORT.PDF"));
+        assertEquals("image/jpeg", resolver.resolve("image/photo.JpG"));
+        assertEquals("image/webp", resolver.resolve("img.webp"));
+        assertEquals("image/heic", resolver.resolve("IMG_0001.HEIC"));
+        assertEquals("application/vnd.apache.parquet", resolver.resolve("lake/part-0001.parquet"));
+        assertEquals("application/avro", resolver.resolve("events.avro"));
+    }
+
+    @Test
+    @DisplayName("resolve: compound extension wins over its last segment")
+    void resolvesCompoundExtensions() {
+        assertEquals("application/x-compressed-tar", resolver.resolve("backups/site.tar.gz"));
+        assertEquals("application/x-compressed-tar", resolver.resolve("site.TAR.GZ"));
+        assertEquals("application/gzip", resolver.resolve("access.log.gz"));
+    }
+
+    @Test
+    @DisplayName("resolve: missing, unknown or dot-file names -> application/octet-stream")
+    void unknownFallsBackToDefault() {
+        assertEquals(MimeTypeResolver.DEFAULT_TYPE, resolver.resolve(null));
+        assertEquals(MimeTypeResolver.DEFAULT_TYPE, resolver.resolve(""));
+        assertEquals(MimeTypeResolver.DEFAULT_TYPE, resolver.resolve("README"));
+        assertEquals(MimeTypeResolver.DEFAULT_TYPE, resolver.resolve("file.unknownext"));
+        assertEquals(MimeTypeResolver.DEFAULT_TYPE, resolver.resolve("config/.env"));
+        assertEquals(MimeTypeResolver.DEFAULT_TYPE, resolver.resolve("trailing."));
+        assertEquals(MimeTypeResolver.DEFAULT_TYPE, resolver.resolve("dir.pdf/file"));
+    }
+
+    @Test
+    @DisplayName("properties: add and override mappings, including compound keys and leading dots")
+    void propertiesExtendTable() {
+        MimeTypeProperties props = new MimeTypeProperties();
+        props.setTypes(Map.of(
+                "GEOJSON", "application/geo+json",
+                ".csv", "application/csv",
+                "tar.lz4", "application/x-lz4-compressed-tar"));
+        MimeTypeResolver custom = new MimeTypeResolver(props);
+
+        assertEquals("application/geo+json", custom.resolve("map.geojson"));
+        assertEquals("application/csv", custom.resolve("data.CSV"));
+        assertEquals("application/x-lz4-compressed-tar", custom.resolve("dump.tar.lz4"));
+        assertEquals("text/plain", custom.resolve("notes.txt"));
+    }
+}
@@ -0,0 +1,189 @@
+package com.iam.metaping.unit;
+
+import com.iam.metaping.function.MetaPingFunction;
+import com.iam.metaping.model.FileMetadata;
+import com.iam.metaping.model.S3ObjectRecord;
+import com.iam.metaping.service.DedupStore;
+import com.iam.metaping.service.FileDedupStore;
+import com.iam.metaping.service.InMemoryDedupStore;
+import com.iam.metaping.service.MetaNotifier;
+import com.iam.metaping.service.NotificationDeduplicator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.iam.metaping.unit.helpers.MetaPingFunctionBuilder.function;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Running unit tests for notification dedup")
+class NotificationDeduplicatorTests {
+
+    private static final Duration TTL = Duration.ofMinutes(5);
+
+    @Mock
+    private ObjectProvider<MetaNotifier> provider;
+
+    @Mock
+    private MetaNotifier notifier;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+
+    @Test
+    @DisplayName("In-memory store: repeat claims are hits until the TTL passes, then the key can be claimed again")
+    void inMemoryTtl() {
+        InMemoryDedupStore store = new InMemoryDedupStore(100, TTL, clock::get);
+
+        assertTrue(store.claim("a"));
+        assertFalse(store.claim("a"));
+        clock.addAndGet(TTL.toMillis());
+        assertTrue(store.claim("a"));
+
+        assertEquals(new DedupStore.Stats(1, 2, 1, 1), store.stats());
+    }
+
+    @Test
+    @DisplayName("In-memory store: the oldest entries are evicted beyond max entries; released keys can be claimed again")
+    void inMemoryBoundAndRelease() {
+        InMemoryDedupStore store = new InMemoryDedupStore(2, TTL, clock::get);
+
+        assertTrue(store.claim("a"));
+        assertTrue(store.claim("b"));
+        assertTrue(store.claim("c")); // evicts "a"
+        assertTrue(store.claim("a"));
+        store.release("c");
+        assertTrue(store.claim("c"));
+
+        DedupStore.Stats stats = store.stats();
+        assertEquals(0, stats.hits());
+        assertEquals(5, stats.misses());
+        assertTrue(stats.size() <= 2, "size=" + stats.size());
+    }
+
+    @Test
+    @DisplayName("In-memory store: claim/release cycles do not grow the claim queue beyond twice the capacity")
+    void inMemoryClaimQueueBounded() {
+        InMemoryDedupStore store = new InMemoryDedupStore(2, TTL, clock::get);
+
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(store.claim("k" + i));
+            store.release("k" + i); // failed publish during an SNS outage
+        }
+
+        Queue<?> claimOrder = (Queue<?>) ReflectionTestUtils.getField(store, "claimOrder");
+        assertTrue(claimOrder.size() <= 4, "queued=" + claimOrder.size());
+        assertEquals(0, store.stats().size());
+    }
+
+    @Test
+    @DisplayName("File store: live claims survive a reopen, released and expired ones do not")
+    void fileStoreSurvivesReopen(@TempDir Path dir) throws IOException {
+        Path journal = dir.resolve("dedup.log");
+        try (FileDedupStore store = new FileDedupStore(journal, 100, TTL, clock::get)) {
+            assertTrue(store.claim("kept"));
+            assertTrue(store.claim("released"));
+            store.release("released");
+        }
+        try (FileDedupStore reopened = new FileDedupStore(journal, 100, TTL, clock::get)) {
+            assertFalse(reopened.claim("kept"));
+            assertTrue(reopened.claim("released"));
+        }
+        clock.addAndGet(TTL.toMillis() + 1);
+        try (FileDedupStore afterTtl = new FileDedupStore(journal, 100, TTL, clock::get)) {
+            assertEquals(0, afterTtl.stats().size());
+            assertTrue(afterTtl.claim("kept"));
+        }
+    }
+
+    @Test
+    @DisplayName("File store: entries are restored in expiry order, so an expired one is evicted behind a live one")
+    void fileStoreRestoresInExpiryOrder(@TempDir Path dir) throws IOException {
+        Path journal = dir.resolve("dedup.log");
+        long now = clock.get();
+        // written after a TTL change: the later line expires first
+        Files.write(journal, List.of((now + 120_000) + "\tlate", (now + 60_000) + "\tearly"));
+
+        try (FileDedupStore store = new FileDedupStore(journal, 100, TTL, clock::get)) {
+            clock.addAndGet(90_000);
+            assertTrue(store.claim("next"));
+
+            assertEquals(2, store.stats().size(), "early evicted, late and next kept");
+            assertFalse(store.claim("late"));
+        }
+    }
+
+    @Test
+    @DisplayName("Deduplicator: keyed on bucket/key and sequencer, falling back to eTag; unidentifiable records pass")
+    void dedupKey() {
+        NotificationDeduplicator dedup = new NotificationDeduplicator(new InMemoryDedupStore(100, TTL, clock::get));
+
+        assertTrue(dedup.claim(record("a.txt", "seq-1", "etag-1")));
+        assertFalse(dedup.claim(record("a.txt", "seq-1", "etag-2")));
+        assertTrue(dedup.claim(record("a.txt", "seq-2", "etag-1")), "a new sequencer is a new upload");
+        assertTrue(dedup.claim(record("b.txt", null, "etag-1")));
+        assertFalse(dedup.claim(record("b.txt", null, "etag-1")));
+        assertTrue(dedup.claim(record("c.txt", null, null)));
+        assertTrue(dedup.claim(record("c.txt", null, null)));
+        assertEquals(2, dedup.stats().hits());
+    }
+
+    @Test
+    @DisplayName("Function: a redelivered record is returned again but notified only once")
+    void redeliveryNotifiedOnce() {
+        when(provider.getIfAvailable()).thenReturn(notifier);
+        FileMetadata expected = new FileMetadata("docs/a.txt", 10L, "text/plain", "bucket", "etag-1", null);
+        when(notifier.notifyNewFileAsync(expected)).thenReturn(CompletableFuture.completedFuture(true));
+        MetaPingFunction function = dedupFunction();
+
+        String first = function.process(List.of(record("docs%2Fa.txt", "seq-1", "etag-1")));
+        String second = function.process(List.of(record("docs%2Fa.txt", "seq-1", "etag-1")));
+
+        assertEquals(first, second);
+        verify(notifier, times(1)).notifyNewFileAsync(expected);
+    }
+
+    @Test
+    @DisplayName("Function: a failed publish releases the claim, so the redelivery is notified")
+    void failedPublishIsRetried() {
+        when(provider.getIfAvailable()).thenReturn(notifier);
+        when(notifier.notifyNewFileAsync(any(FileMetadata.class)))
+                .thenReturn(CompletableFuture.completedFuture(false), CompletableFuture.completedFuture(true));
+        MetaPingFunction function = dedupFunction();
+
+        function.process(List.of(record("a.txt", "seq-1", null)));
+        function.process(List.of(record("a.txt", "seq-1", null)));
+        function.process(List.of(record("a.txt", "seq-1", null)));
+
+        verify(notifier, times(2)).notifyNewFileAsync(any(FileMetadata.class));
+    }
+
+    private MetaPingFunction dedupFunction() {
+        return function().notifier(provider)
+                .deduplicator(new NotificationDeduplicator(new InMemoryDedupStore(100, TTL, clock::get)))
+                .build();
+    }
+
+    private static S3ObjectRecord record(String key, String sequencer, String eTag) {
+        return new S3ObjectRecord("bucket", key, 10L, eTag, sequencer, "ObjectCreated:Put", null);
+    }
+}
@@ -0,0 +1,185 @@
+package com.iam.metaping.unit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iam.metaping.config.DigestProperties;
+import com.iam.metaping.model.FileMetadata;
+import com.iam.metaping.service.MetaNotifier;
+import com.iam.metaping.service.NotificationDigest;
+import com.iam.metaping.service.NotificationOutbox;
+import com.iam.metaping.service.SnsMessage;
+import com.iam.metaping.service.SnsPublisher;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Running unit tests for notification digests")
+class NotificationDigestTests {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Mock
+    SnsPublisher snsPublisher;
+
+    private final AtomicLong clock = new AtomicLong(1_736_936_130_000L);
+    private final List<SnsMessage> sent = new ArrayList<>();
+
+    @Test
+    @DisplayName("prefix: files are grouped per bucket and leading key segment, one digest per group")
+    void groupsByPrefix() throws Exception {
+        // Given
+        acceptAll();
+        NotificationDigest digest = digest(props("prefix", 1000));
+        digest.add(file("b", "photos/2025/a.jpg", 100));
+        digest.add(file("b", "photos/b.jpg", 50));
+        digest.add(file("b", "docs/c.pdf", 10));
+        digest.add(file("c", "photos/d.jpg", 1));
+        digest.add(file("b", "top.txt", -1));
+
+        // When
+        int accepted = digest.flushAll();
+
+        // Then
+        assertEquals(4, accepted);
+        assertEquals(0, digest.openWindows());
+        JsonNode photos = find("b", "photos/");
+        assertEquals(1, photos.path("schemaVersion").asInt());
+        assertEquals("prefix", photos.at("/digest/groupBy").asText());
+        assertEquals(2, photos.at("/digest/files").asInt());
+        assertEquals(150, photos.at("/digest/totalBytes").asLong());
+        assertEquals(List.of("photos/2025/a.jpg", "photos/b.jpg"), names(photos));
+        assertEquals(0, find("b", "").at("/digest/totalBytes").asLong(), "unknown sizes are not summed");
+        assertTrue(sent.stream().anyMatch(m -> m.subject().equals("Meta-Ping Digest: 2 files in photos/")));
+    }
+
+    @Test
+    @DisplayName("count window: a group is sent as soon as it reaches max-files")
+    void sendsFullWindowRightAway() throws Exception {
+        // Given
+        acceptAll();
+        NotificationDigest digest = digest(props("type", 2));
+
+        // When
+        digest.add(file("b", "a.txt", 1));
+        digest.add(file("b", "b.pdf", 1));
+        digest.add(file("b", "c.txt", 1));
+
+        // Then
+        assertEquals(1, sent.size());
+        JsonNode text = MAPPER.readTree(sent.get(0).message());
+        assertEquals("text/plain", text.at("/digest/key").asText());
+        assertTrue(text.at("/digest/bucket").isNull());
+        assertEquals(2, text.at("/digest/files").asInt());
+        assertEquals(1, digest.openWindows());
+    }
+
+    @Test
+    @DisplayName("time window: sent once open for the window; names are bounded and the rest counted")
+    void sendsExpiredWindow() throws Exception {
+        // Given
+        acceptAll();
+        DigestProperties props = props("bucket", 1000);
+        props.setMaxNames(1);
+        NotificationDigest digest = digest(props);
+        digest.add(file("b", "a.txt", 1));
+        clock.addAndGet(30_000);
+        digest.add(file("b", "b.txt", 1));
+
+        // When / Then
+        clock.addAndGet(29_999);
+        assertEquals(0, digest.flushExpired());
+        clock.addAndGet(1);
+        assertEquals(1, digest.flushExpired());
+        JsonNode bucket = MAPPER.readTree(sent.get(0).message());
+        assertEquals(List.of("a.txt"), names(bucket));
+        assertEquals(1, bucket.at("/digest/namesOmitted").asInt());
+        assertEquals("2025-01-15T10:15:30Z", bucket.at("/digest/windowStart").asText());
+        assertEquals("2025-01-15T10:16:30Z", bucket.at("/digest/windowEnd").asText());
+    }
+
+    @Test
+    @DisplayName("notifier: files are counted into digests instead of published; rejected digests go to the outbox")
+    void notifierUsesDigest() {
+        // Given
+        when(snsPublisher.publishBatch(anyList())).thenReturn(List.of(false));
+        NotificationOutbox outbox = mock(NotificationOutbox.class);
+        when(outbox.offer(any(SnsMessage.class))).thenReturn(true);
+        NotificationDigest digest = new NotificationDigest(props("prefix", 1000), snsPublisher, outbox, clock::get);
+        MetaNotifier notifier = new MetaNotifier(snsPublisher, outbox, digest, null, null);
+
+        // When
+        List<Boolean> results = notifier.notifyNewFiles(List.of(file("b", "x/1.txt", 1), file("b", "x/2.txt", 1)));
+        boolean single = notifier.notifyNewFile(file("b", "x/3.txt", 1));
+
+        // Then
+        assertEquals(List.of(true, true), results);
+        assertTrue(single);
+        verify(snsPublisher, never()).publish(anyString(), anyString());
+        verify(snsPublisher, never()).publishBatch(anyList());
+
+        digest.endInvocation();
+        verify(outbox).offer(argThat(m -> m.message().contains("\"files\":3")));
+    }
+
+    private void acceptAll() {
+        when(snsPublisher.publishBatch(anyList())).thenAnswer(invocation -> {
+            List<SnsMessage> messages = invocation.getArgument(0);
+            sent.addAll(messages);
+            return new ArrayList<>(Collections.nCopies(messages.size(), true));
+        });
+    }
+
+    private NotificationDigest digest(DigestProperties props) {
+        return new NotificationDigest(props, snsPublisher, NotificationOutbox.disabled(), clock::get);
+    }
+
+    private static DigestProperties props(String groupBy, int maxFiles) {
+        DigestProperties props = new DigestProperties();
+        props.setEnabled(true);
+        props.setGroupBy(groupBy);
+        props.setMaxFiles(maxFiles);
+        props.setWindow(Duration.ofMinutes(1));
+        return props;
+    }
+
+    private static FileMetadata file(String bucket, String name, long size) {
+        String type = name.endsWith(".txt") ? "text/plain" : "application/octet-stream";
+        return new FileMetadata(name, size, type, bucket, null, null);
+    }
+
+    private JsonNode find(String bucket, String key) throws Exception {
+        for (SnsMessage message : sent) {
+            JsonNode json = MAPPER.readTree(message.message());
+            if (bucket.equals(json.at("/digest/bucket").asText()) && key.equals(json.at("/digest/key").asText())) {
+                return json;
+            }
+        }
+        throw new AssertionError("no digest for " + bucket + "/" + key);
+    }
+
+    private static List<String> names(JsonNode digest) {
+        List<String> names = new ArrayList<>();
+        digest.at("/digest/names").forEach(name -> names.add(name.asText()));
+        return names;
+    }
+}
@@ -0,0 +1,293 @@
+package com.iam.metaping.unit;
+
+import com.iam.metaping.config.OutboxProperties;
+import com.iam.metaping.model.FileMetadata;
+import com.iam.metaping.service.MetaNotifier;
+import com.iam.metaping.service.NotificationOutbox;
+import com.iam.metaping.service.OutboxJournal;
+import com.iam.metaping.service.SnsMessage;
+import com.iam.metaping.service.SnsPublisher;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static com.iam.metaping.service.SnsPublisher.Delivery.ACCEPTED;
+import static com.iam.metaping.service.SnsPublisher.Delivery.REJECTED;
+import static com.iam.metaping.service.SnsPublisher.Delivery.UNAVAILABLE;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Running unit tests for the notification outbox")
+class NotificationOutboxTests {
+
+    private static final int SEGMENT_BYTES = 1024 * 1024;
+
+    @TempDir
+    Path dir;
+
+    @Mock
+    SnsPublisher snsPublisher;
+
+    @Test
+    @DisplayName("journal: entries are read in order and stay pending until committed")
+    void journalReadAndCommit() {
+        OutboxJournal journal = new OutboxJournal(dir, SEGMENT_BYTES, 4);
+        journal.append(new SnsMessage("Sub", "one"));
+        journal.append(new SnsMessage(null, "two"), 2);
+
+        OutboxJournal.Batch batch = journal.read(10);
+
+        assertEquals(List.of(new OutboxJournal.Entry(new SnsMessage("Sub", "one"), 0),
+                new OutboxJournal.Entry(new SnsMessage(null, "two"), 2)), batch.entries());
+        assertEquals(2, journal.pending());
+        assertEquals(batch.entries(), journal.read(10).entries(), "reading does not consume");
+
+        journal.commit(batch);
+        assertEquals(0, journal.pending());
+        assertTrue(journal.read(10).entries().isEmpty());
+    }
+
+    @Test
+    @DisplayName("journal: a routed message keeps its topic; messages without one stay on the configured topic")
+    void journalKeepsTopic() {
+        OutboxJournal journal = new OutboxJournal(dir, SEGMENT_BYTES, 4);
+        SnsMessage routed = new SnsMessage("Sub", "one", "arn:aws:sns:us-east-1:123456789012:images");
+        journal.append(routed, 3);
+        journal.append(new SnsMessage("Sub", "two"));
+
+        List<OutboxJournal.Entry> entries = journal.read(10).entries();
+
+        assertEquals(List.of(new OutboxJournal.Entry(routed, 3),
+                new OutboxJournal.Entry(new SnsMessage("Sub", "two"), 0)), entries);
+    }
+
+    @Test
+    @DisplayName("journal: full segments roll over, consumed ones are deleted and appends fail when all are full")
+    void journalRolloverAndCompaction() throws IOException {
+        OutboxJournal journal = new OutboxJournal(dir, SEGMENT_BYTES, 2);
+        String large = "x".repeat(300 * 1024); // three fit into one segment
+
+        for (int i = 0; i < 6; i++) {
+            assertTrue(journal.append(new SnsMessage("Sub", i + large)));
+        }
+        assertEquals(2, journal.segmentCount());
+        assertFalse(journal.append(new SnsMessage("Sub", large)), "journal full");
+
+        journal.commit(journal.read(4));
+        assertEquals(1, journal.segmentCount());
+        assertEquals(1, segmentFiles());
+        assertTrue(journal.append(new SnsMessage("Sub", large)), "space reclaimed");
+        assertEquals('4', journal.read(1).entries().get(0).message().message().charAt(0));
+    }
+
+    @Test
+    @DisplayName("journal: reopening recovers uncommitted entries from the checkpoint on")
+    void journalRecoversAfterRestart() {
+        OutboxJournal journal = new OutboxJournal(dir, SEGMENT_BYTES, 4);
+        journal.append(new SnsMessage("Sub", "delivered"));
+        journal.append(new SnsMessage("Sub", "pending"));
+        journal.commit(journal.read(1));
+        // no close(): the process dies
+
+        OutboxJournal reopened = new OutboxJournal(dir, SEGMENT_BYTES, 4);
+
+        assertEquals(1, reopened.pending());
+        assertEquals("pending", reopened.read(10).entries().get(0).message().message());
+    }
+
+    @Test
+    @DisplayName("journal: a record torn by a crash is discarded and overwritten")
+    void journalDiscardsTornRecord() throws IOException {
+        OutboxJournal journal = new OutboxJournal(dir, SEGMENT_BYTES, 4);
+        journal.append(new SnsMessage("Sub", "complete"));
+        journal.close();
+        int tornOffset = 8 + 8 + 1 + 4 + 3 + "complete".length();
+        try (RandomAccessFile segment = new RandomAccessFile(dir.resolve("00000000000000000000.seg").toFile(), "rw")) {
+            segment.seek(tornOffset);
+            segment.writeInt(64); // length written, body and checksum not
+        }
+
+        OutboxJournal reopened = new OutboxJournal(dir, SEGMENT_BYTES, 4);
+        reopened.append(new SnsMessage("Sub", "next"));
+
+        assertEquals(List.of("complete", "next"),
+                reopened.read(10).entries().stream().map(e -> e.message().message()).toList());
+    }
+
+    @Test
+    @DisplayName("drain: accepted batches are checkpointed, individually rejected entries are requeued")
+    void drainRequeuesRejectedEntries() {
+        OutboxJournal journal = new OutboxJournal(dir, SEGMENT_BYTES, 4);
+        NotificationOutbox outbox = new NotificationOutbox(journal, snsPublisher, false, 3);
+        outbox.offer(new SnsMessage("Sub", "a"));
+        outbox.offer(new SnsMessage("Sub", "b"));
+        when(snsPublisher.deliverBatch(anyList()))
+                .thenReturn(List.of(ACCEPTED, REJECTED))
+                .thenReturn(List.of(ACCEPTED));
+
+        assertEquals(2, outbox.drain());
+
+        assertEquals(0, outbox.pending());
+        verify(snsPublisher, times(2)).deliverBatch(anyList());
+    }
+
+    @Test
+    @DisplayName("drain: SNS unavailable -> batch kept for the next run; entries failing too often are dropped")
+    void drainKeepsBatchDuringOutage() {
+        OutboxJournal journal = new OutboxJournal(dir, SEGMENT_BYTES, 4);
+        NotificationOutbox outbox = new NotificationOutbox(journal, snsPublisher, false, 1);
+        outbox.offer(new SnsMessage("Sub", "a"));
+        outbox.offer(new SnsMessage("Sub", "poison"));
+        when(snsPublisher.deliverBatch(anyList()))
+                .thenReturn(List.of(UNAVAILABLE, UNAVAILABLE))
+                .thenReturn(List.of(ACCEPTED, REJECTED));
+
+        assertEquals(0, outbox.drain());
+        assertEquals(2, outbox.pending(), "an outage does not count as an attempt");
+
+        assertEquals(1, outbox.drain());
+        assertEquals(0, outbox.pending(), "max attempts 1: the rejected entry is dropped");
+    }
+
+    @Test
+    @DisplayName("drain: a head batch SNS always rejects is dropped after max attempts and does not block later entries")
+    void drainSkipsPermanentlyRejectedBatch() {
+        OutboxJournal journal = new OutboxJournal(dir, SEGMENT_BYTES, 4);
+        NotificationOutbox outbox = new NotificationOutbox(journal, snsPublisher, false, 2);
+        for (int i = 0; i < SnsPublisher.MAX_BATCH_ENTRIES; i++) {
+            outbox.offer(new SnsMessage("Sub", "poison-" + i, "arn:aws:sns:us-east-1:123456789012:deleted"));
+        }
+        outbox.offer(new SnsMessage("Sub", "a"));
+        outbox.offer(new SnsMessage("Sub", "b"));
+        List<String> delivered = new ArrayList<>();
+        when(snsPublisher.deliverBatch(anyList())).thenAnswer(invocation -> {
+            List<SnsMessage> messages = invocation.getArgument(0);
+            List<SnsPublisher.Delivery> results = new ArrayList<>();
+            for (SnsMessage message : messages) {
+                boolean poison = message.message().startsWith("poison");
+                if (!poison) {
+                    delivered.add(message.message());
+                }
+                results.add(poison ? REJECTED : ACCEPTED);
+            }
+            return results;
+        });
+
+        assertEquals(2, outbox.drain());
+
+        assertEquals(List.of("a", "b"), delivered);
+        assertEquals(0, outbox.pending(), "poison entries dropped after 2 attempts");
+    }
+
+    @Test
+    @DisplayName("drain: full journal -> mixed batch is still checkpointed, accepted entries are published once")
+    void drainCommitsMixedBatchWhenJournalIsFull() {
+        OutboxJournal journal = new OutboxJournal(dir, SEGMENT_BYTES, 2);
+        NotificationOutbox outbox = new NotificationOutbox(journal, snsPublisher, false, 3);
+        String large = "x".repeat(300 * 1024); // three fit into one segment
+        for (int i = 0; i < 6; i++) {
+            assertTrue(outbox.offer(new SnsMessage("Sub", i + large)));
+        }
+        assertFalse(outbox.offer(new SnsMessage("Sub", large)), "journal full");
+        Map<Character, Integer> published = new TreeMap<>();
+        when(snsPublisher.deliverBatch(anyList())).thenAnswer(invocation -> {
+            List<SnsMessage> messages = invocation.getArgument(0);
+            List<SnsPublisher.Delivery> results = new ArrayList<>();
+            for (SnsMessage message : messages) {
+                char id = message.message().charAt(0);
+                boolean accepted = (id - '0') % 2 == 0;
+                if (accepted) {
+                    published.merge(id, 1, Integer::sum);
+                }
+                results.add(accepted ? ACCEPTED : REJECTED);
+            }
+            return results;
+        });
+
+        assertEquals(3, outbox.drain());
+        assertEquals(0, outbox.drain());
+
+        assertEquals(Map.of('0', 1, '2', 1, '4', 1), published);
+        assertEquals(0, outbox.pending(), "rejected entries requeued once the batch freed space, dropped after 3 attempts");
+        assertTrue(outbox.offer(new SnsMessage("Sub", large)), "space reclaimed");
+    }
+
+    @Test
+    @DisplayName("enabled outbox without an SNS topic stays off instead of journaling what nothing drains")
+    void outboxRequiresConfiguredPublisher() {
+        OutboxProperties props = new OutboxProperties();
+        props.setEnabled(true);
+        props.setDirectory(dir.toString());
+
+        NotificationOutbox outbox = new NotificationOutbox(props, snsPublisher);
+
+        assertFalse(outbox.isEnabled());
+        assertFalse(outbox.offer(new SnsMessage("Sub", "a")));
+    }
+
+    @Test
+    @DisplayName("notifier: failed publish is journaled and reported as sent; disabled outbox keeps false")
+    void notifierFallsBackToOutbox() {
+        NotificationOutbox outbox = new NotificationOutbox(new OutboxJournal(dir, SEGMENT_BYTES, 4), snsPublisher, false, 3);
+        when(snsPublisher.publish(anyString(), anyString())).thenReturn(false);
+        when(snsPublisher.publishBatch(anyList())).thenReturn(List.of(true, false));
+
+        assertTrue(new MetaNotifier(snsPublisher, outbox, null, null, null).notifyNewFile(metadata("a.txt")));
+        assertEquals(List.of(true, true),
+                new MetaNotifier(snsPublisher, outbox, null, null, null).notifyNewFiles(List.of(metadata("b.txt"), metadata("c.txt"))));
+        assertEquals(2, outbox.pending());
+
+        assertFalse(new MetaNotifier(snsPublisher, null, null, null, null).notifyNewFile(metadata("d.txt")));
+    }
+
+    @Test
+    @DisplayName("notifier: deferred mode journals without publishing inline")
+    void notifierDefersToOutbox() {
+        NotificationOutbox outbox = new NotificationOutbox(new OutboxJournal(dir, SEGMENT_BYTES, 4), snsPublisher, true, 3);
+        MetaNotifier notifier = new MetaNotifier(snsPublisher, outbox, null, null, null);
+
+        assertTrue(notifier.notifyNewFile(metadata("a.txt")));
+        assertTrue(notifier.notifyNewFileAsync(metadata("b.txt")).join());
+        List<FileMetadata> batch = new ArrayList<>(Collections.nCopies(3, metadata("c.txt")));
+        batch.add(null);
+        assertEquals(List.of(true, true, true, false), notifier.notifyNewFiles(batch));
+
+        assertEquals(5, outbox.pending());
+        verify(snsPublisher, never()).publish(any(), any());
+        verify(snsPublisher, never()).publishBatch(anyList());
+        verify(snsPublisher, never()).deliverBatch(anyList());
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.toString().endsWith(".seg")).count();
+        }
+    }
+
+    private static FileMetadata metadata(String key) {
+        return new FileMetadata(key, 10L, "text/plain");
+    }
+}
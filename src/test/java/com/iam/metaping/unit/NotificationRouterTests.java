@@ -0,0 +1,138 @@
+package com.iam.metaping.unit;
+
+import com.iam.metaping.config.RoutingProperties;
+import com.iam.metaping.model.FileMetadata;
+import com.iam.metaping.service.MetaNotifier;
+import com.iam.metaping.service.NotificationRouter;
+import com.iam.metaping.service.SnsMessage;
+import com.iam.metaping.service.SnsPublisher;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Running unit tests for notification routing")
+class NotificationRouterTests {
+
+    private static final String IMAGES = "arn:aws:sns:us-east-1:123456789012:images";
+    private static final String IMPORTS = "arn:aws:sns:us-east-1:123456789012:imports";
+    private static final String AUDIT = "arn:aws:sns:us-east-1:123456789012:audit";
+    private static final String UPLOADS = "arn:aws:sns:us-east-1:123456789012:uploads";
+
+    @Mock
+    SnsPublisher snsPublisher;
+
+    @Test
+    @DisplayName("rules: prefix, suffix, size and type must all match; nested prefixes are all checked")
+    void matchesConditions() {
+        // Given
+        RoutingProperties props = props(
+                rule("photos/", null, null, null, List.of("image/*"), IMAGES),
+                rule("photos/raw/", null, null, DataSize.ofMegabytes(10), List.of(), AUDIT),
+                rule(null, ".csv", DataSize.ofBytes(1), DataSize.ofMegabytes(100), List.of("text/csv"), IMPORTS));
+        NotificationRouter router = new NotificationRouter(props);
+
+        // When / Then
+        assertEquals(List.of(IMAGES), router.route(file("b", "photos/a.png", 10, "image/png")));
+        assertEquals(List.of(IMAGES, AUDIT), router.route(file("b", "photos/raw/a.jpg", 10, "IMAGE/JPEG")));
+        assertEquals(List.of(AUDIT), router.route(file("b", "photos/raw/a.pdf", 10, "application/pdf")));
+        assertEquals(List.of(IMPORTS), router.route(file("b", "in/x.csv", 5, "text/csv")));
+        assertEquals(List.of(), router.route(file("b", "in/x.csv", 0, "text/csv")), "below min-size");
+        assertEquals(List.of(), router.route(file("b", "in/x.csv", -1, "text/csv")), "unknown size fails a bound");
+        assertEquals(List.of(), router.route(file("b", "photo.png", 1, "image/png")), "prefix is not a substring");
+    }
+
+    @Test
+    @DisplayName("rules: bucket-bound rules only see their bucket; topics are listed once in configuration order")
+    void bucketRulesAndDistinctTopics() {
+        // Given
+        RoutingProperties.Rule archive = rule(null, null, null, null, List.of(), AUDIT, IMAGES);
+        archive.setBucket("archive");
+        RoutingProperties props = props(rule(null, ".png", null, null, List.of(), IMAGES), archive);
+        NotificationRouter router = new NotificationRouter(props);
+
+        // When / Then
+        assertEquals(List.of(IMAGES, AUDIT), router.route(file("archive", "a.png", 1, "image/png")));
+        assertEquals(List.of(IMAGES), router.route(file("other", "a.png", 1, "image/png")));
+    }
+
+    @Test
+    @DisplayName("fallback: unmatched files go to the default topics; without them, or by a rule without topics, they are dropped")
+    void defaultTopicsAndDrops() {
+        // Given
+        RoutingProperties props = props(rule("tmp/", null, null, null, List.of()));
+        props.setDefaultTopics(List.of(UPLOADS));
+        NotificationRouter withDefault = new NotificationRouter(props);
+        props.setDefaultTopics(List.of());
+        NotificationRouter withoutDefault = new NotificationRouter(props);
+
+        // When / Then
+        assertEquals(List.of(UPLOADS), withDefault.route(file("b", "docs/a.txt", 1, "text/plain")));
+        assertEquals(List.of(), withDefault.route(file("b", "tmp/a.txt", 1, "text/plain")), "matched, no topics");
+        assertEquals(List.of(), withoutDefault.route(file("b", "docs/a.txt", 1, "text/plain")));
+        assertFalse(NotificationRouter.disabled().isEnabled());
+    }
+
+    @Test
+    @DisplayName("notifier: one message per routed topic; a file is sent once all its topics took it, dropped files count as sent")
+    void notifierPublishesPerTopic() {
+        // Given
+        RoutingProperties props = props(
+                rule(null, ".png", null, null, List.of(), IMAGES),
+                rule(null, ".csv", null, null, List.of(), IMPORTS, AUDIT));
+        MetaNotifier notifier = new MetaNotifier(snsPublisher, null, null, new NotificationRouter(props), null);
+        when(snsPublisher.publishBatch(anyList())).thenReturn(List.of(true, true, false));
+
+        // When
+        List<Boolean> results = notifier.notifyNewFiles(List.of(
+                file("b", "a.png", 1, "image/png"),
+                file("b", "b.csv", 1, "text/csv"),
+                file("b", "c.txt", 1, "text/plain")));
+
+        // Then
+        assertEquals(List.of(true, false, true), results);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<SnsMessage>> captor = ArgumentCaptor.forClass(List.class);
+        verify(snsPublisher).publishBatch(captor.capture());
+        List<SnsMessage> messages = captor.getValue();
+        assertEquals(List.of(IMAGES, IMPORTS, AUDIT), messages.stream().map(SnsMessage::topicArn).toList());
+        assertTrue(messages.get(1).message().contains("b.csv"));
+        assertEquals(messages.get(1).message(), messages.get(2).message());
+    }
+
+    private static RoutingProperties props(RoutingProperties.Rule... rules) {
+        RoutingProperties props = new RoutingProperties();
+        props.setEnabled(true);
+        props.setRules(List.of(rules));
+        return props;
+    }
+
+    private static RoutingProperties.Rule rule(String prefix, String suffix, DataSize minSize, DataSize maxSize,
+                                               List<String> types, String... topics) {
+        RoutingProperties.Rule rule = new RoutingProperties.Rule();
+        rule.setPrefix(prefix);
+        rule.setSuffix(suffix);
+        rule.setMinSize(minSize);
+        rule.setMaxSize(maxSize);
+        rule.setTypes(types);
+        rule.setTopics(List.of(topics));
+        return rule;
+    }
+
+    private static FileMetadata file(String bucket, String name, long size, String type) {
+        return new FileMetadata(name, size, type, bucket, null, null);
+    }
+}
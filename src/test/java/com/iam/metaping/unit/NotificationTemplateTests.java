@@ -0,0 +1,92 @@
+package com.iam.metaping.unit;
+
+import com.iam.metaping.config.TemplateProperties;
+import com.iam.metaping.model.FileMetadata;
+import com.iam.metaping.service.MetadataJsonWriter;
+import com.iam.metaping.service.NotificationTemplate;
+import com.iam.metaping.service.NotificationTemplates;
+import com.iam.metaping.service.SnsMessage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Running unit tests for notification templates")
+class NotificationTemplateTests {
+
+    private static final String IMAGES = "arn:aws:sns:us-east-1:123456789012:images";
+    private static final FileMetadata FILE = new FileMetadata("photos/a \"b\".png", 1_572_864L, "image/png", "bucket",
+            "etag", "2025-01-15T10:15:30.000Z");
+
+    @Test
+    @DisplayName("placeholders: fields, humanized size, JSON literals and escaped braces are rendered")
+    void rendersPlaceholders() {
+        assertEquals("bucket/photos/a \"b\".png (1.5 MB, image/png, 1572864 bytes)",
+                NotificationTemplate.compile("{bucket}/{key} ({size:human}, {type}, {size} bytes)").render(FILE));
+        assertEquals("{\"k\":\"photos/a \\\"b\\\".png\",\"t\":null}",
+                NotificationTemplate.compile("{{\"k\":{key:json},\"t\":{eTag:json}}")
+                        .render(new FileMetadata("photos/a \"b\".png", 1, "image/png")));
+        assertEquals("2025-01-15T10:15:30.000Z etag", NotificationTemplate.compile("{eventTime} {eTag}").render(FILE));
+        assertEquals("{unknown} {json:json}", NotificationTemplate.compile("{unknown} {json:json}").render(FILE),
+                "unknown placeholders are kept as text");
+    }
+
+    @Test
+    @DisplayName("size: binary units with one decimal, rounding into the next unit; unknown sizes")
+    void humanizesSizes() {
+        assertEquals("0 B", render(0));
+        assertEquals("1023 B", render(1023));
+        assertEquals("1 KB", render(1024));
+        assertEquals("1.5 KB", render(1536));
+        assertEquals("1 MB", render(1024 * 1024 - 1));
+        assertEquals("5 TB", render(5L * 1024 * 1024 * 1024 * 1024));
+        assertEquals("unknown", render(-1));
+    }
+
+    @Test
+    @DisplayName("defaults: same subject and JSON document as before; constant templates are not copied")
+    void defaultsMatchJsonDocument() {
+        SnsMessage message = NotificationTemplates.withDefaults().message(FILE, null);
+
+        assertEquals("Meta-Ping Notification: New File Uploaded", message.subject());
+        assertEquals(MetadataJsonWriter.writeNotification(FILE), message.message());
+        assertNull(message.topicArn());
+        NotificationTemplate constant = NotificationTemplate.compile("fixed");
+        assertTrue(constant.isConstant());
+        assertSame(constant.render(FILE), constant.render(FILE));
+    }
+
+    @Test
+    @DisplayName("topics: a topic's templates override the defaults; subjects are SNS-safe, empty ones are omitted")
+    void topicTemplates() {
+        // Given
+        TemplateProperties props = new TemplateProperties();
+        props.setSubject("New: {key}");
+        TemplateProperties.Template images = new TemplateProperties.Template();
+        images.setSubject("");
+        images.setBody("{bucket}/{key}");
+        props.getTopics().put(IMAGES, images);
+        NotificationTemplates templates = new NotificationTemplates(props);
+
+        // When
+        SnsMessage routed = templates.message(FILE, IMAGES);
+        SnsMessage other = templates.message(new FileMetadata("dir/été.txt", 1, "text/plain"), "other");
+
+        // Then
+        assertTrue(templates.overrides(IMAGES));
+        assertFalse(templates.overrides("other"));
+        assertNull(routed.subject());
+        assertEquals("bucket/photos/a \"b\".png", routed.message());
+        assertEquals(IMAGES, routed.topicArn());
+        assertEquals("New: dir/?t?.txt", other.subject());
+        assertTrue(other.message().startsWith("{\"schemaVersion\":1"));
+    }
+
+    private static String render(long size) {
+        return NotificationTemplate.compile("{size:human}").render(new FileMetadata("a", size, "text/plain"));
+    }
+}
@@ -0,0 +1,148 @@
+package com.iam.metaping.unit;
+
+import com.iam.metaping.model.ObjectDetails;
+import com.iam.metaping.model.S3ObjectRecord;
+import com.iam.metaping.service.ObjectMetadataEnricher;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Running unit tests for HeadObject enrichment")
+class ObjectMetadataEnricherTests {
+
+    private final S3AsyncClient s3 = mock(S3AsyncClient.class);
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    @DisplayName("enrich: all lookups start before waiting; details per record in order, decoded keys, STANDARD by default")
+    void enrichesBatch() {
+        // Given
+        List<CompletableFuture<HeadObjectResponse>> pending = new ArrayList<>();
+        when(s3.headObject(any(HeadObjectRequest.class))).thenAnswer(invocation -> {
+            CompletableFuture<HeadObjectResponse> response = new CompletableFuture<>();
+            pending.add(response);
+            if (pending.size() == 2) { // both requests are out: answer them
+                pending.get(0).complete(HeadObjectResponse.builder().contentType("text/csv; charset=UTF-8")
+                        .contentLength(42L).metadata(Map.of("source", "erp", "batch", "7")).build());
+                pending.get(1).complete(HeadObjectResponse.builder().contentType("binary/octet-stream")
+                        .storageClass("GLACIER_IR").build());
+            }
+            return response;
+        });
+        ObjectMetadataEnricher enricher = enricher(10, Duration.ofSeconds(1));
+
+        // When
+        List<ObjectDetails> details = enricher.enrich(List.of(
+                record("exports/q3+report.dat", "e1"),
+                new S3ObjectRecord("bucket", null, -1L, null, null, "ObjectCreated:Put", null),
+                record("archive/old.bin", "e2")));
+
+        // Then
+        ArgumentCaptor<HeadObjectRequest> requests = ArgumentCaptor.forClass(HeadObjectRequest.class);
+        verify(s3, times(2)).headObject(requests.capture());
+        assertEquals("exports/q3 report.dat", requests.getAllValues().get(0).key());
+        assertEquals("bucket", requests.getAllValues().get(0).bucket());
+        assertEquals(new ObjectDetails("text/csv; charset=UTF-8", 42L, "STANDARD", Map.of("batch", "7", "source", "erp")),
+                details.get(0));
+        assertEquals(List.of("batch", "source"), List.copyOf(details.get(0).userMetadata().keySet()));
+        assertEquals("text/csv", details.get(0).mediaType());
+        assertNull(details.get(1), "record without an object");
+        assertEquals("GLACIER_IR", details.get(2).storageClass());
+        assertNull(details.get(2).mediaType(), "S3's generic default says nothing about the file");
+    }
+
+    @Test
+    @DisplayName("cache: keyed on bucket/key/eTag, expires after the TTL, evicts the least recently used entry")
+    void cachesLookups() {
+        // Given
+        when(s3.headObject(any(HeadObjectRequest.class)))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(
+                        HeadObjectResponse.builder().contentType("image/png").build()));
+        ObjectMetadataEnricher enricher = enricher(2, Duration.ofSeconds(1));
+
+        // When / Then
+        enricher.enrich(List.of(record("a.png", "v1"), record("a.png", "v1")));
+        assertEquals(1, enricher.cacheStats().misses(), "second record shares the lookup");
+        enricher.enrich(List.of(record("a.png", "v2")));
+        assertEquals(2, enricher.cacheStats().misses(), "a new eTag is a new object version");
+
+        enricher.enrich(List.of(record("a.png", "v1"), record("b.png", "v1")));
+        assertEquals(3, enricher.cacheStats().misses());
+        enricher.enrich(List.of(record("a.png", "v1")));
+        assertEquals(3, enricher.cacheStats().misses(), "recently used entry kept");
+        enricher.enrich(List.of(record("a.png", "v2")));
+        assertEquals(4, enricher.cacheStats().misses(), "least recently used entry was evicted");
+
+        clock.addAndGet(Duration.ofMinutes(11).toNanos());
+        enricher.enrich(List.of(record("a.png", "v1")));
+        assertEquals(5, enricher.cacheStats().misses(), "expired after the TTL");
+        assertEquals(2, enricher.cacheStats().size());
+        assertEquals(3, enricher.cacheStats().hits());
+    }
+
+    @Test
+    @DisplayName("degradation: late lookups yield null but are cached when they finish; failures are not cached")
+    void degradesOnTimeoutAndFailure() {
+        // Given
+        CompletableFuture<HeadObjectResponse> slow = new CompletableFuture<>();
+        when(s3.headObject(any(HeadObjectRequest.class)))
+                .thenReturn(slow)
+                .thenReturn(CompletableFuture.failedFuture(NoSuchKeyException.builder().message("gone").build()))
+                .thenReturn(CompletableFuture.completedFuture(HeadObjectResponse.builder().build()));
+        ObjectMetadataEnricher enricher = enricher(10, Duration.ofMillis(20));
+
+        // When
+        List<ObjectDetails> timedOut = enricher.enrich(List.of(record("slow.csv", "e1")));
+        slow.complete(HeadObjectResponse.builder().contentType("text/csv").build());
+        List<ObjectDetails> late = enricher.enrich(List.of(record("slow.csv", "e1")));
+        List<ObjectDetails> failed = enricher.enrich(List.of(record("gone.csv", "e1")));
+        List<ObjectDetails> retried = enricher.enrich(List.of(record("gone.csv", "e1")));
+
+        // Then
+        assertNull(timedOut.get(0));
+        assertEquals("text/csv", late.get(0).mediaType());
+        assertNull(failed.get(0));
+        assertEquals("STANDARD", retried.get(0).storageClass());
+        verify(s3, times(3)).headObject(any(HeadObjectRequest.class));
+    }
+
+    @Test
+    @DisplayName("disabled: no lookups, one null per record")
+    void disabled() {
+        ObjectMetadataEnricher enricher = ObjectMetadataEnricher.disabled();
+
+        List<ObjectDetails> details = enricher.enrich(List.of(record("a.png", "e1")));
+
+        assertFalse(enricher.isEnabled());
+        assertEquals(1, details.size());
+        assertNull(details.get(0));
+    }
+
+    private ObjectMetadataEnricher enricher(int cacheSize, Duration timeout) {
+        return new ObjectMetadataEnricher(s3, cacheSize, Duration.ofMinutes(10), timeout, clock::get);
+    }
+
+    private static S3ObjectRecord record(String key, String eTag) {
+        return new S3ObjectRecord("bucket", key, 10L, eTag, null, "ObjectCreated:Put", null);
+    }
+}
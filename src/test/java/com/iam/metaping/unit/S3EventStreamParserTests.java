@@ -0,0 +1,101 @@
+package com.iam.metaping.unit;
+
+import com.iam.metaping.MetaPingStreamHandler;
+import com.iam.metaping.function.MetaPingFunction;
+import com.iam.metaping.model.S3ObjectRecord;
+import com.iam.metaping.service.S3EventStreamParser;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static com.iam.metaping.unit.helpers.MetaPingFunctionBuilder.function;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Running unit tests for S3EventStreamParser and MetaPingStreamHandler")
+class S3EventStreamParserTests {
+
+    @Test
+    @DisplayName("parse: canned S3 event yields one flat record with the fields we read")
+    void parsesCannedEvent() throws IOException {
+        try (InputStream input = getClass().getResourceAsStream("/events/s3-object-created.json")) {
+            List<S3ObjectRecord> records = S3EventStreamParser.parse(input);
+
+            assertEquals(List.of(new S3ObjectRecord("meta-ping-bucket", "smoke-test/test+file.pdf", 1024L,
+                    "d41d8cd98f00b204e9800998ecf8427e", "0055AED6DCD90281E5", "ObjectCreated:Put",
+                    "2025-01-15T10:15:30.000Z", "C3D13FE58DE4C810")), records);
+        }
+    }
+
+    @Test
+    @DisplayName("parse: batched event keeps record order; unknown and nested fields are skipped")
+    void parsesBatchInOrder() throws IOException {
+        String json = """
+                {"Records":[
+                  {"eventName":"ObjectCreated:Put","glacierEventData":{"restoreEventData":{"x":[1,2,{"y":null}]}},
+                   "s3":{"configurationId":"c","object":{"key":"a.txt","size":1,"versionId":"v"},"bucket":{"name":"b1","arn":"x"}}},
+                  {"s3":{"bucket":{"name":"b2"},"object":{"key":"b.pdf","size":"2","eTag":"e","sequencer":"s"}},"eventName":"ObjectCreated:Copy","eventTime":"t"}
+                ],"extra":{"ignored":true}}
+                """;
+
+        List<S3ObjectRecord> records = parse(json);
+
+        assertEquals(List.of(
+                new S3ObjectRecord("b1", "a.txt", 1L, null, null, "ObjectCreated:Put", null),
+                new S3ObjectRecord("b2", "b.pdf", 2L, "e", "s", "ObjectCreated:Copy", "t")), records);
+    }
+
+    @Test
+    @DisplayName("parse: records without s3 are dropped, records without object are kept as invalid")
+    void missingEntities() throws IOException {
+        List<S3ObjectRecord> records = parse("""
+                {"Records":[null,{"eventName":"x"},{"s3":{"bucket":{"name":"b"}}},{"s3":{"object":{"key":null}}}]}
+                """);
+
+        assertEquals(2, records.size());
+        assertEquals(new S3ObjectRecord("b", null, -1L, null, null, null, null), records.get(0));
+        assertEquals(new S3ObjectRecord(null, "", -1L, null, null, null, null), records.get(1));
+    }
+
+    @Test
+    @DisplayName("parse: empty payloads and payloads without Records yield no records")
+    void noRecords() throws IOException {
+        assertTrue(parse("").isEmpty());
+        assertTrue(parse("null").isEmpty());
+        assertTrue(parse("{}").isEmpty());
+        assertTrue(parse("{\"Records\":[]}").isEmpty());
+    }
+
+    @Test
+    @DisplayName("parse: malformed JSON fails with IOException")
+    void malformedJson() {
+        assertThrows(IOException.class, () -> parse("{\"Records\":[{\"s3\":"));
+    }
+
+    @Test
+    @DisplayName("handler: streams the canned event through MetaPingFunction.process")
+    void handlerWritesFunctionResult() throws IOException {
+        MetaPingStreamHandler handler = new MetaPingStreamHandler(function().build());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (InputStream input = getClass().getResourceAsStream("/events/s3-object-created.json")) {
+            handler.handleRequest(input, output, null);
+        }
+
+        assertEquals("{\"schemaVersion\":1,\"records\":[{\"bucket\":\"meta-ping-bucket\",\"key\":\"smoke-test/test file.pdf\","
+                        + "\"size\":1024,\"type\":\"application/pdf\",\"eTag\":\"d41d8cd98f00b204e9800998ecf8427e\","
+                        + "\"eventTime\":\"2025-01-15T10:15:30.000Z\"}]}",
+                output.toString(StandardCharsets.UTF_8));
+    }
+
+    private static List<S3ObjectRecord> parse(String json) throws IOException {
+        return S3EventStreamParser.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,67 @@
+package com.iam.metaping.unit;
+
+import com.iam.metaping.service.S3KeyDecoder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+@DisplayName("Running unit tests for S3KeyDecoder")
+class S3KeyDecoderTests {
+
+    @Test
+    @DisplayName("decode: keys without escapes are returned as the same instance")
+    void plainKeyIsNotCopied() {
+        String key = "uploads/2025/report-final.pdf";
+        assertSame(key, S3KeyDecoder.decode(key));
+    }
+
+    @Test
+    @DisplayName("decode: matches URLDecoder for '+', ASCII and multi-byte UTF-8 escapes")
+    void matchesUrlDecoder() {
+        String[] keys = {
+                "folder%2Ftest%20file.txt",
+                "a+b%2Bc",
+                "%E2%82%AC+price+list.csv",
+                "caf%C3%A9/%F0%9F%98%80.png",
+                "mixed%2fcase%2Ehex"
+        };
+        for (String key : keys) {
+            assertEquals(URLDecoder.decode(key.replace('+', ' '), StandardCharsets.UTF_8), S3KeyDecoder.decode(key), key);
+        }
+    }
+
+    @Test
+    @DisplayName("decode: malformed escapes are kept literally instead of throwing")
+    void malformedEscapesAreKept() {
+        assertEquals("100% sure", S3KeyDecoder.decode("100%+sure"));
+        assertEquals("bad%zz name", S3KeyDecoder.decode("bad%zz+name"));
+        assertEquals("tail%4", S3KeyDecoder.decode("tail%4"));
+        assertEquals("tail%", S3KeyDecoder.decode("tail%"));
+    }
+
+    @Test
+    @DisplayName("decode: null -> empty string")
+    void nullKey() {
+        assertEquals("", S3KeyDecoder.decode(null));
+    }
+
+    @Test
+    @DisplayName("offsets: name start after the last '/', extension start after the last dot of the name")
+    void offsets() {
+        String key = "images/2025/photo.tar.gz";
+        assertEquals(12, S3KeyDecoder.nameStart(key));
+        assertEquals("photo.tar.gz", key.substring(S3KeyDecoder.nameStart(key)));
+        assertEquals("gz", key.substring(S3KeyDecoder.extensionStart(key)));
+
+        assertEquals(0, S3KeyDecoder.nameStart("README"));
+        assertEquals(-1, S3KeyDecoder.extensionStart("README"));
+        assertEquals(-1, S3KeyDecoder.extensionStart("config/.env"));
+        assertEquals(-1, S3KeyDecoder.extensionStart("dir.d/file"));
+        assertEquals(-1, S3KeyDecoder.extensionStart("trailing."));
+    }
+}
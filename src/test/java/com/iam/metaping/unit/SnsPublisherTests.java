@@ -1,15 +1,31 @@
 package com.iam.metaping.unit;
 
 import com.iam.metaping.config.SnsProperties;
+import com.iam.metaping.service.CircuitBreaker;
+import com.iam.metaping.service.InvocationDeadline;
+import com.iam.metaping.service.SnsMessage;
 import com.iam.metaping.service.SnsPublisher;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
 import software.amazon.awssdk.services.sns.SnsClient;
+import software.amazon.awssdk.services.sns.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequest;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequestEntry;
+import software.amazon.awssdk.services.sns.model.PublishBatchResponse;
+import software.amazon.awssdk.services.sns.model.PublishBatchResultEntry;
 import software.amazon.awssdk.services.sns.model.PublishRequest;
 import software.amazon.awssdk.services.sns.model.PublishResponse;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -193,4 +209,445 @@ class SnsPublisherTests {
         // When / Then
         assertFalse(publisher.publish("S", "Body"));
     }
+
+    @Test
+    @DisplayName("publishBatch: 23 messages -> chunked into 10/10/3 PublishBatch requests")
+    void publishBatchChunksByEntryCount() {
+        // Given
+        SnsPublisher publisher = new SnsPublisher(configuredProps());
+        SnsClient sns = mock(SnsClient.class);
+        ReflectionTestUtils.setField(publisher, "snsClient", sns);
+        when(sns.publishBatch(any(PublishBatchRequest.class))).thenAnswer(inv -> allSuccessful(inv.getArgument(0)));
+
+        List<SnsMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 23; i++) {
+            messages.add(new SnsMessage("Sub", "Body " + i));
+        }
+
+        // When
+        List<Boolean> results = publisher.publishBatch(messages);
+
+        // Then
+        assertEquals(23, results.size());
+        assertTrue(results.stream().allMatch(Boolean.TRUE::equals));
+        ArgumentCaptor<PublishBatchRequest> captor = ArgumentCaptor.forClass(PublishBatchRequest.class);
+        verify(sns, times(3)).publishBatch(captor.capture());
+        List<PublishBatchRequest> requests = captor.getAllValues();
+        assertEquals(10, requests.get(0).publishBatchRequestEntries().size());
+        assertEquals(10, requests.get(1).publishBatchRequestEntries().size());
+        assertEquals(3, requests.get(2).publishBatchRequestEntries().size());
+        assertEquals("arn:aws:sns:eu-west-1:123456789012:test-topic", requests.get(0).topicArn());
+        verify(sns, never()).publish(any(PublishRequest.class));
+    }
+
+    @Test
+    @DisplayName("publishBatch: messages with their own topic are batched per topic; entry ids keep input positions")
+    void publishBatchGroupsByTopic() {
+        // Given
+        SnsPublisher publisher = new SnsPublisher(configuredProps());
+        SnsClient sns = mock(SnsClient.class);
+        ReflectionTestUtils.setField(publisher, "snsClient", sns);
+        when(sns.publishBatch(any(PublishBatchRequest.class))).thenAnswer(inv -> allSuccessful(inv.getArgument(0)));
+        String images = "arn:aws:sns:eu-west-1:123456789012:images";
+
+        List<SnsMessage> messages = List.of(
+                new SnsMessage("Sub", "a", images),
+                new SnsMessage("Sub", "b"),
+                new SnsMessage("Sub", "c", images));
+
+        // When
+        List<Boolean> results = publisher.publishBatch(messages);
+
+        // Then
+        assertEquals(List.of(true, true, true), results);
+        ArgumentCaptor<PublishBatchRequest> captor = ArgumentCaptor.forClass(PublishBatchRequest.class);
+        verify(sns, times(2)).publishBatch(captor.capture());
+        PublishBatchRequest first = captor.getAllValues().get(0);
+        PublishBatchRequest second = captor.getAllValues().get(1);
+        assertEquals(images, first.topicArn());
+        assertEquals(List.of("0", "2"), first.publishBatchRequestEntries().stream().map(PublishBatchRequestEntry::id).toList());
+        assertEquals("arn:aws:sns:eu-west-1:123456789012:test-topic", second.topicArn());
+        assertEquals(List.of("1"), second.publishBatchRequestEntries().stream().map(PublishBatchRequestEntry::id).toList());
+    }
+
+    @Test
+    @DisplayName("publishBatch: requests are split before exceeding the 256 KB payload limit")
+    void publishBatchChunksByPayloadSize() {
+        // Given: three ~100 KB messages -> at most two fit into one request
+        SnsPublisher publisher = new SnsPublisher(configuredProps());
+        SnsClient sns = mock(SnsClient.class);
+        ReflectionTestUtils.setField(publisher, "snsClient", sns);
+        when(sns.publishBatch(any(PublishBatchRequest.class))).thenAnswer(inv -> allSuccessful(inv.getArgument(0)));
+
+        String large = "x".repeat(100 * 1024);
+        List<SnsMessage> messages = List.of(
+                new SnsMessage(null, large), new SnsMessage(null, large), new SnsMessage(null, large));
+
+        // When
+        List<Boolean> results = publisher.publishBatch(messages);
+
+        // Then
+        assertEquals(List.of(true, true, true), results);
+        ArgumentCaptor<PublishBatchRequest> captor = ArgumentCaptor.forClass(PublishBatchRequest.class);
+        verify(sns, times(2)).publishBatch(captor.capture());
+        assertEquals(2, captor.getAllValues().get(0).publishBatchRequestEntries().size());
+        assertEquals(1, captor.getAllValues().get(1).publishBatchRequestEntries().size());
+    }
+
+    @Test
+    @DisplayName("publishBatch: per-entry failures, blank and oversized messages are reported in input order")
+    void publishBatchReportsPerEntryOutcome() {
+        // Given: SNS rejects entry "2"
+        SnsPublisher publisher = new SnsPublisher(configuredProps());
+        SnsClient sns = mock(SnsClient.class);
+        ReflectionTestUtils.setField(publisher, "snsClient", sns);
+        when(sns.publishBatch(any(PublishBatchRequest.class))).thenReturn(PublishBatchResponse.builder()
+                .successful(PublishBatchResultEntry.builder().id("0").messageId("m0").build())
+                .failed(BatchResultErrorEntry.builder().id("2").code("InternalError").senderFault(false).build())
+                .build());
+
+        List<SnsMessage> messages = List.of(
+                new SnsMessage("Sub", "ok"),
+                new SnsMessage("Sub", "  "),
+                new SnsMessage("Sub", "rejected"),
+                new SnsMessage("Sub", "y".repeat(SnsPublisher.MAX_BATCH_PAYLOAD_BYTES + 1)));
+
+        // When
+        List<Boolean> results = publisher.publishBatch(messages);
+
+        // Then: only the valid entries were sent, in a single request
+        assertEquals(List.of(true, false, false, false), results);
+        ArgumentCaptor<PublishBatchRequest> captor = ArgumentCaptor.forClass(PublishBatchRequest.class);
+        verify(sns, times(1)).publishBatch(captor.capture());
+        List<PublishBatchRequestEntry> entries = captor.getValue().publishBatchRequestEntries();
+        assertEquals(List.of("0", "2"), entries.stream().map(PublishBatchRequestEntry::id).toList());
+        assertEquals("Sub", entries.get(0).subject());
+    }
+
+    @Test
+    @DisplayName("publishBatch: SNS client throws -> every entry of that request is false")
+    void publishBatchExceptionPath() {
+        // Given
+        SnsPublisher publisher = new SnsPublisher(configuredProps());
+        SnsClient sns = mock(SnsClient.class);
+        ReflectionTestUtils.setField(publisher, "snsClient", sns);
+        when(sns.publishBatch(any(PublishBatchRequest.class))).thenThrow(new RuntimeException("boom"));
+
+        // When
+        List<Boolean> results = publisher.publishBatch(List.of(new SnsMessage("S", "a"), new SnsMessage("S", "b")));
+
+        // Then
+        assertEquals(List.of(false, false), results);
+    }
+
+    @Test
+    @DisplayName("publishBatch: not configured -> all false, empty input -> empty result")
+    void publishBatchNotConfigured() {
+        SnsPublisher publisher = new SnsPublisher(new SnsProperties());
+
+        assertEquals(List.of(false), publisher.publishBatch(List.of(new SnsMessage("S", "Body"))));
+        assertTrue(publisher.publishBatch(List.of()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("constructor: async mode -> builds SnsAsyncClient instead of SnsClient")
+    void asyncModeBuildsAsyncClient() {
+        // Given
+        SnsProperties props = configuredProps();
+        props.setAsync(true);
+
+        // When
+        SnsPublisher publisher = new SnsPublisher(props);
+
+        // Then
+        assertTrue(publisher.isAsync());
+        assertNull(ReflectionTestUtils.getField(publisher, "snsClient"));
+        assertNotNull(ReflectionTestUtils.getField(publisher, "snsAsyncClient"));
+    }
+
+    @Test
+    @DisplayName("constructor: selected HTTP client -> client is built; unsupported or missing ones fall back to the SDK default")
+    void httpClientSelection() {
+        for (SnsProperties.HttpClient httpClient : SnsProperties.HttpClient.values()) {
+            for (boolean async : new boolean[]{false, true}) {
+                // Given
+                SnsProperties props = configuredProps();
+                props.setHttpClient(httpClient);
+                props.setAsync(async);
+                props.setConnectionTtl(Duration.ofMinutes(5));
+
+                // When
+                SnsPublisher publisher = new SnsPublisher(props);
+
+                // Then
+                assertNotNull(ReflectionTestUtils.getField(publisher, async ? "snsAsyncClient" : "snsClient"),
+                        httpClient + (async ? " async" : " sync"));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("publishAsync: sync mode -> publishes immediately and returns a completed future")
+    void publishAsyncInSyncModeCompletesImmediately() {
+        // Given
+        SnsPublisher publisher = new SnsPublisher(configuredProps());
+        SnsClient sns = mock(SnsClient.class);
+        ReflectionTestUtils.setField(publisher, "snsClient", sns);
+        when(sns.publish(any(PublishRequest.class)))
+                .thenReturn(PublishResponse.builder().messageId("mid-4").build());
+
+        // When
+        CompletableFuture<Boolean> future = publisher.publishAsync("Sub", "Body");
+
+        // Then
+        assertTrue(future.isDone());
+        assertTrue(future.join());
+        verify(sns, times(1)).publish(any(PublishRequest.class));
+    }
+
+    @Test
+    @DisplayName("publishAsync: async client -> completes when SNS answers, failures complete with false")
+    void publishAsyncUsesAsyncClient() {
+        // Given
+        SnsPublisher publisher = new SnsPublisher(configuredProps());
+        SnsAsyncClient sns = mock(SnsAsyncClient.class);
+        ReflectionTestUtils.setField(publisher, "snsAsyncClient", sns);
+        CompletableFuture<PublishResponse> pending = new CompletableFuture<>();
+        when(sns.publish(any(PublishRequest.class)))
+                .thenReturn(pending)
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("boom")));
+
+        // When
+        CompletableFuture<Boolean> first = publisher.publishAsync("Sub", "Body");
+        CompletableFuture<Boolean> second = publisher.publishAsync("Sub", "Body");
+
+        // Then: the first call does not wait on SNS, the failed one maps to false
+        assertFalse(first.isDone());
+        pending.complete(PublishResponse.builder().messageId("mid-5").build());
+        assertTrue(first.join());
+        assertFalse(second.join());
+    }
+
+    @Test
+    @DisplayName("publishBatchAsync: all PublishBatch requests are dispatched before any completes")
+    void publishBatchAsyncDispatchesConcurrently() {
+        // Given: SNS answers only after both requests were sent
+        SnsPublisher publisher = new SnsPublisher(configuredProps());
+        SnsAsyncClient sns = mock(SnsAsyncClient.class);
+        ReflectionTestUtils.setField(publisher, "snsAsyncClient", sns);
+        List<CompletableFuture<PublishBatchResponse>> pending = new ArrayList<>();
+        List<PublishBatchRequest> sent = new ArrayList<>();
+        when(sns.publishBatch(any(PublishBatchRequest.class))).thenAnswer(inv -> {
+            CompletableFuture<PublishBatchResponse> f = new CompletableFuture<>();
+            pending.add(f);
+            sent.add(inv.getArgument(0));
+            return f;
+        });
+
+        List<SnsMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            messages.add(new SnsMessage("Sub", "Body " + i));
+        }
+
+        // When
+        CompletableFuture<List<Boolean>> future = publisher.publishBatchAsync(messages);
+
+        // Then
+        assertEquals(2, pending.size());
+        assertFalse(future.isDone());
+        pending.get(1).complete(allSuccessful(sent.get(1)));
+        pending.get(0).completeExceptionally(new RuntimeException("boom"));
+        List<Boolean> results = future.join();
+        assertEquals(12, results.size());
+        assertTrue(results.subList(0, 10).stream().noneMatch(Boolean.TRUE::equals));
+        assertEquals(List.of(true, true), results.subList(10, 12));
+    }
+
+    @Test
+    @DisplayName("reconnect: replaces the client and closes the previous one (SnapStart restore)")
+    void reconnectReplacesClient() {
+        // Given
+        SnsPublisher publisher = new SnsPublisher(configuredProps());
+        SnsClient previous = mock(SnsClient.class);
+        ReflectionTestUtils.setField(publisher, "snsClient", previous);
+
+        // When
+        publisher.reconnect();
+
+        // Then
+        Object current = ReflectionTestUtils.getField(publisher, "snsClient");
+        assertNotNull(current);
+        assertNotSame(previous, current);
+        verify(previous, times(1)).close();
+    }
+
+    @Test
+    @DisplayName("prime/reconnect: not configured -> no client is built and nothing is sent")
+    void primeAndReconnectNotConfigured() {
+        // Given
+        SnsPublisher publisher = new SnsPublisher(new SnsProperties());
+
+        // When
+        publisher.prime();
+        publisher.reconnect();
+
+        // Then
+        assertNull(ReflectionTestUtils.getField(publisher, "snsClient"));
+        assertNull(ReflectionTestUtils.getField(publisher, "snsAsyncClient"));
+    }
+
+    @Test
+    @DisplayName("publish: 5xx then success -> retried, request carries the attempt timeout")
+    void publishRetriesTransientFailure() {
+        // Given
+        SnsProperties props = configuredProps();
+        props.setBackoff(Duration.ofMillis(1));
+        SnsPublisher publisher = new SnsPublisher(props);
+        SnsClient sns = mock(SnsClient.class);
+        ReflectionTestUtils.setField(publisher, "snsClient", sns);
+        when(sns.publish(any(PublishRequest.class)))
+                .thenThrow(AwsServiceException.builder().statusCode(503).message("unavailable").build())
+                .thenReturn(PublishResponse.builder().messageId("mid-6").build());
+
+        // When
+        boolean ok = publisher.publish("Sub", "Body");
+
+        // Then
+        assertTrue(ok);
+        ArgumentCaptor<PublishRequest> captor = ArgumentCaptor.forClass(PublishRequest.class);
+        verify(sns, times(2)).publish(captor.capture());
+        Duration timeout = captor.getValue().overrideConfiguration().orElseThrow().apiCallTimeout().orElseThrow();
+        assertTrue(timeout.compareTo(props.getAttemptTimeout()) <= 0);
+    }
+
+    @Test
+    @DisplayName("publish: 4xx answer -> not retried")
+    void publishDoesNotRetryClientErrors() {
+        // Given
+        SnsPublisher publisher = new SnsPublisher(configuredProps());
+        SnsClient sns = mock(SnsClient.class);
+        ReflectionTestUtils.setField(publisher, "snsClient", sns);
+        when(sns.publish(any(PublishRequest.class)))
+                .thenThrow(AwsServiceException.builder().statusCode(400).message("invalid parameter").build());
+
+        // When / Then
+        assertFalse(publisher.publish("Sub", "Body"));
+        verify(sns, times(1)).publish(any(PublishRequest.class));
+    }
+
+    @Test
+    @DisplayName("publish: circuit opens after consecutive failures -> further calls fail fast without calling SNS")
+    void publishFailsFastWhileCircuitOpen() {
+        // Given
+        SnsProperties props = configuredProps();
+        props.setMaxAttempts(1);
+        props.setCircuitFailureThreshold(2);
+        SnsPublisher publisher = new SnsPublisher(props);
+        SnsClient sns = mock(SnsClient.class);
+        ReflectionTestUtils.setField(publisher, "snsClient", sns);
+        when(sns.publish(any(PublishRequest.class))).thenThrow(SdkClientException.create("connection reset"));
+
+        // When
+        assertFalse(publisher.publish("Sub", "first"));
+        assertFalse(publisher.publish("Sub", "second"));
+        boolean third = publisher.publish("Sub", "third");
+        List<Boolean> batch = publisher.publishBatch(List.of(new SnsMessage("Sub", "fourth")));
+
+        // Then
+        assertFalse(third);
+        assertEquals(List.of(false), batch);
+        assertEquals(CircuitBreaker.State.OPEN, publisher.circuitState());
+        verify(sns, times(2)).publish(any(PublishRequest.class));
+        verify(sns, never()).publishBatch(any(PublishBatchRequest.class));
+    }
+
+    @Test
+    @DisplayName("deliverBatch: refused requests and sender faults are rejected; transient failures and server faults are unavailable")
+    void deliverBatchClassifiesFailures() {
+        // Given: one request per topic
+        SnsProperties props = configuredProps();
+        props.setMaxAttempts(1);
+        SnsPublisher publisher = new SnsPublisher(props);
+        SnsClient sns = mock(SnsClient.class);
+        ReflectionTestUtils.setField(publisher, "snsClient", sns);
+        String deleted = "arn:aws:sns:eu-west-1:123456789012:deleted";
+        String partial = "arn:aws:sns:eu-west-1:123456789012:partial";
+        when(sns.publishBatch(any(PublishBatchRequest.class))).thenAnswer(inv -> {
+            PublishBatchRequest request = inv.getArgument(0);
+            if (deleted.equals(request.topicArn())) {
+                throw AwsServiceException.builder().statusCode(404).message("topic does not exist").build();
+            }
+            if (partial.equals(request.topicArn())) {
+                return PublishBatchResponse.builder()
+                        .failed(BatchResultErrorEntry.builder().id("2").code("InvalidParameter").senderFault(true).build(),
+                                BatchResultErrorEntry.builder().id("3").code("InternalError").senderFault(false).build())
+                        .build();
+            }
+            throw SdkClientException.create("connection reset");
+        });
+
+        // When
+        List<SnsPublisher.Delivery> results = publisher.deliverBatch(List.of(
+                new SnsMessage("S", "a", deleted),
+                new SnsMessage("S", "b"),
+                new SnsMessage("S", "c", partial),
+                new SnsMessage("S", "d", partial),
+                new SnsMessage("S", " ")));
+
+        // Then
+        assertEquals(List.of(SnsPublisher.Delivery.REJECTED, SnsPublisher.Delivery.UNAVAILABLE,
+                SnsPublisher.Delivery.REJECTED, SnsPublisher.Delivery.UNAVAILABLE, SnsPublisher.Delivery.REJECTED), results);
+    }
+
+    @Test
+    @DisplayName("publish: invocation about to time out -> gives up without calling SNS")
+    void publishRespectsInvocationDeadline() {
+        // Given: 100 ms left, 500 ms margin
+        SnsPublisher publisher = new SnsPublisher(configuredProps());
+        SnsClient sns = mock(SnsClient.class);
+        ReflectionTestUtils.setField(publisher, "snsClient", sns);
+        InvocationDeadline.set(System.nanoTime() + 100_000_000L);
+
+        // When
+        boolean ok;
+        try {
+            ok = publisher.publish("Sub", "Body");
+        } finally {
+            InvocationDeadline.clear();
+        }
+
+        // Then
+        assertFalse(ok);
+        verify(sns, never()).publish(any(PublishRequest.class));
+    }
+
+    @Test
+    @DisplayName("publishAsync: throttled then success -> retried after a backoff without blocking the caller")
+    void publishAsyncRetriesThrottling() {
+        // Given
+        SnsProperties props = configuredProps();
+        props.setThrottlingBackoff(Duration.ofMillis(2));
+        SnsPublisher publisher = new SnsPublisher(props);
+        SnsAsyncClient sns = mock(SnsAsyncClient.class);
+        ReflectionTestUtils.setField(publisher, "snsAsyncClient", sns);
+        when(sns.publish(any(PublishRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(AwsServiceException.builder().statusCode(429).build()))
+                .thenReturn(CompletableFuture.completedFuture(PublishResponse.builder().messageId("mid-7").build()));
+
+        // When
+        boolean ok = publisher.publishAsync("Sub", "Body").join();
+
+        // Then
+        assertTrue(ok);
+        verify(sns, times(2)).publish(any(PublishRequest.class));
+        assertEquals(CircuitBreaker.State.CLOSED, publisher.circuitState());
+    }
+
+    // Builds a response that acknowledges every entry of the request
+    private static PublishBatchResponse allSuccessful(PublishBatchRequest request) {
+        List<PublishBatchResultEntry> ok = request.publishBatchRequestEntries().stream()
+                .map(e -> PublishBatchResultEntry.builder().id(e.id()).messageId("mid-" + e.id()).build())
+                .toList();
+        return PublishBatchResponse.builder().successful(ok).build();
+    }
 }
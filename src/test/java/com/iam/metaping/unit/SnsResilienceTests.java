@@ -0,0 +1,153 @@
+package com.iam.metaping.unit;
+
+import com.iam.metaping.config.SnsProperties;
+import com.iam.metaping.service.CircuitBreaker;
+import com.iam.metaping.service.InvocationDeadline;
+import com.iam.metaping.service.SnsRetryPolicy;
+import com.iam.metaping.service.SnsRetryPolicy.Failure;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Running unit tests for the SNS circuit breaker and retry policy")
+class SnsResilienceTests {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @AfterEach
+    void clearDeadline() {
+        InvocationDeadline.clear();
+    }
+
+    @Test
+    @DisplayName("circuit: opens after the threshold of consecutive failures and refuses calls while open")
+    void circuitOpensAfterThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker(3, Duration.ofSeconds(10), clock::get);
+
+        assertFalse(breaker.onFailure());
+        breaker.onSuccess(); // resets the streak
+        assertFalse(breaker.onFailure());
+        assertFalse(breaker.onFailure());
+        assertTrue(breaker.onFailure(), "third failure in a row opens the circuit");
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("circuit: after the open duration one probe passes; its outcome closes or reopens the circuit")
+    void circuitHalfOpenProbe() {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofSeconds(10), clock::get);
+        breaker.onFailure();
+
+        clock.addAndGet(10 * SECOND);
+        assertTrue(breaker.tryAcquire(), "probe");
+        assertFalse(breaker.tryAcquire(), "only one probe at a time");
+        assertTrue(breaker.onFailure(), "failed probe reopens");
+        assertFalse(breaker.tryAcquire());
+
+        clock.addAndGet(10 * SECOND);
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("circuit: threshold 0 disables the breaker")
+    void circuitDisabled() {
+        CircuitBreaker breaker = new CircuitBreaker(0, Duration.ofSeconds(10), clock::get);
+        for (int i = 0; i < 100; i++) {
+            assertFalse(breaker.onFailure());
+        }
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("classify: throttling, 5xx and client errors are retryable; other answers and unknown errors are not")
+    void classifiesFailures() {
+        AwsServiceException throttledByCode = AwsServiceException.builder().statusCode(400)
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode("Throttling").build()).build();
+
+        assertEquals(Failure.THROTTLED, SnsRetryPolicy.classify(throttledByCode));
+        assertEquals(Failure.THROTTLED, SnsRetryPolicy.classify(AwsServiceException.builder().statusCode(429).build()));
+        assertEquals(Failure.TRANSIENT, SnsRetryPolicy.classify(AwsServiceException.builder().statusCode(503).build()));
+        assertEquals(Failure.TRANSIENT, SnsRetryPolicy.classify(new CompletionException(SdkClientException.create("reset"))));
+        assertEquals(Failure.PERMANENT, SnsRetryPolicy.classify(AwsServiceException.builder().statusCode(403).build()));
+        assertEquals(Failure.PERMANENT, SnsRetryPolicy.classify(new IllegalStateException("boom")));
+    }
+
+    @Test
+    @DisplayName("deadline: call timeout, capped by the invocation deadline minus the margin")
+    void deadlineFromInvocation() {
+        SnsProperties props = new SnsProperties();
+        props.setCallTimeout(Duration.ofSeconds(6));
+        props.setAttemptTimeout(Duration.ofSeconds(2));
+        props.setDeadlineMargin(Duration.ofMillis(500));
+        SnsRetryPolicy policy = new SnsRetryPolicy(props, clock::get);
+
+        assertEquals(6 * SECOND, policy.deadline());
+        assertEquals(Duration.ofSeconds(2), policy.attemptTimeout(policy.deadline()));
+
+        InvocationDeadline.set(clock.get() + SECOND);
+        long deadline = policy.deadline();
+        assertEquals(SECOND / 2, deadline);
+        assertEquals(Duration.ofMillis(500), policy.attemptTimeout(deadline));
+
+        clock.set(deadline);
+        assertNull(policy.attemptTimeout(deadline), "no time left for another attempt");
+    }
+
+    @Test
+    @DisplayName("backoff: bounded by attempts and the deadline; throttled retries wait at least half the cap")
+    void backoffDecisions() {
+        SnsProperties props = new SnsProperties();
+        props.setMaxAttempts(3);
+        props.setBackoff(Duration.ofMillis(100));
+        props.setThrottlingBackoff(Duration.ofMillis(400));
+        SnsRetryPolicy policy = new SnsRetryPolicy(props, clock::get);
+        long farDeadline = 60 * SECOND;
+
+        long transientBackoff = policy.backoffNanos(Failure.TRANSIENT, 2, farDeadline);
+        assertTrue(transientBackoff >= 0 && transientBackoff <= 200_000_000L, "full jitter up to base * 2");
+        long throttledBackoff = policy.backoffNanos(Failure.THROTTLED, 1, farDeadline);
+        assertTrue(throttledBackoff >= 200_000_000L && throttledBackoff <= 400_000_000L, "equal jitter");
+
+        assertEquals(-1L, policy.backoffNanos(Failure.TRANSIENT, 3, farDeadline), "attempts exhausted");
+        assertEquals(-1L, policy.backoffNanos(Failure.PERMANENT, 1, farDeadline), "never retried");
+        assertEquals(-1L, policy.backoffNanos(Failure.THROTTLED, 1, 150_000_000L), "backoff would pass the deadline");
+    }
+
+    @Test
+    @DisplayName("retry budget: sustained failures exhaust it, successful calls refill it")
+    void retryBudget() {
+        SnsRetryPolicy policy = new SnsRetryPolicy(new SnsProperties(), clock::get);
+        long farDeadline = 60 * SECOND;
+
+        int retries = 0;
+        while (policy.backoffNanos(Failure.TRANSIENT, 1, farDeadline) >= 0) {
+            retries++;
+        }
+        assertEquals(20, retries);
+        assertEquals(0, policy.retryTokens());
+
+        for (int i = 0; i < 5; i++) {
+            policy.onSuccess();
+        }
+        assertTrue(policy.backoffNanos(Failure.TRANSIENT, 1, farDeadline) >= 0);
+    }
+}
@@ -0,0 +1,219 @@
+package com.iam.metaping.unit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iam.metaping.config.SnsProperties;
+import com.iam.metaping.function.MetaPingFunction;
+import com.iam.metaping.model.S3ObjectRecord;
+import com.iam.metaping.service.InvocationTrace;
+import com.iam.metaping.service.OtlpJsonWriter;
+import com.iam.metaping.service.SnsMessage;
+import com.iam.metaping.service.SnsPublisher;
+import com.iam.metaping.service.Span;
+import com.iam.metaping.service.Tracer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.slf4j.MDC;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.sns.SnsClient;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequest;
+import software.amazon.awssdk.services.sns.model.PublishBatchResponse;
+import software.amazon.awssdk.services.sns.model.PublishBatchResultEntry;
+import software.amazon.awssdk.services.sns.model.PublishRequest;
+import software.amazon.awssdk.services.sns.model.PublishResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.iam.metaping.unit.helpers.MetaPingFunctionBuilder.function;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Running unit tests for trace ids and phase spans")
+class TracingTests {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final List<List<Span>> traces = new ArrayList<>();
+    private final Tracer tracer = new Tracer(traces::add, 64);
+
+    @AfterEach
+    void clearTrace() {
+        InvocationTrace.clear();
+    }
+
+    @Test
+    @DisplayName("function: one trace per call, named after the S3 request id, with nested phase spans")
+    void functionRecordsPhaseSpans() {
+        // Given
+        MetaPingFunction function = function().tracer(tracer).build();
+        S3ObjectRecord record = new S3ObjectRecord("bucket", "a%20b.txt", 10L, null, null, null, null, "C3D13FE58DE4C810");
+
+        // When
+        function.process(List.of(record));
+
+        // Then
+        assertEquals(1, traces.size());
+        List<Span> spans = traces.get(0);
+        assertEquals(List.of("metaping.decode", "metaping.mime", "metaping.extract", "metaping.process"),
+                spans.stream().map(Span::name).toList());
+        Span extract = spans.get(2);
+        Span root = spans.get(3);
+        assertEquals(extract.spanId(), spans.get(0).parentSpanId());
+        assertEquals(root.spanId(), extract.parentSpanId());
+        assertNull(root.parentSpanId());
+        assertEquals("C3D13FE58DE4C810", root.correlationId());
+        assertTrue(spans.stream().allMatch(span -> span.traceId().equals(root.traceId())));
+        assertTrue(root.durationNanos() >= extract.durationNanos());
+        assertNull(InvocationTrace.id(), "the trace id is gone once the call returns");
+        assertNull(MDC.get(InvocationTrace.MDC_KEY));
+    }
+
+    @Test
+    @DisplayName("trace id: an id already set on the thread (Lambda request id) wins and is kept afterwards")
+    void lambdaRequestIdWins() {
+        // Given
+        InvocationTrace.set("lambda-request-id", null);
+
+        // When
+        try (Span root = tracer.startTrace("metaping.process", "s3-request-id")) {
+            assertEquals("lambda-request-id", MDC.get(InvocationTrace.MDC_KEY));
+            InvocationTrace.span("child").close();
+        }
+
+        // Then
+        assertEquals("lambda-request-id", traces.get(0).get(1).correlationId());
+        assertEquals("lambda-request-id", InvocationTrace.id());
+        String traceId = traces.get(0).get(0).traceId();
+        assertEquals(32, traceId.length());
+        long startSeconds = Long.parseLong(traceId.substring(0, 8), 16);
+        assertTrue(Math.abs(System.currentTimeMillis() / 1000 - startSeconds) < 60, "X-Ray layout: epoch seconds first");
+    }
+
+    @Test
+    @DisplayName("disabled tracer: ids are still assigned, children are no-ops and nothing is exported")
+    void disabledTracerRecordsNothing() {
+        try (Span root = Tracer.disabled().startTrace("metaping.process", "id-1")) {
+            assertEquals("id-1", InvocationTrace.id());
+            assertSame(Span.NOOP, InvocationTrace.span("child"));
+        }
+        assertNull(InvocationTrace.id());
+    }
+
+    @Test
+    @DisplayName("priming copy: same pipeline with spans recorded but never exported")
+    void primingCopyDoesNotExport() {
+        // Given
+        MetaPingFunction function = function().tracer(tracer).build();
+
+        // When
+        String result = function.forPriming().process(List.of(new S3ObjectRecord(null, "a.txt", 1L, null, null, null, null)));
+
+        // Then
+        assertTrue(result.contains("\"type\":\"text/plain\""), result);
+        assertTrue(traces.isEmpty());
+        assertTrue(tracer.withoutExport().isRecording());
+        assertSame(Tracer.disabled(), Tracer.disabled().withoutExport());
+    }
+
+    @Test
+    @DisplayName("max spans: spans beyond the limit are dropped and counted on the root")
+    void spansBeyondLimitAreDropped() throws Exception {
+        // Given
+        Tracer small = new Tracer(traces::add, 3);
+
+        // When
+        try (Span root = small.startTrace("root", null)) {
+            for (int i = 0; i < 5; i++) {
+                InvocationTrace.span("child-" + i).close();
+            }
+        }
+
+        // Then
+        List<Span> spans = traces.get(0);
+        assertEquals(3, spans.size());
+        JsonNode rootAttributes = MAPPER.readTree(OtlpJsonWriter.write("meta-ping", spans))
+                .at("/resourceSpans/0/scopeSpans/0/spans/2/attributes/0");
+        assertEquals("metaping.dropped_spans", rootAttributes.path("key").asText());
+        assertEquals("3", rootAttributes.path("value").path("stringValue").asText());
+    }
+
+    @Test
+    @DisplayName("otlp json: ids, times, attributes and error status in the OTLP/JSON layout")
+    void otlpJsonLayout() throws Exception {
+        // Given
+        try (Span root = tracer.startTrace("metaping.process", "id-1")) {
+            root.startChild("SNS.Publish").attribute("metaping.attempt", 1).error("SdkClientException").end();
+        }
+
+        // When
+        JsonNode json = MAPPER.readTree(OtlpJsonWriter.write("meta-ping", traces.get(0)));
+
+        // Then
+        JsonNode resource = json.at("/resourceSpans/0/resource/attributes/0");
+        assertEquals("service.name", resource.path("key").asText());
+        assertEquals("meta-ping", resource.path("value").path("stringValue").asText());
+        JsonNode spans = json.at("/resourceSpans/0/scopeSpans/0/spans");
+        JsonNode child = spans.get(0);
+        JsonNode root = spans.get(1);
+        assertEquals("SNS.Publish", child.path("name").asText());
+        assertEquals(root.path("spanId").asText(), child.path("parentSpanId").asText());
+        assertEquals(16, child.path("spanId").asText().length());
+        assertEquals(2, child.path("status").path("code").asInt());
+        assertEquals("error.type", child.path("attributes").get(1).path("key").asText());
+        assertTrue(Long.parseLong(child.path("endTimeUnixNano").asText())
+                >= Long.parseLong(child.path("startTimeUnixNano").asText()));
+        assertTrue(root.path("parentSpanId").isMissingNode());
+    }
+
+    @Test
+    @DisplayName("publisher: the trace id travels as a message attribute; each attempt is a span")
+    void publisherPropagatesTraceId() {
+        // Given
+        SnsProperties props = new SnsProperties();
+        props.setTopicArn("arn:aws:sns:eu-west-1:123456789012:test-topic");
+        props.setRegion("eu-west-1");
+        props.setBackoff(Duration.ofMillis(1));
+        SnsPublisher publisher = new SnsPublisher(props);
+        SnsClient sns = mock(SnsClient.class);
+        ReflectionTestUtils.setField(publisher, "snsClient", sns);
+        when(sns.publish(any(PublishRequest.class)))
+                .thenThrow(AwsServiceException.builder().statusCode(503).build())
+                .thenReturn(PublishResponse.builder().messageId("mid-1").build());
+        when(sns.publishBatch(any(PublishBatchRequest.class))).thenReturn(PublishBatchResponse.builder()
+                .successful(PublishBatchResultEntry.builder().id("0").messageId("m-0").build())
+                .build());
+
+        // When
+        try (Span root = tracer.startTrace("metaping.process", "trace-42")) {
+            publisher.publish("Sub", "Body");
+            publisher.publishBatch(List.of(new SnsMessage("Sub", "one")));
+        }
+
+        // Then
+        ArgumentCaptor<PublishRequest> request = ArgumentCaptor.forClass(PublishRequest.class);
+        verify(sns, times(2)).publish(request.capture());
+        assertEquals("trace-42", request.getValue().messageAttributes().get(InvocationTrace.MESSAGE_ATTRIBUTE).stringValue());
+        ArgumentCaptor<PublishBatchRequest> batch = ArgumentCaptor.forClass(PublishBatchRequest.class);
+        verify(sns).publishBatch(batch.capture());
+        assertEquals("trace-42", batch.getValue().publishBatchRequestEntries().get(0)
+                .messageAttributes().get(InvocationTrace.MESSAGE_ATTRIBUTE).stringValue());
+
+        List<Span> spans = traces.get(0);
+        assertEquals(List.of("SNS.Publish", "SNS.Publish", "SNS.PublishBatch", "metaping.process"),
+                spans.stream().map(Span::name).toList());
+        assertEquals("AwsServiceException", spans.get(0).errorType());
+        assertNull(spans.get(1).errorType());
+    }
+}
@@ -0,0 +1,72 @@
+package com.iam.metaping.unit.helpers;
+
+import com.iam.metaping.function.MetaPingFunction;
+import com.iam.metaping.service.FanOutExecutor;
+import com.iam.metaping.service.MetaNotifier;
+import com.iam.metaping.service.MetaPingMetrics;
+import com.iam.metaping.service.MimeTypeResolver;
+import com.iam.metaping.service.NotificationDeduplicator;
+import com.iam.metaping.service.ObjectMetadataEnricher;
+import com.iam.metaping.service.Tracer;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Builds {@link MetaPingFunction}s for tests; collaborators left unset take the function's defaults
+ * (no notifier, sequential fan-out, built-in MIME table, everything else disabled).
+ */
+public final class MetaPingFunctionBuilder {
+
+    private ObjectProvider<MetaNotifier> notifier;
+    private FanOutExecutor fanOut;
+    private MimeTypeResolver mimeTypes;
+    private NotificationDeduplicator deduplicator;
+    private MetaPingMetrics metrics;
+    private Tracer tracer;
+    private ObjectMetadataEnricher enricher;
+
+    private MetaPingFunctionBuilder() {
+    }
+
+    public static MetaPingFunctionBuilder function() {
+        return new MetaPingFunctionBuilder();
+    }
+
+    public MetaPingFunctionBuilder notifier(ObjectProvider<MetaNotifier> notifier) {
+        this.notifier = notifier;
+        return this;
+    }
+
+    public MetaPingFunctionBuilder fanOut(FanOutExecutor fanOut) {
+        this.fanOut = fanOut;
+        return this;
+    }
+
+    public MetaPingFunctionBuilder mimeTypes(MimeTypeResolver mimeTypes) {
+        this.mimeTypes = mimeTypes;
+        return this;
+    }
+
+    public MetaPingFunctionBuilder deduplicator(NotificationDeduplicator deduplicator) {
+        this.deduplicator = deduplicator;
+        return this;
+    }
+
+    public MetaPingFunctionBuilder metrics(MetaPingMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    public MetaPingFunctionBuilder tracer(Tracer tracer) {
+        this.tracer = tracer;
+        return this;
+    }
+
+    public MetaPingFunctionBuilder enricher(ObjectMetadataEnricher enricher) {
+        this.enricher = enricher;
+        return this;
+    }
+
+    public MetaPingFunction build() {
+        return new MetaPingFunction(notifier, fanOut, mimeTypes, deduplicator, metrics, tracer, enricher);
+    }
+}